@@ -22,6 +22,8 @@ package com.openhtmltopdf.context;
 import org.w3c.dom.Element;
 
 import com.openhtmltopdf.css.extend.AttributeResolver;
+import com.openhtmltopdf.css.extend.StylesheetFactory;
+import com.openhtmltopdf.css.sheet.Ruleset;
 import com.openhtmltopdf.extend.NamespaceHandler;
 import com.openhtmltopdf.extend.UserAgentCallback;
 import com.openhtmltopdf.extend.UserInterface;
@@ -108,6 +110,16 @@ public class StandardAttributeResolver implements AttributeResolver {
         return nsh.getElementStyling((Element) e);
     }
 
+    @Override
+    public Ruleset getElementStylingRuleset(Object e, StylesheetFactory factory) {
+        return nsh.getElementStylingRuleset((Element) e, factory);
+    }
+
+    @Override
+    public Ruleset getNonCssStylingRuleset(Object e, StylesheetFactory factory) {
+        return nsh.getNonCssStylingRuleset((Element) e, factory);
+    }
+
     /**
      * Gets the lang attribute of the StandardAttributeResolver object
      *
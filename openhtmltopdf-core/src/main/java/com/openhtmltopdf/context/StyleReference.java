@@ -22,7 +22,10 @@ package com.openhtmltopdf.context;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.logging.Level;
 
 import com.openhtmltopdf.css.sheet.FontFaceRule;
@@ -41,6 +44,9 @@ import com.openhtmltopdf.css.sheet.PropertyDeclaration;
 import com.openhtmltopdf.css.sheet.Stylesheet;
 import com.openhtmltopdf.css.sheet.StylesheetInfo;
 import com.openhtmltopdf.css.style.CalculatedStyle;
+import com.openhtmltopdf.css.style.EmptyStyle;
+import com.openhtmltopdf.extend.FSCacheEx;
+import com.openhtmltopdf.extend.FSCacheValue;
 import com.openhtmltopdf.extend.NamespaceHandler;
 import com.openhtmltopdf.extend.UserAgentCallback;
 import com.openhtmltopdf.extend.UserInterface;
@@ -68,6 +74,29 @@ public class StyleReference {
     private com.openhtmltopdf.css.newmatch.Matcher _matcher;
 
     private UserAgentCallback _uac;
+
+    /**
+     * Resolved page styles by page name and pseudo page, for the current document.
+     */
+    private final Map<PageStyleKey, PageInfo> _pageStyles = new HashMap<>();
+
+    /**
+     * Parent of calculated page styles. Derived styles are cached by the parent,
+     * so pages with the same page style share a calculated style.
+     */
+    private CalculatedStyle _pageStyleParent = new EmptyStyle();
+
+    private int _pageStyleHits;
+    private int _pageStyleMisses;
+
+    /**
+     * The stylesheets and attribute resolver of the current document, kept to
+     * match later segments of a streamed document, see {@link #setSegmentDocument(Document)}.
+     */
+    private List<Stylesheet> _stylesheets;
+    private AttributeResolver _attRes;
+
+    private int _pageIndexOffset;
     
     public StyleReference(UserAgentCallback userAgent) {
         _uac = userAgent;
@@ -102,13 +131,51 @@ public class StyleReference {
         List<StylesheetInfo> infos = getStylesheets();
 
         XRLog.log(Level.INFO, LogMessageId.LogMessageId1Param.MATCH_MEDIA_IS, _context.getMedia());
-        
+
+        _attRes = attRes;
+        _stylesheets = readAndParseAll(infos, _context.getMedia());
+
         _matcher = new com.openhtmltopdf.css.newmatch.Matcher(
                 new DOMTreeResolver(), 
                 attRes, 
                 _stylesheetFactory, 
-                readAndParseAll(infos, _context.getMedia()), 
+                _stylesheets,
                 _context.getMedia());
+
+        _pageStyles.clear();
+        _pageStyleParent = new EmptyStyle();
+        _pageStyleHits = 0;
+        _pageStyleMisses = 0;
+        _pageIndexOffset = 0;
+    }
+
+    /**
+     * Replaces the document with another segment of the same document, such as the next
+     * segment of a streamed document. The segment must have the same head (and therefore
+     * stylesheets) as the document set with {@link #setDocumentContext(SharedContext, NamespaceHandler, Document, UserInterface)},
+     * which are not read again. Resolved page styles are kept.
+     */
+    public void setSegmentDocument(Document doc) {
+        _doc = doc;
+        _matcher = new com.openhtmltopdf.css.newmatch.Matcher(
+                new DOMTreeResolver(),
+                _attRes,
+                _stylesheetFactory,
+                _stylesheets,
+                _context.getMedia());
+    }
+
+    /**
+     * The number of pages output before the document being laid out, such as the pages
+     * of previous segments of a streamed document. Used to select the first, left and right page
+     * styles. Zero unless set after {@link #setDocumentContext(SharedContext, NamespaceHandler, Document, UserInterface)}.
+     */
+    public int getPageIndexOffset() {
+        return _pageIndexOffset;
+    }
+
+    public void setPageIndexOffset(int pageIndexOffset) {
+        _pageIndexOffset = pageIndexOffset;
     }
     
     private List<Stylesheet> readAndParseAll(List<StylesheetInfo> infos, String medium) {
@@ -206,8 +273,45 @@ public class StyleReference {
         return _matcher.getCSSForAllDescendants(e);
     }
 
+    /**
+     * Gets the cascaded page style for a named page and pseudo page (such as first, left or right),
+     * either of which may be null. Page styles are resolved once per document and then shared.
+     */
     public PageInfo getPageStyle(String pageName, String pseudoPage) {
-        return _matcher.getPageCascadedStyle(pageName, pseudoPage);
+        PageStyleKey key = new PageStyleKey(pageName, pseudoPage);
+        PageInfo pageInfo = _pageStyles.get(key);
+
+        if (pageInfo == null) {
+            _pageStyleMisses++;
+            pageInfo = _matcher.getPageCascadedStyle(pageName, pseudoPage);
+            _pageStyles.put(key, pageInfo);
+        } else {
+            _pageStyleHits++;
+        }
+
+        return pageInfo;
+    }
+
+    /**
+     * Gets the calculated style for a page style from {@link #getPageStyle(String, String)}.
+     * Pages with the same page style share the calculated style.
+     */
+    public CalculatedStyle getCalculatedPageStyle(PageInfo pageInfo) {
+        return _pageStyleParent.deriveStyle(pageInfo.getPageStyle());
+    }
+
+    /**
+     * @return the number of times {@link #getPageStyle(String, String)} was served from cache for this document.
+     */
+    public int getPageStyleCacheHits() {
+        return _pageStyleHits;
+    }
+
+    /**
+     * @return the number of times {@link #getPageStyle(String, String)} had to cascade page rules for this document.
+     */
+    public int getPageStyleCacheMisses() {
+        return _pageStyleMisses;
     }
 
     /**
@@ -267,4 +371,40 @@ public class StyleReference {
     public void setSupportCMYKColors(boolean b) {
         _stylesheetFactory.setSupportCMYKColors(b);
     }
+
+    /**
+     * @see StylesheetFactoryImpl#setStylesheetCache(FSCacheEx)
+     */
+    public void setStylesheetCache(FSCacheEx<String, FSCacheValue> cache) {
+        _stylesheetFactory.setStylesheetCache(cache);
+    }
+
+    /**
+     * The key of a resolved page style. Either part may be null, which is
+     * distinct from any name.
+     */
+    private static final class PageStyleKey {
+        private final String _pageName;
+        private final String _pseudoPage;
+
+        PageStyleKey(String pageName, String pseudoPage) {
+            _pageName = pageName;
+            _pseudoPage = pseudoPage;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof PageStyleKey)) {
+                return false;
+            }
+            PageStyleKey key = (PageStyleKey) other;
+            return Objects.equals(_pageName, key._pageName) &&
+                   Objects.equals(_pseudoPage, key._pseudoPage);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(_pageName, _pseudoPage);
+        }
+    }
 }
@@ -21,7 +21,9 @@ package com.openhtmltopdf.context;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.logging.Level;
 
@@ -30,9 +32,13 @@ import com.openhtmltopdf.css.parser.CSSParser;
 import com.openhtmltopdf.css.sheet.Ruleset;
 import com.openhtmltopdf.css.sheet.Stylesheet;
 import com.openhtmltopdf.css.sheet.StylesheetInfo;
+import com.openhtmltopdf.extend.FSCacheEx;
+import com.openhtmltopdf.extend.FSCacheValue;
 import com.openhtmltopdf.extend.UserAgentCallback;
 import com.openhtmltopdf.resource.CSSResource;
 import com.openhtmltopdf.util.LogMessageId;
+import com.openhtmltopdf.util.OpenUtil;
+import com.openhtmltopdf.util.ThreadCtx;
 import com.openhtmltopdf.util.XRLog;
 
 /**
@@ -60,8 +66,33 @@ public class StylesheetFactoryImpl implements StylesheetFactory {
      */
     private static final int MAX_STYLESHEET_INCLUDES = 10;
 
+    /**
+     * The maximum number of distinct style declarations (such as style attributes)
+     * kept parsed for this document.
+     */
+    private static final int MAX_CACHED_DECLARATIONS = 1024;
+
     private final CSSParser _cssParser;
 
+    private boolean _supportCMYKColors;
+
+    /**
+     * Optional cross-document cache of parsed stylesheets, may be null.
+     */
+    private FSCacheEx<String, FSCacheValue> _stylesheetCache;
+
+    /**
+     * Parsed style declarations of this document by cache key, least recently used first.
+     */
+    private final Map<String, Ruleset> _declarationCache = new LinkedHashMap<String, Ruleset>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Ruleset> eldest) {
+            return size() > MAX_CACHED_DECLARATIONS;
+        }
+    };
+
     public StylesheetFactoryImpl(UserAgentCallback userAgentCallback) {
         _userAgentCallback = userAgentCallback;
         _cssParser = new CSSParser((uri, message) -> {
@@ -92,6 +123,10 @@ public class StylesheetFactoryImpl implements StylesheetFactory {
                     return null;
                 }
 
+                if (_stylesheetCache != null) {
+                    return parseCached(OpenUtil.readAll(reader), info);
+                }
+
                 return parse(reader, info);
             }
 
@@ -101,8 +136,60 @@ public class StylesheetFactoryImpl implements StylesheetFactory {
         }
     }
 
+    /**
+     * Parsed stylesheets are cached by origin, uri and a hash of their content. As the
+     * hash could collide, the content is stored with the sheet and compared on retrieval.
+     */
+    private Stylesheet parseCached(String content, StylesheetInfo info) {
+        String key = "css:" + info.getOrigin() + ':' + (_supportCMYKColors ? "cmyk:" : "") +
+                     info.getUri() + ':' + content.length() + ':' + content.hashCode();
+
+        FSCacheValue cached = _stylesheetCache.get(key);
+
+        if (cached instanceof CachedStylesheet &&
+            ((CachedStylesheet) cached).content.equals(content)) {
+            return ((CachedStylesheet) cached).sheet;
+        }
+
+        Stylesheet sheet = parse(new StringReader(content), info);
+        _stylesheetCache.put(key, new CachedStylesheet(content, sheet));
+
+        return sheet;
+    }
+
+    /**
+     * Parses a style declaration such as the content of a style attribute. Templated documents
+     * repeat the same few declarations many times, so parsed declarations are cached for the
+     * document and also in the stylesheet cache if one is set. Callers must not modify the
+     * returned ruleset.
+     */
     public Ruleset parseStyleDeclaration(int origin, String styleDeclaration) {
-        return _cssParser.parseDeclaration(origin, styleDeclaration);
+        // Relative urls are resolved while parsing so the base url is part of the key.
+        String key = "decl:" + origin + ':' + (_supportCMYKColors ? "cmyk:" : "") +
+                     ThreadCtx.get().sharedContext().getBaseURL() + ':' + styleDeclaration;
+
+        Ruleset ruleset = _declarationCache.get(key);
+        if (ruleset != null) {
+            return ruleset;
+        }
+
+        if (_stylesheetCache != null) {
+            FSCacheValue cached = _stylesheetCache.get(key);
+            if (cached instanceof CachedDeclaration) {
+                ruleset = ((CachedDeclaration) cached).ruleset;
+            }
+        }
+
+        if (ruleset == null) {
+            ruleset = _cssParser.parseDeclaration(origin, styleDeclaration);
+
+            if (_stylesheetCache != null) {
+                _stylesheetCache.put(key, new CachedDeclaration(styleDeclaration, ruleset));
+            }
+        }
+
+        _declarationCache.put(key, ruleset);
+        return ruleset;
     }
 
     /**
@@ -134,6 +221,46 @@ public class StylesheetFactoryImpl implements StylesheetFactory {
     }
     
     public void setSupportCMYKColors(boolean b) {
+        _supportCMYKColors = b;
         _cssParser.setSupportCMYKColors(b);
     }
+
+    /**
+     * Sets a cache, which may be shared between documents and threads, for parsed
+     * linked and imported stylesheets and style declarations. Use null (the default) for no caching.
+     */
+    public void setStylesheetCache(FSCacheEx<String, FSCacheValue> cache) {
+        _stylesheetCache = cache;
+    }
+
+    private static class CachedStylesheet implements FSCacheValue {
+        private final String content;
+        private final Stylesheet sheet;
+
+        private CachedStylesheet(String content, Stylesheet sheet) {
+            this.content = content;
+            this.sheet = sheet;
+        }
+
+        @Override
+        public int weight() {
+            // Source text plus a (very) rough guess at the size of the parsed rules.
+            return content.length() * 2 * 4;
+        }
+    }
+
+    private static class CachedDeclaration implements FSCacheValue {
+        private final String content;
+        private final Ruleset ruleset;
+
+        private CachedDeclaration(String content, Ruleset ruleset) {
+            this.content = content;
+            this.ruleset = ruleset;
+        }
+
+        @Override
+        public int weight() {
+            return content.length() * 2 * 4;
+        }
+    }
 }
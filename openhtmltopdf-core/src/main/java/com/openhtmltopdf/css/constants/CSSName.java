@@ -386,6 +386,33 @@ public final class CSSName implements Comparable<CSSName> {
                     new PrimitivePropertyBuilders.FSTablePaginate()
             );
 
+    /**
+     * Whether table column widths are calculated from all rows (auto) or only the first rows
+     * of each row group (sampled), see {@link #FS_TABLE_LAYOUT_SAMPLE_ROWS}. All rows are
+     * still laid out and kept in memory either way.
+     */
+    public final static CSSName FS_TABLE_LAYOUT =
+            addProperty(
+                    "-fs-table-layout",
+                    PRIMITIVE,
+                    "auto",
+                    NOT_INHERITED,
+                    new PrimitivePropertyBuilders.FSTableLayout()
+            );
+
+    /**
+     * The number of rows in each row group used to calculate column widths
+     * with <code>-fs-table-layout: sampled</code>.
+     */
+    public final static CSSName FS_TABLE_LAYOUT_SAMPLE_ROWS =
+            addProperty(
+                    "-fs-table-layout-sample-rows",
+                    PRIMITIVE,
+                    "100",
+                    NOT_INHERITED,
+                    new PrimitivePropertyBuilders.FSTableLayoutSampleRows()
+            );
+
     /**
      * Unique CSSName instance for CSS2 property.
      */
@@ -159,6 +159,7 @@ public class IdentValue implements FSDerivedValue {
     public final static IdentValue RIGHT = addValue("right");
     public final static IdentValue RTL = addValue("rtl");
     public final static IdentValue RUN_IN = addValue("run-in");
+    public final static IdentValue SAMPLED = addValue("sampled");
     public final static IdentValue SCROLL = addValue("scroll");
     public final static IdentValue SEPARATE = addValue("separate");
     public final static IdentValue SHOW = addValue("show");
@@ -19,6 +19,7 @@
  */
 package com.openhtmltopdf.css.extend;
 
+import com.openhtmltopdf.css.sheet.Ruleset;
 
 /**
  * In XML, an application may or may not know how to find the ID and/or class
@@ -81,6 +82,26 @@ public interface AttributeResolver {
      */
     public String getElementStyling(Object e);
 
+    /**
+     * may return null
+     *
+     * @return The element styling as a ruleset that must not be modified, or null
+     *         to have {@link #getElementStyling(Object)} parsed with factory
+     */
+    default Ruleset getElementStylingRuleset(Object e, StylesheetFactory factory) {
+        return null;
+    }
+
+    /**
+     * may return null
+     *
+     * @return The non css styling as a ruleset that must not be modified, or null
+     *         to have {@link #getNonCssStyling(Object)} parsed with factory
+     */
+    default Ruleset getNonCssStylingRuleset(Object e, StylesheetFactory factory) {
+        return null;
+    }
+
     /**
      * may return null
      *
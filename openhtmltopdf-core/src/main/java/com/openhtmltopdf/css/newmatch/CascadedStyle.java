@@ -62,6 +62,11 @@ public class CascadedStyle {
     private final Map<CSSName, PropertyDeclaration> cascadedProperties;
 
     private String fingerprint;
+
+    /**
+     * Structural hash of the cascaded properties, see {@link #equals(Object)}.
+     */
+    private long hash;
     
     /**
      * Constructs a new CascadedStyle, given an {@link java.util.Iterator} of
@@ -79,6 +84,7 @@ public class CascadedStyle {
         this();
 
         addProperties(iter);
+        hash = computeHash();
     }
     
     /**
@@ -126,6 +132,7 @@ public class CascadedStyle {
         cascadedProperties = new TreeMap<>(startingPoint.cascadedProperties);
 
         addProperties(props);
+        hash = computeHash();
     }
 
     /**
@@ -135,6 +142,15 @@ public class CascadedStyle {
      */
     private CascadedStyle() {
         cascadedProperties = new TreeMap<>();
+        hash = computeHash();
+    }
+
+    private long computeHash() {
+        long h = cascadedProperties.size();
+        for (PropertyDeclaration decl : cascadedProperties.values()) {
+            h = (h ^ decl.getStructuralHash()) * 0x100000001b3L;
+        }
+        return h;
     }
 
     /**
@@ -235,6 +251,44 @@ public class CascadedStyle {
 
     public int countAssigned() { return cascadedProperties.size(); }
 
+    /**
+     * Two cascaded styles are equal if they have equivalent declarations for the same properties,
+     * so that they derive the same calculated style from a given parent style.
+     * The comparison is by a precomputed hash first.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof CascadedStyle)) {
+            return false;
+        }
+
+        CascadedStyle other = (CascadedStyle) obj;
+
+        if (hash != other.hash || cascadedProperties.size() != other.cascadedProperties.size()) {
+            return false;
+        }
+
+        Iterator<PropertyDeclaration> otherDecls = other.cascadedProperties.values().iterator();
+        for (PropertyDeclaration decl : cascadedProperties.values()) {
+            if (!decl.isEquivalent(otherDecls.next())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * A string with the same equality as {@link #equals(Object)}, which should be preferred.
+     */
     public String getFingerprint() {
         if (this.fingerprint == null) {
             StringBuilder sb = new StringBuilder();
@@ -39,6 +39,20 @@ abstract class Condition {
     abstract boolean matches(Object e, AttributeResolver attRes, TreeResolver treeRes);
     abstract void toCSS(StringBuilder sb);
 
+    /**
+     * @return the id an element must have to match this condition or null.
+     */
+    String getRequiredID() {
+        return null;
+    }
+
+    /**
+     * @return a class an element must have to match this condition or null.
+     */
+    String getRequiredClass() {
+        return null;
+    }
+
     /**
      * the CSS condition [attribute]
      *
@@ -396,7 +410,12 @@ abstract class Condition {
         @Override
         public void toCSS(StringBuilder sb) {
             sb.append('.');
-            sb.append(_paddedClassName.substring(1, _paddedClassName.length() - 1));
+            sb.append(getRequiredClass());
+        }
+
+        @Override
+        String getRequiredClass() {
+            return _paddedClassName.substring(1, _paddedClassName.length() - 1);
         }
     }
 
@@ -424,6 +443,11 @@ abstract class Condition {
             sb.append('#');
             sb.append(_id);
         }
+
+        @Override
+        String getRequiredID() {
+            return _id;
+        }
     }
 
     private static class LangCondition extends Condition {
@@ -22,9 +22,10 @@ package com.openhtmltopdf.css.newmatch;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -175,19 +176,23 @@ public class Matcher {
         return new Mapper(sorter.values());
     }
     
+    /**
+     * Note: Stylesheets may be shared between documents (and threads) so we must not
+     * store the specification order on the selectors or page rules themselves.
+     */
     private void addAllStylesheets(List<Stylesheet> stylesheets, TreeMap<String, Selector> sorter, String medium) {
+        TreeMap<Long, PageRule> pageSorter = new TreeMap<>();
         int count = 0;
         int pCount = 0;
         for (Stylesheet stylesheet : stylesheets) {
             for (Object obj : stylesheet.getContents()) {
                 if (obj instanceof Ruleset) {
                     for (Selector selector : ((Ruleset) obj).getFSSelectors()) {
-                        selector.setPos(++count);
-                        sorter.put(selector.getOrder(), selector);
+                        sorter.put(selector.getOrder(++count), selector);
                     }
                 } else if (obj instanceof PageRule) {
-                    ((PageRule) obj).setPos(++pCount);
-                    _pageRules.add((PageRule) obj);
+                    PageRule pageRule = (PageRule) obj;
+                    pageSorter.put(pageRule.getOrder(++pCount), pageRule);
                 } else if (obj instanceof MediaRule) {
                     MediaRule mediaRule = (MediaRule) obj;
                     if (mediaRule.matches(medium)) {
@@ -195,8 +200,7 @@ public class Matcher {
                             Ruleset ruleset = (Ruleset) o;
                             for (Object o1 : ruleset.getFSSelectors()) {
                                 Selector selector = (Selector) o1;
-                                selector.setPos(++count);
-                                sorter.put(selector.getOrder(), selector);
+                                sorter.put(selector.getOrder(++count), selector);
                             }
                         }
                     }
@@ -205,19 +209,8 @@ public class Matcher {
 
             _fontFaceRules.addAll(stylesheet.getFontFaceRules());
         }
-        
-        Collections.sort(_pageRules, new Comparator<PageRule>() {
-            @Override
-            public int compare(PageRule p1, PageRule p2) {
-                if (p1.getOrder() - p2.getOrder() < 0) {
-                    return -1;
-                } else if (p1.getOrder() == p2.getOrder()) {
-                    return 0;
-                } else {
-                    return 1;
-                }
-            }
-        });
+
+        _pageRules.addAll(pageSorter.values());
     }
 
     private void link(Object e, Mapper m) {
@@ -243,6 +236,11 @@ public class Matcher {
                 return null;
             }
             
+            com.openhtmltopdf.css.sheet.Ruleset ruleset = _attRes.getElementStylingRuleset(e, _styleFactory);
+            if (ruleset != null) {
+                return ruleset.getPropertyDeclarations().isEmpty() ? null : ruleset;
+            }
+
             String style = _attRes.getElementStyling(e);
             if (isNullOrEmpty(style)) {
                 return null;
@@ -257,6 +255,11 @@ public class Matcher {
             if (_attRes == null || _styleFactory == null) {
                 return null;
             }
+            com.openhtmltopdf.css.sheet.Ruleset ruleset = _attRes.getNonCssStylingRuleset(e, _styleFactory);
+            if (ruleset != null) {
+                return ruleset.getPropertyDeclarations().isEmpty() ? null : ruleset;
+            }
+
             String style = _attRes.getNonCssStyling(e);
             if (isNullOrEmpty(style)) {
                 return null;
@@ -278,6 +281,31 @@ public class Matcher {
 
         private Map<String, Mapper> children;
 
+        /**
+         * Indices of the descendant axis selectors in axes, which are carried forward
+         * to every child. Created along with index on first use.
+         */
+        private int[] descendantAxes;
+
+        /**
+         * Null if there are too few selectors in axes to be worth indexing.
+         */
+        private SelectorIndex index;
+
+        /**
+         * Child mappers by element name and class attribute. Elements alike can share
+         * a child mapper without matching if every selector in axes only depends on
+         * these, as is common for table cells and list items. Otherwise null.
+         * Created along with index on first use.
+         */
+        private Map<String, Mapper> sharedChildren;
+
+        /**
+         * The cascaded style of elements mapped to this mapper that have no style
+         * attribute or non-CSS styling, shared between them. Created on first use.
+         */
+        private CascadedStyle sharedCascadedStyle;
+
         Mapper(Collection<Selector> selectors) {
             this.axes = new ArrayList<>(selectors);
             this.pseudoSelectors = Collections.emptyMap();
@@ -293,6 +321,31 @@ public class Matcher {
             this.pseudoSelectors = pseudoSelectors;
         }
 
+        private void createIndex() {
+            int count = 0;
+            int[] descendants = new int[axes.size()];
+
+            for (int i = 0; i < axes.size(); i++) {
+                Selector sel = axes.get(i);
+
+                if (sel.getAxis() == Selector.DESCENDANT_AXIS) {
+                    descendants[count++] = i;
+                } else if (sel.getAxis() == Selector.IMMEDIATE_SIBLING_AXIS) {
+                    throw new RuntimeException();
+                }
+            }
+
+            descendantAxes = Arrays.copyOf(descendants, count);
+
+            if (axes.size() >= SelectorIndex.MIN_INDEXED_SELECTORS) {
+                index = new SelectorIndex(axes);
+            }
+
+            if (axes.stream().allMatch(Selector::isNameAndClassOnly)) {
+                sharedChildren = new HashMap<>();
+            }
+        }
+
         /**
          * Side effect: creates and stores a Mapper for the element
          *
@@ -301,23 +354,38 @@ public class Matcher {
          *         (more correct: preserves the sort order from Matcher creation)
          */
         Mapper mapChild(Object e) {
-            List<Selector> childAxes = null;
+            if (descendantAxes == null) {
+                createIndex();
+            }
+
+            String shareKey = null;
+
+            if (sharedChildren != null) {
+                String className = _attRes != null ? _attRes.getClass(e) : null;
+                // Space can not appear in an element name.
+                shareKey = _treeRes.getElementName(e) + ' ' + (className != null ? className : "");
+
+                Mapper shared = sharedChildren.get(shareKey);
+                if (shared != null) {
+                    link(e, shared);
+                    return shared;
+                }
+            }
+
+            // Only selectors in candidates (or all if null) can possibly match.
+            BitSet candidates = index != null ? index.getCandidates(e, _attRes, _treeRes) : null;
+
+            List<Selector> chains = null;
+            List<Integer> chainPositions = null;
             List<Selector> mappedSelectors = null;
             Map<String, List<Selector>> pseudoSelectors = null;
 
             StringBuilder key = new StringBuilder();
 
-            for (Selector sel : axes) {
-                if (sel.getAxis() == Selector.DESCENDANT_AXIS) {
-                    if (childAxes == null) {
-                        childAxes = new ArrayList<>();
-                    }
-
-                    // Carry it forward to other descendants
-                    childAxes.add(sel);
-                } else if (sel.getAxis() == Selector.IMMEDIATE_SIBLING_AXIS) {
-                    throw new RuntimeException();
-                }
+            for (int i = candidates != null ? candidates.nextSetBit(0) : 0;
+                 i >= 0 && i < axes.size();
+                 i = candidates != null ? candidates.nextSetBit(i + 1) : i + 1) {
+                Selector sel = axes.get(i);
 
                 if (!sel.matches(e, _attRes, _treeRes)) {
                     continue;
@@ -368,11 +436,13 @@ public class Matcher {
                 } else if (chain.getAxis() == Selector.IMMEDIATE_SIBLING_AXIS) {
                     throw new RuntimeException();
                 } else {
-                    if (childAxes == null) {
-                        childAxes = new ArrayList<>();
+                    if (chains == null) {
+                        chains = new ArrayList<>();
+                        chainPositions = new ArrayList<>();
                     }
 
-                    childAxes.add(chain);
+                    chains.add(chain);
+                    chainPositions.add(i);
                 }
             }
 
@@ -380,26 +450,75 @@ public class Matcher {
                 children = new HashMap<>();
             }
 
-            List<Selector> normalisedChildAxes = childAxes == null ? Collections.emptyList() : childAxes;
-            List<Selector> normalisedMappedSelectors = mappedSelectors == null ? Collections.emptyList() : mappedSelectors;
-            Map<String, List<Selector>> normalisedPseudoSelectors = pseudoSelectors == null ? Collections.emptyMap() : pseudoSelectors;
+            // The child axes are only needed if we haven't seen this combination of
+            // matched selectors before, as the carried forward selectors are fixed for this mapper.
+            Mapper childMapper = children.get(key.toString());
 
-            Mapper childMapper = children.computeIfAbsent(
-                    key.toString(),
-                    kee -> new Mapper(
+            if (childMapper == null) {
+                List<Selector> normalisedChildAxes = mergeChildAxes(chains, chainPositions);
+                List<Selector> normalisedMappedSelectors = mappedSelectors == null ? Collections.emptyList() : mappedSelectors;
+                Map<String, List<Selector>> normalisedPseudoSelectors = pseudoSelectors == null ? Collections.emptyMap() : pseudoSelectors;
+
+                childMapper = new Mapper(
                         normalisedChildAxes,
                         normalisedMappedSelectors,
-                        normalisedPseudoSelectors));
+                        normalisedPseudoSelectors);
+
+                children.put(key.toString(), childMapper);
+            }
+
+            if (shareKey != null) {
+                sharedChildren.put(shareKey, childMapper);
+            }
 
             link(e, childMapper);
 
             return childMapper;
         }
 
+        /**
+         * Merges the carried forward descendant axis selectors with the chained
+         * selectors of matched selectors, preserving the order of axes.
+         */
+        private List<Selector> mergeChildAxes(List<Selector> chains, List<Integer> chainPositions) {
+            int chainCount = chains == null ? 0 : chains.size();
+
+            if (descendantAxes.length == 0 && chainCount == 0) {
+                return Collections.emptyList();
+            }
+
+            List<Selector> childAxes = new ArrayList<>(descendantAxes.length + chainCount);
+            int d = 0;
+            int c = 0;
+
+            while (d < descendantAxes.length || c < chainCount) {
+                // A selector that is carried forward comes before its own chained selector.
+                if (c == chainCount ||
+                    (d < descendantAxes.length && descendantAxes[d] <= chainPositions.get(c))) {
+                    childAxes.add(axes.get(descendantAxes[d++]));
+                } else {
+                    childAxes.add(chains.get(c++));
+                }
+            }
+
+            return childAxes;
+        }
+
         CascadedStyle getCascadedStyle(Object e) {
             Ruleset elementStyling = getElementStyle(e);
             Ruleset nonCssStyling = getNonCssStyle(e);
 
+            if (elementStyling == null && nonCssStyling == null) {
+                if (sharedCascadedStyle == null) {
+                    sharedCascadedStyle = cascade(null, null);
+                }
+                return sharedCascadedStyle;
+            }
+
+            return cascade(elementStyling, nonCssStyling);
+        }
+
+        private CascadedStyle cascade(Ruleset elementStyling, Ruleset nonCssStyling) {
             List<PropertyDeclaration> propList = new ArrayList<>();
 
             // Specificity 0,0,0,0
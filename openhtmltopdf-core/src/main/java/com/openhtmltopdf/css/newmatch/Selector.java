@@ -329,6 +329,61 @@ public class Selector {
     	return _pe;
     }
 
+    /**
+     * @return the element name this selector requires or null if any element.
+     */
+    String getRequiredName() {
+        return _name;
+    }
+
+    /**
+     * @return the id required by one of the conditions of this selector or null.
+     */
+    String getRequiredID() {
+        if (conditions != null) {
+            for (Condition c : conditions) {
+                String id = c.getRequiredID();
+                if (id != null) {
+                    return id;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return a class required by one of the conditions of this selector or null.
+     */
+    String getRequiredClass() {
+        if (conditions != null) {
+            for (Condition c : conditions) {
+                String className = c.getRequiredClass();
+                if (className != null) {
+                    return className;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true if whether an element matches this selector (not including
+     * its chained selector) depends only on the element name and class attribute.
+     */
+    boolean isNameAndClassOnly() {
+        if (siblingSelector != null || _pc != 0 || _namespaceURI != null) {
+            return false;
+        }
+        if (conditions != null) {
+            for (Condition c : conditions) {
+                if (c.getRequiredClass() == null) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     /**
      * get the next selector in the chain, for matching against elements along
      * the appropriate axis
@@ -388,13 +443,22 @@ public class Selector {
      * @return The order value
      */
     String getOrder() {
+        return getOrder(_pos);
+    }
+
+    /**
+     * As {@link #getOrder()} but with the specification order supplied
+     * rather than read from this selector. This allows selectors to be
+     * shared between matchers.
+     */
+    String getOrder(int pos) {
         if (chainedSelector != null) {
-            return chainedSelector.getOrder();
+            return chainedSelector.getOrder(pos);
         }//only "deepest" value is correct
         String b = "000" + getSpecificityB();
         String c = "000" + getSpecificityC();
         String d = "000" + getSpecificityD();
-        String p = "00000" + _pos;
+        String p = "00000" + pos;
         return "0" + b.substring(b.length() - 3) + c.substring(c.length() - 3) + d.substring(d.length() - 3) + p.substring(p.length() - 5);
     }
 
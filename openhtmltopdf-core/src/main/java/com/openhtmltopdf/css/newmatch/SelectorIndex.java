@@ -0,0 +1,132 @@
+package com.openhtmltopdf.css.newmatch;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.openhtmltopdf.css.extend.AttributeResolver;
+import com.openhtmltopdf.css.extend.TreeResolver;
+
+/**
+ * A rule hash for a list of selectors. Each selector is placed in a bucket by the
+ * id, class or element name it requires (in that order of preference) so that
+ * only candidate selectors need to be tested against a given element. Selectors
+ * that require none of these are universal and are candidates for every element.
+ * <br><br>
+ * Candidates are returned as a set of indices into the original list so that
+ * callers can visit them in the original (specificity) order.
+ * <br><br>
+ * NOTE: Assumes that {@link TreeResolver#getElementName(Object)} returns the name
+ * compared by {@link TreeResolver#matchesElement(Object, String, String)}, as is
+ * the case for {@link com.openhtmltopdf.css.extend.lib.DOMTreeResolver}.
+ */
+class SelectorIndex {
+    /**
+     * Below this number of selectors it is cheaper to simply test every selector.
+     */
+    static final int MIN_INDEXED_SELECTORS = 16;
+
+    private final Map<String, int[]> _byId;
+    private final Map<String, int[]> _byClass;
+    private final Map<String, int[]> _byName;
+    private final BitSet _universal;
+
+    SelectorIndex(List<Selector> selectors) {
+        Map<String, List<Integer>> byId = new HashMap<>();
+        Map<String, List<Integer>> byClass = new HashMap<>();
+        Map<String, List<Integer>> byName = new HashMap<>();
+
+        _universal = new BitSet(selectors.size());
+
+        for (int i = 0; i < selectors.size(); i++) {
+            Selector sel = selectors.get(i);
+
+            String id = sel.getRequiredID();
+            if (id != null) {
+                byId.computeIfAbsent(id, k -> new ArrayList<>()).add(i);
+                continue;
+            }
+
+            String className = sel.getRequiredClass();
+            if (className != null) {
+                byClass.computeIfAbsent(className, k -> new ArrayList<>()).add(i);
+                continue;
+            }
+
+            String name = sel.getRequiredName();
+            if (name != null) {
+                byName.computeIfAbsent(name, k -> new ArrayList<>()).add(i);
+                continue;
+            }
+
+            _universal.set(i);
+        }
+
+        _byId = toBuckets(byId);
+        _byClass = toBuckets(byClass);
+        _byName = toBuckets(byName);
+    }
+
+    private static Map<String, int[]> toBuckets(Map<String, List<Integer>> lists) {
+        Map<String, int[]> buckets = new HashMap<>(lists.size() * 2);
+
+        for (Map.Entry<String, List<Integer>> entry : lists.entrySet()) {
+            buckets.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        return buckets;
+    }
+
+    private static void addBucket(BitSet candidates, int[] bucket) {
+        if (bucket != null) {
+            for (int idx : bucket) {
+                candidates.set(idx);
+            }
+        }
+    }
+
+    /**
+     * @return the indices of selectors that may match the element. Selectors not
+     * in the result are guaranteed not to match.
+     */
+    BitSet getCandidates(Object e, AttributeResolver attRes, TreeResolver treeRes) {
+        BitSet candidates = (BitSet) _universal.clone();
+
+        if (attRes != null) {
+            if (!_byId.isEmpty()) {
+                String id = attRes.getID(e);
+                if (id != null) {
+                    addBucket(candidates, _byId.get(id));
+                }
+            }
+
+            if (!_byClass.isEmpty()) {
+                String classes = attRes.getClass(e);
+                if (classes != null) {
+                    int start = 0;
+                    int end;
+
+                    // Matches the space separated semantics of class conditions.
+                    while ((end = classes.indexOf(' ', start)) != -1) {
+                        if (end > start) {
+                            addBucket(candidates, _byClass.get(classes.substring(start, end)));
+                        }
+                        start = end + 1;
+                    }
+
+                    if (start < classes.length()) {
+                        addBucket(candidates, _byClass.get(start == 0 ? classes : classes.substring(start)));
+                    }
+                }
+            }
+        }
+
+        if (!_byName.isEmpty()) {
+            addBucket(candidates, _byName.get(treeRes.getElementName(e)));
+        }
+
+        return candidates;
+    }
+}
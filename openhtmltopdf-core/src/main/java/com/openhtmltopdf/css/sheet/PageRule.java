@@ -105,12 +105,20 @@ public class PageRule implements RulesetContainer {
     }
     
     public long getOrder() {
+        return getOrder(_pos);
+    }
+
+    /**
+     * As {@link #getOrder()} but with the specification order supplied
+     * rather than read from this rule.
+     */
+    public long getOrder(int pos) {
         long result = 0;
         
         result |= (long)_specificityF << 32;
         result |= (long)_specificityG << 24;
         result |= (long)_specificityH << 16;
-        result |= _pos;
+        result |= pos;
         
         return result;
     }
@@ -66,10 +66,15 @@ public class PropertyDeclaration {
     /**
      * Description of the Field
      */
-    private boolean identIsSet;
+    private volatile boolean identIsSet;
     
     private String _fingerprint;
 
+    /**
+     * Zero until computed. Volatile as declarations may be shared between threads.
+     */
+    private volatile long _structuralHash;
+
     /**
      * ImportanceAndOrigin of stylesheet - how many different
      */
@@ -157,6 +162,34 @@ public class PropertyDeclaration {
         return _fingerprint;
     }
 
+    /**
+     * @return a 64 bit hash of the property name and value, consistent with
+     * {@link #isEquivalent(PropertyDeclaration)}.
+     */
+    public long getStructuralHash() {
+        long hash = _structuralHash;
+        if (hash == 0) {
+            // FNV-1a
+            hash = 0xcbf29ce484222325L;
+            String fingerprint = getFingerprint();
+            for (int i = 0; i < fingerprint.length(); i++) {
+                hash ^= fingerprint.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            _structuralHash = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * @return true if other is for the same property with the same value, ignoring
+     * importance and origin, which have already been used in the cascade.
+     */
+    public boolean isEquivalent(PropertyDeclaration other) {
+        return this == other ||
+               (getStructuralHash() == other.getStructuralHash() && getFingerprint().equals(other.getFingerprint()));
+    }
+
     /**
      * Returns an int representing the combined origin and importance of the
      * property as declared. The int is assigned such that default origin and
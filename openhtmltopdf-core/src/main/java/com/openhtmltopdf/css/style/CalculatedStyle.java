@@ -114,17 +114,35 @@ public class CalculatedStyle {
     /**
      * Cache child styles of this style that have the same cascaded properties
      */
-    private final java.util.Map<String, CalculatedStyle> _childCache = new java.util.HashMap<>();
+    private final java.util.Map<CascadedStyle, CalculatedStyle> _childCache = new java.util.HashMap<>();
 
     /**
-     * Our main array of property values defined in this style, keyed
-     * by the CSSName assigned ID.
+     * Our main table of property values defined in this style, keyed
+     * by the CSSName assigned ID. Inherited values are cached here once looked up
+     * but initial values of unspecified properties are not stored, see
+     * {@link #valueByName(CSSName)}. The table can be read, and so cached into,
+     * from several painting threads at once.
      */
-    private final FSDerivedValue[] _derivedValuesById;
+    private DerivedValueTable _derivedValues;
 
+    /**
+     * Returns a copy of the property values stored in this style, indexed by the
+     * CSSName assigned ID. Properties without a stored value, including those with
+     * an initial value that has not been looked up, are null.
+     */
+    public FSDerivedValue[] copyDerivedValuesById() {
+        return _derivedValues.toArray(CSSName.countCSSPrimitiveNames());
+    }
+
+    /**
+     * @deprecated Returns a snapshot, not the live values of this style, so changes
+     * to the array are not seen by the style and values cached later are not in it.
+     * Use {@link #copyDerivedValuesById()} or {@link #valueByName(CSSName)} instead.
+     */
+    @Deprecated
     public FSDerivedValue[] getderivedValuesById() {
-		return _derivedValuesById;
-	}
+        return copyDerivedValuesById();
+    }
 
 	/**
      * The derived Font for this style
@@ -137,7 +155,7 @@ public class CalculatedStyle {
      * this for class instantiation externally.
      */
     protected CalculatedStyle() {
-        _derivedValuesById = new FSDerivedValue[CSSName.countCSSPrimitiveNames()];
+        _derivedValues = new DerivedValueTable(CSSName.countCSSPrimitiveNames());
     }
 
 
@@ -196,18 +214,17 @@ public class CalculatedStyle {
      * such as borders will be replaced compared to <code>this</code> which is used
      * as parent style.
      * <br><br>
-     * Depends on the ability to return the identical CascadedStyle each time a child style is needed
+     * Child styles are cached by the structural identity of matched, see {@link CascadedStyle#equals(Object)}.
      *
      * @param matched the CascadedStyle to apply
      * @return The derived child style
      */
     public CalculatedStyle deriveStyle(CascadedStyle matched) {
-        String fingerprint = matched.getFingerprint();
-        CalculatedStyle cs = _childCache.get(fingerprint);
+        CalculatedStyle cs = _childCache.get(matched);
 
         if (cs == null) {
             cs = new CalculatedStyle(this, matched);
-            _childCache.put(fingerprint, cs);
+            _childCache.put(matched, cs);
         }
 
         RootCounterContext cc = ThreadCtx.get().sharedContext().getGlobalCounterContext();
@@ -226,7 +243,7 @@ public class CalculatedStyle {
         CalculatedStyle ret = new CalculatedStyle();
 
         ret._parent = this._parent;
-        System.arraycopy(this._derivedValuesById, 0, ret._derivedValuesById, 0, ret._derivedValuesById.length);
+        ret._derivedValues = this._derivedValues.copy();
 
         init(matched);
 
@@ -243,7 +260,7 @@ public class CalculatedStyle {
         CalculatedStyle ret = new CalculatedStyle();
 
         ret._parent = this._parent;
-        System.arraycopy(this._derivedValuesById, 0, ret._derivedValuesById, 0, ret._derivedValuesById.length);
+        ret._derivedValues = this._derivedValues.copy();
 
         ret.init(CascadedStyle.createAnonymousStyle(display));
 
@@ -554,7 +571,7 @@ public class CalculatedStyle {
      * @param cssName The CSS property name, e.g. "font-family"
      */
     public FSDerivedValue valueByName(CSSName cssName) {
-        FSDerivedValue val = _derivedValuesById[cssName.FS_ID];
+        FSDerivedValue val = _derivedValues.get(cssName.FS_ID);
 
         boolean needInitialValue = val == IdentValue.FS_INITIAL_VALUE;
 
@@ -565,7 +582,8 @@ public class CalculatedStyle {
             if (! needInitialValue && CSSName.propertyInherits(cssName)
                     && _parent != null
                     && (val = _parent.valueByName(cssName)) != null) {
-                // Do nothing, val is already set
+                // Cache the inherited value so deep trees don't walk the parent chain on every lookup.
+                _derivedValues.put(cssName.FS_ID, val);
             } else {
                 // otherwise, use the initial value (defined by the CSS2 Spec)
                 String initialValue = CSSName.initialValue(cssName);
@@ -577,10 +595,15 @@ public class CalculatedStyle {
                     CSSName ref = CSSName.getByPropertyName(initialValue.substring(1));
                     val = valueByName(ref);
                 } else {
+                    // Initial values are shared by all styles, so only store them
+                    // when replacing an explicit initial keyword.
                     val = CSSName.initialDerivedValue(cssName);
                 }
+
+                if (needInitialValue) {
+                    _derivedValues.put(cssName.FS_ID, val);
+                }
             }
-            _derivedValuesById[cssName.FS_ID] = val;
         }
 
         return val;
@@ -608,10 +631,20 @@ public class CalculatedStyle {
             return;
         }
 
+        // Deriving a value only reads the parent style, so the values
+        // can be stored together once all are derived.
+        int count = matched.countAssigned();
+        int[] ids = new int[count];
+        FSDerivedValue[] values = new FSDerivedValue[count];
+        int i = 0;
+
         for (PropertyDeclaration pd : matched.getCascadedPropertyDeclarations()) {
-            FSDerivedValue val = deriveValue(pd.getCSSName(), pd.getValue());
-            _derivedValuesById[pd.getCSSName().FS_ID] = val;
+            ids[i] = pd.getCSSName().FS_ID;
+            values[i] = deriveValue(pd.getCSSName(), pd.getValue());
+            i++;
         }
+
+        _derivedValues.putAll(ids, values, i);
     }
 
     private FSDerivedValue deriveValue(CSSName cssName, CSSPrimitiveValue value) {
@@ -620,9 +653,10 @@ public class CalculatedStyle {
 
     private String genStyleKey() {
         StringBuilder  sb = new StringBuilder();
-        for (int i = 0; i < _derivedValuesById.length; i++) {
+        FSDerivedValue[] values = copyDerivedValuesById();
+        for (int i = 0; i < values.length; i++) {
             CSSName name = CSSName.getByID(i);
-            FSDerivedValue val = _derivedValuesById[i];
+            FSDerivedValue val = values[i];
             if (val != null) {
                 sb.append(name.toString());
             } else {
@@ -1052,6 +1086,14 @@ public class CalculatedStyle {
         return (int) asFloat(CSSName.FS_MAX_OVERFLOW_PAGES);
     }
 
+    public boolean isSampledTableLayout() {
+        return isIdent(CSSName.FS_TABLE_LAYOUT, IdentValue.SAMPLED);
+    }
+
+    public int fsTableLayoutSampleRows() {
+        return (int) asFloat(CSSName.FS_TABLE_LAYOUT_SAMPLE_ROWS);
+    }
+
 	/**
      * Determine if the element is visible. This is normaly the case
      * if visibility == visible. Only when visibilty is
@@ -0,0 +1,175 @@
+package com.openhtmltopdf.css.style;
+
+/**
+ * Sparse storage for the derived values of a {@link CalculatedStyle}, keyed by
+ * the CSSName assigned ID.
+ * <br><br>
+ * A bitmap records which IDs have a value and the values are kept in a compact
+ * array ordered by ID, so the index of a value is the number of bits set below
+ * its ID. Most styles only hold a small fraction of all properties, as values
+ * that are inherited or initial are looked up instead of copied into each style.
+ * <br><br>
+ * Styles are read from several threads when pages are painted in parallel and
+ * reading a style may cache a value in it, so the bitmap and values are never
+ * modified once published. A write replaces them with modified copies, so
+ * readers always see a consistent snapshot without locking. Copies of a table
+ * share the snapshot until either side is written to. The values of a style's
+ * own declarations are stored together with {@link #putAll(int[], FSDerivedValue[], int)},
+ * which copies once, while {@link #put(int, FSDerivedValue)} is for the few
+ * values cached later.
+ */
+final class DerivedValueTable {
+    private static final FSDerivedValue[] EMPTY = new FSDerivedValue[0];
+
+    private static final class Snapshot {
+        final long[] bits;
+        final FSDerivedValue[] values;
+
+        Snapshot(long[] bits, FSDerivedValue[] values) {
+            this.bits = bits;
+            this.values = values;
+        }
+    }
+
+    private volatile Snapshot _snapshot;
+
+    DerivedValueTable(int idCount) {
+        _snapshot = new Snapshot(new long[(idCount + 63) >>> 6], EMPTY);
+    }
+
+    private DerivedValueTable(Snapshot snapshot) {
+        _snapshot = snapshot;
+    }
+
+    /**
+     * Returns the value stored for id or null if there is none.
+     */
+    FSDerivedValue get(int id) {
+        Snapshot snapshot = _snapshot;
+        int word = id >>> 6;
+        long bit = 1L << id;
+
+        if ((snapshot.bits[word] & bit) == 0) {
+            return null;
+        }
+
+        return snapshot.values[rank(snapshot.bits, word, bit)];
+    }
+
+    /**
+     * Stores a non-null value for id, replacing any existing value.
+     * Writers are serialized, readers see either the old or new snapshot.
+     */
+    synchronized void put(int id, FSDerivedValue value) {
+        Snapshot snapshot = _snapshot;
+        int word = id >>> 6;
+        long bit = 1L << id;
+        int index = rank(snapshot.bits, word, bit);
+
+        if ((snapshot.bits[word] & bit) != 0) {
+            FSDerivedValue[] values = snapshot.values.clone();
+            values[index] = value;
+            _snapshot = new Snapshot(snapshot.bits, values);
+            return;
+        }
+
+        int size = snapshot.values.length;
+        FSDerivedValue[] values = new FSDerivedValue[size + 1];
+        System.arraycopy(snapshot.values, 0, values, 0, index);
+        System.arraycopy(snapshot.values, index, values, index + 1, size - index);
+        values[index] = value;
+
+        long[] bits = snapshot.bits.clone();
+        bits[word] |= bit;
+
+        _snapshot = new Snapshot(bits, values);
+    }
+
+    /**
+     * Stores count non-null values for the matching ids, replacing any existing values.
+     * If an id is repeated the last value is kept. The table is copied once for all
+     * values, rather than once per value as with {@link #put(int, FSDerivedValue)}.
+     */
+    synchronized void putAll(int[] ids, FSDerivedValue[] values, int count) {
+        if (count == 0) {
+            return;
+        }
+
+        Snapshot snapshot = _snapshot;
+        long[] bits = snapshot.bits.clone();
+
+        for (int i = 0; i < count; i++) {
+            bits[ids[i] >>> 6] |= 1L << ids[i];
+        }
+
+        int size = 0;
+        for (long word : bits) {
+            size += Long.bitCount(word);
+        }
+
+        // Existing values move to their index in the merged bitmap.
+        FSDerivedValue[] merged = new FSDerivedValue[size];
+        int from = 0;
+        int to = 0;
+
+        for (int word = 0; word < bits.length; word++) {
+            long set = bits[word];
+            long old = snapshot.bits[word];
+
+            while (set != 0) {
+                long bit = Long.lowestOneBit(set);
+                if ((old & bit) != 0) {
+                    merged[to] = snapshot.values[from++];
+                }
+                to++;
+                set &= set - 1;
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            int word = ids[i] >>> 6;
+            merged[rank(bits, word, 1L << ids[i])] = values[i];
+        }
+
+        _snapshot = new Snapshot(bits, merged);
+    }
+
+    int size() {
+        return _snapshot.values.length;
+    }
+
+    /**
+     * Returns a copy of this table. The storage is shared until either table is written to.
+     */
+    DerivedValueTable copy() {
+        return new DerivedValueTable(_snapshot);
+    }
+
+    /**
+     * Expands the table into an array indexed by ID, with null for IDs without a value.
+     */
+    FSDerivedValue[] toArray(int idCount) {
+        Snapshot snapshot = _snapshot;
+        FSDerivedValue[] result = new FSDerivedValue[idCount];
+        int index = 0;
+
+        for (int word = 0; word < snapshot.bits.length; word++) {
+            long bits = snapshot.bits[word];
+            while (bits != 0) {
+                int id = (word << 6) + Long.numberOfTrailingZeros(bits);
+                result[id] = snapshot.values[index++];
+                bits &= bits - 1;
+            }
+        }
+
+        return result;
+    }
+
+    private static int rank(long[] bits, int word, long bit) {
+        int index = Long.bitCount(bits[word] & (bit - 1));
+        for (int i = 0; i < word; i++) {
+            index += Long.bitCount(bits[i]);
+        }
+        return index;
+    }
+}
@@ -201,7 +201,7 @@ public class LengthValue extends DerivedValue {
         }
         //assert (new Float(absVal).intValue() >= 0);
 
-        if (XRLog.isLoggingEnabled()) {
+        if (XRLog.isLoggable(Level.FINEST, XRLog.CASCADE)) {
             if (cssName == CSSName.FONT_SIZE) {
                 XRLog.log(Level.FINEST, LogMessageId.LogMessageId4Param.CASCADE_CALC_FLOAT_PROPORTIONAL_VALUE_INFO_FONT_SIZE, cssName, relVal, stringValue, absVal);
             } else {
@@ -23,6 +23,7 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
 import com.openhtmltopdf.css.extend.StylesheetFactory;
+import com.openhtmltopdf.css.sheet.Ruleset;
 import com.openhtmltopdf.css.sheet.StylesheetInfo;
 
 /**
@@ -100,6 +101,27 @@ public interface NamespaceHandler {
      */
     String getNonCssStyling(org.w3c.dom.Element e);
 
+    /**
+     * Returns the same declarations as {@link #getElementStyling(Element)} as a ruleset,
+     * which lets implementations map attributes to property declarations without
+     * going through CSS text. Any text should be parsed with
+     * {@link StylesheetFactory#parseStyleDeclaration(int, String)}, which caches the result.
+     * The returned ruleset must not be modified.
+     *
+     * @return the ruleset or null to have the result of {@link #getElementStyling(Element)} parsed
+     */
+    default Ruleset getElementStylingRuleset(Element e, StylesheetFactory factory) {
+        return null;
+    }
+
+    /**
+     * As {@link #getElementStylingRuleset(Element, StylesheetFactory)} for
+     * {@link #getNonCssStyling(Element)}.
+     */
+    default Ruleset getNonCssStylingRuleset(Element e, StylesheetFactory factory) {
+        return null;
+    }
+
     /**
      * may return null
      *
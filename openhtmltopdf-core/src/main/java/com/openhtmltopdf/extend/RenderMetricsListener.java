@@ -0,0 +1,79 @@
+package com.openhtmltopdf.extend;
+
+/**
+ * Receives timings and counters for a single render, so that they can be exported
+ * to monitoring. Register with
+ * {@link com.openhtmltopdf.outputdevice.helper.BaseRendererBuilder#useRenderMetricsListener(RenderMetricsListener)}.
+ * <br><br>
+ * Methods are called on the thread that runs the renderer. Timings are measured with
+ * {@link System#nanoTime()}. Phases that are not run (for example because the document
+ * was provided as a DOM) are not reported. When no listener is registered, no
+ * measuring or counting is done.
+ * <br><br>
+ * When a document is rendered in streaming segments, parsing is interleaved with the
+ * other phases and is not reported, while the layout to paint phases and their counters
+ * are reported for each segment.
+ * <br><br>
+ * Cache store counters only count the lookups of this render in the cache stores set
+ * with <code>useCacheStore</code>, and are zero for stores that are not set.
+ * They are reported once, with the font runs and image bytes, when the output is complete.
+ */
+public interface RenderMetricsListener {
+    enum Phase {
+        /** Loading and parsing the XML/HTML document. */
+        PARSE,
+        /** DOM mutators, loading and parsing stylesheets and importing font faces. */
+        STYLESHEETS,
+        /** Building boxes, cascading styles and laying them out. These are interleaved. */
+        LAYOUT,
+        /** Trimming empty pages and laying out page margin areas. */
+        PAGINATION,
+        /** Collecting display lists for each page. */
+        DISPLAY_LIST,
+        /** Painting pages with the output device. */
+        PAINT,
+        /** Writing the output, including font subsetting for PDF output. */
+        SAVE;
+    }
+
+    enum Counter {
+        /** The number of boxes in the laid out box tree, excluding line boxes. */
+        BOXES,
+        LINE_BOXES,
+        PAGES,
+        /**
+         * The number of runs of text drawn with a single font. Text that can be drawn with
+         * the first font of its font family is one run, other text is split into runs
+         * between fallback fonts. PDF output only.
+         */
+        FONT_RUNS,
+        /** Hits on the per document @page style and margin area caches. */
+        PAGE_CACHE_HITS,
+        /** Misses on the per document @page style and margin area caches. */
+        PAGE_CACHE_MISSES,
+        /** Hits on the font metrics and TrueType font cache stores. PDF output only. */
+        FONT_CACHE_HITS,
+        /** Misses on the font metrics and TrueType font cache stores. PDF output only. */
+        FONT_CACHE_MISSES,
+        /** Hits on the stylesheet cache store, which also holds parsed style attributes. PDF output only. */
+        STYLESHEET_CACHE_HITS,
+        /** Misses on the stylesheet cache store, which also holds parsed style attributes. PDF output only. */
+        STYLESHEET_CACHE_MISSES,
+        /** Hits on the encoded image cache store. PDF output only. */
+        IMAGE_CACHE_HITS,
+        /** Misses on the encoded image cache store. PDF output only. */
+        IMAGE_CACHE_MISSES,
+        /** The total size of distinct image streams embedded in the output. */
+        IMAGE_BYTES;
+    }
+
+    /**
+     * Called once for each phase (or segment of a phase) after it completes.
+     */
+    void onPhase(Phase phase, long nanos);
+
+    /**
+     * Called once for each counter, when its value is known.
+     */
+    void onCounter(Counter counter, long value);
+}
@@ -19,10 +19,13 @@
  */
 package com.openhtmltopdf.extend;
 
+import java.io.IOException;
+
 import com.openhtmltopdf.outputdevice.helper.ExternalResourceType;
 import com.openhtmltopdf.resource.CSSResource;
 import com.openhtmltopdf.resource.ImageResource;
 import com.openhtmltopdf.resource.XMLResource;
+import com.openhtmltopdf.resource.XMLSegmentHandler;
 
 
 /**
@@ -89,6 +92,27 @@ public interface UserAgentCallback {
      */
     XMLResource getXMLResource(String uri, ExternalResourceType type);
 
+    /**
+     * Retrieves the XML at the given URI, passing it to handler in segments as it is parsed.
+     * This is a synchronous call. The default implementation loads the whole document with
+     * {@link #getXMLResource(String, ExternalResourceType)} and passes it as a single segment.
+     *
+     * @param uri Location of the XML
+     * @param type Always xhtml.
+     * @return false if the XML could not be retrieved.
+     * @throws IOException if the handler failed.
+     */
+    default boolean getXMLResourceSegments(String uri, ExternalResourceType type, XMLSegmentHandler handler) throws IOException {
+        XMLResource resource = getXMLResource(uri, type);
+
+        if (resource == null) {
+            return false;
+        }
+
+        handler.segment(resource.getDocument());
+        return true;
+    }
+
     /**
      * @deprecated
      * Use {@link #getBinaryResource(String, ExternalResourceType)} instead.
@@ -0,0 +1,119 @@
+package com.openhtmltopdf.extend.impl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.logging.Level;
+
+import com.openhtmltopdf.extend.FSCacheEx;
+import com.openhtmltopdf.extend.FSCacheValue;
+import com.openhtmltopdf.util.LogMessageId;
+import com.openhtmltopdf.util.XRLog;
+
+/**
+ * A thread safe, least-recently-used cache store which is bounded both by
+ * number of entries and by the total {@link FSCacheValue#weight()} of its values.
+ * Values which report an unknown weight (-1) only count toward the entry limit.
+ * <br><br>
+ * As with {@link FSDefaultCacheStore}, the loader passed to {@link #get(String, Callable)}
+ * is called outside the lock and so may be called more than once for the same key
+ * if used concurrently.
+ */
+public class FSBoundedCacheStore implements FSCacheEx<String, FSCacheValue> {
+    private final Map<String, FSCacheValue> _store = new LinkedHashMap<>(16, 0.75f, true);
+    private final int _maxEntries;
+    private final long _maxWeight;
+    private long _weight;
+
+    /**
+     * @param maxEntries the maximum number of values to keep.
+     * @param maxWeight the maximum total approximate weight, in bytes, of values to keep.
+     */
+    public FSBoundedCacheStore(int maxEntries, long maxWeight) {
+        this._maxEntries = maxEntries;
+        this._maxWeight = maxWeight;
+    }
+
+    private static long weightOf(FSCacheValue value) {
+        return Math.max(value.weight(), 0);
+    }
+
+    @Override
+    public void put(String key, FSCacheValue value) {
+        XRLog.log(Level.INFO, LogMessageId.LogMessageId1Param.LOAD_PUTTING_KEY_IN_CACHE, key);
+
+        synchronized (_store) {
+            FSCacheValue old = _store.put(key, value);
+
+            if (old != null) {
+                _weight -= weightOf(old);
+            }
+            _weight += weightOf(value);
+
+            evict();
+        }
+    }
+
+    private void evict() {
+        Iterator<FSCacheValue> eldest = _store.values().iterator();
+
+        while (eldest.hasNext() &&
+               (_store.size() > _maxEntries || _weight > _maxWeight)) {
+            _weight -= weightOf(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    @Override
+    public FSCacheValue get(String key, Callable<? extends FSCacheValue> loader) {
+        FSCacheValue value = get(key);
+
+        if (value != null) {
+            return value;
+        }
+
+        try {
+            value = loader.call();
+
+            if (value != null) {
+                put(key, value);
+            }
+        } catch (Exception e) {
+            XRLog.log(Level.WARNING, LogMessageId.LogMessageId1Param.EXCEPTION_COULD_NOT_CACHE_VALUE_FOR_KEY, key, e);
+            value = null;
+        }
+
+        return value;
+    }
+
+    @Override
+    public FSCacheValue get(String key) {
+        FSCacheValue value;
+
+        synchronized (_store) {
+            value = _store.get(key);
+        }
+
+        XRLog.log(Level.INFO, LogMessageId.LogMessageId2Param.LOAD_CACHE_HIT_STATUS, (value == null ? "Missed" : "Hit"), key);
+        return value;
+    }
+
+    /**
+     * @return the current number of values in the cache.
+     */
+    public int size() {
+        synchronized (_store) {
+            return _store.size();
+        }
+    }
+
+    /**
+     * @return the current total approximate weight of values in the cache.
+     */
+    public long weight() {
+        synchronized (_store) {
+            return _weight;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.openhtmltopdf.extend.impl;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.openhtmltopdf.extend.FSCacheEx;
+import com.openhtmltopdf.extend.FSCacheValue;
+
+/**
+ * Counts the hits and misses of lookups in another cache store, for example to
+ * report the cache statistics of a single render while the cache itself is shared
+ * between renders. Thread safe if the wrapped store is.
+ * <br><br>
+ * A lookup with a loader is a miss if the loader is called.
+ */
+public class FSCountingCacheStore implements FSCacheEx<String, FSCacheValue> {
+    private final FSCacheEx<String, FSCacheValue> _delegate;
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+
+    public FSCountingCacheStore(FSCacheEx<String, FSCacheValue> delegate) {
+        this._delegate = delegate;
+    }
+
+    @Override
+    public void put(String key, FSCacheValue value) {
+        _delegate.put(key, value);
+    }
+
+    @Override
+    public FSCacheValue get(String key, Callable<? extends FSCacheValue> loader) {
+        boolean[] loaded = new boolean[1];
+
+        FSCacheValue value = _delegate.get(key, () -> {
+            loaded[0] = true;
+            return loader.call();
+        });
+
+        (loaded[0] ? _misses : _hits).increment();
+        return value;
+    }
+
+    @Override
+    public FSCacheValue get(String key) {
+        FSCacheValue value = _delegate.get(key);
+
+        (value != null ? _hits : _misses).increment();
+        return value;
+    }
+
+    public long getHits() {
+        return _hits.sum();
+    }
+
+    public long getMisses() {
+        return _misses.sum();
+    }
+}
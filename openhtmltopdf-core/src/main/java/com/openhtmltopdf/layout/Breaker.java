@@ -525,10 +525,22 @@ public class Breaker {
         ToIntFunction<String> measurer = (str) ->
                c.getTextRenderer().getWidth(c.getFontContext(), font, str);
 
+        TextWidthCache.FontWidths widths = c.getTextWidthCache().forFont(font);
+        WordMeasurer wordMeasurer = (str, start, end, withHyphen) ->
+               widths.getWidth(str, start, end, withHyphen, measurer);
+
         String currentString = context.getStartSubstring();
         FSTextBreaker lineIterator = lineBreaker.getBreaker(currentString, c.getSharedContext());
 
-        return doBreakTextWords(currentString, context, avail, lineIterator, letterSpacing, measurer);
+        return doBreakTextWords(currentString, context, avail, lineIterator, letterSpacing, wordMeasurer);
+    }
+
+    /**
+     * Measures the text between start and end, with a trailing hyphen if withHyphen is true.
+     */
+    @FunctionalInterface
+    interface WordMeasurer {
+        int measure(String text, int start, int end, boolean withHyphen);
     }
 
     static LineBreakResult doBreakTextWords(
@@ -539,6 +551,20 @@ public class Breaker {
             float letterSpacing,
             ToIntFunction<String> measurer) {
 
+        WordMeasurer wordMeasurer = (str, start, end, withHyphen) ->
+               measurer.applyAsInt(withHyphen ? str.substring(start, end) + '-' : str.substring(start, end));
+
+        return doBreakTextWords(currentString, context, avail, iterator, letterSpacing, wordMeasurer);
+    }
+
+    static LineBreakResult doBreakTextWords(
+            String currentString,
+            LineBreakContext context,
+            int avail,
+            FSTextBreaker iterator,
+            float letterSpacing,
+            WordMeasurer measurer) {
+
         int lastWrap = 0;
         
         AppBreakOpportunity current = new AppBreakOpportunity();
@@ -554,15 +580,14 @@ public class Breaker {
         while (current.right > 0 && current.graphicsLength <= avail) {
             current.copyTo(prev);
             
-            String subString = currentString.substring(current.left, current.right);
             float extraSpacing = (current.right - current.left) * letterSpacing;
             
-            int normalSplitWidth = (int) (measurer.applyAsInt(subString) + extraSpacing);
+            int normalSplitWidth = (int) (measurer.measure(currentString, current.left, current.right, false) + extraSpacing);
 
             if (currentString.charAt(current.right - 1) == SOFT_HYPHEN) {
                 current.isSoftHyphenBreak = true;
                 int withTrailingHyphenSplitWidth = (int)
-                     (measurer.applyAsInt(subString + '-') + 
+                     (measurer.measure(currentString, current.left, current.right, true) + 
                         extraSpacing + letterSpacing);
                 current.withHyphenGraphicsLength = current.graphicsLength + withTrailingHyphenSplitWidth;
                 
@@ -592,8 +617,8 @@ public class Breaker {
             current.copyTo(prev);
             current.right = currentString.length();
             float extraSpacing = (current.right - current.left) * letterSpacing;
-            int splitWidth = (int) (measurer.applyAsInt(
-                    currentString.substring(current.left)) + extraSpacing);
+            int splitWidth = (int) (measurer.measure(
+                    currentString, current.left, current.right, false) + extraSpacing);
             current.graphicsLength += splitWidth;
             nextUnfittableSplitWidth = splitWidth;
         }
@@ -635,7 +660,7 @@ public class Breaker {
             } else if (current.left == currentString.length()) {
                 String text = context.getCalculatedSubstring();
                 float extraSpacing = text.length() * letterSpacing;
-                context.setWidth((int) (measurer.applyAsInt(text) + extraSpacing));
+                context.setWidth((int) (measurer.measure(text, 0, text.length(), false) + extraSpacing));
             } else {
                 context.setWidth(current.graphicsLength);
             }
@@ -22,6 +22,7 @@ package com.openhtmltopdf.layout;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -37,6 +38,10 @@ import com.openhtmltopdf.render.LineBox;
  * A class that manages all floated boxes in a given block formatting context.
  * It is responsible for positioning floats and calculating clearance for
  * non-floated (block) boxes.
+ * <br><br>
+ * Alongside the list of floats for each direction is a {@link FloatIndex} of their
+ * vertical extents so that lookups for the floats beside a line or block only
+ * visit the floats near it rather than every float in the formatting context.
  */
 public class FloatManager {
     public enum FloatDirection {
@@ -48,6 +53,9 @@ public class FloatManager {
     private List<BoxOffset> _leftFloats = Collections.emptyList();
     private List<BoxOffset> _rightFloats = Collections.emptyList();
 
+    private FloatIndex _leftIndex = FloatIndex.EMPTY;
+    private FloatIndex _rightIndex = FloatIndex.EMPTY;
+
     private final Box _master;
 
     public FloatManager(Box master) {
@@ -56,28 +64,34 @@ public class FloatManager {
 
     private List<BoxOffset> getAddableFloats(FloatDirection direction) {
         if (getFloats(direction).isEmpty()) {
-            setFloats(direction, new ArrayList<>());
+            setFloats(direction, new ArrayList<>(), new FloatIndex());
         }
 
         return getFloats(direction);
     }
 
-    private void setFloats(FloatDirection direction, List<BoxOffset> list) {
+    private void setFloats(FloatDirection direction, List<BoxOffset> list, FloatIndex index) {
         if (direction == FloatDirection.LEFT) {
             _leftFloats = list;
+            _leftIndex = index;
         } else {
             assert direction == FloatDirection.RIGHT;
             _rightFloats = list;
+            _rightIndex = index;
         }
     }
 
+    private FloatIndex getIndex(List<BoxOffset> floats) {
+        return floats == _leftFloats ? _leftIndex : _rightIndex;
+    }
+
     public void floatBox(LayoutContext c, Layer layer, BlockFormattingContext bfc, BlockBox box) {
         if (box.getStyle().isFloatedLeft()) {
             position(c, bfc, box, FloatDirection.LEFT);
-            save(box, layer, bfc, FloatDirection.LEFT);
+            save(c, box, layer, bfc, FloatDirection.LEFT);
         } else if (box.getStyle().isFloatedRight()) {
             position(c, bfc, box, FloatDirection.RIGHT);
-            save(box, layer, bfc, FloatDirection.RIGHT);
+            save(c, box, layer, bfc, FloatDirection.RIGHT);
         }
     }
 
@@ -91,13 +105,16 @@ public class FloatManager {
     }
 
     private void save(
+            CssContext cssCtx,
             BlockBox current,
             Layer layer,
             BlockFormattingContext bfc,
             FloatDirection direction) {
 
         Point p = bfc.getOffset();
-        getAddableFloats(direction).add(new BoxOffset(current, p.x, p.y));
+        List<BoxOffset> floats = getAddableFloats(direction);
+        floats.add(new BoxOffset(current, p.x, p.y));
+        getIndex(floats).add(current.getMarginEdge(cssCtx, -p.x, -p.y));
         layer.addFloat(current, bfc);
 
         current.getFloatedBoxData().setManager(this);
@@ -226,12 +243,7 @@ public class FloatManager {
     }
 
     private int findLowestY(CssContext cssCtx, List<BoxOffset> floats) {
-        return floats
-               .stream()
-               .map(floater -> floater.getBox().getMarginEdge(cssCtx, -floater.getX(), -floater.getY()))
-               .mapToInt(bounds -> bounds.y + bounds.height)
-               .max()
-               .orElse(0);
+        return getIndex(floats).getLowestY();
     }
 
     public int getClearDelta(CssContext cssCtx, int bfcRelativeY) {
@@ -247,11 +259,18 @@ public class FloatManager {
                              BlockBox current, List<BoxOffset> floats) {
         Point offset = bfc.getOffset();
         Rectangle bounds = current.getMarginEdge(cssCtx, -offset.x, -offset.y);
+        FloatIndex index = getIndex(floats);
+
+        for (int i = index.lastStartingBefore(bounds.y + bounds.height); i >= 0; i = index.previousEndingAfter(i, bounds.y)) {
+            BoxOffset floater = floats.get(i);
+            Rectangle floaterBounds = floater.getBox().getMarginEdge(cssCtx, -floater.getX(), -floater.getY());
 
-        return floats
-               .stream()
-               .map(floater -> floater.getBox().getMarginEdge(cssCtx, -floater.getX(), -floater.getY()))
-               .anyMatch(floaterBounds -> floaterBounds.intersects(bounds));
+            if (floaterBounds.intersects(bounds)) {
+                return true;
+            }
+        }
+
+        return false;
     }
 
     private void moveFloatBelow(CssContext cssCtx, BlockFormattingContext bfc,
@@ -299,11 +318,17 @@ public class FloatManager {
     }
 
     private void removeFloat(BlockBox floater, List<BoxOffset> floats) {
+        FloatIndex index = getIndex(floats);
+        int idx = 0;
+
         for (Iterator<BoxOffset> i = floats.iterator(); i.hasNext();) {
             BoxOffset boxOffset = i.next();
             if (boxOffset.getBox().equals(floater)) {
                 i.remove();
+                index.remove(idx);
                 floater.getFloatedBoxData().setManager(null);
+            } else {
+                idx++;
             }
         }
     }
@@ -384,8 +409,12 @@ public class FloatManager {
         applyLineHeightHack(cssCtx, line, lineBounds);
 
         BlockBox farthestOverBox = null;
+        FloatIndex index = getIndex(floatsList);
 
-        for (BoxOffset floater : floatsList) {
+        // Visits floats in reverse order, so the box returned is the
+        // last intersecting float, as for a forward scan.
+        for (int i = index.lastStartingBefore(lineBounds.y + lineBounds.height); i >= 0; i = index.previousEndingAfter(i, lineBounds.y)) {
+            BoxOffset floater = floatsList.get(i);
             Rectangle fr = floater.getBox().getMarginEdge(cssCtx, -floater.getX(), -floater.getY());
 
             if (lineBounds.intersects(fr)) {
@@ -395,7 +424,9 @@ public class FloatManager {
                     farthestOver = fr.x;
                 }
 
-                farthestOverBox = floater.getBox();
+                if (farthestOverBox == null) {
+                    farthestOverBox = floater.getBox();
+                }
             }
         }
 
@@ -463,6 +494,113 @@ public class FloatManager {
         }
     }
 
+    /**
+     * The vertical extents (margin edge, in block formatting context coordinates) of
+     * a list of floats, in the same order as the list.
+     * <br><br>
+     * Floats are placed no higher than earlier floats, so their tops are usually in
+     * ascending order and the last float starting above a position is found with a binary search.
+     * Working backwards from there, the running maximum of float bottoms lets us stop at
+     * the first float above which no float reaches the position. If tops are ever out of
+     * order, we fall back to checking every float.
+     */
+    private static class FloatIndex {
+        static final FloatIndex EMPTY = new FloatIndex(0);
+
+        private int[] _tops;
+        private int[] _bottoms;
+        private int[] _maxBottoms;
+        private int _size;
+        private boolean _ordered = true;
+
+        FloatIndex() {
+            this(8);
+        }
+
+        private FloatIndex(int capacity) {
+            _tops = new int[capacity];
+            _bottoms = new int[capacity];
+            _maxBottoms = new int[capacity];
+        }
+
+        void add(Rectangle bounds) {
+            if (_size == _tops.length) {
+                int capacity = Math.max(8, _size * 2);
+                _tops = Arrays.copyOf(_tops, capacity);
+                _bottoms = Arrays.copyOf(_bottoms, capacity);
+                _maxBottoms = Arrays.copyOf(_maxBottoms, capacity);
+            }
+
+            if (_size > 0 && bounds.y < _tops[_size - 1]) {
+                _ordered = false;
+            }
+
+            _tops[_size] = bounds.y;
+            _bottoms[_size] = bounds.y + bounds.height;
+            _maxBottoms[_size] = _size > 0 ? Math.max(_maxBottoms[_size - 1], _bottoms[_size]) : _bottoms[_size];
+            _size++;
+        }
+
+        void remove(int idx) {
+            int moved = _size - idx - 1;
+            System.arraycopy(_tops, idx + 1, _tops, idx, moved);
+            System.arraycopy(_bottoms, idx + 1, _bottoms, idx, moved);
+            _size--;
+
+            _ordered = true;
+            for (int i = 0; i < _size; i++) {
+                if (i > 0 && _tops[i] < _tops[i - 1]) {
+                    _ordered = false;
+                }
+                _maxBottoms[i] = i > 0 ? Math.max(_maxBottoms[i - 1], _bottoms[i]) : _bottoms[i];
+            }
+        }
+
+        /**
+         * @return the lowest float bottom or 0 if there are no floats.
+         */
+        int getLowestY() {
+            return _size > 0 ? _maxBottoms[_size - 1] : 0;
+        }
+
+        /**
+         * @return the index of the last float with its top above y or -1.
+         */
+        int lastStartingBefore(int y) {
+            if (!_ordered) {
+                return _size - 1;
+            }
+
+            int low = 0;
+            int high = _size - 1;
+
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (_tops[mid] < y) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+
+            return high;
+        }
+
+        /**
+         * @return the index of the closest float before idx with its bottom below y
+         * or -1 if there are none.
+         */
+        int previousEndingAfter(int idx, int y) {
+            for (int i = idx - 1; i >= 0 && _maxBottoms[i] > y; i--) {
+                if (_bottoms[i] > y) {
+                    return i;
+                }
+            }
+
+            return -1;
+        }
+    }
+
     private static class BoxDistance {
         private final BlockBox _box;
         private final int _distance;
@@ -25,7 +25,6 @@ import com.openhtmltopdf.css.constants.PageElementPosition;
 import com.openhtmltopdf.css.newmatch.PageInfo;
 import com.openhtmltopdf.css.style.CalculatedStyle;
 import com.openhtmltopdf.css.style.CssContext;
-import com.openhtmltopdf.css.style.EmptyStyle;
 import com.openhtmltopdf.render.*;
 import com.openhtmltopdf.render.displaylist.TransformCreator;
 import com.openhtmltopdf.util.SearchUtil;
@@ -70,6 +69,8 @@ public class Layer {
 
     private Map<String, List<BlockBox>> _runningBlocks;
 
+    private PageBox.MarginAreaCache _marginAreaCache;
+
     private boolean _forDeletion;
     private boolean _hasFixedAncester;
 
@@ -207,7 +208,7 @@ public class Layer {
         PageInfo pageInfo = c.getCss().getPageStyle(pageName, pseudoPage);
         result.setPageInfo(pageInfo);
 
-        CalculatedStyle cs = new EmptyStyle().deriveStyle(pageInfo.getPageStyle());
+        CalculatedStyle cs = c.getCss().getCalculatedPageStyle(pageInfo);
         result.setStyle(cs);
         result.setOuterPageWidth(result.getWidth(c));
 
@@ -514,19 +515,13 @@ public class Layer {
     }
 
     public void addPage(CssContext c) {
-        String pseudoPage = null;
         if (_pages == null) {
             _pages = new ArrayList<>();
         }
 
         List<PageBox> pages = getPages();
-        if (pages.size() == 0) {
-            pseudoPage = "first";
-        } else if (pages.size() % 2 == 0) {
-            pseudoPage = "right";
-        } else {
-            pseudoPage = "left";
-        }
+        int offset = c.getCss().getPageIndexOffset();
+        String pseudoPage = getPseudoPage(offset + pages.size());
         PageBox pageBox = createPageBox(c, pseudoPage);
         if (pages.size() == 0) {
             pageBox.setTopAndBottom(c, 0);
@@ -536,9 +531,23 @@ public class Layer {
         }
 
         pageBox.setPageNo(pages.size());
+        pageBox.setPageIndexOffset(offset);
         pages.add(pageBox);
     }
 
+    /**
+     * @return the pseudo page (first, left or right) of the page at pageIndex in the output.
+     */
+    public static String getPseudoPage(int pageIndex) {
+        if (pageIndex == 0) {
+            return "first";
+        } else if (pageIndex % 2 == 0) {
+            return "right";
+        } else {
+            return "left";
+        }
+    }
+
     /**
      * Returns the page box for a Y position.
      * If the y position is less than 0 then the first page will
@@ -944,11 +953,20 @@ public class Layer {
 
     public void layoutPages(LayoutContext c) {
         c.setRootDocumentLayer(c.getRootLayer());
+        _marginAreaCache = new PageBox.MarginAreaCache();
         for (PageBox pageBox : _pages) {
-            pageBox.layout(c);
+            pageBox.layout(c, _marginAreaCache);
         }
     }
 
+    /**
+     * @return the margin area tables shared between pages by {@link #layoutPages(LayoutContext)}
+     * or null if pages have not been laid out.
+     */
+    public PageBox.MarginAreaCache getMarginAreaCache() {
+        return _marginAreaCache;
+    }
+
     public void addPageSequence(BlockBox start) {
         if (_pageSequences == null) {
             _pageSequences = new HashSet<>();
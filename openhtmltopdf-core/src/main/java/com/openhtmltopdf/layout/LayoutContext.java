@@ -22,6 +22,7 @@ package com.openhtmltopdf.layout;
 import java.awt.Rectangle;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 
 import org.w3c.dom.Element;
@@ -88,6 +89,9 @@ public class LayoutContext implements CssContext {
 
     public final Map<CalculatedStyle, CounterContext> _counterContextMap = new HashMap<>();
 
+    private CalculatedStyle _carriedCountersStyle;
+    private List<Map<String, Integer>> _carriedCounters;
+
     private String _pendingPageName;
     private String _pageName;
 
@@ -435,6 +439,13 @@ public class LayoutContext implements CssContext {
         _fontContext = fontContext;
     }
 
+    /**
+     * The per render cache of measured word widths, used by {@link Breaker}.
+     */
+    public TextWidthCache getTextWidthCache() {
+        return _sharedContext.getTextWidthCache();
+    }
+
     public ContentFunctionFactory getContentFunctionFactory() {
         return _contentFunctionFactory;
     }
@@ -475,6 +486,10 @@ public class LayoutContext implements CssContext {
         //new context for child elements
         CounterContext cc = new CounterContext(this, style, startIndex);
         _counterContextMap.put(style, cc);
+
+        if (style == _carriedCountersStyle) {
+            cc.restoreCounters(_carriedCounters);
+        }
     }
 
     public void resolveCounters(CalculatedStyle style) {
@@ -485,6 +500,25 @@ public class LayoutContext implements CssContext {
         return _counterContextMap.get(style);
     }
 
+    /**
+     * Continues counting from an earlier layout, such as of an earlier segment of the
+     * same document. The counters in scope for the children of element are replaced
+     * with counters from {@link #copyCounters(Element)} once they are resolved.
+     */
+    public void carryCounters(Element element, List<Map<String, Integer>> counters) {
+        _carriedCountersStyle = getSharedContext().getStyle(element);
+        _carriedCounters = counters;
+    }
+
+    /**
+     * @return the counters in scope for the children of element after layout, or null
+     * if the counters of element were not resolved.
+     */
+    public List<Map<String, Integer>> copyCounters(Element element) {
+        CounterContext cc = _counterContextMap.get(getSharedContext().getStyle(element));
+        return cc != null ? cc.copyCounters() : null;
+    }
+
     public FSFontMetrics getFSFontMetrics(FSFont font) {
         return getTextRenderer().getFSFontMetrics(getFontContext(), font, "");
     }
@@ -120,6 +120,8 @@ public class SharedContext {
 
     private final RootCounterContext _rootCounterContext = new RootCounterContext();
 
+    private final TextWidthCache _textWidthCache = new TextWidthCache();
+
     public SharedContext() {
     }
 
@@ -128,6 +130,13 @@ public class SharedContext {
         return c;
     }
 
+    /**
+     * The cache of measured word widths, shared by all layout contexts of this render.
+     */
+    public TextWidthCache getTextWidthCache() {
+        return _textWidthCache;
+    }
+
     public RenderingContext newRenderingContextInstance() {
         RenderingContext c = new RenderingContext(this);
         return c;
@@ -250,6 +259,15 @@ public class SharedContext {
         return idMap;
     }
 
+    /**
+     * Clears the element styles and box ids of the current document, so that
+     * another segment of the document can be laid out without keeping this one in memory.
+     */
+    public void clearDocumentCaches() {
+        styleMap.clear();
+        idMap = null;
+    }
+
     /**
      * Sets the textRenderer attribute of the RenderingContext object
      *
@@ -0,0 +1,152 @@
+package com.openhtmltopdf.layout;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+import com.openhtmltopdf.render.FSFont;
+
+/**
+ * Remembers the measured width of short words (without letter spacing) per font,
+ * so that re-laying out a paragraph, for example after a page break or when
+ * laying out a table cell again, does not measure the same words again.
+ * <br><br>
+ * Words are looked up by a range of characters in a larger string, so
+ * no substring is created for a cache hit.
+ * <br><br>
+ * Fonts are compared with {@link FSFont#equals(Object)}, so font implementations
+ * should implement equality based on their underlying fonts and size.
+ * <br><br>
+ * NOTE: Not thread safe, there should be one cache per render, as provided by
+ * {@link LayoutContext#getTextWidthCache()}.
+ */
+public class TextWidthCache {
+    /**
+     * Longer runs of text are unlikely to be measured again, so are not cached.
+     */
+    static final int MAX_CACHED_LENGTH = 32;
+
+    /**
+     * Once a font has this many cached words we stop adding to it, to bound memory.
+     */
+    static final int MAX_ENTRIES_PER_FONT = 8192;
+
+    private final Map<FSFont, FontWidths> _fonts = new HashMap<>();
+
+    /**
+     * @return the widths of words measured with font, never null.
+     */
+    public FontWidths forFont(FSFont font) {
+        return _fonts.computeIfAbsent(font, f -> new FontWidths());
+    }
+
+    /**
+     * An open addressing hash table from word to width for a single font.
+     */
+    public static class FontWidths {
+        private String[] _keys = new String[64];
+        private int[] _hashes = new int[64];
+        private int[] _widths = new int[64];
+        private int _size;
+
+        /**
+         * Gets the width of text between start (inclusive) and end (exclusive), with a trailing
+         * hyphen if withHyphen is true, using measurer to measure a word not yet in the cache.
+         */
+        public int getWidth(String text, int start, int end, boolean withHyphen, ToIntFunction<String> measurer) {
+            int length = end - start;
+
+            if (length > MAX_CACHED_LENGTH) {
+                return measurer.applyAsInt(word(text, start, end, withHyphen));
+            }
+
+            // Same as String::hashCode of the word.
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + text.charAt(i);
+            }
+            if (withHyphen) {
+                hash = 31 * hash + '-';
+            }
+
+            int mask = _keys.length - 1;
+            int slot = mix(hash) & mask;
+            String key;
+
+            while ((key = _keys[slot]) != null) {
+                if (_hashes[slot] == hash &&
+                    matches(key, text, start, length, withHyphen)) {
+                    return _widths[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            String word = word(text, start, end, withHyphen);
+            int width = measurer.applyAsInt(word);
+
+            if (_size < MAX_ENTRIES_PER_FONT) {
+                _keys[slot] = word;
+                _hashes[slot] = hash;
+                _widths[slot] = width;
+                _size++;
+
+                if (_size * 2 > _keys.length) {
+                    grow();
+                }
+            }
+
+            return width;
+        }
+
+        private static String word(String text, int start, int end, boolean withHyphen) {
+            String word = text.substring(start, end);
+            return withHyphen ? word + '-' : word;
+        }
+
+        private static boolean matches(String key, String text, int start, int length, boolean withHyphen) {
+            if (withHyphen) {
+                return key.length() == length + 1 &&
+                       key.charAt(length) == '-' &&
+                       key.regionMatches(0, text, start, length);
+            }
+
+            return key.length() == length &&
+                   key.regionMatches(0, text, start, length);
+        }
+
+        private static int mix(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        private void grow() {
+            String[] oldKeys = _keys;
+            int[] oldHashes = _hashes;
+            int[] oldWidths = _widths;
+
+            int capacity = oldKeys.length * 2;
+            int mask = capacity - 1;
+
+            _keys = new String[capacity];
+            _hashes = new int[capacity];
+            _widths = new int[capacity];
+
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    int slot = mix(oldHashes[i]) & mask;
+
+                    while (_keys[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+
+                    _keys[slot] = oldKeys[i];
+                    _hashes[slot] = oldHashes[i];
+                    _widths[slot] = oldWidths[i];
+                }
+            }
+        }
+
+        int size() {
+            return _size;
+        }
+    }
+}
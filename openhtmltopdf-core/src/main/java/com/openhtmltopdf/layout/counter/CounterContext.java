@@ -60,6 +60,35 @@ public class CounterContext implements AbstractCounterContext {
 
     }
 
+    /**
+     * Copies the counters in scope for the children of the element this context
+     * was created for, from this context up to the top-level context.
+     */
+    public List<Map<String, Integer>> copyCounters() {
+        List<Map<String, Integer>> counters = new ArrayList<>();
+        for (CounterContext cc = this; cc != null; cc = cc._parent) {
+            counters.add(new HashMap<>(cc._counters));
+        }
+        return counters;
+    }
+
+    /**
+     * Replaces the counters of this context and its ancestors with counters
+     * copied by {@link #copyCounters()}, so that a layout can continue counting
+     * from an earlier layout.
+     */
+    public void restoreCounters(List<Map<String, Integer>> counters) {
+        CounterContext cc = this;
+        for (Map<String, Integer> copy : counters) {
+            if (cc == null) {
+                break;
+            }
+            cc._counters.clear();
+            cc._counters.putAll(copy);
+            cc = cc._parent;
+        }
+    }
+
     /**
      * @param cd
      * @return true if a counter was found and incremented
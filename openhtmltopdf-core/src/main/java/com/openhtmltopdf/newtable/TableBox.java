@@ -146,7 +146,9 @@ public class TableBox extends BlockBox {
         if (isMarginAreaRoot()) {
             _tableLayout = new MarginTableLayout(this);
         } else if (getStyle().isIdent(CSSName.TABLE_LAYOUT, IdentValue.AUTO) || getStyle().isAutoWidth()) {
-            _tableLayout = new AutoTableLayout(this);
+            _tableLayout = getStyle().isSampledTableLayout() ?
+                    new SampledTableLayout(this, getStyle().fsTableLayoutSampleRows()) :
+                    new AutoTableLayout(this);
         } else {
             _tableLayout = new FixedTableLayout(this);
         }
@@ -948,6 +950,27 @@ public class TableBox extends BlockBox {
         }
     }
 
+    /**
+     * A specialization of <code>AutoTableLayout</code> for very large tables
+     * (<code>-fs-table-layout: sampled</code>) which calculates column widths from
+     * only the first rows of each row group, rather than measuring every cell.
+     * Content in later rows wider than its column wraps or overflows. This saves
+     * the time of the min/max width pass only, every row is still laid out and kept.
+     */
+    private static class SampledTableLayout extends AutoTableLayout {
+        private final int _sampleRows;
+
+        public SampledTableLayout(TableBox table, int sampleRows) {
+            super(table);
+            _sampleRows = sampleRows;
+        }
+
+        @Override
+        protected int getSampledRowCount(TableSectionBox section) {
+            return Math.min(section.numRows(), _sampleRows);
+        }
+    }
+
     private static class FixedTableLayout implements TableLayout {
         private final TableBox _table;
         private List<Length> _widths;
@@ -1236,13 +1259,20 @@ public class TableBox extends BlockBox {
             return 1;
         }
 
+        /**
+         * @return the number of rows of a row group used to calculate column widths.
+         */
+        protected int getSampledRowCount(TableSectionBox section) {
+            return section.numRows();
+        }
+
         private void recalcColumn(LayoutContext c, int effCol) {
             Layout l = _layoutStruct[effCol];
 
             // first we iterate over all rows.
             for (Iterator<TableSectionBox> j = _table.getChildIteratorOfType(TableSectionBox.class); j.hasNext();) {
                 TableSectionBox section = j.next();
-                int numRows = section.numRows();
+                int numRows = getSampledRowCount(section);
                 for (int i = 0; i < numRows; i++) {
                     TableCellBox cell = section.cellAt(i, effCol);
                     if (cell == TableCellBox.SPANNING_CELL || cell == null) {
@@ -70,6 +70,49 @@ public abstract class BaseRendererBuilder<TFinalClass extends BaseRendererBuilde
 		public String _preferredTransformerFactoryImplementationClass = "com.sun.org.apache.xalan.internal.xsltc.trax.TransformerFactoryImpl";
 		public String _preferredDocumentBuilderFactoryImplementationClass = "com.sun.org.apache.xerces.internal.jaxp.DocumentBuilderFactoryImpl";
 		public Consumer<Diagnostic> _diagnosticConsumer;
+		public RenderMetricsListener _metricsListener;
+		public boolean _reuseParsersAcrossRenders;
+
+		/**
+		 * Copies document independent settings from another state. Configured objects such as fonts,
+		 * drawers, mutators and stream factories are shared, not copied. The document itself
+		 * (html, uri, file, etc) is not copied.
+		 */
+		protected void copySettingsFrom(BaseRendererBuilderState other) {
+		    _fonts.clear();
+		    _fonts.addAll(other._fonts);
+		    _domMutators.clear();
+		    _domMutators.addAll(other._domMutators);
+		    _streamFactoryMap.clear();
+		    _streamFactoryMap.putAll(other._streamFactoryMap);
+
+		    _beforeAccessController = other._beforeAccessController;
+		    _afterAccessController = other._afterAccessController;
+		    _resolver = other._resolver;
+		    _svgImpl = other._svgImpl;
+		    _mathmlImpl = other._mathmlImpl;
+		    _replacementText = other._replacementText;
+		    _lineBreaker = other._lineBreaker;
+		    _charBreaker = other._charBreaker;
+		    _unicodeToUpperTransformer = other._unicodeToUpperTransformer;
+		    _unicodeToLowerTransformer = other._unicodeToLowerTransformer;
+		    _unicodeToTitleTransformer = other._unicodeToTitleTransformer;
+		    _splitter = other._splitter;
+		    _reorderer = other._reorderer;
+		    _textDirection = other._textDirection;
+		    _pageWidth = other._pageWidth;
+		    _pageHeight = other._pageHeight;
+		    _isPageSizeInches = other._isPageSizeInches;
+		    _testMode = other._testMode;
+		    _initialPageNumber = other._initialPageNumber;
+		    _pagingMode = other._pagingMode;
+		    _objectDrawerFactory = other._objectDrawerFactory;
+		    _preferredTransformerFactoryImplementationClass = other._preferredTransformerFactoryImplementationClass;
+		    _preferredDocumentBuilderFactoryImplementationClass = other._preferredDocumentBuilderFactoryImplementationClass;
+		    _diagnosticConsumer = other._diagnosticConsumer;
+		    _metricsListener = other._metricsListener;
+		    _reuseParsersAcrossRenders = other._reuseParsersAcrossRenders;
+		}
     }
 
 	protected final TBaseRendererBuilderState state;
@@ -103,6 +146,10 @@ public abstract class BaseRendererBuilder<TFinalClass extends BaseRendererBuilde
 	 * seems to work with most systems but not JBoss Wildfly and related setups. In
 	 * this case you can use null to let the container use whatever
 	 * TransformerFactory it has available.
+	 * <br><br>
+	 * With null or the default, documents are built directly from the SAX parser
+	 * without a transformer. Any other class is used for an identity transform
+	 * from the SAX parser to the document.
 	 *
 	 * @param transformerFactoryClass
 	 * @return this for method chaining
@@ -587,6 +634,37 @@ public abstract class BaseRendererBuilder<TFinalClass extends BaseRendererBuilde
 		return (TFinalClass) this;
 	}
 
+	/**
+	 * Registers a listener to receive the time taken by each render phase and counters
+	 * such as the number of boxes and pages. The listener is called on the rendering thread.
+	 * If it is shared between renders on multiple threads (for example through {@code PdfRendererSettings})
+	 * it must be thread safe.
+	 *
+	 * @param listener the listener or null (the default) to not collect metrics
+	 * @return this for method chaining
+	 */
+	public TFinalClass useRenderMetricsListener(RenderMetricsListener listener) {
+		state._metricsListener = listener;
+		return (TFinalClass) this;
+	}
+
+	/**
+	 * Keeps the XML parsers of the rendering thread when the renderer is closed, so that
+	 * later renders on the same thread reuse them instead of creating new ones.
+	 * By default they are released on close.
+	 * <br><br>
+	 * Kept parsers, and the class loader of their factories, are held by the thread until
+	 * {@link com.openhtmltopdf.resource.XMLResource#releaseParsers()} is called on it. Call it
+	 * from each thread of a pool before the pool is shut down, or before unloading the
+	 * class loader of the application (for example on redeploy in a servlet container).
+	 *
+	 * @return this for method chaining
+	 */
+	public TFinalClass useParserReuseAcrossRenders() {
+		state._reuseParsersAcrossRenders = true;
+		return (TFinalClass) this;
+	}
+
 	protected Closeable applyDiagnosticConsumer() {
 		return ThreadCtx.applyDiagnosticConsumer(state._diagnosticConsumer);
 	}
@@ -199,7 +199,7 @@ public abstract class AbstractOutputDevice implements OutputDevice {
         BorderPainter.paint(edge, sides, style.getBorder(c), c, 0, true);
     }
 
-    private FSImage getBackgroundImage(PropertyValue bgImage, RenderingContext c) {
+    protected FSImage getBackgroundImage(PropertyValue bgImage, RenderingContext c) {
         if (bgImage.getIdentValue() != IdentValue.NONE) {
             String uri = bgImage.getStringValue();
 
@@ -24,13 +24,17 @@ import java.awt.Point;
 import java.awt.Rectangle;
 import java.io.IOException;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import org.w3c.dom.Element;
 
 import com.openhtmltopdf.css.constants.CSSName;
 import com.openhtmltopdf.css.constants.IdentValue;
 import com.openhtmltopdf.css.constants.MarginBoxName;
+import com.openhtmltopdf.css.extend.ContentFunction;
 import com.openhtmltopdf.css.newmatch.PageInfo;
 import com.openhtmltopdf.css.parser.CSSPrimitiveValue;
 import com.openhtmltopdf.css.parser.FSFunction;
@@ -73,6 +77,7 @@ public class PageBox {
     private int _paintingBottom;
     
     private int _pageNo;
+    private int _pageIndexOffset;
     
     private int _outerPageWidth;
     
@@ -477,11 +482,15 @@ public class PageBox {
 
                 c.getOutputDevice().translate(p.x, p.y);
 
+                // The table may be shared with other pages, which may be painting on
+                // other threads, and dynamic content such as counter(page) is updated while painting.
+                synchronized (table) {
                     table.getLayer().propagateCurrentTransformationMatrix(c);
                     SimplePainter painter = new SimplePainter(p.x, p.y);
                     Object token = c.getOutputDevice().startStructure(StructureType.RUNNING, table);
                     painter.paintLayer(c, table.getLayer());
                     c.getOutputDevice().endStructure(token);
+                }
 
                 c.getOutputDevice().translate(-p.x, -p.y);
             }
@@ -529,9 +538,19 @@ public class PageBox {
     }
     
     public void layout(LayoutContext c) {
+        layout(c, new MarginAreaCache());
+    }
+
+    /**
+     * Lays out the margin areas of this page, reusing the margin area tables of earlier
+     * pages in marginAreaCache where the page style, dimensions and running elements are the same.
+     * Dynamic content such as <code>counter(page)</code> is calculated when painting so does not
+     * prevent reuse.
+     */
+    public void layout(LayoutContext c, MarginAreaCache marginAreaCache) {
         c.setPage(this);
         retrievePageMetadata(c);
-        layoutMarginAreas(c);
+        layoutMarginAreas(c, marginAreaCache);
     }
     
     // HACK Would much prefer to do this in ITextRenderer or ITextOutputDevice
@@ -563,13 +582,25 @@ public class PageBox {
         }
     }
 
-    private void layoutMarginAreas(LayoutContext c) {
+    private void layoutMarginAreas(LayoutContext c, MarginAreaCache marginAreaCache) {
         c.setFootnoteAllowed(false);
         RectPropertySet margin = getMargin(c);
         for (int i = 0; i < MARGIN_AREA_DEFS.length; i++) {
             MarginArea area = MARGIN_AREA_DEFS[i];
             
             Dimension dim = area.getLayoutDimension(c, this, margin);
+
+            List<Object> key = createMarginAreaKey(c, i, dim);
+            if (key != null && marginAreaCache._tables.containsKey(key)) {
+                marginAreaCache._hits++;
+                TableBox table = marginAreaCache._tables.get(key);
+                if (table != null) {
+                    _marginAreas[i] = new MarginAreaContainer(area, table);
+                }
+                continue;
+            }
+            marginAreaCache._misses++;
+
             TableBox table = BoxBuilder.createMarginTable(
                     c, _pageInfo, 
                     area.getMarginBoxNames(),
@@ -592,16 +623,73 @@ public class PageBox {
                 }
                 _marginAreas[i] = new MarginAreaContainer(area, table);
             }
+
+            if (key != null) {
+                marginAreaCache._tables.put(key, table);
+            }
         }
         c.setFootnoteAllowed(true);
     }
+
+    /**
+     * Creates the key for a margin area table from the page style, margin area, dimensions and
+     * the running elements placed with <code>element()</code> on this page.
+     * Returns null if the margin area uses a content function calculated at layout time,
+     * as it may depend on the page.
+     */
+    private List<Object> createMarginAreaKey(LayoutContext c, int areaIndex, Dimension dim) {
+        List<Object> key = new ArrayList<>();
+        key.add(_pageInfo);
+        key.add(areaIndex);
+        key.add(dim);
+
+        for (MarginBoxName name : MARGIN_AREA_DEFS[areaIndex].getMarginBoxNames()) {
+            List<PropertyDeclaration> decls = _pageInfo.getMarginBoxes().get(name);
+            if (decls == null) {
+                continue;
+            }
+
+            for (PropertyDeclaration decl : decls) {
+                if (decl.getCSSName() != CSSName.CONTENT ||
+                    ((PropertyValue) decl.getValue()).getPropertyValueType() != PropertyValue.VALUE_TYPE_LIST) {
+                    continue;
+                }
+
+                for (PropertyValue value : ((PropertyValue) decl.getValue()).getValues()) {
+                    if (value.getPropertyValueType() != PropertyValue.VALUE_TYPE_FUNCTION) {
+                        continue;
+                    }
+
+                    FSFunction func = value.getFunction();
+                    if (BoxBuilder.isElementFunction(func)) {
+                        key.add(BoxBuilder.getRunningBlock(c, value));
+                    } else {
+                        ContentFunction contentFunction = c.getContentFunctionFactory().lookupFunction(c, func);
+                        if (contentFunction != null && contentFunction.isStatic()) {
+                            return null;
+                        }
+                    }
+                }
+            }
+        }
+
+        return key;
+    }
     
+    /**
+     * The number of pages output before the document this page belongs to, such
+     * as pages of previous segments of a streamed document.
+     */
+    public void setPageIndexOffset(int pageIndexOffset) {
+        _pageIndexOffset = pageIndexOffset;
+    }
+
     public boolean isLeftPage() {
-        return _pageNo % 2 != 0;
+        return (_pageIndexOffset + _pageNo) % 2 != 0;
     }
     
     public boolean isRightPage() {
-        return _pageNo % 2 == 0;
+        return (_pageIndexOffset + _pageNo) % 2 == 0;
     }
     
     public void exportLeadingText(RenderingContext c, Writer writer) throws IOException {
@@ -657,6 +745,30 @@ public class PageBox {
         }
     }
     
+    /**
+     * Margin area tables laid out for the pages of a document, see
+     * {@link PageBox#layout(LayoutContext, MarginAreaCache)}.
+     */
+    public static class MarginAreaCache {
+        private final Map<List<Object>, TableBox> _tables = new HashMap<>();
+        private int _hits;
+        private int _misses;
+
+        /**
+         * @return the number of margin areas which reused a table from an earlier page.
+         */
+        public int getHits() {
+            return _hits;
+        }
+
+        /**
+         * @return the number of margin areas which were laid out.
+         */
+        public int getMisses() {
+            return _misses;
+        }
+    }
+
     private static class MarginAreaContainer {
         private final MarginArea _area;
         private final TableBox _table;
@@ -0,0 +1,138 @@
+package com.openhtmltopdf.resource;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.DefaultHandler2;
+
+/**
+ * Builds a DOM directly from SAX events, in place of an identity transform from a
+ * <code>SAXSource</code> to a <code>DOMResult</code>. The resulting tree matches what
+ * the JDK identity transformer builds: adjacent text (including CDATA sections) is
+ * merged into one text node, ignorable whitespace and the doctype are dropped,
+ * namespace declarations become <code>xmlns</code> attributes and attributes
+ * declared as ID in the DTD are marked as such.
+ */
+class DOMBuildingHandler extends DefaultHandler2 {
+    Document document;
+    final Deque<Node> open = new ArrayDeque<>();
+    private final List<String> prefixMappings = new ArrayList<>();
+    private final StringBuilder text = new StringBuilder();
+    private boolean inDTD;
+
+    DOMBuildingHandler(Document document) {
+        this.document = document;
+        this.open.push(document);
+    }
+
+    Document getDocument() {
+        return document;
+    }
+
+    void appendText() {
+        if (text.length() > 0) {
+            Node parent = open.peek();
+            if (parent != document) {
+                parent.appendChild(document.createTextNode(text.toString()));
+            }
+            text.setLength(0);
+        }
+    }
+
+    @Override
+    public void startPrefixMapping(String prefix, String uri) {
+        prefixMappings.add(prefix);
+        prefixMappings.add(uri);
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes atts) {
+        appendText();
+
+        Element element = document.createElementNS(uri == null || uri.isEmpty() ? null : uri, qName);
+
+        for (int i = 0; i < prefixMappings.size(); i += 2) {
+            String prefix = prefixMappings.get(i);
+            String name = prefix == null || prefix.isEmpty() ? XMLConstants.XMLNS_ATTRIBUTE : XMLConstants.XMLNS_ATTRIBUTE + ':' + prefix;
+            element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, name, prefixMappings.get(i + 1));
+        }
+        prefixMappings.clear();
+
+        for (int i = 0; i < atts.getLength(); i++) {
+            String attUri = atts.getURI(i);
+            String attLocalName = atts.getLocalName(i);
+            Attr attr;
+
+            if (attLocalName == null || attLocalName.isEmpty()) {
+                element.setAttribute(atts.getQName(i), atts.getValue(i));
+                attr = element.getAttributeNode(atts.getQName(i));
+            } else {
+                String ns = attUri == null || attUri.isEmpty() ? null : attUri;
+                element.setAttributeNS(ns, atts.getQName(i), atts.getValue(i));
+                attr = element.getAttributeNodeNS(ns, attLocalName);
+            }
+
+            if (attr != null && "ID".equals(atts.getType(i))) {
+                element.setIdAttributeNode(attr, true);
+            }
+        }
+
+        open.peek().appendChild(element);
+        open.push(element);
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        appendText();
+        open.pop();
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        text.append(ch, start, length);
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) {
+    }
+
+    @Override
+    public void processingInstruction(String target, String data) {
+        appendText();
+        open.peek().appendChild(document.createProcessingInstruction(target, data));
+    }
+
+    @Override
+    public void comment(char[] ch, int start, int length) {
+        if (inDTD) {
+            return;
+        }
+        appendText();
+        open.peek().appendChild(document.createComment(new String(ch, start, length)));
+    }
+
+    @Override
+    public void startDTD(String name, String publicId, String systemId) {
+        inDTD = true;
+    }
+
+    @Override
+    public void endDTD() {
+        inDTD = false;
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+        appendText();
+    }
+}
@@ -91,7 +91,7 @@ public class FSEntityResolver implements EntityResolver {
             }
             local = new InputSource(is);
             local.setSystemId(realUrl.toExternalForm());
-            XRLog.log(Level.FINE, LogMessageId.LogMessageId2Param.XML_ENTITIES_ENTITY_PUBLIC_NOT_FOUND_OR_LOCAL, publicID, url + (local == null ? ", NOT FOUND" : " (local)"));
+            XRLog.log(Level.FINE, LogMessageId.LogMessageId2Param.XML_ENTITIES_ENTITY_PUBLIC_NOT_FOUND_OR_LOCAL, () -> publicID, () -> url + " (local)");
         } else {
             XRLog.log(Level.INFO, LogMessageId.LogMessageId1Param.XML_ENTITIES_ENTITY_PUBLIC_NO_LOCAL_MAPPING, publicID);
             local = new InputSource(new StringReader(""));
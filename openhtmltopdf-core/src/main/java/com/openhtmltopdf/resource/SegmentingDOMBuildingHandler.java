@@ -0,0 +1,111 @@
+package com.openhtmltopdf.resource;
+
+import java.io.IOException;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+/**
+ * Builds a document in segments, passing each to a {@link XMLSegmentHandler} so that
+ * only one segment is in memory at a time. The document is split only between top
+ * level children of body, and only where the handler asks for it. A document
+ * without a body is passed to the handler as one segment.
+ */
+class SegmentingDOMBuildingHandler extends DOMBuildingHandler {
+    // Document, root element, body element.
+    private static final int BODY_DEPTH = 3;
+
+    private final XMLSegmentHandler handler;
+
+    SegmentingDOMBuildingHandler(Document document, XMLSegmentHandler handler) {
+        super(document);
+        this.handler = handler;
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        super.endElement(uri, localName, qName);
+
+        if (open.size() != BODY_DEPTH || !isBody(open.peek())) {
+            return;
+        }
+
+        Element body = (Element) open.peek();
+        Element child = (Element) body.getLastChild();
+
+        if (handler.isSegmentStart(child) && hasPreviousElement(child)) {
+            body.removeChild(child);
+            segment();
+            startSegment(body, child);
+        }
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+        super.endDocument();
+        segment();
+    }
+
+    private void segment() throws SAXException {
+        try {
+            handler.segment(document);
+        } catch (IOException e) {
+            throw new SAXException(e);
+        }
+    }
+
+    /**
+     * Replaces the current document with a new segment containing copies of
+     * the nodes outside body and first, moved from the previous segment.
+     */
+    private void startSegment(Element body, Element first) {
+        Document previous = document;
+        Document next = previous.getImplementation().createDocument(null, null, null);
+        Element root = previous.getDocumentElement();
+        Element nextRoot = null;
+        Element nextBody = null;
+
+        for (Node n = previous.getFirstChild(); n != null; n = n.getNextSibling()) {
+            if (n == root) {
+                nextRoot = (Element) next.importNode(root, false);
+                next.appendChild(nextRoot);
+            } else if (n.getNodeType() != Node.DOCUMENT_TYPE_NODE) {
+                next.appendChild(next.importNode(n, true));
+            }
+        }
+
+        for (Node n = root.getFirstChild(); n != null; n = n.getNextSibling()) {
+            if (n == body) {
+                nextBody = (Element) next.importNode(body, false);
+                nextRoot.appendChild(nextBody);
+            } else {
+                nextRoot.appendChild(next.importNode(n, true));
+            }
+        }
+
+        Node moved = next.adoptNode(first);
+        nextBody.appendChild(moved != null ? moved : next.importNode(first, true));
+
+        document = next;
+        open.clear();
+        open.push(next);
+        open.push(nextRoot);
+        open.push(nextBody);
+    }
+
+    private static boolean hasPreviousElement(Element child) {
+        for (Node n = child.getPreviousSibling(); n != null; n = n.getPreviousSibling()) {
+            if (n.getNodeType() == Node.ELEMENT_NODE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isBody(Node node) {
+        return node.getParentNode() == document.getDocumentElement() &&
+               "body".equals(node.getLocalName() != null ? node.getLocalName() : node.getNodeName());
+    }
+}
@@ -22,15 +22,19 @@ package com.openhtmltopdf.resource;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.util.Objects;
 import java.util.logging.Level;
 
 import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.FactoryConfigurationError;
+import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.TransformerFactoryConfigurationError;
 import javax.xml.transform.dom.DOMResult;
@@ -41,6 +45,7 @@ import com.openhtmltopdf.util.*;
 import org.w3c.dom.Document;
 import org.xml.sax.ErrorHandler;
 import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 import org.xml.sax.XMLReader;
 
@@ -52,10 +57,44 @@ public class XMLResource extends AbstractResource {
     private Document document;
     private static final XMLResourceBuilder XML_RESOURCE_BUILDER;
 
+    private static final String DEFAULT_TRANSFORMER_FACTORY = "com.sun.org.apache.xalan.internal.xsltc.trax.TransformerFactoryImpl";
+    private static final String LEXICAL_HANDLER_PROPERTY = "http://xml.org/sax/properties/lexical-handler";
+
+    /**
+     * Configured parsers are expensive to look up and create but not thread safe,
+     * so each thread keeps its own to reuse for every document it loads.
+     * They are released by {@link #releaseParsers()}, which renderers call on close
+     * through {@link com.openhtmltopdf.util.ThreadCtx#cleanup(boolean)} unless built with
+     * {@link com.openhtmltopdf.outputdevice.helper.BaseRendererBuilder#useParserReuseAcrossRenders()}.
+     */
+    private static final ThreadLocal<ParserPool> PARSER_POOL = ThreadLocal.withInitial(ParserPool::new);
+
+    private static class ParserPool {
+        private XMLReader xmlReader;
+        private DocumentBuilder documentBuilder;
+        private String documentBuilderFactoryClass;
+        private Transformer transformer;
+        private String transformerFactoryClass;
+        private boolean inUse;
+    }
+
     static {
         XML_RESOURCE_BUILDER = new XMLResourceBuilder();
     }
 
+    /**
+     * Releases the parsers kept for reuse by the current thread, so that they,
+     * and the class loader of their factories, are not held by the thread.
+     * Renderers call this on close, unless built with
+     * {@link com.openhtmltopdf.outputdevice.helper.BaseRendererBuilder#useParserReuseAcrossRenders()}.
+     * In that case, call it from each thread of a pool before the pool is shut down,
+     * or before unloading the class loader of the application. The parsers are
+     * created again if the thread loads another document.
+     */
+    public static void releaseParsers() {
+        PARSER_POOL.remove();
+    }
+
     private XMLResource(InputStream stream) {
         super(stream);
     }
@@ -91,6 +130,17 @@ public class XMLResource extends AbstractResource {
         }
     }
 
+    /**
+     * Parses a document, passing it to handler in segments as it is read rather
+     * than building the whole document, see {@link XMLSegmentHandler}.
+     * The source is not closed.
+     *
+     * @throws IOException if reading the source or the handler failed.
+     */
+    public static void loadSegments(InputSource source, XMLSegmentHandler handler) throws IOException {
+        XML_RESOURCE_BUILDER.createSegments(source, handler);
+    }
+
     public Document getDocument() {
         return document;
     }
@@ -204,7 +254,7 @@ public class XMLResource extends AbstractResource {
 
     	private TransformerFactory loadPreferredTransformerFactory(String preferredImpl) {
             try {
-            	return TransformerFactory.newInstance(preferredImpl, null);
+            	return preferredImpl == null ? TransformerFactory.newInstance() : TransformerFactory.newInstance(preferredImpl, null);
             } catch (TransformerFactoryConfigurationError e) {
                 XRLog.log(Level.SEVERE, LogMessageId.LogMessageId1Param.LOAD_COULD_NOT_LOAD_PREFERRED_XML, "transformer");
             	return TransformerFactory.newInstance();
@@ -220,54 +270,115 @@ public class XMLResource extends AbstractResource {
             }
     	}
 
-    	private XMLResource createXMLResource(XMLResource target) {
-            Source input = null;
-            DOMResult output = null;
-            TransformerFactory xformFactory = null;
-            Transformer idTransform = null;
-            XMLReader xmlReader = null;
-            long st = 0L;
+    	private DocumentBuilder newDocumentBuilder(String preferredImpl) throws ParserConfigurationException {
+            DocumentBuilderFactory dbf = loadPreferredDocumentBuilderFactory(preferredImpl);
+
+            setDocumentBuilderSecurityFeatures(dbf);
+            dbf.setNamespaceAware(true);
+            dbf.setValidating(false); // validation is the root of all evil in xml - tobe
+
+            return dbf.newDocumentBuilder();
+        }
+
+        private Transformer newIdentityTransformer(String preferredImpl) throws TransformerConfigurationException {
+            TransformerFactory xformFactory = loadPreferredTransformerFactory(preferredImpl);
+            setTranformerFactorySecurityFeatures(xformFactory);
+            return xformFactory.newTransformer();
+        }
+
+        /**
+         * Gets the parsers for this thread, creating or replacing any that are missing
+         * or were configured with a different preferred implementation.
+         * If the pooled parsers are in use by a document being loaded on this
+         * thread (for example from an entity resolver) new unpooled parsers are returned.
+         */
+        private ParserPool acquire(String preferredDocumentBuilderFactory, String preferredTransformerFactory) throws Exception {
+            ParserPool pool = PARSER_POOL.get();
+
+            if (pool.inUse) {
+                pool = new ParserPool();
+            }
+
+            if (pool.xmlReader == null) {
+                XMLReader xmlReader = XMLResource.newXMLReader();
+
+                setXmlReaderSecurityFeatures(xmlReader);
+                addHandlers(xmlReader);
+                setParserFeatures(xmlReader);
+
+                pool.xmlReader = xmlReader;
+            }
+
+            if (pool.documentBuilder == null ||
+                !Objects.equals(pool.documentBuilderFactoryClass, preferredDocumentBuilderFactory)) {
+                pool.documentBuilder = newDocumentBuilder(preferredDocumentBuilderFactory);
+                pool.documentBuilderFactoryClass = preferredDocumentBuilderFactory;
+            }
+
+            if (usesIdentityTransform(preferredTransformerFactory) &&
+                (pool.transformer == null ||
+                 !Objects.equals(pool.transformerFactoryClass, preferredTransformerFactory))) {
+                pool.transformer = newIdentityTransformer(preferredTransformerFactory);
+                pool.transformerFactoryClass = preferredTransformerFactory;
+            }
+
+            pool.inUse = true;
+            return pool;
+        }
 
-            xmlReader = XMLResource.newXMLReader();
+        private void release(ParserPool pool) {
+            pool.xmlReader.setContentHandler(null);
+            trySetFeature(LEXICAL_HANDLER_PROPERTY, null, pool.xmlReader::setProperty);
 
-            setXmlReaderSecurityFeatures(xmlReader);
-            addHandlers(xmlReader);
-            setParserFeatures(xmlReader);
+            if (pool.transformer != null) {
+                pool.transformer.reset();
+            }
+
+            pool.inUse = false;
+        }
+
+        /**
+         * The DOM is built directly from SAX events unless a transformer factory other
+         * than the default was requested, in which case it is used for an identity
+         * transform as before.
+         */
+        private boolean usesIdentityTransform(String preferredTransformerFactory) {
+            return preferredTransformerFactory != null &&
+                   !preferredTransformerFactory.equals(DEFAULT_TRANSFORMER_FACTORY);
+        }
+
+    	private XMLResource createXMLResource(XMLResource target) {
+            String preferredDocumentBuilderFactory = ThreadCtx.get().sharedContext()._preferredDocumentBuilderFactoryImplementationClass;
+            String preferredTransformerFactory = ThreadCtx.get().sharedContext()._preferredTransformerFactoryImplementationClass;
+            ParserPool pool;
 
-            st = System.currentTimeMillis();
             try {
-                input = new SAXSource(xmlReader, target.getResourceInputSource());
-                
-                String preferredDocumentBuilderFactory = ThreadCtx.get().sharedContext()._preferredDocumentBuilderFactoryImplementationClass;
-                DocumentBuilderFactory dbf = loadPreferredDocumentBuilderFactory(preferredDocumentBuilderFactory);
-                
-                setDocumentBuilderSecurityFeatures(dbf);
-                dbf.setNamespaceAware(true);
-                dbf.setValidating(false); // validation is the root of all evil in xml - tobe
-                
-                output = new DOMResult(dbf.newDocumentBuilder().newDocument());
-                
-                String preferredTransformerFactory = ThreadCtx.get().sharedContext()._preferredTransformerFactoryImplementationClass;
-                
-                if (preferredTransformerFactory == null) {
-                	xformFactory = TransformerFactory.newInstance();
-                } else {
-                	xformFactory = loadPreferredTransformerFactory(preferredTransformerFactory);
-                }
-                
-                setTranformerFactorySecurityFeatures(xformFactory);
-                idTransform = xformFactory.newTransformer();
-                
+                pool = acquire(preferredDocumentBuilderFactory, preferredTransformerFactory);
+            } catch (XRRuntimeException ex) {
+                throw ex;
             } catch (Exception ex) {
                 throw new XRRuntimeException(
                         "Failed on configuring SAX to DOM transformer.", ex);
             }
 
+            long st = System.currentTimeMillis();
+            Document document = pool.documentBuilder.newDocument();
+
             try {
-                idTransform.transform(input, output);
+                if (usesIdentityTransform(preferredTransformerFactory)) {
+                    Source input = new SAXSource(pool.xmlReader, target.getResourceInputSource());
+                    pool.transformer.transform(input, new DOMResult(document));
+                } else {
+                    DOMBuildingHandler handler = new DOMBuildingHandler(document);
+                    pool.xmlReader.setContentHandler(handler);
+                    trySetFeature(LEXICAL_HANDLER_PROPERTY, handler, pool.xmlReader::setProperty);
+                    pool.xmlReader.parse(target.getResourceInputSource());
+                }
             } catch (Exception ex) {
                 throw new XRRuntimeException(
                         "Can't load the XML resource (using TRaX transformer). " + ex.getMessage(), ex);
+            } finally {
+                release(pool);
             }
 
             long end = System.currentTimeMillis();
@@ -276,10 +387,40 @@ public class XMLResource extends AbstractResource {
 
             XRLog.log(Level.INFO, LogMessageId.LogMessageId1Param.LOAD_LOADED_DOCUMENT_TIME, target.getElapsedLoadTime());
 
-            target.setDocument((Document) output.getNode());
+            target.setDocument(document);
             return target;
         }
 
+        private void createSegments(InputSource source, XMLSegmentHandler segmentHandler) throws IOException {
+            String preferredDocumentBuilderFactory = ThreadCtx.get().sharedContext()._preferredDocumentBuilderFactoryImplementationClass;
+            ParserPool pool;
+
+            try {
+                // Segments are always built directly, so no transformer is needed.
+                pool = acquire(preferredDocumentBuilderFactory, null);
+            } catch (XRRuntimeException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new XRRuntimeException(
+                        "Failed on configuring SAX to DOM transformer.", ex);
+            }
+
+            try {
+                SegmentingDOMBuildingHandler handler = new SegmentingDOMBuildingHandler(pool.documentBuilder.newDocument(), segmentHandler);
+                pool.xmlReader.setContentHandler(handler);
+                trySetFeature(LEXICAL_HANDLER_PROPERTY, handler, pool.xmlReader::setProperty);
+                pool.xmlReader.parse(source);
+            } catch (SAXException ex) {
+                if (ex.getException() instanceof IOException) {
+                    throw (IOException) ex.getException();
+                }
+                throw new XRRuntimeException(
+                        "Can't load the XML resource. " + ex.getMessage(), ex);
+            } finally {
+                release(pool);
+            }
+        }
+
         /**
          * Adds the default EntityResolved and ErrorHandler for the SAX parser.
          */
@@ -0,0 +1,29 @@
+package com.openhtmltopdf.resource;
+
+import java.io.IOException;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Receives a document in segments as it is parsed, see
+ * {@link XMLResource#loadSegments(org.xml.sax.InputSource, XMLSegmentHandler)}.
+ */
+public interface XMLSegmentHandler {
+    /**
+     * Called with each top level child element of body as soon as it is complete, while it
+     * is still the last child of body in the current segment.
+     *
+     * @return true to end the current segment before child, which will then be the
+     * first element in the body of the next segment. Ignored for the first element of a segment.
+     */
+    boolean isSegmentStart(Element child);
+
+    /**
+     * Called with each complete segment, in document order. Each segment is a document with
+     * copies of the root element and head of the document and a body containing
+     * a run of the top level children of the document body. The segment is
+     * not used by the parser after this method returns.
+     */
+    void segment(Document segment) throws IOException;
+}
@@ -0,0 +1,181 @@
+package com.openhtmltopdf.simple.extend;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.w3c.dom.css.CSSPrimitiveValue;
+
+import com.openhtmltopdf.css.constants.CSSName;
+import com.openhtmltopdf.css.extend.StylesheetFactory;
+import com.openhtmltopdf.css.parser.CSSParseException;
+import com.openhtmltopdf.css.parser.PropertyValue;
+import com.openhtmltopdf.css.sheet.PropertyDeclaration;
+import com.openhtmltopdf.css.sheet.Ruleset;
+import com.openhtmltopdf.css.sheet.StylesheetInfo;
+
+/**
+ * Collects the CSS equivalents of presentational attributes (and the style attribute)
+ * of an element. Each declaration has its CSS text and, where the attribute value maps
+ * directly to a property value, the typed value. Typed values are built into property
+ * declarations without going through the CSS parser, the rest is parsed (and cached)
+ * by the stylesheet factory.
+ */
+final class PresentationalStyle {
+    private static final Ruleset EMPTY = new Ruleset(StylesheetInfo.AUTHOR);
+
+    private final List<CSSName> _names = new ArrayList<>();
+    private final List<PropertyValue> _values = new ArrayList<>();
+    private final List<String> _texts = new ArrayList<>();
+
+    /**
+     * Adds a declaration.
+     * @param name the property
+     * @param value the typed value or null if it can only be parsed from text
+     * @param text the value as CSS text
+     */
+    void declare(CSSName name, PropertyValue value, String text) {
+        _names.add(name);
+        _values.add(value);
+        _texts.add(text);
+    }
+
+    /**
+     * Adds declarations as CSS text, such as the content of a style attribute.
+     */
+    void declarations(String css) {
+        if (!css.isEmpty()) {
+            _names.add(null);
+            _values.add(null);
+            _texts.add(css);
+        }
+    }
+
+    String toCSS() {
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < _texts.size(); i++) {
+            CSSName name = _names.get(i);
+            if (name != null) {
+                sb.append(name).append(": ").append(_texts.get(i)).append(';');
+            } else {
+                sb.append(_texts.get(i));
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Returns the declarations as an author ruleset, which may be shared with the
+     * stylesheet factory's cache so must not be modified.
+     */
+    Ruleset toRuleset(StylesheetFactory factory) {
+        List<PropertyDeclaration> declarations = new ArrayList<>();
+        StringBuilder pending = new StringBuilder();
+
+        for (int i = 0; i < _texts.size(); i++) {
+            List<PropertyDeclaration> built = build(_names.get(i), _values.get(i));
+
+            if (built != null) {
+                if (pending.length() > 0) {
+                    declarations.addAll(parse(factory, pending));
+                    pending.setLength(0);
+                }
+                declarations.addAll(built);
+            } else if (_names.get(i) != null) {
+                pending.append(_names.get(i)).append(": ").append(_texts.get(i)).append(';');
+            } else {
+                pending.append(_texts.get(i));
+            }
+        }
+
+        if (pending.length() > 0) {
+            if (declarations.isEmpty()) {
+                // Only text, such as a plain style attribute, so use the cached ruleset as is.
+                return factory.parseStyleDeclaration(StylesheetInfo.AUTHOR, pending.toString());
+            }
+            declarations.addAll(parse(factory, pending));
+        }
+
+        if (declarations.isEmpty()) {
+            return EMPTY;
+        }
+
+        Ruleset result = new Ruleset(StylesheetInfo.AUTHOR);
+        result.addAllProperties(declarations);
+        return result;
+    }
+
+    private static List<PropertyDeclaration> parse(StylesheetFactory factory, CharSequence css) {
+        return factory.parseStyleDeclaration(StylesheetInfo.AUTHOR, css.toString()).getPropertyDeclarations();
+    }
+
+    /**
+     * Returns null if there is no typed value or it is not valid for the property,
+     * in which case the text is parsed so that errors are reported as usual.
+     */
+    private static List<PropertyDeclaration> build(CSSName name, PropertyValue value) {
+        if (value == null) {
+            return null;
+        }
+
+        try {
+            return CSSName.getPropertyBuilder(name).buildDeclarations(
+                    name, Collections.singletonList(value), StylesheetInfo.AUTHOR, false);
+        } catch (CSSParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A positive integer value, or null if s is not an integer.
+     */
+    static PropertyValue number(String s) {
+        return isInteger(s) ? new PropertyValue(CSSPrimitiveValue.CSS_NUMBER, Float.parseFloat(s), s) : null;
+    }
+
+    /**
+     * A pixel, em or percentage value for CSS text such as <code>10px</code> or <code>50%</code>,
+     * otherwise null.
+     */
+    static PropertyValue length(String s) {
+        if (s.endsWith("px") && isInteger(s.substring(0, s.length() - 2))) {
+            return new PropertyValue(CSSPrimitiveValue.CSS_PX, Float.parseFloat(s.substring(0, s.length() - 2)), s);
+        } else if (s.endsWith("em") && isInteger(s.substring(0, s.length() - 2))) {
+            return new PropertyValue(CSSPrimitiveValue.CSS_EMS, Float.parseFloat(s.substring(0, s.length() - 2)), s);
+        } else if (s.endsWith("%") && isInteger(s.substring(0, s.length() - 1))) {
+            return new PropertyValue(CSSPrimitiveValue.CSS_PERCENTAGE, Float.parseFloat(s.substring(0, s.length() - 1)), s);
+        }
+        return null;
+    }
+
+    /**
+     * An identifier value, or null if s is not a simple lower case identifier.
+     */
+    static PropertyValue ident(String s) {
+        if (s.isEmpty()) {
+            return null;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || c == '-')) {
+                return null;
+            }
+        }
+        return new PropertyValue(CSSPrimitiveValue.CSS_IDENT, s, s);
+    }
+
+    private static boolean isInteger(String s) {
+        if (s.isEmpty() || s.length() > 9) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -37,7 +37,9 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.w3c.dom.Text;
 
+import com.openhtmltopdf.css.constants.CSSName;
 import com.openhtmltopdf.css.extend.StylesheetFactory;
+import com.openhtmltopdf.css.sheet.Ruleset;
 import com.openhtmltopdf.css.sheet.Stylesheet;
 import com.openhtmltopdf.css.sheet.StylesheetInfo;
 import com.openhtmltopdf.simple.NoNamespaceHandler;
@@ -59,6 +61,8 @@ public class XhtmlCssOnlyNamespaceHandler extends NoNamespaceHandler {
 
     private String _contentLanguageMetaValue;
 
+    private Boolean _elementStylingOverridden;
+
     /**
      * Gets the namespace attribute of the XhtmlNamespaceHandler object
      *
@@ -177,52 +181,74 @@ public class XhtmlCssOnlyNamespaceHandler extends NoNamespaceHandler {
      */
     @Override
     public String getElementStyling(org.w3c.dom.Element e) {
-        StringBuilder style = new StringBuilder();
+        return elementStyle(e).toCSS();
+    }
+
+    /**
+     * Maps presentational attributes to typed declarations, unless a subclass
+     * changes {@link #getElementStyling(Element)}.
+     */
+    @Override
+    public Ruleset getElementStylingRuleset(Element e, StylesheetFactory factory) {
+        if (_elementStylingOverridden == null) {
+            _elementStylingOverridden = isOverridden("getElementStyling");
+        }
+        return _elementStylingOverridden ? null : elementStyle(e).toRuleset(factory);
+    }
+
+    private PresentationalStyle elementStyle(Element e) {
+        PresentationalStyle style = new PresentationalStyle();
         if (e.getNodeName().equals("td") || e.getNodeName().equals("th")) {
             String s;
             s = getAttribute(e, "colspan");
             if (s != null) {
-                style.append("-fs-table-cell-colspan: ");
-                style.append(s);
-                style.append(";");
+                style.declare(CSSName.FS_COLSPAN, PresentationalStyle.number(s), s);
             }
             s = getAttribute(e, "rowspan");
             if (s != null) {
-                style.append("-fs-table-cell-rowspan: ");
-                style.append(s);
-                style.append(";");
+                style.declare(CSSName.FS_ROWSPAN, PresentationalStyle.number(s), s);
             }
         } else if (e.getNodeName().equals("img")) {
             String s;
             s = getAttribute(e, "width");
             if (s != null) {
-                style.append("width: ");
-                style.append(convertToLength(s));
-                style.append(";");
+                declareLength(style, CSSName.WIDTH, s);
             }
             s = getAttribute(e, "height");
             if (s != null) {
-                style.append("height: ");
-                style.append(convertToLength(s));
-                style.append(";");
+                declareLength(style, CSSName.HEIGHT, s);
             }
         } else if (e.getNodeName().equals("colgroup") || e.getNodeName().equals("col")) {
             String s;
             s = getAttribute(e, "span");
             if (s != null) {
-                style.append("-fs-table-cell-colspan: ");
-                style.append(s);
-                style.append(";");
+                style.declare(CSSName.FS_COLSPAN, PresentationalStyle.number(s), s);
             }
             s = getAttribute(e, "width");
             if (s != null) {
-                style.append("width: ");
-                style.append(convertToLength(s));
-                style.append(";");
+                declareLength(style, CSSName.WIDTH, s);
             }
         }
-        style.append(e.getAttribute("style"));
-        return style.toString();
+        style.declarations(e.getAttribute("style"));
+        return style;
+    }
+
+    void declareLength(PresentationalStyle style, CSSName name, String attribute) {
+        String length = convertToLength(attribute);
+        style.declare(name, PresentationalStyle.length(length), length);
+    }
+
+    /**
+     * Whether the public method of this name taking an element is declared by a subclass,
+     * in which case its result must be parsed rather than mapped here.
+     */
+    boolean isOverridden(String method) {
+        try {
+            Class<?> declaring = getClass().getMethod(method, Element.class).getDeclaringClass();
+            return declaring != XhtmlCssOnlyNamespaceHandler.class && declaring != XhtmlNamespaceHandler.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
     }
 
     /**
@@ -24,6 +24,9 @@ import com.openhtmltopdf.util.LogMessageId;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
+import com.openhtmltopdf.css.constants.CSSName;
+import com.openhtmltopdf.css.extend.StylesheetFactory;
+import com.openhtmltopdf.css.sheet.Ruleset;
 import com.openhtmltopdf.util.XRLog;
 
 
@@ -35,7 +38,7 @@ import com.openhtmltopdf.util.XRLog;
  * @author Torbjoern Gannholm
  */
 public class XhtmlNamespaceHandler extends XhtmlCssOnlyNamespaceHandler {
-    private static final String DEFAULT_SVG_DIMS = "";
+    private Boolean _nonCssStylingOverridden;
 
     /**
      * {@inheritDoc}
@@ -60,273 +63,203 @@ public class XhtmlNamespaceHandler extends XhtmlCssOnlyNamespaceHandler {
 
     @Override
     public String getNonCssStyling(Element e) {
+        return nonCssStyle(e).toCSS();
+    }
+
+    /**
+     * Maps presentational attributes to typed declarations, unless a subclass
+     * changes {@link #getNonCssStyling(Element)}.
+     */
+    @Override
+    public Ruleset getNonCssStylingRuleset(Element e, StylesheetFactory factory) {
+        if (_nonCssStylingOverridden == null) {
+            _nonCssStylingOverridden = isOverridden("getNonCssStyling");
+        }
+        return _nonCssStylingOverridden ? null : nonCssStyle(e).toRuleset(factory);
+    }
+
+    private PresentationalStyle nonCssStyle(Element e) {
+        PresentationalStyle style = new PresentationalStyle();
+
         switch(e.getNodeName()) {
         case "table":
-            return applyTableStyles(e);
+            applyTableStyles(e, style);
+            break;
         case "td": /* FALL-THRU */
         case "th":
-            return applyTableCellStyles(e);
+            applyTableCellStyles(e, style);
+            break;
         case "tr":
-            return applyTableRowStyles(e);
+            applyTableContentAlign(e, style);
+            break;
         case "img":
-            return applyImgStyles(e);
+            applyFloatingAlign(e, style);
+            break;
         case "p": /* FALL-THRU */
         case "div":
-            return applyBlockAlign(e);
+            applyTextAlign(e, style);
+            break;
         case "textarea":
-            return applyTextareaStyles(e);
+            applyTextareaStyles(e, style);
+            break;
         case "input":
-            return applyInputStyles(e);
+            applyInputStyles(e, style);
+            break;
         case "svg":
-            return applySvgStyles(e);
+            applySvgStyles(e, style);
+            break;
         }
-        
-        return "";
+
+        return style;
     }
-    
-    private String applySvgStyles(Element e) {
+
+    private void applySvgStyles(Element e, PresentationalStyle style) {
         String w = e.getAttribute("width");
         String h = e.getAttribute("height");
         
         if (!w.isEmpty() || !h.isEmpty()) {
-            StringBuilder sb = new StringBuilder();
-            
             if (!w.isEmpty()) {
-                sb.append("width: ");
-                sb.append(w);
-                if (isInteger(w)) {
-                    sb.append("px");
-                }
-                sb.append(';');
+                declareLength(style, CSSName.WIDTH, w);
             }
             
             if (!h.isEmpty()) {
-                sb.append("height: ");
-                sb.append(h);
-                if (isInteger(h)) {
-                    sb.append("px");
-                }
-                sb.append(';');
+                declareLength(style, CSSName.HEIGHT, h);
             }
             
-            return sb.toString();
+            return;
         }
         
         String viewBoxAttr = e.getAttribute("viewBox");
         String[] splitViewBox = viewBoxAttr.split("\\s+");
         
         if (splitViewBox.length != 4) {
-            return DEFAULT_SVG_DIMS;
+            return;
         }
         try {
-            int viewBoxWidth = Integer.parseInt(splitViewBox[2]);
-            int viewBoxHeight = Integer.parseInt(splitViewBox[3]);
-            
-            StringBuilder sb = new StringBuilder();
-            
-            sb.append("width: ");
-            sb.append(viewBoxWidth);
-            sb.append("px;");
-            
-            sb.append("height: ");
-            sb.append(viewBoxHeight);
-            sb.append("px;");
+            // The view box size is checked but not used, leaving the size to the svg implementation.
+            Integer.parseInt(splitViewBox[2]);
+            Integer.parseInt(splitViewBox[3]);
         } catch (NumberFormatException ex) {
             XRLog.log(Level.WARNING, LogMessageId.LogMessageId1Param.GENERAL_INVALID_INTEGER_PASSED_IN_VIEWBOX_ATTRIBUTE_FOR_SVG, viewBoxAttr);
-            /* FALL-THRU */
         }
-        
-        return DEFAULT_SVG_DIMS;
     }
     
-    private String applyInputStyles(Element e) {
-    	StringBuilder sb = new StringBuilder();
-    	
-    	if (e.hasAttribute("width") && isInteger(e.getAttribute("width"))) {
-    		sb.append("width: ");
-    		sb.append(e.getAttribute("width"));
-    		sb.append("px;");
-    	} else if (e.hasAttribute("size") && isInteger(e.getAttribute("size"))) {
-    		sb.append("width: ");
-    		sb.append(e.getAttribute("size"));
-    		sb.append("em;");
-    	}
-    	
-    	return sb.toString();
+    private void applyInputStyles(Element e, PresentationalStyle style) {
+        if (e.hasAttribute("width") && isInteger(e.getAttribute("width"))) {
+            declareLength(style, CSSName.WIDTH, e.getAttribute("width"));
+        } else if (e.hasAttribute("size") && isInteger(e.getAttribute("size"))) {
+            String width = e.getAttribute("size") + "em";
+            style.declare(CSSName.WIDTH, PresentationalStyle.length(width), width);
+        }
     }
     
-    private String applyTextareaStyles(Element e) {
-    	StringBuilder sb = new StringBuilder();
-    	
-    	if (e.hasAttribute("cols") && isInteger(e.getAttribute("cols"))) {
-    		sb.append("width: ");
-    		sb.append(e.getAttribute("cols"));
-    		sb.append("em;");
-    	}
-
-    	if (e.hasAttribute("rows") && isInteger(e.getAttribute("rows"))) {
-    		sb.append("height: ");
-    		sb.append(e.getAttribute("rows"));
-    		sb.append("em;");
-    	}
+    private void applyTextareaStyles(Element e, PresentationalStyle style) {
+        if (e.hasAttribute("cols") && isInteger(e.getAttribute("cols"))) {
+            String width = e.getAttribute("cols") + "em";
+            style.declare(CSSName.WIDTH, PresentationalStyle.length(width), width);
+        }
 
-    	return sb.toString();
-    }
-    
-    private String applyBlockAlign(Element e) {
-        StringBuilder style = new StringBuilder();
-        applyTextAlign(e, style);
-        return style.toString();
-    }
-    
-    private String applyImgStyles(Element e) {
-        StringBuilder style = new StringBuilder();
-        applyFloatingAlign(e, style);
-        return style.toString();
+        if (e.hasAttribute("rows") && isInteger(e.getAttribute("rows"))) {
+            String height = e.getAttribute("rows") + "em";
+            style.declare(CSSName.HEIGHT, PresentationalStyle.length(height), height);
+        }
     }
 
-    private String applyTableCellStyles(Element e) {
-        StringBuilder style = new StringBuilder();
+    private void applyTableCellStyles(Element e, PresentationalStyle style) {
         String s;
         //check for cellpadding
         Element table = findTable(e);
         if (table != null) {
             s = getAttribute(table, "cellpadding");
             if (s != null) {
-                style.append("padding: ");
-                style.append(convertToLength(s));
-                style.append(";");
+                declareLength(style, CSSName.PADDING_SHORTHAND, s);
             }
             s = getAttribute(table, "border");
             if (s != null && ! s.equals("0")) {
-                style.append("border: 1px outset black;");
+                style.declare(CSSName.BORDER_SHORTHAND, null, "1px outset black");
             }
         }
         s = getAttribute(e, "width");
         if (s != null) {
-            style.append("width: ");
-            style.append(convertToLength(s));
-            style.append(";");
+            declareLength(style, CSSName.WIDTH, s);
         }
         s = getAttribute(e, "height");
         if (s != null) {
-            style.append("height: ");
-            style.append(convertToLength(s));
-            style.append(";");
-        }        
-        applyTableContentAlign(e, style);
-        s = getAttribute(e, "bgcolor");
-        if (s != null) {
-            s = s.toLowerCase();
-            style.append("background-color: ");
-            if (looksLikeAMangledColor(s)) {
-                style.append('#');
-                style.append(s);
-            } else {
-                style.append(s);
-            }
-            style.append(';');
-        }
-        s = getAttribute(e, "background");
-        if (s != null) {
-            style.append("background-image: url(");
-            style.append(s);
-            style.append(");");
+            declareLength(style, CSSName.HEIGHT, s);
         }
-        return style.toString();
+        applyTableContentAlign(e, style);
+        applyBackground(e, style);
     }
 
-    private String applyTableStyles(Element e) {
-        StringBuilder style = new StringBuilder();
+    private void applyTableStyles(Element e, PresentationalStyle style) {
         String s;
         s = getAttribute(e, "width");
         if (s != null) {
-            style.append("width: ");
-            style.append(convertToLength(s));
-            style.append(";");
+            declareLength(style, CSSName.WIDTH, s);
         }
         s = getAttribute(e, "border");
         if (s != null) {
-            style.append("border: ");
-            style.append(convertToLength(s));
-            style.append(" inset black;");
+            style.declare(CSSName.BORDER_SHORTHAND, null, convertToLength(s) + " inset black");
         }
         s = getAttribute(e, "cellspacing");
         if (s != null) {
-            style.append("border-collapse: separate; border-spacing: ");
-            style.append(convertToLength(s));
-            style.append(";");
+            style.declare(CSSName.BORDER_COLLAPSE, PresentationalStyle.ident("separate"), "separate");
+            declareLength(style, CSSName.BORDER_SPACING, s);
         }
+        applyBackground(e, style);
+        applyFloatingAlign(e, style);
+    }
+
+    private void applyBackground(Element e, PresentationalStyle style) {
+        String s;
         s = getAttribute(e, "bgcolor");
         if (s != null) {
             s = s.toLowerCase();
-            style.append("background-color: ");
-            if (looksLikeAMangledColor(s)) {
-                style.append('#');
-                style.append(s);
-            } else {
-                style.append(s);
-            }
-            style.append(';');
+            style.declare(CSSName.BACKGROUND_COLOR, null, looksLikeAMangledColor(s) ? '#' + s : s);
         }
         s = getAttribute(e, "background");
         if (s != null) {
-            style.append("background-image: url(");
-            style.append(s);
-            style.append(");");
+            style.declare(CSSName.BACKGROUND_IMAGE, null, "url(" + s + ")");
         }
-        applyFloatingAlign(e, style);
-        return style.toString();
-    }
-    
-    private String applyTableRowStyles(Element e) {
-        StringBuilder style = new StringBuilder();
-        applyTableContentAlign(e, style);
-        return style.toString();
     }
     
-    private void applyFloatingAlign(Element e, StringBuilder style) {
+    private void applyFloatingAlign(Element e, PresentationalStyle style) {
         String s;
         s = getAttribute(e, "align");
         if (s != null) {
             s = s.toLowerCase().trim();
-            if (s.equals("left")) {
-                style.append("float: left;");
-            } else if (s.equals("right")) {
-                style.append("float: right;");
+            if (s.equals("left") || s.equals("right")) {
+                style.declare(CSSName.FLOAT, PresentationalStyle.ident(s), s);
             } else if (s.equals("center")) {
-                style.append("margin-left: auto; margin-right: auto;");
+                style.declare(CSSName.MARGIN_LEFT, PresentationalStyle.ident("auto"), "auto");
+                style.declare(CSSName.MARGIN_RIGHT, PresentationalStyle.ident("auto"), "auto");
             }
         }
     }
     
-    private void applyTextAlign(Element e, StringBuilder style) {
+    private void applyTextAlign(Element e, PresentationalStyle style) {
         String s;
         s = getAttribute(e, "align");
         if (s != null) {
             s = s.toLowerCase().trim();
             if (s.equals("left") || s.equals("right") || 
                     s.equals("center") || s.equals("justify")) {
-                style.append("text-align: ");
-                style.append(s);
-                style.append(";");
+                style.declare(CSSName.TEXT_ALIGN, PresentationalStyle.ident(s), s);
             }
         }
     }
     
-    private void applyTableContentAlign(Element e, StringBuilder style) {
+    private void applyTableContentAlign(Element e, PresentationalStyle style) {
         String s;
         s = getAttribute(e, "align");
         if (s != null) {
-            style.append("text-align: ");
-            style.append(s.toLowerCase());
-            style.append(";");
+            s = s.toLowerCase();
+            style.declare(CSSName.TEXT_ALIGN, PresentationalStyle.ident(s), s);
         }
         s = getAttribute(e, "valign");
         if (s != null) {
-            style.append("vertical-align: ");
-            style.append(s.toLowerCase());
-            style.append(";");
+            s = s.toLowerCase();
+            style.declare(CSSName.VERTICAL_ALIGN, PresentationalStyle.ident(s), s);
         }
     }
     
@@ -45,10 +45,13 @@ import com.openhtmltopdf.outputdevice.helper.ExternalResourceType;
 import com.openhtmltopdf.resource.CSSResource;
 import com.openhtmltopdf.resource.ImageResource;
 import com.openhtmltopdf.resource.XMLResource;
+import com.openhtmltopdf.resource.XMLSegmentHandler;
 import com.openhtmltopdf.util.LogMessageId;
 import com.openhtmltopdf.util.OpenUtil;
 import com.openhtmltopdf.util.XRLog;
 
+import org.xml.sax.InputSource;
+
 /**
  * <p>NaiveUserAgent is a simple implementation of {@link UserAgentCallback} which places no restrictions on what
  * XML, CSS or images are loaded.</p>
@@ -374,6 +377,30 @@ public abstract class NaiveUserAgent implements UserAgentCallback, DocumentListe
         }
     }
 
+    @Override
+    public boolean getXMLResourceSegments(String uri, ExternalResourceType type, XMLSegmentHandler handler) throws IOException {
+        if (!checkAccessAllowed(uri, type, ExternalResourceControlPriority.RUN_BEFORE_RESOLVING_URI)) {
+            return false;
+        }
+        String resolved = _resolver.resolveURI(this._baseUri, uri);
+        if (!checkAccessAllowed(resolved, type, ExternalResourceControlPriority.RUN_AFTER_RESOLVING_URI)) {
+            return false;
+        }
+
+        if (resolved == null) {
+            XRLog.log(Level.INFO, LogMessageId.LogMessageId2Param.LOAD_URI_RESOLVER_REJECTED_LOADING_AT_URI, "XML resource", uri);
+            return false;
+        }
+
+        try (Reader inputReader = openReader(resolved)) {
+            if (inputReader == null) {
+                return false;
+            }
+            XMLResource.loadSegments(new InputSource(inputReader), handler);
+            return true;
+        }
+    }
+
     @Override
     public byte[] getBinaryResource(String uri, ExternalResourceType type) {
         if (!checkAccessAllowed(uri, type, ExternalResourceControlPriority.RUN_BEFORE_RESOLVING_URI)) {
@@ -75,6 +75,12 @@ public class JDKXRLogger implements XRLogger {
         return getLogger(diagnostic.getLogMessageId().getWhere()).isLoggable(diagnostic.getLevel());
     }
 
+    @Override
+    public boolean isLogLevelEnabled(String where, Level level) {
+        Logger logger = getLogger(where);
+        return logger == null || logger.isLoggable(level);
+    }
+
     @Override
     public void log(String where, Level level, String msg) {
         getLogger(where).log(level, msg);
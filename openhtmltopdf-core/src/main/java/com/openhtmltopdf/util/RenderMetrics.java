@@ -0,0 +1,123 @@
+package com.openhtmltopdf.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import com.openhtmltopdf.context.StyleReference;
+import com.openhtmltopdf.extend.RenderMetricsListener;
+import com.openhtmltopdf.extend.RenderMetricsListener.Counter;
+import com.openhtmltopdf.extend.RenderMetricsListener.Phase;
+import com.openhtmltopdf.extend.impl.FSCountingCacheStore;
+import com.openhtmltopdf.layout.Layer;
+import com.openhtmltopdf.render.BlockBox;
+import com.openhtmltopdf.render.Box;
+import com.openhtmltopdf.render.InlineLayoutBox;
+import com.openhtmltopdf.render.LineBox;
+import com.openhtmltopdf.render.PageBox;
+
+/**
+ * Helpers for renderers to report to a possibly null {@link RenderMetricsListener}.
+ * All methods do nothing when the listener is null.
+ */
+public class RenderMetrics {
+    private RenderMetrics() {}
+
+    /**
+     * @return the start time of a phase, to be passed to {@link #endPhase(RenderMetricsListener, Phase, long)}.
+     */
+    public static long startPhase(RenderMetricsListener listener) {
+        return listener != null ? System.nanoTime() : 0;
+    }
+
+    /**
+     * @return the time since start or zero if listener is null.
+     */
+    public static long elapsed(RenderMetricsListener listener, long start) {
+        return listener != null ? System.nanoTime() - start : 0;
+    }
+
+    public static void endPhase(RenderMetricsListener listener, Phase phase, long start) {
+        if (listener != null) {
+            listener.onPhase(phase, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Reports the counters known after layout and pagination: boxes, line boxes, pages
+     * and the page style and margin area cache statistics.
+     */
+    public static void reportLayout(RenderMetricsListener listener, StyleReference css, BlockBox root) {
+        if (listener == null) {
+            return;
+        }
+
+        long boxes = 0;
+        long lineBoxes = 0;
+
+        Deque<Box> unvisited = new ArrayDeque<>();
+        unvisited.add(root);
+
+        while (!unvisited.isEmpty()) {
+            Box box = unvisited.removeLast();
+
+            if (box instanceof LineBox) {
+                lineBoxes++;
+            } else {
+                boxes++;
+            }
+
+            for (int i = 0; i < box.getChildCount(); i++) {
+                unvisited.add(box.getChild(i));
+            }
+
+            if (box instanceof InlineLayoutBox) {
+                InlineLayoutBox inline = (InlineLayoutBox) box;
+                for (int i = 0; i < inline.getInlineChildCount(); i++) {
+                    Object child = inline.getInlineChild(i);
+                    if (child instanceof Box) {
+                        unvisited.add((Box) child);
+                    }
+                }
+            }
+        }
+
+        Layer layer = root.getLayer();
+        long hits = css.getPageStyleCacheHits();
+        long misses = css.getPageStyleCacheMisses();
+
+        if (layer.getMarginAreaCache() != null) {
+            PageBox.MarginAreaCache marginAreas = layer.getMarginAreaCache();
+            hits += marginAreas.getHits();
+            misses += marginAreas.getMisses();
+        }
+
+        listener.onCounter(Counter.BOXES, boxes);
+        listener.onCounter(Counter.LINE_BOXES, lineBoxes);
+        listener.onCounter(Counter.PAGES, layer.getPages().size());
+        listener.onCounter(Counter.PAGE_CACHE_HITS, hits);
+        listener.onCounter(Counter.PAGE_CACHE_MISSES, misses);
+    }
+
+    /**
+     * Reports the total hits and misses of cache stores, skipping null stores.
+     */
+    public static void reportCacheStores(
+            RenderMetricsListener listener, Counter hitCounter, Counter missCounter, FSCountingCacheStore... stores) {
+        if (listener == null) {
+            return;
+        }
+
+        long hits = 0;
+        long misses = 0;
+
+        for (FSCountingCacheStore store : stores) {
+            if (store != null) {
+                hits += store.getHits();
+                misses += store.getMisses();
+            }
+        }
+
+        listener.onCounter(hitCounter, hits);
+        listener.onCounter(missCounter, misses);
+    }
+}
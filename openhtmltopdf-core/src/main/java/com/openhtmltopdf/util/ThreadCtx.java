@@ -1,8 +1,10 @@
 package com.openhtmltopdf.util;
 
 import com.openhtmltopdf.layout.SharedContext;
+import com.openhtmltopdf.resource.XMLResource;
 
 import java.io.Closeable;
+import java.util.concurrent.Callable;
 import java.util.function.Consumer;
 
 /**
@@ -21,6 +23,10 @@ public class ThreadCtx {
 		return data.get();
 	}
 
+	static boolean hasDiagnosticConsumer() {
+		return diagnosticConsumer.get() != null;
+	}
+
 	static void addDiagnostic(Diagnostic diagnostic) {
 		Consumer<Diagnostic> consumer = diagnosticConsumer.get();
 		if (consumer != null) {
@@ -28,8 +34,23 @@ public class ThreadCtx {
 		}
 	}
 	
+	/**
+	 * Removes the thread data and releases the XML parsers kept by this thread,
+	 * see {@link XMLResource#releaseParsers()}. Called when a renderer is closed.
+	 */
 	public static void cleanup() {
+		cleanup(false);
+	}
+
+	/**
+	 * Like {@link #cleanup()} but keeps the XML parsers of this thread for later renders
+	 * if keepParsers is true.
+	 */
+	public static void cleanup(boolean keepParsers) {
 		data.remove();
+		if (!keepParsers) {
+			XMLResource.releaseParsers();
+		}
 	}
 
 	public static Closeable applyDiagnosticConsumer(Consumer<Diagnostic> consumer) {
@@ -37,6 +58,47 @@ public class ThreadCtx {
 		return diagnosticConsumer::remove;
 	}
 
+	/**
+	 * Wraps a task to be run on another thread, such as a page painting worker, so that it
+	 * runs with the shared context and diagnostic consumer of the calling thread. These are
+	 * restored to their previous values when the task completes. As tasks may run at the same
+	 * time, calls to the diagnostic consumer are serialized.
+	 */
+	public static <T> Callable<T> propagate(Callable<T> task) {
+		SharedContext sharedContext = get().sharedContext;
+		Consumer<Diagnostic> consumer = diagnosticConsumer.get();
+		Consumer<Diagnostic> serialized = consumer == null ? null : diagnostic -> {
+			synchronized (consumer) {
+				consumer.accept(diagnostic);
+			}
+		};
+
+		return () -> {
+			ThreadData threadData = get();
+			SharedContext previousContext = threadData.sharedContext;
+			Consumer<Diagnostic> previousConsumer = diagnosticConsumer.get();
+
+			threadData.setSharedContext(sharedContext);
+			diagnosticConsumer.set(serialized);
+
+			try {
+				return task.call();
+			} finally {
+				if (previousContext == null) {
+					data.remove();
+				} else {
+					threadData.setSharedContext(previousContext);
+				}
+
+				if (previousConsumer == null) {
+					diagnosticConsumer.remove();
+				} else {
+					diagnosticConsumer.set(previousConsumer);
+				}
+			}
+		};
+	}
+
 	public static class ThreadData {
 		private ThreadData() { }
 		private SharedContext sharedContext;
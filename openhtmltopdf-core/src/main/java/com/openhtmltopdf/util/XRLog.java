@@ -21,7 +21,11 @@
 package com.openhtmltopdf.util;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 
 
@@ -29,11 +33,17 @@ import java.util.logging.Level;
  * Utility class for using the java.util.logging package. Relies on the standard
  * configuration for logging, but gives easier access to the various logs
  * (plumbing.load, .init, .render)
+ * <br><br>
+ * Whether a level is enabled for each registered logger is asked of the logger implementation
+ * once and cached, so that calls for disabled levels return without allocating. The cache is
+ * cleared by {@link #setLevel(String, Level)} and {@link #setLoggerImpl(XRLogger)}. If levels are
+ * changed directly with the logging framework, call {@link #refreshLevels()}.
  *
  * @author empty
  */
 public class XRLog {
     private static final List<String> LOGGER_NAMES = new ArrayList<>(20);
+    private static final Map<String, Integer> LOGGER_INDEXES = new HashMap<>();
     public final static String CONFIG = registerLoggerByName("com.openhtmltopdf.config");
     public final static String EXCEPTION = registerLoggerByName("com.openhtmltopdf.exception");
     public final static String GENERAL = registerLoggerByName("com.openhtmltopdf.general");
@@ -48,6 +58,7 @@ public class XRLog {
     public final static String RENDER = registerLoggerByName("com.openhtmltopdf.render");
 
     private static String registerLoggerByName(final String loggerName) {
+        LOGGER_INDEXES.put(loggerName, LOGGER_NAMES.size());
         LOGGER_NAMES.add(loggerName);
         return loggerName;
     }
@@ -57,6 +68,15 @@ public class XRLog {
 
     private static volatile Boolean loggingEnabled;
 
+    // Bits for the standard levels, SEVERE to FINEST.
+    private static final Level[] CACHED_LEVELS =
+        { Level.SEVERE, Level.WARNING, Level.INFO, Level.CONFIG, Level.FINE, Level.FINER, Level.FINEST };
+    private static final int KNOWN_SHIFT = 16;
+
+    // For each registered logger, the cached levels that are enabled and, shifted
+    // by KNOWN_SHIFT, the cached levels whose state is known. Replaced to clear it.
+    private static volatile AtomicIntegerArray levelCache = new AtomicIntegerArray(LOGGER_NAMES.size());
+
     /**
      * Returns a list of all loggers that will be accessed by XRLog. Each entry is a String with a logger
      * name, which can be used to retrieve the logger using the corresponding Logging API; example name might be
@@ -74,56 +94,140 @@ public class XRLog {
     }
 
     public static void log(Level level, LogMessageId.LogMessageId0Param logMessageId) {
-        log(level, logMessageId, false);
+        if (isLoggable(level, logMessageId.getWhere())) {
+            log(level, logMessageId, false);
+        }
     }
 
     public static void log(Level level, LogMessageId.LogMessageId0Param logMessageId, Throwable t) {
-        log(level, logMessageId, true, t);
+        if (isLoggable(level, logMessageId.getWhere())) {
+            log(level, logMessageId, true, t);
+        }
     }
 
     public static void log(Level level, LogMessageId.LogMessageId1Param logMessageId, Object arg) {
-        log(level, logMessageId, false, arg);
+        if (isLoggable(level, logMessageId.getWhere())) {
+            log(level, logMessageId, false, arg);
+        }
     }
 
     public static void log(Level level, LogMessageId.LogMessageId1Param logMessageId, Object arg, Throwable throwable) {
-        log(level, logMessageId, true, arg, throwable);
+        if (isLoggable(level, logMessageId.getWhere())) {
+            log(level, logMessageId, true, arg, throwable);
+        }
     }
 
     public static void log(Level level, LogMessageId.LogMessageId2Param logMessageId, Object arg1, Object arg2) {
-        log(level, logMessageId, false, arg1, arg2);
+        if (isLoggable(level, logMessageId.getWhere())) {
+            log(level, logMessageId, false, arg1, arg2);
+        }
     }
 
     public static void log(Level level, LogMessageId.LogMessageId2Param logMessageId, Object arg1, Object arg2, Throwable throwable) {
-        log(level, logMessageId, true, arg1, arg2, throwable);
+        if (isLoggable(level, logMessageId.getWhere())) {
+            log(level, logMessageId, true, arg1, arg2, throwable);
+        }
     }
 
     public static void log(Level level, LogMessageId.LogMessageId3Param logMessageId, Object arg1, Object arg2, Object arg3) {
-        log(level, logMessageId, false, arg1, arg2, arg3);
+        if (isLoggable(level, logMessageId.getWhere())) {
+            log(level, logMessageId, false, arg1, arg2, arg3);
+        }
     }
 
     public static void log(Level level, LogMessageId.LogMessageId3Param logMessageId, Object arg1, Object arg2, Object arg3, Throwable throwable) {
-        log(level, logMessageId, true, arg1, arg2, arg3, throwable);
+        if (isLoggable(level, logMessageId.getWhere())) {
+            log(level, logMessageId, true, arg1, arg2, arg3, throwable);
+        }
     }
 
     public static void log(Level level, LogMessageId.LogMessageId4Param logMessageId, Object arg1, Object arg2, Object arg3, Object arg4) {
-        log(level, logMessageId, false, arg1, arg2, arg3, arg4);
+        if (isLoggable(level, logMessageId.getWhere())) {
+            log(level, logMessageId, false, arg1, arg2, arg3, arg4);
+        }
     }
 
     public static void log(Level level, LogMessageId.LogMessageId5Param logMessageId, Object arg1, Object arg2, Object arg3, Object arg4, Object arg5) {
-        log(level, logMessageId, false, arg1, arg2, arg3, arg4, arg5);
+        if (isLoggable(level, logMessageId.getWhere())) {
+            log(level, logMessageId, false, arg1, arg2, arg3, arg4, arg5);
+        }
     }
 
-    private static void log(Level level, LogMessageId logMessageId, boolean hasError, Object... args) {
+    /**
+     * Logs with an argument that is only evaluated if the message will be logged.
+     */
+    public static void log(Level level, LogMessageId.LogMessageId1Param logMessageId, Supplier<?> arg) {
+        if (isLoggable(level, logMessageId.getWhere())) {
+            log(level, logMessageId, false, arg.get());
+        }
+    }
+
+    /**
+     * Logs with arguments that are only evaluated if the message will be logged.
+     */
+    public static void log(Level level, LogMessageId.LogMessageId2Param logMessageId, Supplier<?> arg1, Supplier<?> arg2) {
+        if (isLoggable(level, logMessageId.getWhere())) {
+            log(level, logMessageId, false, arg1.get(), arg2.get());
+        }
+    }
+
+    /**
+     * Whether a message at level for the logger where (such as {@link #CASCADE}) would be logged
+     * or passed to a diagnostic consumer. Can be used to guard building expensive log arguments.
+     */
+    public static boolean isLoggable(Level level, String where) {
         if (initPending) {
             init();
         }
-        if (isLoggingEnabled()) {
-            Diagnostic diagnostic = new Diagnostic(level, logMessageId, hasError, args);
-            if (loggerImpl.isLogLevelEnabled(diagnostic)) {
-                loggerImpl.log(diagnostic);
+
+        return isLoggingEnabled() &&
+               (isLevelEnabled(level, where) || ThreadCtx.hasDiagnosticConsumer());
+    }
+
+    private static boolean isLevelEnabled(Level level, String where) {
+        Integer logger = LOGGER_INDEXES.get(where);
+        int bit = levelBit(level);
+
+        if (logger == null || bit == 0) {
+            return loggerImpl.isLogLevelEnabled(where, level);
+        }
+
+        AtomicIntegerArray cache = levelCache;
+        int cached = cache.get(logger);
+
+        if ((cached & (bit << KNOWN_SHIFT)) != 0) {
+            return (cached & bit) != 0;
+        }
+
+        boolean enabled = loggerImpl.isLogLevelEnabled(where, level);
+        cache.accumulateAndGet(logger, (bit << KNOWN_SHIFT) | (enabled ? bit : 0), (a, b) -> a | b);
+
+        return enabled;
+    }
+
+    private static int levelBit(Level level) {
+        for (int i = 0; i < CACHED_LEVELS.length; i++) {
+            if (CACHED_LEVELS[i] == level) {
+                return 1 << i;
             }
-            ThreadCtx.addDiagnostic(diagnostic);
         }
+        return 0;
+    }
+
+    /**
+     * Clears the cached enabled levels, so that the logger implementation is asked again.
+     * Call after changing levels directly with the logging framework.
+     */
+    public static void refreshLevels() {
+        levelCache = new AtomicIntegerArray(LOGGER_NAMES.size());
+    }
+
+    private static void log(Level level, LogMessageId logMessageId, boolean hasError, Object... args) {
+        Diagnostic diagnostic = new Diagnostic(level, logMessageId, hasError, args);
+        if (loggerImpl.isLogLevelEnabled(diagnostic)) {
+            loggerImpl.log(diagnostic);
+        }
+        ThreadCtx.addDiagnostic(diagnostic);
     }
 
     private static void init() {
@@ -138,6 +242,7 @@ public class XRLog {
 
             if (loggerImpl == null) {
                 loggerImpl = new JDKXRLogger();
+                refreshLevels();
             }
 
             initPending = false;
@@ -149,6 +254,7 @@ public class XRLog {
             init();
         }
         loggerImpl.setLevel(log, level);
+        refreshLevels();
     }
 
     /**
@@ -158,7 +264,7 @@ public class XRLog {
      * value passed to setLoggingEnabled(bool).
      */
     public static boolean isLoggingEnabled() {
-        return loggingEnabled == true;
+        return Boolean.TRUE.equals(loggingEnabled);
     }
 
     /**
@@ -178,6 +284,7 @@ public class XRLog {
 
     public static synchronized void setLoggerImpl(XRLogger loggerImpl) {
         XRLog.loggerImpl = loggerImpl;
+        refreshLevels();
     }
 }// end class
 
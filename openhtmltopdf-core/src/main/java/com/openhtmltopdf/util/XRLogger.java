@@ -31,6 +31,16 @@ public interface XRLogger {
 
     boolean isLogLevelEnabled(Diagnostic diagnostic);
 
+    /**
+     * Whether messages at level for the logger where could be logged. If false, XRLog skips
+     * creating the message. The result for registered loggers is cached by XRLog until
+     * {@link XRLog#refreshLevels()} is called. The default returns true, leaving the decision
+     * to {@link #isLogLevelEnabled(Diagnostic)}.
+     */
+    default boolean isLogLevelEnabled(String where, Level level) {
+        return true;
+    }
+
     /**
      * Default slow (!) implementation for logging a Diagnostic object.
      *
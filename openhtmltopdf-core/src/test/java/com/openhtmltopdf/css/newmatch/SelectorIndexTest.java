@@ -0,0 +1,225 @@
+package com.openhtmltopdf.css.newmatch;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import com.openhtmltopdf.context.StandardAttributeResolver;
+import com.openhtmltopdf.css.extend.AttributeResolver;
+import com.openhtmltopdf.css.extend.TreeResolver;
+import com.openhtmltopdf.css.extend.lib.DOMTreeResolver;
+import com.openhtmltopdf.simple.extend.XhtmlNamespaceHandler;
+
+public class SelectorIndexTest {
+    private static final String HTML =
+            "<html><body>" +
+            "<div id=\"main\" class=\"a b\">" +
+            "<p class=\"a\">One</p>" +
+            "<p class=\"  b   c \">Two</p>" +
+            "<span id=\"other\">Three</span>" +
+            "<p>Four</p>" +
+            "</div>" +
+            "</body></html>";
+
+    private final TreeResolver treeRes = new DOMTreeResolver();
+    private final AttributeResolver attRes = new StandardAttributeResolver(new XhtmlNamespaceHandler(), null, null);
+
+    private static Document parse(String html) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(html)));
+    }
+
+    private static List<Element> elements(Document doc) {
+        NodeList all = doc.getElementsByTagName("*");
+        List<Element> result = new ArrayList<>();
+        for (int i = 0; i < all.getLength(); i++) {
+            result.add((Element) all.item(i));
+        }
+        return result;
+    }
+
+    private static Element byText(Document doc, String text) {
+        for (Element e : elements(doc)) {
+            if (text.equals(e.getTextContent())) {
+                return e;
+            }
+        }
+        throw new IllegalArgumentException(text);
+    }
+
+    private static Selector selector(Consumer<Selector> setup) {
+        Selector sel = new Selector();
+        setup.accept(sel);
+        return sel;
+    }
+
+    private static BitSet bits(int... indices) {
+        BitSet result = new BitSet();
+        Arrays.stream(indices).forEach(result::set);
+        return result;
+    }
+
+    /**
+     * The selectors that match e, in list order, as found by testing every selector.
+     */
+    private List<Selector> matchAll(List<Selector> selectors, Object e) {
+        List<Selector> result = new ArrayList<>();
+        for (Selector sel : selectors) {
+            if (sel.matches(e, attRes, treeRes)) {
+                result.add(sel);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The selectors that match e, in list order, testing only the candidates of the index.
+     */
+    private List<Selector> matchIndexed(SelectorIndex index, List<Selector> selectors, Object e) {
+        BitSet candidates = index.getCandidates(e, attRes, treeRes);
+        List<Selector> result = new ArrayList<>();
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (selectors.get(i).matches(e, attRes, treeRes)) {
+                result.add(selectors.get(i));
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testIdBucket() throws Exception {
+        Document doc = parse(HTML);
+        List<Selector> selectors = Arrays.asList(
+                selector(s -> s.addIDCondition("main")),
+                selector(s -> { s.setName("div"); s.addIDCondition("main"); s.addClassCondition("a"); }),
+                selector(s -> s.addIDCondition("other")));
+        SelectorIndex index = new SelectorIndex(selectors);
+
+        assertThat(index.getCandidates(doc.getElementsByTagName("div").item(0), attRes, treeRes), equalTo(bits(0, 1)));
+        assertThat(index.getCandidates(doc.getElementsByTagName("span").item(0), attRes, treeRes), equalTo(bits(2)));
+        assertThat(index.getCandidates(byText(doc, "Four"), attRes, treeRes), equalTo(bits()));
+    }
+
+    @Test
+    public void testClassBucket() throws Exception {
+        Document doc = parse(HTML);
+        List<Selector> selectors = Arrays.asList(
+                selector(s -> s.addClassCondition("a")),
+                selector(s -> { s.setName("p"); s.addClassCondition("b"); }),
+                selector(s -> s.addClassCondition("c")),
+                selector(s -> s.addClassCondition("d")));
+        SelectorIndex index = new SelectorIndex(selectors);
+
+        assertThat(index.getCandidates(doc.getElementsByTagName("div").item(0), attRes, treeRes), equalTo(bits(0, 1)));
+        assertThat(index.getCandidates(byText(doc, "One"), attRes, treeRes), equalTo(bits(0)));
+        // Leading, trailing and repeated spaces between class names.
+        assertThat(index.getCandidates(byText(doc, "Two"), attRes, treeRes), equalTo(bits(1, 2)));
+        assertThat(index.getCandidates(byText(doc, "Four"), attRes, treeRes), equalTo(bits()));
+    }
+
+    @Test
+    public void testNameBucket() throws Exception {
+        Document doc = parse(HTML);
+        List<Selector> selectors = Arrays.asList(
+                selector(s -> s.setName("p")),
+                selector(s -> s.setName("span")),
+                selector(s -> { s.setName("p"); s.addAttributeExistsCondition(null, "title"); }));
+        SelectorIndex index = new SelectorIndex(selectors);
+
+        assertThat(index.getCandidates(byText(doc, "Four"), attRes, treeRes), equalTo(bits(0, 2)));
+        assertThat(index.getCandidates(doc.getElementsByTagName("span").item(0), attRes, treeRes), equalTo(bits(1)));
+        assertThat(index.getCandidates(doc.getElementsByTagName("div").item(0), attRes, treeRes), equalTo(bits()));
+    }
+
+    @Test
+    public void testUniversalBucket() throws Exception {
+        Document doc = parse(HTML);
+        List<Selector> selectors = Arrays.asList(
+                selector(s -> {}),
+                selector(s -> s.setName("p")),
+                selector(s -> s.addAttributeExistsCondition(null, "id")),
+                selector(Selector::addFirstChildCondition));
+        SelectorIndex index = new SelectorIndex(selectors);
+
+        for (Element e : elements(doc)) {
+            BitSet candidates = index.getCandidates(e, attRes, treeRes);
+            assertThat(e.getTagName(), candidates.get(0) && candidates.get(2) && candidates.get(3), is(true));
+            assertThat(e.getTagName(), candidates.get(1), is(e.getTagName().equals("p")));
+        }
+
+        // Without an attribute resolver only the name and universal buckets are used.
+        assertThat(index.getCandidates(byText(doc, "One"), null, treeRes), equalTo(bits(0, 1, 2, 3)));
+    }
+
+    /**
+     * Tests that matching only the candidates of the index finds the same selectors in the
+     * same (specificity) order as testing every selector, for a mix of random selectors.
+     */
+    @Test
+    public void testMatchOrderEqualsUnindexed() throws Exception {
+        String[] names = { "html", "body", "div", "p", "span", "td" };
+        String[] classes = { "a", "b", "c", "d" };
+        String[] ids = { "main", "other", "none" };
+
+        StringBuilder html = new StringBuilder("<html><body>");
+        Random random = new Random(7);
+        for (int i = 0; i < 40; i++) {
+            String name = names[2 + random.nextInt(names.length - 2)];
+            html.append('<').append(name);
+            if (random.nextInt(3) == 0) {
+                html.append(" id=\"").append(ids[random.nextInt(ids.length)]).append('"');
+            }
+            if (random.nextInt(2) == 0) {
+                html.append(" class=\"").append(classes[random.nextInt(classes.length)])
+                    .append(random.nextBoolean() ? " " + classes[random.nextInt(classes.length)] : "").append('"');
+            }
+            html.append("/>");
+        }
+        html.append("</body></html>");
+
+        List<Selector> selectors = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Selector sel = new Selector();
+            if (random.nextInt(3) > 0) {
+                sel.setName(names[random.nextInt(names.length)]);
+            }
+            if (random.nextInt(4) == 0) {
+                sel.addIDCondition(ids[random.nextInt(ids.length)]);
+            }
+            if (random.nextInt(2) == 0) {
+                sel.addClassCondition(classes[random.nextInt(classes.length)]);
+            }
+            if (random.nextInt(6) == 0) {
+                sel.addFirstChildCondition();
+            }
+            selectors.add(sel);
+        }
+
+        SelectorIndex index = new SelectorIndex(selectors);
+        Document doc = parse(html.toString());
+        int matched = 0;
+
+        for (Element e : elements(doc)) {
+            List<Selector> expected = matchAll(selectors, e);
+            assertThat(matchIndexed(index, selectors, e), equalTo(expected));
+            matched += expected.size();
+        }
+
+        assertThat(matched > 0, is(true));
+    }
+}
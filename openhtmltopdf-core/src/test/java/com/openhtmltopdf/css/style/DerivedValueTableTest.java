@@ -0,0 +1,157 @@
+package com.openhtmltopdf.css.style;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+import org.w3c.dom.css.CSSPrimitiveValue;
+
+import com.openhtmltopdf.css.constants.CSSName;
+import com.openhtmltopdf.css.constants.IdentValue;
+import com.openhtmltopdf.css.parser.PropertyValue;
+import com.openhtmltopdf.css.style.derived.NumberValue;
+
+public class DerivedValueTableTest {
+    @Test
+    public void testStoresValuesInAnyOrder() {
+        DerivedValueTable table = new DerivedValueTable(200);
+        int[] ids = { 130, 3, 64, 63, 0, 199, 65, 7, 100, 12, 1 };
+
+        for (int i = 0; i < ids.length; i++) {
+            table.put(ids[i], IdentValue.getByIdentString(i % 2 == 0 ? "block" : "inline"));
+        }
+
+        for (int i = 0; i < ids.length; i++) {
+            assertThat(table.get(ids[i]), sameInstance(i % 2 == 0 ? IdentValue.BLOCK : IdentValue.INLINE));
+        }
+        assertThat(table.get(2), nullValue());
+        assertThat(table.get(198), nullValue());
+        assertThat(table.size(), is(ids.length));
+
+        table.put(64, IdentValue.NONE);
+        assertThat(table.get(64), sameInstance(IdentValue.NONE));
+        assertThat(table.get(63), sameInstance(IdentValue.INLINE));
+        assertThat(table.size(), is(ids.length));
+
+        FSDerivedValue[] array = table.toArray(200);
+        assertThat(array[64], sameInstance(IdentValue.NONE));
+        assertThat(array[199], sameInstance(IdentValue.INLINE));
+        assertThat(array[2], nullValue());
+    }
+
+    @Test
+    public void testPutAllMergesWithExistingValues() {
+        DerivedValueTable table = new DerivedValueTable(200);
+        table.put(3, IdentValue.BLOCK);
+        table.put(130, IdentValue.INLINE);
+
+        DerivedValueTable copy = table.copy();
+
+        int[] ids = { 199, 3, 64, 0, 64, 7 };
+        FSDerivedValue[] values = { IdentValue.TABLE, IdentValue.NONE, IdentValue.BLOCK, IdentValue.INLINE, IdentValue.TABLE, IdentValue.NONE };
+        table.putAll(ids, values, 5);
+
+        assertThat(table.size(), is(5));
+        assertThat(table.get(0), sameInstance(IdentValue.INLINE));
+        assertThat(table.get(3), sameInstance(IdentValue.NONE));
+        assertThat(table.get(64), sameInstance(IdentValue.TABLE));
+        assertThat(table.get(130), sameInstance(IdentValue.INLINE));
+        assertThat(table.get(199), sameInstance(IdentValue.TABLE));
+        assertThat(table.get(7), nullValue());
+
+        assertThat(copy.size(), is(2));
+        assertThat(copy.get(3), sameInstance(IdentValue.BLOCK));
+        assertThat(copy.get(64), nullValue());
+    }
+
+    @Test
+    public void testCopiesAreIndependent() {
+        DerivedValueTable original = new DerivedValueTable(100);
+        original.put(5, IdentValue.BLOCK);
+
+        DerivedValueTable copy = original.copy();
+        copy.put(5, IdentValue.INLINE);
+        copy.put(70, IdentValue.NONE);
+        original.put(6, IdentValue.TABLE);
+
+        assertThat(original.get(5), sameInstance(IdentValue.BLOCK));
+        assertThat(original.get(70), nullValue());
+        assertThat(copy.get(5), sameInstance(IdentValue.INLINE));
+        assertThat(copy.get(6), nullValue());
+        assertThat(copy.get(70), sameInstance(IdentValue.NONE));
+    }
+
+    /**
+     * Reading a style may cache values in it while other threads read it, so readers must
+     * always find either no value or the value stored for an ID, never another ID's value.
+     */
+    @Test
+    public void testConcurrentReadsDuringWrites() throws Exception {
+        int idCount = 300;
+        FSDerivedValue[] expected = new FSDerivedValue[idCount];
+        for (int id = 0; id < idCount; id++) {
+            expected[id] = new NumberValue(CSSName.Z_INDEX, new PropertyValue(CSSPrimitiveValue.CSS_NUMBER, id, Integer.toString(id)));
+        }
+
+        List<Integer> ids = IntStream.range(0, idCount).boxed().collect(Collectors.toList());
+        Collections.shuffle(ids, new Random(42));
+
+        for (int round = 0; round < 20; round++) {
+            DerivedValueTable table = new DerivedValueTable(idCount);
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicBoolean writing = new AtomicBoolean(true);
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+
+            try {
+                List<Future<?>> readers = new ArrayList<>();
+                for (int r = 0; r < 3; r++) {
+                    readers.add(executor.submit(() -> {
+                        start.await();
+                        do {
+                            for (int id = 0; id < idCount; id++) {
+                                FSDerivedValue value = table.get(id);
+                                if (value != null && value != expected[id]) {
+                                    throw new AssertionError("Wrong value for ID " + id);
+                                }
+                            }
+                        } while (writing.get());
+                        return null;
+                    }));
+                }
+
+                Future<?> writer = executor.submit(() -> {
+                    start.await();
+                    for (int id : ids) {
+                        table.put(id, expected[id]);
+                    }
+                    writing.set(false);
+                    return null;
+                });
+
+                start.countDown();
+                writer.get();
+                for (Future<?> reader : readers) {
+                    reader.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+
+            assertThat(table.size(), is(idCount));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.openhtmltopdf.extend.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.Test;
+
+import com.openhtmltopdf.extend.FSCacheValue;
+
+public class FSBoundedCacheStoreTest {
+    private static FSCacheValue value(int weight) {
+        return () -> weight;
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedOverEntryLimit() {
+        FSBoundedCacheStore cache = new FSBoundedCacheStore(2, Long.MAX_VALUE);
+        FSCacheValue a = value(1);
+
+        cache.put("a", a);
+        cache.put("b", value(1));
+        cache.get("a");
+        cache.put("c", value(1));
+
+        assertThat(cache.get("a"), sameInstance(a));
+        assertThat(cache.get("b"), nullValue());
+        assertThat(cache.size(), is(2));
+    }
+
+    @Test
+    public void testEvictsOverWeightLimit() {
+        FSBoundedCacheStore cache = new FSBoundedCacheStore(100, 10);
+
+        cache.put("a", value(4));
+        cache.put("b", value(4));
+        cache.put("c", value(4));
+
+        assertThat(cache.get("a"), nullValue());
+        assertThat(cache.weight(), is(8L));
+    }
+
+    @Test
+    public void testLoaderOnlyCalledOnMiss() {
+        FSBoundedCacheStore cache = new FSBoundedCacheStore(10, 100);
+        FSCacheValue a = value(-1);
+
+        assertThat(cache.get("a", () -> a), sameInstance(a));
+        assertThat(cache.get("a", () -> value(1)), sameInstance(a));
+        assertThat(cache.weight(), is(0L));
+    }
+}
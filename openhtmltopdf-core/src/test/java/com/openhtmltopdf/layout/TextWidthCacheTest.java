@@ -0,0 +1,57 @@
+package com.openhtmltopdf.layout;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import org.junit.Test;
+
+public class TextWidthCacheTest {
+    private final List<String> measured = new ArrayList<>();
+    private final ToIntFunction<String> measurer = str -> {
+        measured.add(str);
+        return str.length() * 10;
+    };
+
+    @Test
+    public void testWordMeasuredOnceAcrossRanges() {
+        TextWidthCache.FontWidths widths = new TextWidthCache.FontWidths();
+
+        assertThat(widths.getWidth("one two", 0, 3, false, measurer), equalTo(30));
+        assertThat(widths.getWidth("two one", 4, 7, false, measurer), equalTo(30));
+
+        assertThat(measured.size(), equalTo(1));
+        assertThat(measured.get(0), equalTo("one"));
+    }
+
+    @Test
+    public void testHyphenatedWordCachedSeparately() {
+        TextWidthCache.FontWidths widths = new TextWidthCache.FontWidths();
+
+        assertThat(widths.getWidth("hyph\u00adenate", 0, 5, false, measurer), equalTo(50));
+        assertThat(widths.getWidth("hyph\u00adenate", 0, 5, true, measurer), equalTo(60));
+        assertThat(widths.getWidth("hyph\u00adenate", 0, 5, true, measurer), equalTo(60));
+
+        assertThat(measured.size(), equalTo(2));
+        assertThat(measured.get(1), equalTo("hyph\u00ad-"));
+    }
+
+    @Test
+    public void testGrowsAndLongTextNotCached() {
+        TextWidthCache.FontWidths widths = new TextWidthCache.FontWidths();
+
+        for (int i = 0; i < 1000; i++) {
+            widths.getWidth("word" + i, 0, ("word" + i).length(), false, measurer);
+        }
+        assertThat(widths.size(), equalTo(1000));
+        assertThat(widths.getWidth("word999", 0, 7, false, measurer), equalTo(70));
+        assertThat(measured.size(), equalTo(1000));
+
+        String longText = new String(new char[TextWidthCache.MAX_CACHED_LENGTH + 1]).replace('\0', 'a');
+        widths.getWidth(longText, 0, longText.length(), false, measurer);
+        assertThat(widths.size(), equalTo(1000));
+    }
+}
@@ -0,0 +1,126 @@
+package com.openhtmltopdf.resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Closeable;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.sax.SAXSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import com.openhtmltopdf.layout.SharedContext;
+import com.openhtmltopdf.util.Diagnostic;
+import com.openhtmltopdf.util.LogMessageId;
+import com.openhtmltopdf.util.ThreadCtx;
+import com.openhtmltopdf.util.XRLog;
+
+public class XMLResourceTest {
+    private static final String XHTML =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<!DOCTYPE html PUBLIC \"-//W3C//DTD XHTML 1.0 Strict//EN\" \"http://www.w3.org/TR/xhtml1/DTD/xhtml1-strict.dtd\">\n" +
+            "<!-- before root -->\n" +
+            "<html xmlns=\"http://www.w3.org/1999/xhtml\" xmlns:xlink=\"http://www.w3.org/1999/xlink\">\n" +
+            "<head><title>Test&nbsp;&amp; more</title></head>\n" +
+            "<body>\n" +
+            "  <p id=\"first\" class=\"a\">One <b>two</b><![CDATA[ <three> ]]>four<!-- comment --></p>\n" +
+            "  <?custom-pi some data?>\n" +
+            "  <svg xmlns=\"http://www.w3.org/2000/svg\" width=\"10\"><use xlink:href=\"#x\"/></svg>\n" +
+            "</body>\n" +
+            "</html>";
+
+    private SharedContext sharedContext;
+
+    @Before
+    public void setUp() {
+        sharedContext = new SharedContext();
+        sharedContext.registerWithThread();
+    }
+
+    @After
+    public void tearDown() {
+        sharedContext.removeFromThread();
+    }
+
+    private Document identityTransform(String xml) throws Exception {
+        XMLReader reader = XMLResource.newXMLReader();
+        reader.setEntityResolver(FSEntityResolver.instance());
+
+        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+        dbf.setNamespaceAware(true);
+
+        DOMResult result = new DOMResult(dbf.newDocumentBuilder().newDocument());
+        TransformerFactory.newInstance().newTransformer().transform(
+                new SAXSource(reader, new InputSource(new StringReader(xml))), result);
+
+        return (Document) result.getNode();
+    }
+
+    /**
+     * The directly built document must match what the identity transform used to build.
+     */
+    @Test
+    public void testDirectBuildMatchesIdentityTransform() throws Exception {
+        Document expected = identityTransform(XHTML);
+        Document actual = XMLResource.load(new StringReader(XHTML)).getDocument();
+
+        assertTrue(expected.isEqualNode(actual));
+        assertEquals("http://www.w3.org/2000/svg", actual.getElementsByTagName("svg").item(0).getNamespaceURI());
+    }
+
+    @Test
+    public void testRepeatedLoadsOnThread() throws Exception {
+        Document first = XMLResource.load(new StringReader(XHTML)).getDocument();
+        Document second = XMLResource.load(new StringReader("<html><body><p>x</p></body></html>")).getDocument();
+        Document third = XMLResource.load(new StringReader(XHTML)).getDocument();
+
+        assertNotSame(first, third);
+        assertTrue(first.isEqualNode(third));
+        assertEquals(1, second.getElementsByTagName("p").getLength());
+        assertEquals(0, second.getElementsByTagName("b").getLength());
+    }
+
+    private static long readerCreations(Runnable load) throws Exception {
+        List<Diagnostic> diagnostics = new ArrayList<>();
+        try (Closeable consumer = ThreadCtx.applyDiagnosticConsumer(diagnostics::add)) {
+            load.run();
+        }
+        return diagnostics.stream()
+                .filter(d -> d.getLogMessageId() == LogMessageId.LogMessageId1Param.LOAD_SAX_XMLREADER_IN_USE)
+                .count();
+    }
+
+    /**
+     * Parsers are reused by later loads on the thread until they are released.
+     */
+    @Test
+    public void testReleaseParsers() throws Exception {
+        Runnable load = () -> XMLResource.load(new StringReader(XHTML));
+        boolean wasEnabled = XRLog.isLoggingEnabled();
+
+        try {
+            XRLog.setLoggingEnabled(true);
+
+            XMLResource.releaseParsers();
+            assertTrue(readerCreations(load) > 0);
+            assertEquals(0, readerCreations(load));
+
+            XMLResource.releaseParsers();
+            assertEquals(1, readerCreations(load));
+        } finally {
+            XRLog.setLoggingEnabled(wasEnabled);
+        }
+    }
+}
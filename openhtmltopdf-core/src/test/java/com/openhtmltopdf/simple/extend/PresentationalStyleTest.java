@@ -0,0 +1,94 @@
+package com.openhtmltopdf.simple.extend;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.openhtmltopdf.css.constants.CSSName;
+import com.openhtmltopdf.css.extend.StylesheetFactory;
+import com.openhtmltopdf.css.sheet.PropertyDeclaration;
+import com.openhtmltopdf.css.sheet.Ruleset;
+import com.openhtmltopdf.css.sheet.Stylesheet;
+import com.openhtmltopdf.css.sheet.StylesheetInfo;
+
+public class PresentationalStyleTest {
+    /**
+     * Records parsed text and returns an empty ruleset per call.
+     */
+    private static class RecordingFactory implements StylesheetFactory {
+        final List<String> parsed = new ArrayList<>();
+        final Ruleset ruleset = new Ruleset(StylesheetInfo.AUTHOR);
+
+        @Override
+        public Stylesheet parse(Reader reader, StylesheetInfo info) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Ruleset parseStyleDeclaration(int author, String style) {
+            parsed.add(style);
+            return ruleset;
+        }
+
+        @Override
+        public Stylesheet getStylesheet(StylesheetInfo si) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static List<CSSName> names(Ruleset ruleset) {
+        List<CSSName> names = new ArrayList<>();
+        for (PropertyDeclaration decl : ruleset.getPropertyDeclarations()) {
+            names.add(decl.getCSSName());
+        }
+        return names;
+    }
+
+    @Test
+    public void testTypedValuesAreNotParsed() {
+        PresentationalStyle style = new PresentationalStyle();
+        style.declare(CSSName.FS_COLSPAN, PresentationalStyle.number("2"), "2");
+        style.declare(CSSName.WIDTH, PresentationalStyle.length("50%"), "50%");
+        style.declare(CSSName.TEXT_ALIGN, PresentationalStyle.ident("center"), "center");
+
+        RecordingFactory factory = new RecordingFactory();
+        Ruleset ruleset = style.toRuleset(factory);
+
+        assertThat(factory.parsed, is(Collections.<String>emptyList()));
+        assertThat(names(ruleset), is(Arrays.asList(CSSName.FS_COLSPAN, CSSName.WIDTH, CSSName.TEXT_ALIGN)));
+        assertThat(style.toCSS(), is("-fs-table-cell-colspan: 2;width: 50%;text-align: center;"));
+    }
+
+    @Test
+    public void testTextAndInvalidValuesAreParsed() {
+        PresentationalStyle style = new PresentationalStyle();
+        style.declare(CSSName.BACKGROUND_COLOR, null, "red");
+        style.declare(CSSName.FS_COLSPAN, PresentationalStyle.number("0"), "0");
+        style.declare(CSSName.HEIGHT, PresentationalStyle.length("10px"), "10px");
+        style.declarations("color: blue;");
+
+        RecordingFactory factory = new RecordingFactory();
+        Ruleset ruleset = style.toRuleset(factory);
+
+        assertThat(factory.parsed, is(Arrays.asList("background-color: red;-fs-table-cell-colspan: 0;", "color: blue;")));
+        assertThat(names(ruleset), is(Collections.singletonList(CSSName.HEIGHT)));
+    }
+
+    @Test
+    public void testStyleAttributeOnlyReturnsParsedRuleset() {
+        PresentationalStyle style = new PresentationalStyle();
+        style.declarations("color: blue;");
+
+        RecordingFactory factory = new RecordingFactory();
+
+        assertThat(style.toRuleset(factory), sameInstance(factory.ruleset));
+    }
+}
@@ -3,6 +3,10 @@ package com.openhtmltopdf.util;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
@@ -43,4 +47,77 @@ public class XRLogTest {
 		Assert.assertEquals(p, counter.get()); //we expect 0 NPE -> counter = 20
 	}
 	
+	private static class CountingLogger implements XRLogger {
+		int levelChecks;
+		int logged;
+
+		@Override
+		public boolean isLogLevelEnabled(String where, Level level) {
+			levelChecks++;
+			return level.intValue() >= Level.WARNING.intValue();
+		}
+
+		@Override
+		public boolean isLogLevelEnabled(Diagnostic diagnostic) {
+			return true;
+		}
+
+		@Override
+		public void log(Diagnostic diagnostic) {
+			logged++;
+		}
+
+		@Override
+		public void log(String where, Level level, String msg) {
+		}
+
+		@Override
+		public void log(String where, Level level, String msg, Throwable th) {
+		}
+
+		@Override
+		public void setLevel(String logger, Level level) {
+		}
+	}
+
+	/**
+	 * Tests that disabled levels are cached per logger, skip evaluating supplied
+	 * arguments and are still passed to a diagnostic consumer.
+	 */
+	@Test
+	public void testDisabledLevelIsCachedAndSkipped() throws IOException {
+		XRLog.listRegisteredLoggers(); // Initializes the default logger.
+		XRLogger original = XRLog.getLoggerImpl();
+		boolean wasEnabled = XRLog.isLoggingEnabled();
+		CountingLogger logger = new CountingLogger();
+
+		try {
+			XRLog.setLoggingEnabled(true);
+			XRLog.setLoggerImpl(logger);
+
+			for (int i = 0; i < 10; i++) {
+				XRLog.log(Level.INFO, LogMessageId.LogMessageId1Param.LOAD_PUTTING_KEY_IN_CACHE, () -> {
+					throw new AssertionError("Argument evaluated for disabled level");
+				});
+			}
+
+			Assert.assertEquals(0, logger.logged);
+			Assert.assertEquals(1, logger.levelChecks);
+
+			XRLog.log(Level.WARNING, LogMessageId.LogMessageId1Param.LOAD_PUTTING_KEY_IN_CACHE, "key");
+			Assert.assertEquals(1, logger.logged);
+
+			List<Diagnostic> diagnostics = new ArrayList<>();
+			try (Closeable consumer = ThreadCtx.applyDiagnosticConsumer(diagnostics::add)) {
+				XRLog.log(Level.INFO, LogMessageId.LogMessageId1Param.LOAD_PUTTING_KEY_IN_CACHE, () -> "key");
+			}
+
+			Assert.assertEquals(1, diagnostics.size());
+			Assert.assertEquals("key", diagnostics.get(0).getArgs()[0]);
+		} finally {
+			XRLog.setLoggerImpl(original);
+			XRLog.setLoggingEnabled(wasEnabled);
+		}
+	}
+
 }
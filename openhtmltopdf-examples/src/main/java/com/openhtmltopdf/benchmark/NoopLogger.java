@@ -28,4 +28,9 @@ class NoopLogger implements XRLogger {
     public boolean isLogLevelEnabled(Diagnostic diagnostic) {
         return false;
     }
+
+    @Override
+    public boolean isLogLevelEnabled(String where, Level level) {
+        return false;
+    }
 }
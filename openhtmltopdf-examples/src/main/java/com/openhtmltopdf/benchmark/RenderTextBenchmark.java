@@ -69,6 +69,8 @@ public class RenderTextBenchmark {
         contents.put("/performance/paragraphs", PerformanceCaseGenerator.paragraphs(100));
         contents.put("/performance/page-break-blocks", PerformanceCaseGenerator.pageBreakAvoidBlocks(300));
         contents.put("/performance/blocks", PerformanceCaseGenerator.blocks(300));
+        contents.put("/performance/table-rows-framework-css", PerformanceCaseGenerator.tableRowsFrameworkStylesheet(1_000, 2_000));
+        contents.put("/performance/floated-grid", PerformanceCaseGenerator.floatedGrid(2_000));
     }
 
     @Benchmark
@@ -86,6 +88,11 @@ public class RenderTextBenchmark {
         runRenderer(contents.get("/performance/table-rows"));
     }
 
+    @Benchmark
+    public void renderTableRowsFrameworkStylesheet() throws IOException {
+        runRenderer(contents.get("/performance/table-rows-framework-css"));
+    }
+
     @Benchmark
     public void renderParagraphs() throws IOException {
         runRenderer(contents.get("/performance/paragraphs"));
@@ -101,6 +108,11 @@ public class RenderTextBenchmark {
         runRenderer(contents.get("/performance/blocks"));
     }
 
+    @Benchmark
+    public void renderFloatedGrid() throws IOException {
+        runRenderer(contents.get("/performance/floated-grid"));
+    }
+
     private void runRenderer(String html) throws IOException {
         ByteArrayOutputStream actual = new ByteArrayOutputStream();
 
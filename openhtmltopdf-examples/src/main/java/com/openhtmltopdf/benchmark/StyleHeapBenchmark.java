@@ -0,0 +1,250 @@
+package com.openhtmltopdf.benchmark;
+
+import com.openhtmltopdf.css.style.CalculatedStyle;
+import com.openhtmltopdf.pdfboxout.PdfBoxRenderer;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import com.openhtmltopdf.performance.PerformanceCaseGenerator;
+import com.openhtmltopdf.render.Box;
+import com.openhtmltopdf.render.InlineLayoutBox;
+import com.openhtmltopdf.util.XRLog;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Measures the heap retained by {@link CalculatedStyle} instances of laid out documents.
+ * For each document two figures are printed:
+ * <ul>
+ * <li>the estimated bytes per style of the derived value storage, computed from the shape of the
+ * storage (arrays and the objects holding them) assuming a 64 bit JVM with compressed oops.
+ * Derived values themselves are not counted as they are mostly shared between styles.</li>
+ * <li>the measured heap retained by the laid out document after a full GC, divided by the number
+ * of distinct styles. This includes boxes and other layout state, so only differences between
+ * runs are meaningful.</li>
+ * </ul>
+ * To run in the repo root directory:
+ * <pre>
+ * mvn install -DskipTests
+ * java -cp ./openhtmltopdf-examples/target/benchmarks.jar com.openhtmltopdf.benchmark.StyleHeapBenchmark
+ * </pre>
+ *
+ * Results on the reference machine, before and after moving to sparse derived value storage:
+ * <pre>
+ * document            styles   storage bytes/style   retained bytes/style
+ * tableRowsFramework      24         512 -> 152          104692 -> 104255
+ * blocks                   4         512 -> 118          255204 -> 254370
+ * floatedGrid              8         512 -> 145          140582 -> 139707
+ * paragraphs               6         512 -> 153          308040 -> 307444
+ * inlineStyles          4003         512 -> 152            2147 -> 1786
+ * </pre>
+ * Documents without style attributes share most styles, so their retained bytes
+ * per style are dominated by boxes.
+ * <br><br>
+ * After making the storage immutable snapshots, so that styles can be read from several
+ * painting threads, values arrays are exactly sized and the figures are:
+ * <pre>
+ * document            styles   storage bytes/style   retained bytes/style
+ * tableRowsFramework      24                   140                 105686
+ * blocks                   4                   120                 263082
+ * floatedGrid              8                   145                 144063
+ * paragraphs               6                   144                 313231
+ * inlineStyles          4003                   139                   1852
+ * </pre>
+ */
+public class StyleHeapBenchmark {
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+
+    public static void main(String[] args) {
+        XRLog.setLoggerImpl(new NoopLogger());
+
+        Map<String, String> documents = new LinkedHashMap<>();
+        documents.put("tableRowsFramework", PerformanceCaseGenerator.tableRowsFrameworkStylesheet(200, 500));
+        documents.put("blocks", PerformanceCaseGenerator.blocks(1_000));
+        documents.put("floatedGrid", PerformanceCaseGenerator.floatedGrid(300));
+        documents.put("paragraphs", PerformanceCaseGenerator.paragraphs(300));
+        documents.put("inlineStyles", inlineStyles(1_000));
+
+        // Warm up class loading and font caches so they are not counted as retained.
+        measure(documents.get("paragraphs"));
+
+        System.out.println(String.format("%-20s %8s %26s %26s", "document", "styles", "storage bytes/style", "retained bytes/style"));
+        for (Map.Entry<String, String> doc : documents.entrySet()) {
+            Measurement m = measure(doc.getValue());
+            System.out.println(String.format("%-20s %8d %26.1f %26.1f",
+                    doc.getKey(), m.styles, m.storageBytes / (double) m.styles, m.retainedBytes / (double) m.styles));
+        }
+    }
+
+    /**
+     * Elements with distinct style attributes, so that every element has its own style.
+     */
+    private static String inlineStyles(int howMany) {
+        StringBuilder sb = new StringBuilder("<html><body>");
+        for (int i = 0; i < howMany; i++) {
+            sb.append("<div style=\"margin-left: ").append(i % 200).append("px; color: #")
+              .append(String.format("%06x", i)).append(";\">Item <span style=\"padding-left: ")
+              .append(i).append("px;\">").append(i).append("</span></div>");
+        }
+        return sb.append("</body></html>").toString();
+    }
+
+    private static class Measurement {
+        int styles;
+        long storageBytes;
+        long retainedBytes;
+    }
+
+    private static Measurement measure(String html) {
+        long before = usedHeapAfterGc();
+
+        PdfBoxRenderer renderer = buildRenderer(html);
+        renderer.layout();
+
+        Set<CalculatedStyle> styles = Collections.newSetFromMap(new IdentityHashMap<>());
+        collectStyles(renderer.getRootBox(), styles);
+
+        long after = usedHeapAfterGc();
+
+        Measurement m = new Measurement();
+        m.styles = styles.size();
+        m.retainedBytes = after - before;
+        for (CalculatedStyle style : styles) {
+            m.storageBytes += storageBytes(style);
+        }
+
+        renderer.close();
+        return m;
+    }
+
+    private static PdfBoxRenderer buildRenderer(String html) {
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.useFastMode();
+        builder.testMode(true);
+        builder.withHtmlContent(html, null);
+        builder.toStream(new ByteArrayOutputStream());
+        return builder.buildPdfRenderer();
+    }
+
+    private static void collectStyles(Box box, Set<CalculatedStyle> styles) {
+        for (CalculatedStyle s = box.getStyle(); s != null && styles.add(s); s = s.getParent()) {
+            // Add the style and its ancestors, stopping at the first one already seen.
+        }
+
+        for (int i = 0; i < box.getChildCount(); i++) {
+            collectStyles(box.getChild(i), styles);
+        }
+
+        if (box instanceof InlineLayoutBox) {
+            for (Object child : ((InlineLayoutBox) box).getInlineChildren()) {
+                if (child instanceof Box) {
+                    collectStyles((Box) child, styles);
+                }
+            }
+        }
+    }
+
+    /**
+     * The size of the derived value storage fields of a style, see {@link #storageBytes(Object, Class)}.
+     */
+    private static long storageBytes(CalculatedStyle style) {
+        long total = 0;
+        for (Field f : CalculatedStyle.class.getDeclaredFields()) {
+            if (Modifier.isStatic(f.getModifiers()) || !f.getName().startsWith("_derivedValues")) {
+                continue;
+            }
+            Object storage = get(f, style);
+            if (storage == null) {
+                continue;
+            }
+            total += storageBytes(storage, storage.getClass());
+        }
+        return total;
+    }
+
+    /**
+     * The shallow size of a storage object and of the arrays and storage class nested
+     * objects it holds.
+     */
+    private static long storageBytes(Object storage, Class<?> storageClass) {
+        long total = shallowSize(storage);
+        if (storage.getClass().isArray()) {
+            return total;
+        }
+        for (Field inner : storage.getClass().getDeclaredFields()) {
+            if (Modifier.isStatic(inner.getModifiers())) {
+                continue;
+            }
+            Class<?> type = inner.getType();
+            if (type.isArray() || type.getDeclaringClass() == storageClass) {
+                Object value = get(inner, storage);
+                total += value == null ? 0 : storageBytes(value, storageClass);
+            }
+        }
+        return total;
+    }
+
+    private static Object get(Field f, Object target) {
+        try {
+            f.setAccessible(true);
+            return f.get(target);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long shallowSize(Object o) {
+        Class<?> clazz = o.getClass();
+        if (clazz.isArray()) {
+            return align(ARRAY_HEADER + (long) Array.getLength(o) * fieldSize(clazz.getComponentType()));
+        }
+
+        long size = OBJECT_HEADER;
+        for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+            for (Field f : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(f.getModifiers())) {
+                    size += fieldSize(f.getType());
+                }
+            }
+        }
+        return align(size);
+    }
+
+    private static int fieldSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        } else if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return REFERENCE;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,322 @@
+package com.openhtmltopdf.benchmark;
+
+import com.openhtmltopdf.bidi.BidiReorderer;
+import com.openhtmltopdf.bidi.SimpleBidiReorderer;
+import com.openhtmltopdf.css.newmatch.CascadedStyle;
+import com.openhtmltopdf.css.parser.CSSParser;
+import com.openhtmltopdf.css.sheet.Stylesheet;
+import com.openhtmltopdf.css.sheet.StylesheetInfo;
+import com.openhtmltopdf.css.style.CalculatedStyle;
+import com.openhtmltopdf.layout.Breaker;
+import com.openhtmltopdf.layout.Layer;
+import com.openhtmltopdf.layout.LayoutContext;
+import com.openhtmltopdf.layout.LineBreakContext;
+import com.openhtmltopdf.pdfboxout.PdfBoxFontContext;
+import com.openhtmltopdf.pdfboxout.PdfBoxRenderer;
+import com.openhtmltopdf.pdfboxout.PdfBoxTextRenderer;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import com.openhtmltopdf.performance.PerformanceCaseGenerator;
+import com.openhtmltopdf.render.FSFont;
+import com.openhtmltopdf.render.RenderingContext;
+import com.openhtmltopdf.render.displaylist.DisplayListCollector;
+import com.openhtmltopdf.render.displaylist.DisplayListContainer;
+import com.openhtmltopdf.util.XRLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmarks of individual subsystems with fixed inputs, as opposed to
+ * {@link RenderTextBenchmark} which measures whole renders.
+ * To run with allocation profiling in the repo root directory:
+ * <pre>
+ * mvn install -DskipTests
+ * java -jar ./openhtmltopdf-examples/target/benchmarks.jar SubsystemBenchmark -prof gc
+ * </pre>
+ *
+ * To compare against the stored baseline, see {@link SubsystemBenchmarkBaseline}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 3, timeUnit = TimeUnit.SECONDS)
+@Fork(warmups = 0, value = 1)
+public class SubsystemBenchmark {
+
+    private static final String MIXED_SCRIPT_TEXT = IntStream.range(0, 20)
+            .mapToObj(i -> "Invoice " + i + " فاتورة total المجموع ")
+            .collect(Collectors.joining());
+
+    private static PdfBoxRenderer buildRenderer(String html) {
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.useFastMode();
+        builder.testMode(true);
+        builder.useFont(() -> SubsystemBenchmark.class.getResourceAsStream("/visualtest/html/fonts/Karla-Bold.ttf"), "Karla");
+        builder.useFont(() -> SubsystemBenchmark.class.getResourceAsStream("/visualtest/html/fonts/NotoNaskhArabic-Regular.ttf"), "Noto Naskh");
+        builder.withHtmlContent(html, null);
+        builder.toStream(new ByteArrayOutputStream());
+        return builder.buildPdfRenderer();
+    }
+
+    private static LayoutContext newLayoutContext(PdfBoxRenderer renderer) {
+        // The text renderer was set up by the renderer's own layout.
+        LayoutContext c = renderer.getSharedContext().newLayoutContextInstance();
+        c.setFontContext(new PdfBoxFontContext());
+        return c;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Stylesheets {
+        String selectorHeavy;
+        String declarationHeavy;
+
+        @Setup
+        public void setUp() {
+            XRLog.setLoggerImpl(new NoopLogger());
+
+            selectorHeavy = PerformanceCaseGenerator.frameworkStylesheet(2_000);
+            declarationHeavy = IntStream.range(0, 500)
+                    .mapToObj(i -> ".d" + i + " { margin: 1px 2px 3px " + i + "px; border: 1px solid #" + String.format("%06x", i) +
+                                   "; font: italic bold 12px/30px Georgia, serif; background: #fff no-repeat; " +
+                                   "padding: 0.5em 1em; color: rgb(" + (i % 255) + ", 0, 0); }")
+                    .collect(Collectors.joining("\n"));
+        }
+    }
+
+    @Benchmark
+    public Stylesheet cssParseSelectors(Stylesheets s) throws IOException {
+        CSSParser parser = new CSSParser((uri, message) -> {});
+        return parser.parseStylesheet(null, StylesheetInfo.AUTHOR, new StringReader(s.selectorHeavy));
+    }
+
+    @Benchmark
+    public Stylesheet cssParseDeclarations(Stylesheets s) throws IOException {
+        CSSParser parser = new CSSParser((uri, message) -> {});
+        return parser.parseStylesheet(null, StylesheetInfo.AUTHOR, new StringReader(s.declarationHeavy));
+    }
+
+    /**
+     * A document with a framework sized stylesheet, parsed and with stylesheets
+     * matched once, so that cascading each element can be measured alone.
+     */
+    @State(Scope.Thread)
+    public static class CascadeDocument {
+        PdfBoxRenderer renderer;
+        List<Element> elements = new ArrayList<>();
+
+        @Setup
+        public void setUp() {
+            XRLog.setLoggerImpl(new NoopLogger());
+
+            renderer = buildRenderer(PerformanceCaseGenerator.tableRowsFrameworkStylesheet(200, 2_000));
+            addElements(renderer.getDocument().getDocumentElement());
+
+            // Build the parent mappers.
+            for (Element e : elements) {
+                renderer.getSharedContext().getCss().getCascadedStyle(e, false);
+            }
+        }
+
+        private void addElements(Element e) {
+            elements.add(e);
+            for (Node child = e.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child instanceof Element) {
+                    addElements((Element) child);
+                }
+            }
+        }
+
+        @TearDown
+        public void tearDown() {
+            renderer.close();
+        }
+    }
+
+    @Benchmark
+    public void cascade(CascadeDocument d, Blackhole bh) {
+        for (Element e : d.elements) {
+            CascadedStyle style = d.renderer.getSharedContext().getCss().getCascadedStyle(e, true);
+            bh.consume(style);
+        }
+    }
+
+    /**
+     * A laid out document providing a style, font and layout context for
+     * the text breaking and font run benchmarks.
+     */
+    @State(Scope.Thread)
+    public static class TextContext {
+        PdfBoxRenderer renderer;
+        LayoutContext layoutContext;
+        CalculatedStyle style;
+        FSFont font;
+        BidiReorderer reorderer = new SimpleBidiReorderer();
+        String paragraph;
+
+        @Setup
+        public void setUp() {
+            XRLog.setLoggerImpl(new NoopLogger());
+
+            renderer = buildRenderer(
+                    "<html style=\"font-family: Karla, 'Noto Naskh'; font-size: 12px;\"><body>" +
+                    MIXED_SCRIPT_TEXT + "</body></html>");
+            renderer.layout();
+
+            layoutContext = newLayoutContext(renderer);
+            style = renderer.getRootBox().getStyle();
+            font = style.getFSFont(layoutContext);
+            paragraph = PerformanceCaseGenerator.paragraphs(1).replaceAll("<[^>]+>", "").trim();
+        }
+
+        @TearDown
+        public void tearDown() {
+            renderer.close();
+        }
+    }
+
+    /**
+     * Breaks a paragraph into lines with {@link Breaker#doBreakText}, which breaks
+     * words with Breaker.doBreakTextWords.
+     */
+    @Benchmark
+    public int breakTextWords(TextContext t) {
+        LineBreakContext context = new LineBreakContext();
+        context.setMaster(t.paragraph);
+        int lines = 0;
+
+        while (context.getStart() < t.paragraph.length()) {
+            context.reset();
+            Breaker.doBreakText(t.layoutContext, context, 200, t.style, Breaker.STANDARD_LINE_BREAKER);
+
+            if (context.getEnd() <= context.getStart()) {
+                break;
+            }
+
+            context.setStart(context.getEnd());
+            lines++;
+        }
+
+        return lines;
+    }
+
+    @Benchmark
+    public Object divideIntoFontRuns(TextContext t) {
+        return PdfBoxTextRenderer.divideIntoFontRuns(t.font, MIXED_SCRIPT_TEXT, t.reorderer);
+    }
+
+    /**
+     * A document parsed with styles loaded for each invocation, so that layout
+     * (including box building and table layout) can be measured alone.
+     */
+    @State(Scope.Thread)
+    public static class UnlaidTable {
+        PdfBoxRenderer renderer;
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            XRLog.setLoggerImpl(new NoopLogger());
+            renderer = buildRenderer(PerformanceCaseGenerator.tableRows(300));
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            renderer.close();
+        }
+    }
+
+    @Benchmark
+    public void tableLayout(UnlaidTable t) {
+        t.renderer.layout();
+    }
+
+    /**
+     * A laid out multi page document, for display list collection.
+     */
+    @State(Scope.Thread)
+    public static class LaidOutDocument {
+        PdfBoxRenderer renderer;
+        RenderingContext renderingContext;
+        Layer rootLayer;
+
+        @Setup
+        public void setUp() {
+            XRLog.setLoggerImpl(new NoopLogger());
+
+            renderer = buildRenderer(PerformanceCaseGenerator.paragraphs(200));
+            renderer.layout();
+
+            rootLayer = renderer.getRootBox().getLayer();
+            renderingContext = renderer.getSharedContext().newRenderingContextInstance();
+            renderingContext.setFontContext(new PdfBoxFontContext());
+            renderingContext.setOutputDevice(renderer.getOutputDevice());
+            renderingContext.setRootLayer(rootLayer);
+            renderingContext.setFastRenderer(true);
+
+            rootLayer.assignPagePaintingPositions(renderingContext, Layer.PAGED_MODE_PRINT);
+            renderingContext.setPageCount(rootLayer.getPages().size());
+        }
+
+        @TearDown
+        public void tearDown() {
+            renderer.close();
+        }
+    }
+
+    /**
+     * Collects display lists for every page, which uses PagedBoxCollector.
+     */
+    @Benchmark
+    public DisplayListContainer collectDisplayList(LaidOutDocument d) {
+        return new DisplayListCollector(d.rootLayer.getPages()).collectRoot(d.renderingContext, d.rootLayer);
+    }
+
+    /**
+     * A laid out document for each invocation, so that painting can be measured alone.
+     */
+    @State(Scope.Thread)
+    public static class PaintableDocument {
+        PdfBoxRenderer renderer;
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            XRLog.setLoggerImpl(new NoopLogger());
+            renderer = buildRenderer(PerformanceCaseGenerator.paragraphs(100));
+            renderer.layout();
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            renderer.close();
+        }
+    }
+
+    /**
+     * Writes the content streams of all pages with PdfBoxFastOutputDevice
+     * (including display list collection), but does not save the document.
+     */
+    @Benchmark
+    public void writeContentStreams(PaintableDocument d) throws IOException {
+        d.renderer.createPDFWithoutClosing();
+    }
+}
@@ -0,0 +1,148 @@
+package com.openhtmltopdf.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.apache.pdfbox.io.IOUtils;
+
+/**
+ * Runs {@link SubsystemBenchmark} with the GC profiler and compares the average time
+ * and allocated bytes per operation of each benchmark against a stored baseline.
+ * Exits with status 1 if any benchmark regressed by more than the tolerance.
+ * To run in the repo root directory:
+ * <pre>
+ * mvn install -DskipTests
+ * java -cp ./openhtmltopdf-examples/target/benchmarks.jar com.openhtmltopdf.benchmark.SubsystemBenchmarkBaseline
+ * </pre>
+ *
+ * To record a new baseline (on the machine used for comparisons, as times are machine specific):
+ * <pre>
+ * java -cp ./openhtmltopdf-examples/target/benchmarks.jar com.openhtmltopdf.benchmark.SubsystemBenchmarkBaseline \
+ *   --update ./openhtmltopdf-examples/src/main/resources/benchmark/subsystem-baseline.json
+ * </pre>
+ *
+ * The tolerances default to 25% for time and 10% for allocation and can be set with the
+ * <code>benchmark.timeTolerance</code> and <code>benchmark.allocTolerance</code> system properties.
+ * The baseline is a flat JSON object of benchmark name (suffixed with <code>:alloc</code> for
+ * allocation) to score.
+ */
+public class SubsystemBenchmarkBaseline {
+    private static final String DEFAULT_BASELINE = "/benchmark/subsystem-baseline.json";
+    private static final String ALLOC_METRIC = "\u00b7gc.alloc.rate.norm";
+    private static final String ALLOC_SUFFIX = ":alloc";
+
+    private static final Pattern ENTRY = Pattern.compile("\"([^\"]+)\"\\s*:\\s*([-+0-9.eE]+)");
+
+    public static void main(String[] args) throws IOException, RunnerException {
+        boolean update = args.length > 0 && args[0].equals("--update");
+        String path = update ? (args.length > 1 ? args[1] : null) : (args.length > 0 ? args[0] : null);
+
+        if (update && path == null) {
+            System.err.println("Usage: SubsystemBenchmarkBaseline [--update] [baseline.json]");
+            System.exit(2);
+        }
+
+        Options opt = new OptionsBuilder()
+                .include(SubsystemBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        Map<String, Double> scores = toScores(new Runner(opt).run());
+
+        if (update) {
+            Files.write(Paths.get(path), toJson(scores).getBytes(StandardCharsets.UTF_8));
+            System.out.println("Wrote baseline to " + path);
+            return;
+        }
+
+        Map<String, Double> baseline = parseJson(path != null ? readFile(Paths.get(path)) : readResource(DEFAULT_BASELINE));
+
+        double timeTolerance = Double.parseDouble(System.getProperty("benchmark.timeTolerance", "0.25"));
+        double allocTolerance = Double.parseDouble(System.getProperty("benchmark.allocTolerance", "0.10"));
+
+        boolean regressed = false;
+
+        for (Map.Entry<String, Double> entry : scores.entrySet()) {
+            Double base = baseline.get(entry.getKey());
+
+            if (base == null) {
+                System.out.printf("%-70s %14.3f (no baseline)%n", entry.getKey(), entry.getValue());
+                continue;
+            }
+
+            double tolerance = entry.getKey().endsWith(ALLOC_SUFFIX) ? allocTolerance : timeTolerance;
+            double change = base == 0 ? 0 : (entry.getValue() - base) / base;
+            boolean worse = change > tolerance;
+            regressed |= worse;
+
+            System.out.printf("%-70s %14.3f %14.3f %+8.1f%% %s%n",
+                    entry.getKey(), base, entry.getValue(), change * 100, worse ? "REGRESSED" : "ok");
+        }
+
+        if (regressed) {
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Double> toScores(Collection<RunResult> results) {
+        Map<String, Double> scores = new TreeMap<>();
+
+        for (RunResult result : results) {
+            String name = result.getParams().getBenchmark();
+            scores.put(name, result.getPrimaryResult().getScore());
+
+            Result<?> alloc = result.getSecondaryResults().get(ALLOC_METRIC);
+            if (alloc != null) {
+                scores.put(name + ALLOC_SUFFIX, alloc.getScore());
+            }
+        }
+
+        return scores;
+    }
+
+    private static String toJson(Map<String, Double> scores) {
+        return scores.entrySet().stream()
+                .map(e -> "  \"" + e.getKey() + "\": " + String.format(Locale.ROOT, "%.3f", e.getValue()))
+                .collect(Collectors.joining(",\n", "{\n", "\n}\n"));
+    }
+
+    private static Map<String, Double> parseJson(String json) {
+        Map<String, Double> scores = new TreeMap<>();
+        Matcher m = ENTRY.matcher(json);
+
+        while (m.find()) {
+            scores.put(m.group(1), Double.parseDouble(m.group(2)));
+        }
+
+        return scores;
+    }
+
+    private static String readFile(Path path) throws IOException {
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+
+    private static String readResource(String path) throws IOException {
+        try (InputStream is = SubsystemBenchmarkBaseline.class.getResourceAsStream(path)) {
+            return new String(IOUtils.toByteArray(is), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -36,6 +36,40 @@ public class PerformanceCaseGenerator {
         return join(hdr, tr, ftr, howMany);
     }
 
+    /**
+     * A stylesheet similar in size and shape to a CSS framework such as Bootstrap.
+     * Most rules are keyed on classes, with a mix of tag, id, descendant, child
+     * and attribute selectors.
+     */
+    public static String frameworkStylesheet(int howManyRules) {
+        return IntStream.range(0, howManyRules)
+                .mapToObj(i -> {
+                    switch (i % 8) {
+                    case 0: return ".c" + i + " { color: #" + String.format("%06x", i * 101) + "; }";
+                    case 1: return ".c" + i + ".d" + i + " { margin-left: " + (i % 10) + "px; }";
+                    case 2: return ".c" + i + " td { padding-top: " + (i % 5) + "px; }";
+                    case 3: return "div.c" + i + " > span { font-weight: bold; }";
+                    case 4: return "#id" + i + " { border-top: 1px solid red; }";
+                    case 5: return "[data-attr" + i + "] { text-decoration: underline; }";
+                    case 6: return "table.c" + i + " tr:nth-child(even) td { background-color: #eee; }";
+                    default: return ".c" + i + ":first-child { padding-left: 1px; }";
+                    }
+                })
+                .collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * Performance of {@link com.openhtmltopdf.css.newmatch.Matcher} with a large stylesheet.
+     */
+    public static String tableRowsFrameworkStylesheet(int howManyRows, int howManyRules) {
+        final String hdr = "<html><head><style>" + frameworkStylesheet(howManyRules) +
+                           "</style></head><body><table class=\"c6 table\">";
+        final String tr = "<tr class=\"c8 row\"><td class=\"c16 num\">One</td><td class=\"c24\">Two</td><td>Three</td></tr>";
+        final String ftr = "</table></body></html>";
+
+        return join(hdr, tr, ftr, howManyRows);
+    }
+
     /**
      * Performance of {@link BlockBoxing}
      */
@@ -63,6 +97,21 @@ public class PerformanceCaseGenerator {
         return join(hdr, block, ftr, howMany);
     }
 
+    /**
+     * Performance of {@link com.openhtmltopdf.layout.FloatManager} with many floats
+     * in one block formatting context, such as a catalog page of product tiles.
+     */
+    public static String floatedGrid(int howMany) {
+        final String hdr = "<html><head><style>" +
+                "div.tile { float: left; width: 120px; height: 60px; margin: 4px; border: 1px solid gray; }" +
+                "div.tile:nth-child(7n) { height: 90px; }" +
+                "</style></head><body>";
+        final String tile = "<div class=\"tile\">Product</div>";
+        final String ftr = "<p style=\"clear: both;\">" + LOREM + "</p></body></html>";
+
+        return join(hdr, tile, ftr, howMany);
+    }
+
     /**
      * Performace case for:
      *   Issue 396 - CSS border-radius makes pdf rendering very slow.
@@ -6,8 +6,13 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
 
 import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
@@ -15,23 +20,39 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import javax.imageio.ImageIO;
+
 import org.apache.commons.io.FileUtils;
+import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSDocument;
 import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.cos.COSObject;
 import org.apache.pdfbox.io.IOUtils;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDDocumentInformation;
+import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.PDPageContentStream.AppendMode;
+import org.apache.pdfbox.pdmodel.PDResources;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationFileAttachment;
 import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationLink;
 import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationWidget;
@@ -47,10 +68,30 @@ import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import com.openhtmltopdf.context.StyleReference;
+import com.openhtmltopdf.css.constants.CSSName;
+import com.openhtmltopdf.css.constants.IdentValue;
+import com.openhtmltopdf.css.parser.FSRGBColor;
+import com.openhtmltopdf.css.style.CalculatedStyle;
+import com.openhtmltopdf.extend.FSCacheEx;
+import com.openhtmltopdf.extend.FSCacheValue;
+import com.openhtmltopdf.extend.RenderMetricsListener;
+import com.openhtmltopdf.extend.impl.FSDefaultCacheStore;
+import com.openhtmltopdf.java2d.Java2DRenderer;
+import com.openhtmltopdf.java2d.api.BufferedImagePageProcessor;
+import com.openhtmltopdf.java2d.api.DefaultPageProcessor;
+import com.openhtmltopdf.java2d.api.Java2DRendererBuilder;
 import com.openhtmltopdf.layout.Layer;
+import com.openhtmltopdf.layout.SharedContext;
+import com.openhtmltopdf.newtable.TableBox;
 import com.openhtmltopdf.outputdevice.helper.ExternalResourceControlPriority;
+import com.openhtmltopdf.render.Box;
+import com.openhtmltopdf.render.PageBox;
 import com.openhtmltopdf.pdfboxout.PagePosition;
+import com.openhtmltopdf.pdfboxout.PdfBoxImage;
 import com.openhtmltopdf.pdfboxout.PdfBoxRenderer;
 import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
 import com.openhtmltopdf.testcases.TestcaseRunner;
@@ -928,6 +969,815 @@ public class NonVisualRegressionTest {
         assertEquals(111.48, lastContentLine, 0.5);
     }
 
+    private static byte[] renderParallelPaintingDocument(ExecutorService executor) throws IOException {
+        StringBuilder html = new StringBuilder();
+        html.append("<html><head><style>@page { size: 200px 200px; margin: 10px; } " +
+                    "p { background-color: #eee; } p + p { page-break-before: always; }</style></head><body>");
+
+        for (int i = 0; i < 30; i++) {
+            html.append("<p id=\"p").append(i).append("\">Page ").append(i)
+                .append(" <a href=\"#p").append((i + 1) % 30).append("\">next</a></p>");
+        }
+
+        html.append("</body></html>");
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.withHtmlContent(html.toString(), null);
+        builder.useFastMode();
+        builder.useParallelPagePainting(executor);
+        builder.toStream(os);
+        builder.run();
+
+        return os.toByteArray();
+    }
+
+    /**
+     * Tests that painting pages in parallel produces the same pages, text and links
+     * as painting them in order.
+     */
+    @Test
+    public void testParallelPagePaintingMatchesSerial() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try (PDDocument serial = PDDocument.load(renderParallelPaintingDocument(null));
+             PDDocument parallel = PDDocument.load(renderParallelPaintingDocument(executor))) {
+
+            assertEquals(30, serial.getNumberOfPages());
+            assertEquals(serial.getNumberOfPages(), parallel.getNumberOfPages());
+            assertEquals(new PDFTextStripper().getText(serial), new PDFTextStripper().getText(parallel));
+
+            for (int i = 0; i < serial.getNumberOfPages(); i++) {
+                assertEquals(1, parallel.getPage(i).getAnnotations().size());
+                assertEquals(serial.getPage(i).getAnnotations().size(), parallel.getPage(i).getAnnotations().size());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static byte[] renderFallbackFontDocument(ExecutorService executor, List<Diagnostic> diagnostics) throws IOException {
+        StringBuilder html = new StringBuilder();
+        html.append("<html><head><style>@page { size: 200px 200px; margin: 10px; } " +
+                    "p + p { page-break-before: always; }</style></head><body>");
+
+        for (int i = 0; i < 12; i++) {
+            html.append("<p>Page ").append(i).append(" \u65e5\u672c\u8a9e \u4e2d\u6587</p>");
+        }
+
+        html.append("</body></html>");
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.withHtmlContent(html.toString(), null);
+        builder.useFastMode();
+        builder.testMode(true);
+        builder.useParallelPagePainting(executor);
+        builder.withDiagnosticConsumer(diagnostics::add);
+        builder.toStream(os);
+        builder.run();
+
+        return os.toByteArray();
+    }
+
+    private static List<String> diagnosticIds(List<Diagnostic> diagnostics) {
+        return diagnostics.stream().map(d -> d.getLogMessageId().toString()).sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * Tests that pages painted in parallel have the shared context needed for font fallback
+     * and report diagnostics to the consumer as pages painted in order do.
+     */
+    @Test
+    public void testParallelPagePaintingFallbackFontMatchesSerial() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Diagnostic> serialDiagnostics = new ArrayList<>();
+        List<Diagnostic> parallelDiagnostics = Collections.synchronizedList(new ArrayList<>());
+
+        try {
+            byte[] serial = renderFallbackFontDocument(null, serialDiagnostics);
+            byte[] parallel = renderFallbackFontDocument(executor, parallelDiagnostics);
+
+            try (PDDocument serialDoc = PDDocument.load(serial);
+                 PDDocument parallelDoc = PDDocument.load(parallel)) {
+
+                assertEquals(12, serialDoc.getNumberOfPages());
+                assertEquals(serialDoc.getNumberOfPages(), parallelDoc.getNumberOfPages());
+
+                String text = new PDFTextStripper().getText(serialDoc);
+                assertTrue(text.contains("Page 11"));
+                assertEquals(text, new PDFTextStripper().getText(parallelDoc));
+            }
+
+            assertEquals(diagnosticIds(serialDiagnostics), diagnosticIds(parallelDiagnostics));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static File[] scratchFiles(File dir) {
+        return dir.listFiles((d, name) -> name.startsWith("PDFBox") && name.endsWith(".tmp"));
+    }
+
+    /**
+     * Tests that a document buffered mostly in a temporary file uses a scratch file,
+     * deleted when the renderer is closed, and is written in full.
+     */
+    @Test
+    public void testTempFileBufferingWritesAllPages() throws IOException {
+        StringBuilder html = new StringBuilder();
+        html.append("<html><head><style>@page { size: 200px 200px; margin: 10px; } " +
+                    "p + p { page-break-before: always; }</style></head><body>");
+
+        for (int i = 0; i < 50; i++) {
+            html.append("<p>Page ").append(i).append("</p>");
+        }
+
+        html.append("</body></html>");
+
+        File tempDir = new File(OUT_PATH, "temp-file-buffering");
+        FileUtils.deleteDirectory(tempDir);
+        tempDir.mkdirs();
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.withHtmlContent(html.toString(), null);
+        builder.useFastMode();
+        builder.useTempFileBuffering(4096, tempDir);
+        builder.toStream(os);
+
+        try (PdfBoxRenderer renderer = builder.buildPdfRenderer()) {
+            PDDocument doc = renderer.createPDFKeepOpen();
+
+            File[] scratch = scratchFiles(tempDir);
+            assertEquals(1, scratch.length);
+            assertTrue(scratch[0].length() > 4096);
+
+            doc.save(os);
+            doc.close();
+        }
+
+        assertEquals(0, scratchFiles(tempDir).length);
+
+        try (PDDocument doc = PDDocument.load(os.toByteArray())) {
+            assertEquals(50, doc.getNumberOfPages());
+            assertThat(new PDFTextStripper().getText(doc), containsString("Page 49"));
+        }
+    }
+
+    /**
+     * Tests that an image drawn without interpolation on several pages is only embedded once.
+     */
+    @Test
+    public void testNonInterpolatedImageEmbeddedOnce() throws IOException {
+        String html =
+            "<html><head><style>@page { size: 200px 200px; margin: 10px; } " +
+            "img { image-rendering: pixelated; } p + p { page-break-before: always; }</style></head><body>" +
+            "<p><img src=\"../../demos/images/flyingsaucer.png\" /></p>" +
+            "<p><img src=\"../../demos/images/flyingsaucer.png\" /></p>" +
+            "<p><img src=\"../../demos/images/flyingsaucer.png\" /></p>" +
+            "</body></html>";
+
+        render("non-interpolated-image-embedded-once", html, b -> {});
+
+        try (PDDocument doc = load("non-interpolated-image-embedded-once")) {
+            assertEquals(3, doc.getNumberOfPages());
+
+            Set<COSBase> images = new HashSet<>();
+            for (PDPage page : doc.getPages()) {
+                PDResources res = page.getResources();
+                for (COSName name : res.getXObjectNames()) {
+                    PDImageXObject img = (PDImageXObject) res.getXObject(name);
+                    assertThat(img.getInterpolate(), equalTo(false));
+                    images.add(img.getCOSObject());
+                }
+            }
+
+            assertEquals(1, images.size());
+        }
+    }
+
+    /**
+     * Tests that image sizes read from format headers match those found by ImageIO.
+     */
+    @Test
+    public void testImageHeaderProbeMatchesImageIO() throws IOException {
+        BufferedImage image = new BufferedImage(37, 23, BufferedImage.TYPE_INT_RGB);
+
+        for (String format : new String[] { "png", "jpg", "gif", "bmp" }) {
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            assertTrue(format, ImageIO.write(image, format, os));
+
+            PdfBoxImage probed = new PdfBoxImage(os.toByteArray(), "image." + format);
+
+            assertEquals(format, 37, probed.getWidth());
+            assertEquals(format, 23, probed.getHeight());
+        }
+
+        for (String demo : new String[] { "flyingsaucer.png", "flyingsaucer.GIF", "landscape-sydney.jpg", "portrait-shuttle.jpg" }) {
+            byte[] bytes;
+            try (InputStream in = NonVisualRegressionTest.class.getResourceAsStream("/demos/images/" + demo)) {
+                bytes = IOUtils.toByteArray(in);
+            }
+
+            BufferedImage expected = ImageIO.read(new ByteArrayInputStream(bytes));
+            PdfBoxImage probed = new PdfBoxImage(bytes, demo);
+
+            assertEquals(demo, expected.getWidth(), probed.getWidth());
+            assertEquals(demo, expected.getHeight(), probed.getHeight());
+        }
+    }
+
+    /**
+     * Tests that Java2D pages painted one at a time or by range from a long lived
+     * renderer match pages painted all at once.
+     */
+    @Test
+    public void testJava2DPageRangesMatchAllPages() throws IOException {
+        StringBuilder html = new StringBuilder();
+        html.append("<html><head><style>@page { size: 100px 100px; margin: 10px; } " +
+                    "body { font-family: 'Liberation'; } p + p { page-break-before: always; }</style></head><body>");
+
+        for (int i = 0; i < 5; i++) {
+            html.append("<p style=\"background-color: #").append(i).append("0").append(i).append("\">Page ").append(i).append("</p>");
+        }
+
+        html.append("</body></html>");
+
+        BufferedImagePageProcessor all = new BufferedImagePageProcessor(BufferedImage.TYPE_INT_RGB, 1);
+        BufferedImagePageProcessor ranges = new BufferedImagePageProcessor(BufferedImage.TYPE_INT_RGB, 1);
+
+        Java2DRendererBuilder allBuilder = new Java2DRendererBuilder();
+        allBuilder.withHtmlContent(html.toString(), null);
+        allBuilder.useFastMode();
+        allBuilder.useFont(() -> VisualRegressionTest.class.getClassLoader().getResourceAsStream("org/apache/pdfbox/resources/ttf/LiberationSans-Regular.ttf"), "Liberation");
+        allBuilder.toPageProcessor(all);
+        allBuilder.runPaged();
+
+        Java2DRendererBuilder rangesBuilder = new Java2DRendererBuilder();
+        rangesBuilder.withHtmlContent(html.toString(), null);
+        rangesBuilder.useFastMode();
+        rangesBuilder.useFont(() -> VisualRegressionTest.class.getClassLoader().getResourceAsStream("org/apache/pdfbox/resources/ttf/LiberationSans-Regular.ttf"), "Liberation");
+        rangesBuilder.toPageProcessor(ranges);
+
+        try (Java2DRenderer renderer = rangesBuilder.buildJava2DRenderer()) {
+            renderer.layout();
+            assertEquals(5, renderer.getPageCount());
+
+            renderer.writePage(0);
+            renderer.writePages(1, 3);
+            renderer.writePage(3);
+            renderer.writePages(4, 5);
+        }
+
+        assertEquals(5, all.getPageImages().size());
+        assertEquals(5, ranges.getPageImages().size());
+
+        for (int i = 0; i < 5; i++) {
+            BufferedImage expected = all.getPageImages().get(i);
+            BufferedImage actual = ranges.getPageImages().get(i);
+
+            assertEquals(expected.getWidth(), actual.getWidth());
+            assertTrue(Arrays.equals(
+                expected.getRGB(0, 0, expected.getWidth(), expected.getHeight(), null, 0, expected.getWidth()),
+                actual.getRGB(0, 0, actual.getWidth(), actual.getHeight(), null, 0, actual.getWidth())));
+        }
+    }
+
+    private static byte[][] renderJava2DPngPages(ExecutorService executor) throws IOException {
+        return renderJava2DPngPages(executor, "", diagnostic -> {});
+    }
+
+    private static byte[][] renderJava2DPngPages(
+            ExecutorService executor, String pageRules, Consumer<Diagnostic> diagnostics) throws IOException {
+        StringBuilder html = new StringBuilder();
+        html.append("<html><head><style>@page { size: 100px 100px; margin: 10px; ").append(pageRules).append(" } " +
+                    "body { font-family: 'Liberation'; } p + p { page-break-before: always; }</style></head><body>");
+
+        for (int i = 0; i < 20; i++) {
+            html.append("<p style=\"border: 1px solid #").append(i % 10).append("0").append(i % 10).append("\">Page ").append(i).append("</p>");
+        }
+
+        html.append("</body></html>");
+
+        byte[][] pages = new byte[20][];
+        DefaultPageProcessor processor = new DefaultPageProcessor(
+                pageNo -> new ByteArrayOutputStream() {
+                    @Override
+                    public void close() {
+                        pages[pageNo] = toByteArray();
+                    }
+                }, BufferedImage.TYPE_INT_RGB, "png", executor, 4);
+
+        Java2DRendererBuilder builder = new Java2DRendererBuilder();
+        builder.withHtmlContent(html.toString(), null);
+        builder.useFastMode();
+        builder.useFont(() -> VisualRegressionTest.class.getClassLoader().getResourceAsStream("org/apache/pdfbox/resources/ttf/LiberationSans-Regular.ttf"), "Liberation");
+        builder.useParallelPagePainting(executor);
+        builder.withDiagnosticConsumer(diagnostics);
+        builder.toPageProcessor(processor);
+        builder.runPaged();
+
+        return pages;
+    }
+
+    /**
+     * Tests that Java2D pages painted and encoded in parallel match those painted and encoded in order.
+     */
+    @Test
+    public void testJava2DParallelPagesMatchSerial() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            byte[][] serial = renderJava2DPngPages(null);
+            byte[][] parallel = renderJava2DPngPages(executor);
+
+            for (int i = 0; i < serial.length; i++) {
+                assertTrue("Page " + i, serial[i] != null && serial[i].length > 0);
+                assertTrue("Page " + i, Arrays.equals(serial[i], parallel[i]));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tests that Java2D pages with margin boxes, which are laid out while painting,
+     * match between parallel and serial painting. Painting threads need the shared context
+     * and diagnostic consumer of the rendering thread.
+     */
+    @Test
+    public void testJava2DParallelMarginBoxesMatchSerial() throws IOException {
+        String pageRules = "@bottom-center { content: 'p' counter(page); font-family: 'Liberation'; " +
+                           "font-size: 6px; text-transform: uppercase; }";
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Diagnostic> serialDiagnostics = new ArrayList<>();
+        List<Diagnostic> parallelDiagnostics = Collections.synchronizedList(new ArrayList<>());
+
+        try {
+            byte[][] serial = renderJava2DPngPages(null, pageRules, serialDiagnostics::add);
+            byte[][] parallel = renderJava2DPngPages(executor, pageRules, parallelDiagnostics::add);
+
+            for (int i = 0; i < serial.length; i++) {
+                assertTrue("Page " + i, serial[i] != null && serial[i].length > 0);
+                assertTrue("Page " + i, Arrays.equals(serial[i], parallel[i]));
+            }
+
+            assertEquals(diagnosticIds(serialDiagnostics), diagnosticIds(parallelDiagnostics));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tests that page styles are cascaded once per page name and pseudo page rather than once per page,
+     * while pages with different page rules still get their own style.
+     */
+    @Test
+    public void testPageStylesResolvedOncePerPageType() throws IOException {
+        StringBuilder html = new StringBuilder();
+        html.append("<html><head><style>@page { size: 200px 200px; margin: 10px; } " +
+                    "@page :first { margin: 20px; } " +
+                    "p + p { page-break-before: always; }</style></head><body>");
+
+        for (int i = 0; i < 40; i++) {
+            html.append("<p>Page ").append(i).append("</p>");
+        }
+
+        html.append("</body></html>");
+
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.withHtmlContent(html.toString(), null);
+        builder.useFastMode();
+        builder.toStream(new ByteArrayOutputStream());
+
+        try (PdfBoxRenderer renderer = builder.buildPdfRenderer();
+             PDDocument doc = renderer.createPDFKeepOpen()) {
+
+            assertEquals(40, doc.getNumberOfPages());
+
+            List<PageBox> pages = renderer.getRootBox().getLayer().getPages();
+            assertThat(pages.get(0).getStyle(), not(sameInstance(pages.get(1).getStyle())));
+            assertThat(pages.get(1).getStyle(), sameInstance(pages.get(39).getStyle()));
+
+            StyleReference css = renderer.getSharedContext().getCss();
+            assertTrue(css.getPageStyleCacheMisses() <= 4);
+            assertTrue(css.getPageStyleCacheHits() >= 36);
+        }
+    }
+
+    /**
+     * Tests that a page named "null" does not share its resolved page style with
+     * unnamed pages.
+     */
+    @Test
+    public void testPageStyleNamedNullNotSharedWithUnnamed() throws IOException {
+        String html =
+            "<html><head><style>@page { size: 200px 200px; } @page null { size: 300px 300px; } " +
+            ".named { page: null; } div + div { page-break-before: always; }</style></head><body>" +
+            "<div>One</div><div class=\"named\">Two</div><div>Three</div><div>Four</div>" +
+            "</body></html>";
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.withHtmlContent(html, null);
+        builder.useFastMode();
+        builder.toStream(os);
+        builder.run();
+
+        try (PDDocument doc = PDDocument.load(os.toByteArray())) {
+            assertEquals(4, doc.getNumberOfPages());
+
+            float[] widths = new float[4];
+            for (int i = 0; i < 4; i++) {
+                widths[i] = Math.round(doc.getPage(i).getMediaBox().getWidth());
+            }
+
+            float named = Math.round(cssPixelsToPdfPoints(300));
+            float unnamed = Math.round(cssPixelsToPdfPoints(200));
+            assertTrue(Arrays.equals(new float[] { unnamed, named, unnamed, unnamed }, widths));
+        }
+    }
+
+    /**
+     * Tests that a metrics listener receives a timing for every phase and the counters of a render.
+     */
+    @Test
+    public void testRenderMetricsListener() throws IOException {
+        BufferedImage img = new BufferedImage(20, 20, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(img, "png", png);
+
+        String html =
+            "<html><head><style>@page { size: 200px 200px; margin: 10px; } " +
+            "div { page-break-after: always; }</style></head><body>" +
+            "<div>One</div><div>Two</div>" +
+            "<img src=\"data:image/png;base64," + Base64.getEncoder().encodeToString(png.toByteArray()) + "\" />" +
+            "</body></html>";
+
+        Map<RenderMetricsListener.Phase, Long> phases = new EnumMap<>(RenderMetricsListener.Phase.class);
+        Map<RenderMetricsListener.Counter, Long> counters = new EnumMap<>(RenderMetricsListener.Counter.class);
+
+        new PdfRendererBuilder()
+            .withHtmlContent(html, null)
+            .useRenderMetricsListener(new RenderMetricsListener() {
+                @Override
+                public void onPhase(Phase phase, long nanos) {
+                    assertThat(phases.put(phase, nanos), equalTo(null));
+                }
+
+                @Override
+                public void onCounter(Counter counter, long value) {
+                    assertThat(counters.put(counter, value), equalTo(null));
+                }
+            })
+            .toStream(new ByteArrayOutputStream())
+            .run();
+
+        for (RenderMetricsListener.Phase phase : RenderMetricsListener.Phase.values()) {
+            assertTrue(phase.name(), phases.containsKey(phase) && phases.get(phase) >= 0);
+        }
+
+        assertThat(counters.keySet(), equalTo(EnumSet.allOf(RenderMetricsListener.Counter.class)));
+        assertEquals(3L, (long) counters.get(RenderMetricsListener.Counter.PAGES));
+        assertTrue(counters.get(RenderMetricsListener.Counter.BOXES) > 0);
+        assertTrue(counters.get(RenderMetricsListener.Counter.LINE_BOXES) >= 2);
+        assertTrue(counters.get(RenderMetricsListener.Counter.IMAGE_BYTES) > 0);
+        assertTrue(counters.get(RenderMetricsListener.Counter.FONT_RUNS) >= 2);
+        assertEquals(0L, (long) counters.get(RenderMetricsListener.Counter.STYLESHEET_CACHE_HITS));
+    }
+
+    private static Map<RenderMetricsListener.Counter, Long> renderWithCacheStores(
+            Map<PdfRendererBuilder.CacheStore, FSCacheEx<String, FSCacheValue>> caches) throws IOException {
+        BufferedImage img = new BufferedImage(20, 20, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(img, "png", png);
+
+        String html =
+            "<html><head><style>body { font-family: 'Liberation'; }</style></head><body>" +
+            "<p style=\"color: #ff0000;\">One</p>" +
+            "<img src=\"data:image/png;base64," + Base64.getEncoder().encodeToString(png.toByteArray()) + "\" />" +
+            "</body></html>";
+
+        Map<RenderMetricsListener.Counter, Long> counters = new EnumMap<>(RenderMetricsListener.Counter.class);
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+
+        builder.withHtmlContent(html, null);
+        builder.useFastMode();
+        builder.useFont(() -> VisualRegressionTest.class.getClassLoader().getResourceAsStream("org/apache/pdfbox/resources/ttf/LiberationSans-Regular.ttf"), "Liberation");
+        caches.forEach(builder::useCacheStore);
+        builder.useRenderMetricsListener(new RenderMetricsListener() {
+            @Override
+            public void onPhase(Phase phase, long nanos) {
+            }
+
+            @Override
+            public void onCounter(Counter counter, long value) {
+                counters.put(counter, value);
+            }
+        });
+        builder.toStream(new ByteArrayOutputStream());
+        builder.run();
+
+        return counters;
+    }
+
+    /**
+     * Tests that the cache store counters count the lookups of each render in cache stores
+     * shared between renders.
+     */
+    @Test
+    public void testRenderMetricsCacheStoreCounters() throws IOException {
+        Map<PdfRendererBuilder.CacheStore, FSCacheEx<String, FSCacheValue>> caches = new EnumMap<>(PdfRendererBuilder.CacheStore.class);
+        for (PdfRendererBuilder.CacheStore which : PdfRendererBuilder.CacheStore.values()) {
+            caches.put(which, new FSDefaultCacheStore());
+        }
+
+        Map<RenderMetricsListener.Counter, Long> first = renderWithCacheStores(caches);
+        Map<RenderMetricsListener.Counter, Long> second = renderWithCacheStores(caches);
+
+        assertEquals(0L, (long) first.get(RenderMetricsListener.Counter.STYLESHEET_CACHE_HITS));
+        assertTrue(first.get(RenderMetricsListener.Counter.STYLESHEET_CACHE_MISSES) > 0);
+        assertTrue(second.get(RenderMetricsListener.Counter.STYLESHEET_CACHE_HITS) > 0);
+        assertEquals(0L, (long) second.get(RenderMetricsListener.Counter.STYLESHEET_CACHE_MISSES));
+
+        assertEquals(0L, (long) first.get(RenderMetricsListener.Counter.IMAGE_CACHE_HITS));
+        assertTrue(first.get(RenderMetricsListener.Counter.IMAGE_CACHE_MISSES) > 0);
+        assertTrue(second.get(RenderMetricsListener.Counter.IMAGE_CACHE_HITS) > 0);
+        assertEquals(0L, (long) second.get(RenderMetricsListener.Counter.IMAGE_CACHE_MISSES));
+
+        assertTrue(first.get(RenderMetricsListener.Counter.FONT_CACHE_MISSES) > 0);
+        assertTrue(second.get(RenderMetricsListener.Counter.FONT_CACHE_HITS) > 0);
+    }
+
+    /**
+     * Tests that margin area tables are shared between pages with the same page style and
+     * running elements, while page counters are still calculated for each page.
+     */
+    @Test
+    public void testMarginAreasSharedBetweenPages() throws IOException {
+        StringBuilder html = new StringBuilder();
+        html.append("<html><head><style>" +
+                    "@page { size: 300px 200px; margin: 40px; " +
+                    "  @top-center { content: element(header); } " +
+                    "  @bottom-center { content: 'Page ' counter(page) ' of ' counter(pages); } } " +
+                    ".hdr { position: running(header); } " +
+                    ".page + .page { page-break-before: always; }</style></head><body>");
+
+        for (int i = 0; i < 40; i++) {
+            html.append("<div class=\"page\">");
+            if (i == 0) {
+                html.append("<div class=\"hdr\">Part A</div>");
+            } else if (i == 20) {
+                html.append("<div class=\"hdr\">Part B</div>");
+            }
+            html.append("Content ").append(i).append("</div>");
+        }
+
+        html.append("</body></html>");
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            PdfRendererBuilder builder = new PdfRendererBuilder();
+            builder.withHtmlContent(html.toString(), null);
+            builder.useFastMode();
+            builder.useParallelPagePainting(executor);
+            builder.toStream(new ByteArrayOutputStream());
+
+            try (PdfBoxRenderer renderer = builder.buildPdfRenderer();
+                 PDDocument doc = renderer.createPDFKeepOpen()) {
+
+                assertEquals(40, doc.getNumberOfPages());
+
+                PDFTextStripper stripper = new PDFTextStripper();
+                for (int i = 1; i <= 40; i++) {
+                    stripper.setStartPage(i);
+                    stripper.setEndPage(i);
+                    String text = stripper.getText(doc);
+
+                    assertThat(text, containsString("Page " + i + " of 40"));
+                    assertThat(text, containsString(i <= 20 ? "Part A" : "Part B"));
+                }
+
+                // Three page styles (first, left, right), eight margin areas each
+                // and a second top margin area for left and right pages with Part B.
+                PageBox.MarginAreaCache cache = renderer.getRootBox().getLayer().getMarginAreaCache();
+                assertTrue(cache.getMisses() <= 26);
+                assertEquals(40 * 8, cache.getHits() + cache.getMisses());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static TableBox findTable(Box box) {
+        if (box instanceof TableBox) {
+            return (TableBox) box;
+        }
+
+        for (int i = 0; i < box.getChildCount(); i++) {
+            TableBox table = findTable(box.getChild(i));
+            if (table != null) {
+                return table;
+            }
+        }
+
+        return null;
+    }
+
+    private static int[] renderTableColumnPositions(String tableStyle) throws IOException {
+        StringBuilder html = new StringBuilder();
+        html.append("<html><head><style>@page { size: 400px 400px; margin: 10px; }</style></head><body>")
+            .append("<table style=\"").append(tableStyle).append("\">");
+
+        for (int i = 0; i < 200; i++) {
+            html.append("<tr><td>").append(i == 150 ? "WIDEWIDEWIDEWIDE" : "A").append("</td><td>Row ").append(100 + i).append("</td></tr>");
+        }
+
+        html.append("</table></body></html>");
+
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.withHtmlContent(html.toString(), null);
+        builder.useFastMode();
+        builder.toStream(new ByteArrayOutputStream());
+
+        try (PdfBoxRenderer renderer = builder.buildPdfRenderer();
+             PDDocument doc = renderer.createPDFKeepOpen()) {
+
+            assertThat(new PDFTextStripper().getText(doc), containsString("Row 299"));
+            return findTable(renderer.getRootBox()).getColumnPos();
+        }
+    }
+
+    /**
+     * Tests that with -fs-table-layout: sampled column widths are calculated from
+     * the first rows only, while all rows are still laid out.
+     */
+    @Test
+    public void testSampledTableLayoutSamplesFirstRows() throws IOException {
+        int[] auto = renderTableColumnPositions("");
+        int[] sampled = renderTableColumnPositions("-fs-table-layout: sampled; -fs-table-layout-sample-rows: 20;");
+        int[] sampledAll = renderTableColumnPositions("-fs-table-layout: sampled; -fs-table-layout-sample-rows: 500;");
+
+        assertTrue(sampled[1] < auto[1]);
+        assertTrue(Arrays.equals(auto, sampledAll));
+    }
+
+    /**
+     * Tests that a grid of floated tiles is placed row by row, each tile
+     * beside the last until the row is full.
+     */
+    @Test
+    public void testFloatedGridPositions() throws IOException {
+        StringBuilder html = new StringBuilder();
+        html.append("<html><head><style>@page { size: 300px 500px; margin: 0; } body { margin: 0; } " +
+                    "a { display: block; float: left; width: 100px; height: 50px; }</style></head><body>");
+
+        for (int i = 0; i < 30; i++) {
+            html.append("<a href=\"#t\">T").append(i).append("</a>");
+        }
+
+        html.append("<div id=\"t\" style=\"clear: both;\"></div></body></html>");
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.withHtmlContent(html.toString(), null);
+        builder.useFastMode();
+        builder.toStream(os);
+        builder.run();
+
+        try (PDDocument doc = PDDocument.load(os.toByteArray())) {
+            assertEquals(1, doc.getNumberOfPages());
+
+            Set<String> expected = new HashSet<>();
+            for (int i = 0; i < 30; i++) {
+                expected.add(Math.round(cssPixelsToPdfPoints((i % 3) * 100)) + "," +
+                             Math.round(cssPixelYToPdfPoints((i / 3) * 50 + 50, 500)));
+            }
+
+            Set<String> actual = doc.getPage(0).getAnnotations().stream()
+                    .map(annot -> annot.getRectangle())
+                    .map(rect -> Math.round(rect.getLowerLeftX()) + "," + Math.round(rect.getLowerLeftY()))
+                    .collect(Collectors.toSet());
+
+            assertEquals(expected, actual);
+        }
+    }
+
+    private static List<Element> tableCells(PdfBoxRenderer renderer) {
+        NodeList cells = renderer.getDocument().getElementsByTagName("td");
+        return IntStream.range(0, cells.getLength()).mapToObj(i -> (Element) cells.item(i)).collect(Collectors.toList());
+    }
+
+    /**
+     * Tests that table cells alike share cascaded and calculated styles, while cells
+     * with a style attribute, another class or a structural selector are styled apart.
+     */
+    @Test
+    public void testSiblingStyleSharing() throws IOException {
+        String row = "<tr><td class=\"num\">1</td><td class=\"num\">2</td><td class=\"num\" style=\"color: #00ff00;\">3</td><td>4</td></tr>";
+        String html =
+            "<html><head><style>td.num { color: #ff0000; } .wide td { padding: 2px; }</style></head><body>" +
+            "<table class=\"wide\">" + row + row + row + "</table></body></html>";
+
+        try (PdfBoxRenderer renderer = new PdfRendererBuilder().withHtmlContent(html, null).buildPdfRenderer()) {
+            SharedContext ctx = renderer.getSharedContext();
+            List<Element> cells = tableCells(renderer);
+
+            assertThat(ctx.getCss().getCascadedStyle(cells.get(4), false), sameInstance(ctx.getCss().getCascadedStyle(cells.get(0), false)));
+            assertThat(ctx.getStyle(cells.get(1)), sameInstance(ctx.getStyle(cells.get(0))));
+            assertThat(ctx.getStyle(cells.get(8)), sameInstance(ctx.getStyle(cells.get(0))));
+
+            assertEquals(new FSRGBColor(0xff0000), ctx.getStyle(cells.get(0)).getColor());
+            assertEquals(new FSRGBColor(0x00ff00), ctx.getStyle(cells.get(2)).getColor());
+            assertThat(ctx.getStyle(cells.get(3)).getColor(), not(equalTo(new FSRGBColor(0xff0000))));
+        }
+
+        String structural =
+            "<html><head><style>td.num { color: #ff0000; } td:first-child { color: #0000ff; }</style></head><body>" +
+            "<table>" + row + row + "</table></body></html>";
+
+        try (PdfBoxRenderer renderer = new PdfRendererBuilder().withHtmlContent(structural, null).buildPdfRenderer()) {
+            SharedContext ctx = renderer.getSharedContext();
+            List<Element> cells = tableCells(renderer);
+
+            assertEquals(new FSRGBColor(0x0000ff), ctx.getStyle(cells.get(0)).getColor());
+            assertEquals(new FSRGBColor(0xff0000), ctx.getStyle(cells.get(1)).getColor());
+            assertEquals(new FSRGBColor(0x0000ff), ctx.getStyle(cells.get(4)).getColor());
+        }
+    }
+
+    /**
+     * Tests that presentational attributes mapped to declarations directly style table
+     * cells as their CSS equivalents would and that repeated style attributes are parsed once.
+     */
+    @Test
+    public void testPresentationalAttributesAndRepeatedStyleAttributes() throws IOException {
+        String row = "<tr><td colspan=\"2\" align=\"Center\" valign=\"top\" width=\"50%\" style=\"color: #00ff00;\">1</td>" +
+                     "<td bgcolor=\"ff0000\">2</td></tr>";
+        String html = "<html><body><table cellpadding=\"5\" cellspacing=\"3\" border=\"1\">" + row + row + "</table></body></html>";
+
+        try (PdfBoxRenderer renderer = new PdfRendererBuilder().withHtmlContent(html, null).buildPdfRenderer()) {
+            SharedContext ctx = renderer.getSharedContext();
+            List<Element> cells = tableCells(renderer);
+
+            assertThat(ctx.getCss().getCascadedStyle(cells.get(2), false).propertyByName(CSSName.COLOR),
+                       sameInstance(ctx.getCss().getCascadedStyle(cells.get(0), false).propertyByName(CSSName.COLOR)));
+
+            CalculatedStyle style = ctx.getStyle(cells.get(0));
+            assertEquals(2, style.getColSpan());
+            assertEquals(IdentValue.CENTER, style.getIdent(CSSName.TEXT_ALIGN));
+            assertEquals(IdentValue.TOP, style.getIdent(CSSName.VERTICAL_ALIGN));
+            assertEquals(new FSRGBColor(0x00ff00), style.getColor());
+            assertEquals(5f, style.valueByName(CSSName.PADDING_LEFT).asFloat(), 0.001f);
+            assertTrue(style.isIdent(CSSName.BORDER_TOP_STYLE, IdentValue.OUTSET));
+
+            assertEquals(new FSRGBColor(0xff0000), ctx.getStyle(cells.get(1)).getBackgroundColor());
+            Element table = (Element) renderer.getDocument().getElementsByTagName("table").item(0);
+            assertEquals(3f, ctx.getStyle(table).valueByName(CSSName.FS_BORDER_SPACING_HORIZONTAL).asFloat(), 0.001f);
+        }
+    }
+
+    private static byte[] renderChapterCountersDocument(boolean streaming) throws IOException {
+        String html = "<html><head><style>@page { size: 400px 400px; } " +
+                      "body { counter-reset: ch; } h1 { counter-increment: ch; counter-reset: sec; page-break-before: always; } " +
+                      "h1::before { content: 'Chapter ' counter(ch) ': '; } " +
+                      "h2 { counter-increment: sec; } h2::before { content: counter(ch) '.' counter(sec) ' '; }</style></head><body>" +
+                      "<h1>One</h1><h2>A</h2><h2>B</h2><h1>Two</h1><h2>C</h2><h1>Three</h1><h2>D</h2></body></html>";
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.withHtmlContent(html, null);
+        builder.useFastMode();
+        if (streaming) {
+            builder.useStreamingSegments();
+        }
+        builder.toStream(os);
+        builder.run();
+
+        return os.toByteArray();
+    }
+
+    /**
+     * Tests that CSS counters continue across streaming segments as in the whole document.
+     */
+    @Test
+    public void testStreamingSegmentsContinueCounters() throws IOException {
+        try (PDDocument whole = PDDocument.load(renderChapterCountersDocument(false));
+             PDDocument streamed = PDDocument.load(renderChapterCountersDocument(true))) {
+            String text = new PDFTextStripper().getText(streamed);
+
+            assertEquals(new PDFTextStripper().getText(whole), text);
+            assertThat(text, containsString("Chapter 3: Three"));
+            assertThat(text, containsString("3.1 D"));
+        }
+    }
+
     // TODO:
     // + More form controls.
     // + Custom meta info.
@@ -22,6 +22,7 @@ package com.openhtmltopdf.java2d;
 import com.openhtmltopdf.bidi.BidiReorderer;
 import com.openhtmltopdf.css.parser.FSColor;
 import com.openhtmltopdf.css.parser.FSRGBColor;
+import com.openhtmltopdf.css.parser.PropertyValue;
 import com.openhtmltopdf.css.style.derived.FSLinearGradient;
 import com.openhtmltopdf.css.style.derived.FSLinearGradient.StopPoint;
 import com.openhtmltopdf.extend.FSImage;
@@ -48,8 +49,27 @@ public class Java2DOutputDevice extends AbstractOutputDevice implements OutputDe
     private Graphics2D _graphics;
     private Java2DFont _font;
 
+    // Guards shared resources (the user agent, Graphics2D drawers such as SVG) while pages
+    // are painted in parallel. Shared between this device and its page devices.
+    private final Object _paintLock;
+
     public Java2DOutputDevice(Graphics2D layoutGraphics) {
     	this._graphics = layoutGraphics;
+    	this._paintLock = new Object();
+    }
+
+    private Java2DOutputDevice(Java2DOutputDevice parent) {
+        this._graphics = parent._graphics;
+        this._paintLock = parent._paintLock;
+    }
+
+    /**
+     * Creates a device to paint a single page, possibly on another thread.
+     * The page device must be initialized with {@link #initializePage(Graphics2D)}.
+     * Painting that touches shared resources is serialized with other page devices.
+     */
+    public Java2DOutputDevice createPageDevice() {
+        return new Java2DOutputDevice(this);
     }
 
     @Override
@@ -74,8 +94,10 @@ public class Java2DOutputDevice extends AbstractOutputDevice implements OutputDe
                     image, (int)location.getX(), (int)location.getY(), null);
 		} else if (replaced instanceof Java2DRendererBuilder.Graphics2DPaintingReplacedElement) {
 			Rectangle contentBounds = box.getContentAreaEdge(box.getAbsX(), box.getAbsY(), c);
-			((Java2DRendererBuilder.Graphics2DPaintingReplacedElement) replaced).paint(this, c, contentBounds.x,
-					contentBounds.y, contentBounds.width, contentBounds.height);
+			synchronized (_paintLock) {
+			    ((Java2DRendererBuilder.Graphics2DPaintingReplacedElement) replaced).paint(this, c, contentBounds.x,
+			            contentBounds.y, contentBounds.width, contentBounds.height);
+			}
 		}
     }
     
@@ -191,10 +213,20 @@ public class Java2DOutputDevice extends AbstractOutputDevice implements OutputDe
 	@Override
 	public void drawWithGraphics(float x, float y, float width, float height, OutputDeviceGraphicsDrawer renderer) {
 		Graphics2D graphics = (Graphics2D) _graphics.create((int) x, (int) y, (int) width, (int) height);
-		renderer.render(graphics);
+		synchronized (_paintLock) {
+		    renderer.render(graphics);
+		}
 		graphics.dispose();
 	}
 
+    @Override
+    protected FSImage getBackgroundImage(PropertyValue bgImage, RenderingContext c) {
+        // The user agent image cache is not thread safe.
+        synchronized (_paintLock) {
+            return super.getBackgroundImage(bgImage, c);
+        }
+    }
+
     @Override
     public void setPaint(Paint paint) {
         _graphics.setPaint(paint);
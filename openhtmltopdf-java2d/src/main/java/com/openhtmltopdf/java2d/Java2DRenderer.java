@@ -4,12 +4,18 @@ import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 
 import com.openhtmltopdf.java2d.api.Java2DRendererBuilderState;
 import com.openhtmltopdf.util.LogMessageId;
 import com.openhtmltopdf.util.OpenUtil;
+import com.openhtmltopdf.util.RenderMetrics;
 
 import org.w3c.dom.Document;
 import org.xml.sax.InputSource;
@@ -22,6 +28,7 @@ import com.openhtmltopdf.context.StyleReference;
 import com.openhtmltopdf.css.constants.IdentValue;
 import com.openhtmltopdf.css.style.CalculatedStyle;
 import com.openhtmltopdf.extend.*;
+import com.openhtmltopdf.extend.RenderMetricsListener.Phase;
 import com.openhtmltopdf.java2d.api.FSPage;
 import com.openhtmltopdf.java2d.api.FSPageProcessor;
 import com.openhtmltopdf.layout.BoxBuilder;
@@ -67,15 +74,27 @@ public class Java2DRenderer implements Closeable {
     private Document _doc;
     private final FSObjectDrawerFactory _objectDrawerFactory;
 	private final FSPageProcessor _pageProcessor;
+
+    // Paint instructions for every page, built on first use after layout.
+    private DisplayListContainer _displayList;
+
+    private final Graphics2D _layoutGraphics;
+    private final ExecutorService _pagePaintingExecutor;
     
     private static final int DEFAULT_DOTS_PER_PIXEL = 1;
     private static final int DEFAULT_DPI = 72;
+
+    // When painting pages in parallel, the most pages painted ahead of the page being finished.
+    private static final int MAX_PAGES_IN_FLIGHT = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
     
     private final int _initialPageNo;
     private final short _pagingMode;
 
     private final Closeable diagnosticConsumer;
 
+    private final RenderMetricsListener _metricsListener;
+
+    private final boolean _reuseParsersAcrossRenders;
 
     /**
 	 * Subject to change. Not public API. Used exclusively by the Java2DRendererBuilder class. 
@@ -84,6 +103,8 @@ public class Java2DRenderer implements Closeable {
 			Java2DRendererBuilderState state, Closeable diagnosticConsumer) {
 
 	    this.diagnosticConsumer = diagnosticConsumer;
+	    _metricsListener = state._metricsListener;
+	    _reuseParsersAcrossRenders = state._reuseParsersAcrossRenders;
 	    _pagingMode = state._pagingMode;
 		_pageProcessor = state._pageProcessor;
 		_initialPageNo = state._initialPageNumber;		
@@ -92,6 +113,8 @@ public class Java2DRenderer implements Closeable {
         this._domMutators = state._domMutators;
         _objectDrawerFactory = state._objectDrawerFactory;
 		_outputDevice = new Java2DOutputDevice(state._layoutGraphics);
+		_layoutGraphics = state._layoutGraphics;
+		_pagePaintingExecutor = state._pagePaintingExecutor;
 		
 		NaiveUserAgent uac = new Java2DUserAgent();
 		
@@ -206,8 +229,10 @@ public class Java2DRenderer implements Closeable {
 	}
 	
     private void setDocumentFromString(String content, String baseUrl) {
+        long start = RenderMetrics.startPhase(_metricsListener);
         InputSource is = new InputSource(new BufferedReader(new StringReader(content)));
         Document dom = XMLResource.load(is).getDocument();
+        RenderMetrics.endPhase(_metricsListener, Phase.PARSE, start);
         setDocument(dom, baseUrl);
     }
     
@@ -225,10 +250,14 @@ public class Java2DRenderer implements Closeable {
     }
     
     private Document loadDocument(String uri) {
-        return _sharedContext.getUserAgentCallback().getXMLResource(uri, ExternalResourceType.XML_XHTML).getDocument();
+        long start = RenderMetrics.startPhase(_metricsListener);
+        Document dom = _sharedContext.getUserAgentCallback().getXMLResource(uri, ExternalResourceType.XML_XHTML).getDocument();
+        RenderMetrics.endPhase(_metricsListener, Phase.PARSE, start);
+        return dom;
     }
     
     private void setDocument(Document doc, String url, NamespaceHandler nsh) {
+        long start = RenderMetrics.startPhase(_metricsListener);
         _doc = doc;
         
         /*
@@ -252,6 +281,8 @@ public class Java2DRenderer implements Closeable {
         if (_mathMLImpl != null) {
             _mathMLImpl.importFontFaceRules(_sharedContext.getCss().getFontFaceRules(), _sharedContext);
         }
+
+        RenderMetrics.endPhase(_metricsListener, Phase.STYLESHEETS, start);
     }
     
     public Java2DFontResolver getFontResolver() {
@@ -259,14 +290,21 @@ public class Java2DRenderer implements Closeable {
     }
     
     public void layout() {
+        long start = RenderMetrics.startPhase(_metricsListener);
         LayoutContext c = newLayoutContext();
         BlockBox root = BoxBuilder.createRootBox(c, _doc);
         root.setContainingBlock(new ViewportBox(getInitialExtents(c)));
         root.layout(c);
+        RenderMetrics.endPhase(_metricsListener, Phase.LAYOUT, start);
+
+        start = RenderMetrics.startPhase(_metricsListener);
         Dimension dim = root.getLayer().getPaintingDimension(c);
         root.getLayer().trimEmptyPages(c, dim.height);
         root.getLayer().layoutPages(c);
         _root = root;
+        _displayList = null;
+        RenderMetrics.endPhase(_metricsListener, Phase.PAGINATION, start);
+        RenderMetrics.reportLayout(_metricsListener, _sharedContext.getCss(), root);
     }
     
     private Rectangle getInitialExtents(LayoutContext c) {
@@ -310,25 +348,25 @@ public class Java2DRenderer implements Closeable {
         return result;
     }
     
+    /**
+     * Paints all pages to the page processor. Must be called after {@link #layout()}.
+     */
     public void writePages() throws IOException {
-        List<PageBox> pages = _root.getLayer().getPages();
-
-        RenderingContext c = newRenderingContext();
-        c.setInitialPageNo(_initialPageNo);
-        c.setFastRenderer(true);
-
-        PageBox firstPage = pages.get(0);
-        Rectangle2D firstPageSize = new Rectangle2D.Float(0, 0,
-                firstPage.getWidth(c) / DEFAULT_DOTS_PER_PIXEL,
-                firstPage.getHeight(c) / DEFAULT_DOTS_PER_PIXEL);
-
-        writePageImages(pages, c, firstPageSize);
+        writePages(0, getPageCount());
     }
 
-    public void writePage(int zeroBasedPageNumber) throws IOException {
+    /**
+     * Paints pages from startPage (inclusive) to endPage (exclusive) to the page processor.
+     * Must be called after {@link #layout()}. The display list for the document is built once
+     * on first use, so this can be called repeatedly, for example to serve previews of any page
+     * of the laid out document.
+     * @param startPage zero based index of the first page to paint.
+     * @param endPage zero based index one past the last page to paint.
+     */
+    public void writePages(int startPage, int endPage) throws IOException {
         List<PageBox> pages = _root.getLayer().getPages();
 
-        if (zeroBasedPageNumber >= pages.size()) {
+        if (startPage < 0 || endPage > pages.size() || startPage > endPage) {
             throw new IndexOutOfBoundsException();
         }
 
@@ -336,31 +374,15 @@ public class Java2DRenderer implements Closeable {
         c.setInitialPageNo(_initialPageNo);
         c.setFastRenderer(true);
 
-        PageBox page = pages.get(zeroBasedPageNumber);
-
-        Rectangle2D pageSize = new Rectangle2D.Float(0, 0,
-                page.getWidth(c) / DEFAULT_DOTS_PER_PIXEL,
-                page.getHeight(c) / DEFAULT_DOTS_PER_PIXEL);
-
-        _outputDevice.setRoot(_root);
-
-        FSPage pg = _pageProcessor.createPage(zeroBasedPageNumber, (int) pageSize.getWidth(), (int) pageSize.getHeight());
-
-        try {
-            _outputDevice.initializePage(pg.getGraphics());
-            _root.getLayer().assignPagePaintingPositions(c, _pagingMode);
-
-            c.setPageCount(pages.size());
-            c.setPage(zeroBasedPageNumber, page);
-
-            DisplayListCollector boxCollector = new DisplayListCollector(pages);
-            DisplayListContainer displayList = boxCollector.collectRoot(c, _root.getLayer());
+        writePageImages(pages, c, startPage, endPage);
+    }
 
-            paintPage(c, page, displayList.getPageInstructions(zeroBasedPageNumber));
-        } finally {
-            _pageProcessor.finishPage(pg);
-            _outputDevice.finish(c, _root);
-        }
+    /**
+     * Paints a single page to the page processor. Must be called after {@link #layout()}.
+     * @param zeroBasedPageNumber the page to paint.
+     */
+    public void writePage(int zeroBasedPageNumber) throws IOException {
+        writePages(zeroBasedPageNumber, zeroBasedPageNumber + 1);
     }
 
     public void writeSinglePage(){
@@ -389,6 +411,8 @@ public class Java2DRenderer implements Closeable {
             _outputDevice.initializePage(pg.getGraphics());
             _root.getLayer().assignPagePaintingPositions(c, _pagingMode);
             page.setPaintingBottom(rootHeight + top + bottom);
+            // Painting positions no longer match any collected display list.
+            _displayList = null;
 
             c.setPageCount(pages.size());
             c.setPage(0, page);
@@ -418,31 +442,51 @@ public class Java2DRenderer implements Closeable {
         return _root.getLayer().getPages().size();
     }
 
+    /**
+     * Gets the paint instructions for every page, collecting them from the
+     * root layer the first time this is called after layout.
+     */
+    private DisplayListContainer getDisplayList(RenderingContext c, List<PageBox> pages) {
+        if (_displayList == null) {
+            long start = RenderMetrics.startPhase(_metricsListener);
+            _root.getLayer().assignPagePaintingPositions(c, _pagingMode);
+
+            DisplayListCollector boxCollector = new DisplayListCollector(pages);
+            _displayList = boxCollector.collectRoot(c, _root.getLayer());
+            RenderMetrics.endPhase(_metricsListener, Phase.DISPLAY_LIST, start);
+        }
+
+        return _displayList;
+    }
+
     private void writePageImages(
             List<PageBox> pages,
             RenderingContext c,
-            Rectangle2D firstPageSize) throws IOException {
+            int startPage,
+            int endPage) throws IOException {
 
         _outputDevice.setRoot(_root);
 
-        _root.getLayer().assignPagePaintingPositions(c, _pagingMode);
+        c.setPageCount(pages.size());
 
-        int pageCount = _root.getLayer().getPages().size();
+        DisplayListContainer displayList = getDisplayList(c, pages);
+        long start = RenderMetrics.startPhase(_metricsListener);
 
-        c.setPageCount(pageCount);
-
-        DisplayListCollector boxCollector = new DisplayListCollector(pages);
-        DisplayListContainer displayList = boxCollector.collectRoot(c, _root.getLayer());
+        if (_pagePaintingExecutor != null && endPage - startPage > 1) {
+            writePageImagesParallel(pages, c, startPage, endPage, displayList);
+            _outputDevice.finish(c, _root);
+            _pageProcessor.finishPages();
+            RenderMetrics.endPhase(_metricsListener, Phase.PAINT, start);
+            return;
+        }
 
-        for (int i = 0; i < pageCount; i++) {
+        for (int i = startPage; i < endPage; i++) {
             PageBox currentPage = pages.get(i);
             c.setPage(i, currentPage);
 
-            Rectangle2D pageSize = (i == 0 ?
-                firstPageSize :
-                new Rectangle2D.Float(0, 0,
+            Rectangle2D pageSize = new Rectangle2D.Float(0, 0,
                      currentPage.getWidth(c) / DEFAULT_DOTS_PER_PIXEL,
-                     currentPage.getHeight(c) / DEFAULT_DOTS_PER_PIXEL));
+                     currentPage.getHeight(c) / DEFAULT_DOTS_PER_PIXEL);
 
             FSPage pg = initPage(pageSize, i);
 
@@ -457,6 +501,108 @@ public class Java2DRenderer implements Closeable {
         }
 
         _outputDevice.finish(c, _root);
+        _pageProcessor.finishPages();
+        RenderMetrics.endPhase(_metricsListener, Phase.PAINT, start);
+    }
+
+    /**
+     * Paints pages on the page painting executor, each with its own output device and
+     * font context. Pages are created and finished with the page processor in page order on
+     * the calling thread, at most {@link #MAX_PAGES_IN_FLIGHT} pages ahead of the page being finished.
+     */
+    private void writePageImagesParallel(
+            List<PageBox> pages,
+            RenderingContext c,
+            int startPage,
+            int endPage,
+            DisplayListContainer displayList) throws IOException {
+
+        int count = endPage - startPage;
+        FSPage[] pgs = new FSPage[count];
+        Graphics2D[] fontGraphics = new Graphics2D[count];
+        List<Future<?>> painted = new ArrayList<>(Collections.nCopies(count, null));
+
+        int next = 0;
+
+        try {
+            for (int i = 0; i < count; i++) {
+                for (; next < count && next < i + MAX_PAGES_IN_FLIGHT; next++) {
+                    int pageNo = startPage + next;
+                    PageBox page = pages.get(pageNo);
+
+                    FSPage pg = _pageProcessor.createPage(pageNo,
+                            (int) (page.getWidth(c) / DEFAULT_DOTS_PER_PIXEL),
+                            (int) (page.getHeight(c) / DEFAULT_DOTS_PER_PIXEL));
+                    pgs[next] = pg;
+
+                    Java2DOutputDevice pageDevice = _outputDevice.createPageDevice();
+                    pageDevice.initializePage(pg.getGraphics());
+
+                    // Text is measured while painting, so each page needs its own copy of the layout graphics.
+                    Graphics2D measure = (Graphics2D) _layoutGraphics.create();
+                    fontGraphics[next] = measure;
+
+                    RenderingContext pageContext = (RenderingContext) c.clone();
+                    pageContext.setOutputDevice(pageDevice);
+                    pageContext.setFontContext(new Java2DFontContext(measure));
+                    pageContext.setPage(pageNo, page);
+
+                    DisplayListPageContainer pageOperations = displayList.getPageInstructions(pageNo);
+
+                    painted.set(next, _pagePaintingExecutor.submit(ThreadCtx.propagate(() -> {
+                        paintPage(pageContext, pageDevice, page, pageOperations);
+                        return null;
+                    })));
+                }
+
+                awaitPage(painted.get(i));
+                painted.set(i, null);
+
+                fontGraphics[i].dispose();
+                fontGraphics[i] = null;
+
+                FSPage pg = pgs[i];
+                pgs[i] = null;
+                _pageProcessor.finishPage(pg);
+            }
+        } finally {
+            for (int i = 0; i < next; i++) {
+                if (pgs[i] != null) {
+                    Future<?> paint = painted.get(i);
+                    if (paint != null && !paint.cancel(false)) {
+                        // Don't dispose graphics still being painted.
+                        try {
+                            paint.get();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } catch (ExecutionException e) {
+                            // Already failed, the first failure is being thrown.
+                        }
+                    }
+                    fontGraphics[i].dispose();
+                    _pageProcessor.finishPage(pgs[i]);
+                }
+            }
+        }
+    }
+
+    private static void awaitPage(Future<?> painted) throws IOException {
+        try {
+            painted.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while painting pages");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IOException(cause);
+        }
     }
 
     private FSPage initPage(Rectangle2D pageSize, int idx) {
@@ -473,6 +619,10 @@ public class Java2DRenderer implements Closeable {
     }
 
     private void paintPage(RenderingContext c, PageBox page, DisplayListPageContainer pageOperations) {
+        paintPage(c, _outputDevice, page, pageOperations);
+    }
+
+    private void paintPage(RenderingContext c, Java2DOutputDevice outputDevice, PageBox page, DisplayListPageContainer pageOperations) {
         page.paintBackground(c, 0, _pagingMode);
         page.paintMarginAreas(c, 0, _pagingMode);
         page.paintBorder(c, 0, _pagingMode);
@@ -482,20 +632,20 @@ public class Java2DRenderer implements Closeable {
 
         Rectangle content = new Rectangle(0, page.getPaintingTop(), page.getContentWidth(c), page.getContentHeight(c));
 
-        _outputDevice.pushTransformLayer(AffineTransform.getTranslateInstance(left, top));
-        _outputDevice.pushClip(content);
+        outputDevice.pushTransformLayer(AffineTransform.getTranslateInstance(left, top));
+        outputDevice.pushClip(content);
 
         DisplayListPainter painter = new DisplayListPainter();
         painter.paint(c, pageOperations);
 
-        _outputDevice.popClip();
-        _outputDevice.popTransformLayer();
+        outputDevice.popClip();
+        outputDevice.popTransformLayer();
     }
 
     @Override
     public void close() {
         OpenUtil.tryQuietly(_sharedContext::removeFromThread);
-        OpenUtil.tryQuietly(ThreadCtx::cleanup);
+        OpenUtil.tryQuietly(() -> ThreadCtx.cleanup(_reuseParsersAcrossRenders));
 
         OpenUtil.closeQuietly(diagnosticConsumer);
         OpenUtil.closeQuietly(_svgImpl);
@@ -6,7 +6,14 @@ import com.openhtmltopdf.util.OpenUtil;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 public class DefaultPageProcessor implements FSPageProcessor {
 	public static class DefaultPage implements FSPage {
@@ -61,6 +68,9 @@ public class DefaultPageProcessor implements FSPageProcessor {
 	private final FSPageOutputStreamSupplier _osFactory;
 	private final int _imageType;
 	private final String _imageFormat;
+	private final ExecutorService _encoder;
+	private final Semaphore _pendingPermits;
+	private final List<Future<?>> _pending = new ArrayList<>();
 	
 	/**
 	 * Creates a page processor which saves each page as an image.
@@ -70,9 +80,30 @@ public class DefaultPageProcessor implements FSPageProcessor {
 	 * @param imageFormat must be a format such as png or jpeg
 	 */
 	public DefaultPageProcessor(FSPageOutputStreamSupplier osFactory, int imageType, String imageFormat) {
+		this(osFactory, imageType, imageFormat, null, 0);
+	}
+
+	/**
+	 * Creates a page processor which saves each page as an image, encoding pages on
+	 * the provided executor while the renderer paints later pages.
+	 * Each page is still written to its own output stream from osFactory.
+	 * @param osFactory must supply an output stream for each page. The os
+	 * will be closed by the page processor. Must be thread safe if encoder is not null.
+	 * @param imageType must be a constant from the BufferedImage class.
+	 * @param imageFormat must be a format such as png or jpeg
+	 * @param encoder the executor to encode pages on, or null to encode on the calling thread.
+	 * The executor is not shut down by the page processor.
+	 * @param maxPendingPages the most pages waiting to be encoded before finishing
+	 * a page blocks the renderer, bounding memory used by painted pages.
+	 */
+	public DefaultPageProcessor(
+	        FSPageOutputStreamSupplier osFactory, int imageType, String imageFormat,
+	        ExecutorService encoder, int maxPendingPages) {
 		_osFactory = osFactory;
 		_imageType = imageType;
 		_imageFormat = imageFormat;
+		_encoder = encoder;
+		_pendingPermits = encoder != null ? new Semaphore(Math.max(1, maxPendingPages)) : null;
 	}
 	
 	/**
@@ -93,6 +124,57 @@ public class DefaultPageProcessor implements FSPageProcessor {
 	public void finishPage(FSPage pg) {
 		DefaultPage page = (DefaultPage) pg;
 		page.getGraphics().dispose();
-		page.save();
+
+		if (_encoder == null) {
+		    page.save();
+		    return;
+		}
+
+		try {
+		    _pendingPermits.acquire();
+		} catch (InterruptedException e) {
+		    Thread.currentThread().interrupt();
+		    throw new RuntimeException("Interrupted while waiting to encode page image", e);
+		}
+
+		try {
+		    _pending.add(_encoder.submit(() -> {
+		        try {
+		            page.save();
+		        } finally {
+		            _pendingPermits.release();
+		        }
+		    }));
+		} catch (RuntimeException e) {
+		    _pendingPermits.release();
+		    throw e;
+		}
+	}
+
+	/**
+	 * Waits for pages being encoded, rethrowing the first failure.
+	 */
+	@Override
+	public void finishPages() throws IOException {
+	    try {
+	        for (Future<?> page : _pending) {
+	            page.get();
+	        }
+	    } catch (InterruptedException e) {
+	        Thread.currentThread().interrupt();
+	        throw new InterruptedIOException("Interrupted while encoding page images");
+	    } catch (ExecutionException e) {
+	        Throwable cause = e.getCause();
+
+	        if (cause instanceof RuntimeException) {
+	            throw (RuntimeException) cause;
+	        } else if (cause instanceof Error) {
+	            throw (Error) cause;
+	        }
+
+	        throw new IOException(cause);
+	    } finally {
+	        _pending.clear();
+	    }
 	}
 }
@@ -1,6 +1,15 @@
 package com.openhtmltopdf.java2d.api;
 
+import java.io.IOException;
+
 public interface FSPageProcessor {
 	public FSPage createPage(int zeroBasedPageNumber, int width, int height);
 	public void finishPage(FSPage pg);
+
+	/**
+	 * Called after the renderer has finished each page it was asked to write.
+	 * Page processors that save pages asynchronously should wait for them here.
+	 */
+	public default void finishPages() throws IOException {
+	}
 }
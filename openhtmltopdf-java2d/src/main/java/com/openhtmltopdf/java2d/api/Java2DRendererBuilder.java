@@ -4,6 +4,7 @@ import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
 
 import com.openhtmltopdf.extend.OutputDevice;
 import com.openhtmltopdf.java2d.Java2DRenderer;
@@ -56,6 +57,24 @@ public class Java2DRendererBuilder extends BaseRendererBuilder<Java2DRendererBui
 		return this;
 	}
 
+	/**
+	 * Paint pages on the provided executor, each with its own output device, finishing them
+	 * with the page processor in page order on the calling thread. This can speed up output
+	 * of documents with many pages on machines with many cores. Painting replaced elements
+	 * drawn with Graphics2D (such as SVG) and loading background images is still serialized.
+	 * <br><br>
+	 * To also encode page images concurrently see
+	 * {@link DefaultPageProcessor#DefaultPageProcessor(FSPageOutputStreamSupplier, int, String, ExecutorService, int)}.
+	 * The executor is not shut down by the renderer.
+	 *
+	 * @param executor the executor to paint pages on, or null to paint on the calling thread.
+	 * @return this for method chaining
+	 */
+	public Java2DRendererBuilder useParallelPagePainting(ExecutorService executor) {
+	    state._pagePaintingExecutor = executor;
+	    return this;
+	}
+
 	/**
 	 * Output the document in paged format. The user can use the
 	 * DefaultPageProcessor or use its source as a reference to code their own page
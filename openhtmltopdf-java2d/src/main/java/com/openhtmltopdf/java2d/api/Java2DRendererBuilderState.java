@@ -3,6 +3,7 @@ package com.openhtmltopdf.java2d.api;
 import com.openhtmltopdf.outputdevice.helper.BaseRendererBuilder;
 
 import java.awt.*;
+import java.util.concurrent.ExecutorService;
 
 /**
  * This class is an internal implementation detail. This class is only public
@@ -16,4 +17,5 @@ public class Java2DRendererBuilderState extends BaseRendererBuilder.BaseRenderer
 	public Graphics2D _layoutGraphics;
 	public FSPageProcessor _pageProcessor;
     public boolean _useEnvironmentFonts = false;
+    public ExecutorService _pagePaintingExecutor;
 }
@@ -41,4 +41,23 @@ public class AWTFSFont implements FSFont {
     public List<Font> getAWTFonts() {
         return _fonts;
     }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof AWTFSFont)) {
+            return false;
+        }
+
+        AWTFSFont other = (AWTFSFont) obj;
+        return Float.compare(_size, other._size) == 0 &&
+               _fonts.equals(other._fonts);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Float.hashCode(_size) + _fonts.hashCode();
+    }
 }
@@ -0,0 +1,198 @@
+package com.openhtmltopdf.pdfboxout;
+
+/**
+ * Reads the intrinsic size of an image straight from the header bytes of
+ * common formats (PNG, JPEG, GIF, BMP and WebP), avoiding the ImageIO reader
+ * lookup and allocation. Where there is more than one image (GIF, WebP animations)
+ * the size is that of the first image, matching <code>ImageReader.getWidth(0)</code>.
+ */
+class ImageHeaderProbe {
+    private ImageHeaderProbe() {
+    }
+
+    /**
+     * @return {width, height} or null if the format is not recognized or
+     * the header is truncated or invalid, in which case ImageIO should be used.
+     */
+    static int[] probe(byte[] b) {
+        int[] size;
+
+        try {
+            if (startsWith(b, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+                size = probePng(b);
+            } else if (startsWith(b, 0, 0xFF, 0xD8)) {
+                size = probeJpeg(b);
+            } else if (startsWith(b, 0, 'G', 'I', 'F', '8')) {
+                size = probeGif(b);
+            } else if (startsWith(b, 0, 'B', 'M')) {
+                size = probeBmp(b);
+            } else if (startsWith(b, 0, 'R', 'I', 'F', 'F') && startsWith(b, 8, 'W', 'E', 'B', 'P')) {
+                size = probeWebp(b);
+            } else {
+                size = null;
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            // Truncated header.
+            size = null;
+        }
+
+        return size != null && size[0] > 0 && size[1] > 0 ? size : null;
+    }
+
+    private static boolean startsWith(byte[] b, int offset, int... signature) {
+        if (b.length < offset + signature.length) {
+            return false;
+        }
+
+        for (int i = 0; i < signature.length; i++) {
+            if ((b[offset + i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static int u8(byte[] b, int i) {
+        return b[i] & 0xFF;
+    }
+
+    private static int be16(byte[] b, int i) {
+        return (u8(b, i) << 8) | u8(b, i + 1);
+    }
+
+    private static int be32(byte[] b, int i) {
+        return (be16(b, i) << 16) | be16(b, i + 2);
+    }
+
+    private static int le16(byte[] b, int i) {
+        return u8(b, i) | (u8(b, i + 1) << 8);
+    }
+
+    private static int le24(byte[] b, int i) {
+        return le16(b, i) | (u8(b, i + 2) << 16);
+    }
+
+    private static int le32(byte[] b, int i) {
+        return le16(b, i) | (le16(b, i + 2) << 16);
+    }
+
+    private static int[] probePng(byte[] b) {
+        // The IHDR chunk must come first.
+        if (!startsWith(b, 12, 'I', 'H', 'D', 'R')) {
+            return null;
+        }
+
+        return new int[] { be32(b, 16), be32(b, 20) };
+    }
+
+    private static int[] probeJpeg(byte[] b) {
+        int i = 2;
+
+        while (i + 9 < b.length) {
+            if (u8(b, i) != 0xFF) {
+                return null;
+            }
+
+            int marker = u8(b, i + 1);
+
+            if (marker == 0xFF) {
+                // Fill byte.
+                i++;
+                continue;
+            }
+
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                // Markers without a length.
+                i += 2;
+                continue;
+            }
+
+            if (marker == 0xD9 || marker == 0xDA) {
+                // End of image or start of scan before any frame header.
+                return null;
+            }
+
+            if (marker >= 0xC0 && marker <= 0xCF &&
+                marker != 0xC4 && marker != 0xC8 && marker != 0xCC) {
+                // Start of frame: length, precision, height, width.
+                return new int[] { be16(b, i + 7), be16(b, i + 5) };
+            }
+
+            i += 2 + be16(b, i + 2);
+        }
+
+        return null;
+    }
+
+    private static int[] probeGif(byte[] b) {
+        if (!startsWith(b, 4, '7', 'a') && !startsWith(b, 4, '9', 'a')) {
+            return null;
+        }
+
+        int flags = u8(b, 10);
+        int i = 13;
+
+        if ((flags & 0x80) != 0) {
+            // Global color table.
+            i += 3 << ((flags & 0x07) + 1);
+        }
+
+        while (i < b.length) {
+            int block = u8(b, i);
+
+            if (block == 0x2C) {
+                // Image descriptor: separator, left, top, width, height.
+                return new int[] { le16(b, i + 5), le16(b, i + 7) };
+            } else if (block == 0x21) {
+                // Extension: introducer, label, then sub-blocks until a zero length block.
+                i += 2;
+                int length;
+                while ((length = u8(b, i)) != 0) {
+                    i += length + 1;
+                }
+                i++;
+            } else {
+                return null;
+            }
+        }
+
+        return null;
+    }
+
+    private static int[] probeBmp(byte[] b) {
+        int headerSize = le32(b, 14);
+
+        if (headerSize == 12) {
+            // OS/2 BITMAPCOREHEADER.
+            return new int[] { le16(b, 18), le16(b, 20) };
+        } else if (headerSize >= 40) {
+            // Negative height is a top down bitmap.
+            return new int[] { le32(b, 18), Math.abs(le32(b, 22)) };
+        }
+
+        return null;
+    }
+
+    private static int[] probeWebp(byte[] b) {
+        if (startsWith(b, 12, 'V', 'P', '8', ' ')) {
+            // Lossy: frame tag then start code then 14 bit dimensions.
+            if (!startsWith(b, 23, 0x9D, 0x01, 0x2A)) {
+                return null;
+            }
+            return new int[] { le16(b, 26) & 0x3FFF, le16(b, 28) & 0x3FFF };
+        } else if (startsWith(b, 12, 'V', 'P', '8', 'L')) {
+            // Lossless: signature then 14 bit dimensions minus one.
+            if (u8(b, 20) != 0x2F) {
+                return null;
+            }
+            int bits = le32(b, 21);
+            return new int[] { (bits & 0x3FFF) + 1, ((bits >>> 14) & 0x3FFF) + 1 };
+        } else if (startsWith(b, 12, 'V', 'P', '8', 'X')) {
+            // Extended: 24 bit canvas dimensions minus one.
+            return new int[] { le24(b, 24) + 1, le24(b, 27) + 1 };
+        }
+
+        return null;
+    }
+}
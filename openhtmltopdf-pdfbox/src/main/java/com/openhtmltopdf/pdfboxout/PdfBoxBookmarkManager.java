@@ -34,6 +34,7 @@ public class PdfBoxBookmarkManager {
     private final PdfBoxFastOutputDevice _od;
     private final Document _xml;
     private PDDestination _defaultDestination;
+    private boolean _headBookmarksLoaded;
 
     public PdfBoxBookmarkManager(Document xml, PDDocument doc, SharedContext sharedContext, float dotsPerPoint, PdfBoxFastOutputDevice od) {
         this._writer = doc;
@@ -44,6 +45,40 @@ public class PdfBoxBookmarkManager {
     }
 
     public void writeOutline(RenderingContext c, Box root) {
+        resolveTargets(c, root);
+        writeOutline();
+    }
+
+    /**
+     * Finds the target of each bookmark not yet resolved among the boxes of the current
+     * layout. Called once per segment for a document rendered in streaming segments.
+     */
+    public void resolveTargets(RenderingContext c, Box root) {
+        resolveTargets(c, root, _bookmarks);
+    }
+
+    private void resolveTargets(RenderingContext c, Box root, List<Bookmark> bookmarks) {
+        for (Bookmark bookmark : bookmarks) {
+            String href = bookmark.getHRef();
+
+            if (bookmark._target == null && href.length() > 0 && href.charAt(0) == '#') {
+                Box box = _sharedContext.getBoxById(href.substring(1));
+
+                if (box != null) {
+                    bookmark._target = createBoxDestination(c, _writer, _od, _dotsPerPoint, root, box);
+                    bookmark._structureElement = PdfBoxAccessibilityHelper.getStructualElementForBox(box);
+                }
+            }
+
+            resolveTargets(c, root, bookmark.getChildren());
+        }
+    }
+
+    /**
+     * Writes the outline for the bookmarks loaded, with the targets resolved so far.
+     * Bookmarks without a target link to the top of the first page.
+     */
+    public void writeOutline() {
         if (_bookmarks.size() > 0) {
             // Create a default destination to the top of the first page.
             PDPageFitHeightDestination dest = new PDPageFitHeightDestination();
@@ -57,44 +92,33 @@ public class PdfBoxBookmarkManager {
                 _writer.getDocumentCatalog().setDocumentOutline(outline);
             }
 
-            writeBookmarks(c, root, outline, _bookmarks);
+            writeBookmarks(outline, _bookmarks);
         }
     }
 
-    private void writeBookmarks(RenderingContext c, Box root, PDOutlineNode parent, List<Bookmark> bookmarks) {
+    private void writeBookmarks(PDOutlineNode parent, List<Bookmark> bookmarks) {
         for (Bookmark bookmark : bookmarks) {
-            writeBookmark(c, root, parent, bookmark);
+            writeBookmark(parent, bookmark);
         }
     }
 
-    private void writeBookmark(RenderingContext c, Box root, PDOutlineNode parent, Bookmark bookmark) {
-        String href = bookmark.getHRef();
-        PDPageXYZDestination target = null;
-        Box box = null;
-        
-        if (href.length() > 0 && href.charAt(0) == '#') {
-            box = _sharedContext.getBoxById(href.substring(1));
+    private void writeBookmark(PDOutlineNode parent, Bookmark bookmark) {
+        PDPageXYZDestination target = bookmark._target;
 
-            if (box != null) {
-                target = createBoxDestination(c, _writer, _od, _dotsPerPoint, root, box);
-            }
-        }
-        
         if (target == null) {
-            XRLog.log(Level.WARNING, LogMessageId.LogMessageId1Param.GENERAL_PDF_COULD_NOT_FIND_VALID_TARGET_FOR_BOOKMARK, href);
+            XRLog.log(Level.WARNING, LogMessageId.LogMessageId1Param.GENERAL_PDF_COULD_NOT_FIND_VALID_TARGET_FOR_BOOKMARK, bookmark.getHRef());
         }
 
         PDOutlineItem outline = new PDOutlineItem();
         outline.setDestination(target == null ? _defaultDestination : target);
         outline.setTitle(bookmark.getName());
         
-        PDStructureElement se = PdfBoxAccessibilityHelper.getStructualElementForBox(box);
-        if (se != null) {
-            outline.setStructureElement(se);
+        if (bookmark._structureElement != null) {
+            outline.setStructureElement(bookmark._structureElement);
         }
         
         parent.addLast(outline);
-        writeBookmarks(c, root, outline, bookmark.getChildren());
+        writeBookmarks(outline, bookmark.getChildren());
     }
 
     /**
@@ -132,6 +156,18 @@ public class PdfBoxBookmarkManager {
         handleBookmarksInParent(body);
     }
 
+    /**
+     * Loads the bookmarks of a segment of a document rendered in streaming segments.
+     * Each segment has a copy of head, so its bookmarks are only loaded with the first.
+     */
+    public void loadSegmentBookmarks(Document segment) {
+        if (!_headBookmarksLoaded) {
+            handleBookmarksInParent(DOMUtil.getChild(segment.getDocumentElement(), "head"));
+            _headBookmarksLoaded = true;
+        }
+        handleBookmarksInParent(DOMUtil.getChild(segment.getDocumentElement(), "body"));
+    }
+
     private void handleBookmarksInParent(Element element) {
         if (element != null) {
             Element bookmarks = DOMUtil.getChild(element, "bookmarks");
@@ -167,6 +203,10 @@ public class PdfBoxBookmarkManager {
 
         private List<Bookmark> _children;
 
+        // The destination and, for PDF/UA, structure element of the target once found.
+        private PDPageXYZDestination _target;
+        private PDStructureElement _structureElement;
+
         public Bookmark(String name, String href) {
             _name = name;
             _HRef = href;
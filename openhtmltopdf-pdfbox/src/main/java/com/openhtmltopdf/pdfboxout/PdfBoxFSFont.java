@@ -41,4 +41,23 @@ public class PdfBoxFSFont implements FSFont {
     public List<FontDescription> getFontDescription() {
         return _fonts;
     }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof PdfBoxFSFont)) {
+            return false;
+        }
+
+        PdfBoxFSFont other = (PdfBoxFSFont) obj;
+        return Float.compare(_size, other._size) == 0 &&
+               _fonts.equals(other._fonts);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Float.hashCode(_size) + _fonts.hashCode();
+    }
 }
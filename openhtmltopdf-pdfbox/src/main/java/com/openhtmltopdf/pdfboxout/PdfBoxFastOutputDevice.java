@@ -25,6 +25,7 @@ import com.openhtmltopdf.css.constants.IdentValue;
 import com.openhtmltopdf.css.parser.FSCMYKColor;
 import com.openhtmltopdf.css.parser.FSColor;
 import com.openhtmltopdf.css.parser.FSRGBColor;
+import com.openhtmltopdf.css.parser.PropertyValue;
 import com.openhtmltopdf.css.style.CalculatedStyle;
 import com.openhtmltopdf.css.style.CssContext;
 import com.openhtmltopdf.css.style.derived.FSLinearGradient;
@@ -161,6 +162,9 @@ public class PdfBoxFastOutputDevice extends AbstractOutputDevice implements Outp
     // Manages bookmarks for the current document.
     private PdfBoxBookmarkManager _bmManager;
 
+    // Whether the document is rendered in streaming segments, which share one bookmark manager.
+    private boolean _streamingSegments;
+
     // Contains a list of metadata items for the document.
     private final List<Metadata> _metadata = new ArrayList<>();
 
@@ -198,12 +202,83 @@ public class PdfBoxFastOutputDevice extends AbstractOutputDevice implements Outp
     private final boolean _pdfUaConform;
     
     private final boolean _pdfAConform;
+
+    // Guards document level resources (fonts, images, the document itself) while pages
+    // are painted in parallel. Shared between this device and its page devices.
+    private final Object _paintLock;
+
+    // For a page device, the document device it was created from, otherwise null.
+    private final PdfBoxFastOutputDevice _parent;
+
+    // For a page device, actions to be run against the document device, in page order,
+    // once painting is complete. Otherwise null.
+    private final List<Runnable> _deferredActions;
+
+    // Non-interpolated copies of image xobjects, keyed by the original, so that each
+    // copy is only embedded once per document. Shared between this device and its page devices.
+    private final Map<PDImageXObject, PDImageXObject> _nonInterpolatedImages;
+
+    // The number of font runs created for strings that could not be drawn with the first font.
+    // Only updated on the document device, with the paint lock held.
+    private long _fontRunCount;
+
+    // Code points drawn by this device with each font that will be subset, since the last page.
+    // Fonts are subset for the whole document, so these are added to them in page order.
+    private final Map<PDFont, Set<Integer>> _subsetCodePoints = new HashMap<>();
     
     public PdfBoxFastOutputDevice(float dotsPerPoint, boolean testMode, boolean pdfUaConform, boolean pdfAConform) {
         _dotsPerPoint = dotsPerPoint;
         _testMode = testMode;
         _pdfUaConform = pdfUaConform;
         _pdfAConform = pdfAConform;
+        _paintLock = new Object();
+        _parent = null;
+        _deferredActions = null;
+        _nonInterpolatedImages = new IdentityHashMap<>();
+    }
+
+    private PdfBoxFastOutputDevice(PdfBoxFastOutputDevice parent, List<Runnable> deferredActions) {
+        _dotsPerPoint = parent._dotsPerPoint;
+        _testMode = parent._testMode;
+        _pdfUaConform = parent._pdfUaConform;
+        _pdfAConform = parent._pdfAConform;
+        _paintLock = parent._paintLock;
+        _parent = parent;
+        _deferredActions = deferredActions;
+        _nonInterpolatedImages = parent._nonInterpolatedImages;
+
+        _writer = parent._writer;
+        _sharedContext = parent._sharedContext;
+        _root = parent._root;
+        _startPageNo = parent._startPageNo;
+        _reorderer = parent._reorderer;
+        _bmManager = parent._bmManager;
+        _linkManager = parent._linkManager;
+    }
+
+    /**
+     * Creates a device to paint a single page, possibly on another thread, after {@link #start(Document)}.
+     * Drawing that touches document level resources is serialized with other page devices.
+     * Text is only serialized while it is encoded with its fonts, the code points used are added
+     * to font subsets with the deferred actions.
+     * Links and form controls found while painting are added to deferredActions to be run,
+     * in page order, on the calling thread before {@link #finish(RenderingContext, Box)}.
+     * <br><br>
+     * Not supported for PDF/UA documents, as the structure tree must be built in document order.
+     */
+    PdfBoxFastOutputDevice createPageDevice(List<Runnable> deferredActions) {
+        assert _pdfUa == null && _parent == null;
+        return new PdfBoxFastOutputDevice(this, deferredActions);
+    }
+
+    /**
+     * @return the number of non-empty runs of text drawn with a single font, by this device
+     * and its page devices.
+     */
+    long getFontRunCount() {
+        synchronized (_paintLock) {
+            return (_parent != null ? _parent : this)._fontRunCount;
+        }
     }
 
     @Override
@@ -265,6 +340,8 @@ public class PdfBoxFastOutputDevice extends AbstractOutputDevice implements Outp
         if (_pdfUa != null) {
             _pdfUa.endPage();
         }
+
+        finishSubsets();
     }
 
     @Override
@@ -280,8 +357,25 @@ public class PdfBoxFastOutputDevice extends AbstractOutputDevice implements Outp
     public void paintBackground(RenderingContext c, Box box) {
         super.paintBackground(c, box);
 
+        if (_deferredActions != null) {
+            if ((box instanceof BlockBox && ((BlockBox) box).getReplacedElement() != null) ||
+                (box.getElement() != null &&
+                 ArrayUtil.isOneOf(box.getElement().getNodeName(), "a", "form", "input", "textarea", "button", "select", "openhtmltopdf-combo"))) {
+                RenderingContext copy = (RenderingContext) c.clone();
+                PDPage page = _page;
+                float pageHeight = _pageHeight;
+                AffineTransform transform = new AffineTransform(_transform);
+
+                _deferredActions.add(() -> _parent.processLinksAndControls(copy, box, page, pageHeight, transform));
+            }
+        } else {
+            processLinksAndControls(c, box, _page, _pageHeight, _transform);
+        }
+    }
+
+    private void processLinksAndControls(RenderingContext c, Box box, PDPage page, float pageHeight, AffineTransform transform) {
         // processLinkLater will take care of making sure it is actually a link.
-        _linkManager.processLinkLater(c, box, _page, _pageHeight, _transform);
+        _linkManager.processLinkLater(c, box, page, pageHeight, transform);
        
         if (box.getElement() != null && box.getElement().getNodeName().equals("form")) {
             _formState.addFormIfRequired(box, this);
@@ -289,7 +383,7 @@ public class PdfBoxFastOutputDevice extends AbstractOutputDevice implements Outp
                    ArrayUtil.isOneOf(box.getElement().getNodeName(), "input", "textarea", "button", "select", "openhtmltopdf-combo")) {
             // Add controls to list to process later. We do this in case we paint a control background
             // before its associated form.
-            _formState.addControlIfRequired(box, _page, _transform, c, _pageHeight);
+            _formState.addControlIfRequired(box, page, transform, c, pageHeight);
         }
     }
 
@@ -401,29 +495,64 @@ public class PdfBoxFastOutputDevice extends AbstractOutputDevice implements Outp
         return result;
     }
 
+    /**
+     * A run of text in a single font, encoded with the paint lock held,
+     * so that it can be written to the content stream without it.
+     */
+    private static class EncodedRun {
+        private final FontDescription des;
+        private final String str;
+        private final float x;
+        // The encoded text, or for justified text the encoded code points and spacing.
+        private final Object codes;
+
+        private EncodedRun(FontDescription des, String str, float x, Object codes) {
+            this.des = des;
+            this.str = str;
+            this.x = x;
+            this.codes = codes;
+        }
+    }
+
     @Override
     public void drawString(String s, float x, float y, JustificationInfo info) {
-        PDFont firstFont = _font.getFontDescription().get(0).getFont();
+        List<EncodedRun> runs;
+
+        // Fonts, their width caches and glyph coverage are shared with other page devices.
+        synchronized (_paintLock) {
+            runs = encodeRunsLocked(s, x, info);
+        }
+
+        for (EncodedRun run : runs) {
+            drawEncodedString(run.str, run.codes, run.x, y, run.des, _font.getSize2D());
+        }
+    }
+
+    private List<EncodedRun> encodeRunsLocked(String s, float x, JustificationInfo info) {
+        FontDescription firstDescription = _font.getFontDescription().get(0);
+        PDFont firstFont = firstDescription.getFont();
 
         String effectiveString = TextRenderer.getEffectivePrintableString(s);
 
         // First check if the string contains printable characters only and
         // will print with the current font entirely.
-        try {
-            firstFont.getStringWidth(effectiveString);
-            // We got here, so all is good.
-            drawStringFast(effectiveString, x, y, info, _font.getFontDescription().get(0), _font.getSize2D());
-            return;
-        }
-        catch (Exception e) {
-            // Fallthrough, we'll have to process the string into font runs.
+        if (!firstDescription.hasKnownMissingGlyph(effectiveString)) {
+            try {
+                Object codes = encode(effectiveString, info, firstFont);
+                // We got here, so all is good.
+                return encodedRun(firstDescription, effectiveString, x, codes);
+            }
+            catch (Exception e) {
+                // Fallthrough, we'll have to process the string into font runs.
+            }
         }
         
         List<FontRun> fontRuns = PdfBoxTextRenderer.divideIntoFontRuns(_font, effectiveString, _reorderer);
+        List<EncodedRun> runs = new ArrayList<>(fontRuns.size());
         
         float xOffset = 0f;
         for (FontRun run : fontRuns) {
-            drawStringFast(run.str, x + xOffset, y, info, run.des, _font.getSize2D());
+            runs.addAll(encodedRun(run.des, run.str, x + xOffset, encodeOrThrow(run.str, info, run.des.getFont())));
             try {
                 if (info == null) {
                     xOffset += ((run.des.getFont().getStringWidth(run.str) / 1000f) * _font.getSize2D());
@@ -436,6 +565,17 @@ public class PdfBoxFastOutputDevice extends AbstractOutputDevice implements Outp
                 XRLog.log(Level.WARNING, LogMessageId.LogMessageId0Param.RENDER_BUG_FONT_DIDNT_CONTAIN_EXPECTED_CHARACTER, e);
             }
         }
+
+        return runs;
+    }
+
+    private List<EncodedRun> encodedRun(FontDescription des, String str, float x, Object codes) {
+        if (str.length() == 0) {
+            return Collections.emptyList();
+        }
+
+        (_parent != null ? _parent : this)._fontRunCount++;
+        return Collections.singletonList(new EncodedRun(des, str, x, codes));
     }
 
     @Override
@@ -443,6 +583,50 @@ public class PdfBoxFastOutputDevice extends AbstractOutputDevice implements Outp
         if (s.length() == 0)
             return;
 
+        Object codes;
+
+        synchronized (_paintLock) {
+            (_parent != null ? _parent : this)._fontRunCount++;
+            codes = encodeOrThrow(s, info, desc.getFont());
+        }
+
+        drawEncodedString(s, codes, x, y, desc, fontSize);
+    }
+
+    /**
+     * Encodes text with a font, as a byte array of codes or, when info is not null,
+     * an array of the codes of each code point interspersed with spacing.
+     * Must be called with the paint lock held.
+     */
+    private Object encode(String s, JustificationInfo info, PDFont font) throws IOException {
+        if (info == null) {
+            return font.encode(s);
+        }
+
+        // Note: Justification info is also used
+        // to implement letter-spacing CSS property.
+        // Justification must be done through TJ rendering
+        // because Tw param does not work for UNICODE fonts
+        Object[] array = makeJustificationArray(s, info);
+
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] instanceof String) {
+                array[i] = font.encode((String) array[i]);
+            }
+        }
+
+        return array;
+    }
+
+    private Object encodeOrThrow(String s, JustificationInfo info, PDFont font) {
+        try {
+            return encode(s, info, font);
+        } catch (IOException e) {
+            throw new PdfContentStreamAdapter.PdfException("drawString", e);
+        }
+    }
+
+    private void drawEncodedString(String s, Object codes, float x, float y, FontDescription desc, float fontSize) {
         ensureFillColor();
         AffineTransform at = new AffineTransform(getTransform());
         at.translate(x, y);
@@ -477,29 +661,62 @@ public class PdfBoxFastOutputDevice extends AbstractOutputDevice implements Outp
         }
 
         _cp.beginText();
-        
-        _cp.setFont(desc.getFont(), fontSize);
+
+        // Setting the font also adds it to the document's fonts to subset.
+        synchronized (_paintLock) {
+            _cp.setFont(desc.getFont(), fontSize);
+        }
+
         _cp.setTextMatrix((float) mx[0], b, c, (float) mx[3], (float) mx[4], (float) mx[5]);
 
-        if (info != null ) {
-            // Note: Justification info is also used
-            // to implement letter-spacing CSS property.
-            // Justification must be done through TJ rendering
-            // because Tw param does not work for UNICODE fonts
-            Object[] array = makeJustificationArray(s, info);
-            _cp.drawStringWithPositioning(array);
+        if (codes instanceof byte[]) {
+            _cp.drawEncodedString((byte[]) codes);
         } else {
-            _cp.drawString(s);
+            _cp.drawEncodedStringWithPositioning((Object[]) codes);
         }
         
         _cp.endText();
 
+        addToSubset(desc.getFont(), s);
+
         if (resetMode) {
             _cp.setRenderingMode(RenderingMode.FILL);
             _cp.setLineWidth(1);
         }
     }
 
+    /**
+     * Records the code points of text drawn with a font that will be subset.
+     * They are added to the font in {@link #finishPage()}, in page order.
+     */
+    private void addToSubset(PDFont font, String s) {
+        if (font.willBeSubset()) {
+            Set<Integer> codePoints = _subsetCodePoints.computeIfAbsent(font, f -> new HashSet<>());
+            s.codePoints().forEach(codePoints::add);
+        }
+    }
+
+    private void finishSubsets() {
+        if (_subsetCodePoints.isEmpty()) {
+            return;
+        }
+
+        Map<PDFont, Set<Integer>> subsets = new HashMap<>(_subsetCodePoints);
+        _subsetCodePoints.clear();
+
+        Runnable action = () -> {
+            synchronized (_paintLock) {
+                subsets.forEach((font, codePoints) -> codePoints.forEach(font::addToSubset));
+            }
+        };
+
+        if (_deferredActions != null) {
+            _deferredActions.add(action);
+        } else {
+            action.run();
+        }
+    }
+
     private Object[] makeJustificationArray(String s, JustificationInfo info) {
         List<Object> data = new ArrayList<>(s.length() * 2);
 
@@ -785,7 +1002,9 @@ public class PdfBoxFastOutputDevice extends AbstractOutputDevice implements Outp
     public void realizeImage(PdfBoxImage img) {
         PDImageXObject xobject;
         try {
-            xobject = PDImageXObject.createFromByteArray(_writer, img.getBytes(), img.getUri());
+            synchronized (_paintLock) {
+                xobject = PDImageXObject.createFromByteArray(_writer, img.getBytes(), img.getUri());
+            }
         } catch (IOException e) {
             throw new PdfContentStreamAdapter.PdfException("realizeImage", e);
         }
@@ -793,6 +1012,14 @@ public class PdfBoxFastOutputDevice extends AbstractOutputDevice implements Outp
         img.setXObject(xobject);
     }
 
+    @Override
+    protected FSImage getBackgroundImage(PropertyValue bgImage, RenderingContext c) {
+        // The user agent image cache is not thread safe.
+        synchronized (_paintLock) {
+            return super.getBackgroundImage(bgImage, c);
+        }
+    }
+
     @Override
     public void drawLinearGradient(FSLinearGradient backgroundLinearGradient, Shape bounds) {
         PDShading shading = GradientHelper.createLinearGradient(this, getTransform(), backgroundLinearGradient, bounds);
@@ -803,32 +1030,11 @@ public class PdfBoxFastOutputDevice extends AbstractOutputDevice implements Outp
     public void drawImage(FSImage fsImage, int x, int y, boolean interpolate) {
         PdfBoxImage img = (PdfBoxImage) fsImage;
 
-        PDImageXObject xobject = img.getXObject();
-		if (interpolate) {
-		    // PDF/A does not support setting the interpolate flag to true.
-		    if (!_pdfAConform) {
-			xobject.setInterpolate(true);
-		    }
-		} else {
-			/*
-			 * Specialcase for not interpolating an image, default is to always interpolate.
-			 * We must copy the image
-			 */
-			try {
-				InputStream inputStream = xobject.getStream().getCOSObject().createRawInputStream();
-				PDImageXObject cloneImage = new PDImageXObject(_writer, inputStream, COSName.FLATE_DECODE,
-						xobject.getWidth(), xobject.getHeight(), xobject.getBitsPerComponent(),
-						xobject.getColorSpace());
-				cloneImage.setInterpolate(false);
-				if (xobject.getSoftMask() != null)
-					cloneImage.getCOSObject().setItem(COSName.SMASK, xobject.getSoftMask());
-				inputStream.close();
-				xobject = cloneImage;
-			} catch (IOException e) {
-				throw new RuntimeException(e);
-			}
-		}
-        
+        PDImageXObject xobject;
+
+        synchronized (_paintLock) {
+            xobject = getImageXObject(img, interpolate);
+        }
 
         AffineTransform transformer = (AffineTransform) getTransform().clone();
         transformer.translate(x, y);
@@ -842,6 +1048,38 @@ public class PdfBoxFastOutputDevice extends AbstractOutputDevice implements Outp
         _cp.drawImage(xobject, (float) mx[4], (float) mx[5], (float) mx[0],
                 (float) mx[3]);
     }
+
+    private PDImageXObject getImageXObject(PdfBoxImage img, boolean interpolate) {
+        PDImageXObject xobject = img.getXObject();
+		if (interpolate) {
+		    // PDF/A does not support setting the interpolate flag to true.
+		    if (!_pdfAConform) {
+			xobject.setInterpolate(true);
+		    }
+		} else {
+			xobject = _nonInterpolatedImages.computeIfAbsent(xobject, this::createNonInterpolatedImage);
+		}
+
+		return xobject;
+    }
+
+    /**
+     * Specialcase for not interpolating an image, default is to always interpolate.
+     * We must copy the image.
+     */
+    private PDImageXObject createNonInterpolatedImage(PDImageXObject xobject) {
+        try (InputStream inputStream = xobject.getStream().getCOSObject().createRawInputStream()) {
+            PDImageXObject cloneImage = new PDImageXObject(_writer, inputStream, COSName.FLATE_DECODE,
+                    xobject.getWidth(), xobject.getHeight(), xobject.getBitsPerComponent(),
+                    xobject.getColorSpace());
+            cloneImage.setInterpolate(false);
+            if (xobject.getSoftMask() != null)
+                cloneImage.getCOSObject().setItem(COSName.SMASK, xobject.getSoftMask());
+            return cloneImage;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
     
     @Override
     public void drawPdfAsImage(PDFormXObject _srcObject, Rectangle contentBounds, float intrinsicWidth, float intrinsicHeight) {
@@ -877,7 +1115,14 @@ public class PdfBoxFastOutputDevice extends AbstractOutputDevice implements Outp
 
     @Override
     public void start(Document doc) {
-        _bmManager = new PdfBoxBookmarkManager(doc, _writer, _sharedContext, _dotsPerPoint, this);
+        if (!_streamingSegments) {
+            _bmManager = new PdfBoxBookmarkManager(doc, _writer, _sharedContext, _dotsPerPoint, this);
+        } else {
+            if (_bmManager == null) {
+                _bmManager = new PdfBoxBookmarkManager(doc, _writer, _sharedContext, _dotsPerPoint, this);
+            }
+            _bmManager.loadSegmentBookmarks(doc);
+        }
         _linkManager = new PdfBoxFastLinkManager(_sharedContext, _dotsPerPoint, _root, this);
         loadMetadata(doc);
         
@@ -894,8 +1139,13 @@ public class PdfBoxFastOutputDevice extends AbstractOutputDevice implements Outp
 
         // Bookmarks must come after PDF/UA structual tree creation
         // because bookmarks link to structual elements in the tree.
-        _bmManager.loadBookmarks();
-        _bmManager.writeOutline(c, root);
+        if (_streamingSegments) {
+            // The outline is written once all segments are finished.
+            _bmManager.resolveTargets(c, root);
+        } else {
+            _bmManager.loadBookmarks();
+            _bmManager.writeOutline(c, root);
+        }
 
         // Also need access to the structure tree.
         processControls();
@@ -905,6 +1155,18 @@ public class PdfBoxFastOutputDevice extends AbstractOutputDevice implements Outp
             _pdfUa.finishNumberTree();
         }
     }
+
+    @Override
+    public void setStreamingSegments(boolean streamingSegments) {
+        _streamingSegments = streamingSegments;
+    }
+
+    @Override
+    public void finishSegments() {
+        if (_bmManager != null) {
+            _bmManager.writeOutline();
+        }
+    }
     
     @Override
     public int getPageRefY(Box box) {
@@ -1065,48 +1327,19 @@ public class PdfBoxFastOutputDevice extends AbstractOutputDevice implements Outp
 
     @Override
     public void drawWithGraphics(float x, float y, float width, float height, OutputDeviceGraphicsDrawer renderer) {
+        // Graphics2D output creates document level resources (forms, fonts, images) as it draws.
+        synchronized (_paintLock) {
+            drawWithGraphicsLocked(x, y, width, height, renderer);
+        }
+    }
+
+    private void drawWithGraphicsLocked(float x, float y, float width, float height, OutputDeviceGraphicsDrawer renderer) {
         try {
             PdfBoxGraphics2D pdfBoxGraphics2D = new PdfBoxGraphics2D(_writer, (int) width, (int) height);
 			/*
 			 * Create and set the fontTextDrawer to perform the font mapping.
 			 */
-            if (_fontTextDrawer == null) {
-                _fontTextDrawer = new PdfBoxGraphics2DFontTextDrawer() {
-                    @Override
-                    protected PDFont mapFont(Font font, IFontTextDrawerEnv env) {
-                        FontSpecification spec = new FontSpecification();
-                        spec.size = font.getSize();
-                        spec.families = new String[] { font.getFamily() };
-                        spec.fontStyle = IdentValue.NORMAL;
-                        spec.fontWeight = IdentValue.NORMAL;
-                        spec.variant = IdentValue.NORMAL;
-                        if ((font.getStyle() & Font.BOLD) == Font.BOLD) {
-                            spec.fontWeight = IdentValue.FONT_WEIGHT_700;
-                        }
-                        if ((font.getStyle() & Font.ITALIC) == Font.ITALIC) {
-                            spec.fontStyle = IdentValue.ITALIC;
-                        }
-                        PdfBoxFSFont fsFont = (PdfBoxFSFont) getSharedContext().getFontResolver()
-                                .resolveFont(getSharedContext(), spec);
-                        FontDescription fontDescription = fsFont.getFontDescription().get(0);
-						/*
-						 * Detect the default fallback value
-						 */
-                        if (fsFont.getFontDescription().size() == 1) {
-                            if (fontDescription.getFont().getName().equals("Times-Roman")
-                                    && !(font.getFamily().equals("Times New Roman"))) {
-								/*
-								 * We did not find the font, this is the generic default fallback font.
-								 * So use the vectorized text shapes.
-								 */
-                                return null;
-                            }
-                        }
-                        return fontDescription.getFont();
-                    }
-                };
-            }
-            pdfBoxGraphics2D.setFontTextDrawer(_fontTextDrawer);
+            pdfBoxGraphics2D.setFontTextDrawer(getFontTextDrawer());
 
             /*
              * Do rendering
@@ -1151,6 +1384,52 @@ public class PdfBoxFastOutputDevice extends AbstractOutputDevice implements Outp
         }
     }
 
+    private PdfBoxGraphics2DFontTextDrawer getFontTextDrawer() {
+        if (_parent != null) {
+            // Share the document device font mapping.
+            return _parent.getFontTextDrawer();
+        }
+
+        if (_fontTextDrawer == null) {
+            _fontTextDrawer = new PdfBoxGraphics2DFontTextDrawer() {
+                @Override
+                protected PDFont mapFont(Font font, IFontTextDrawerEnv env) {
+                    FontSpecification spec = new FontSpecification();
+                    spec.size = font.getSize();
+                    spec.families = new String[] { font.getFamily() };
+                    spec.fontStyle = IdentValue.NORMAL;
+                    spec.fontWeight = IdentValue.NORMAL;
+                    spec.variant = IdentValue.NORMAL;
+                    if ((font.getStyle() & Font.BOLD) == Font.BOLD) {
+                        spec.fontWeight = IdentValue.FONT_WEIGHT_700;
+                    }
+                    if ((font.getStyle() & Font.ITALIC) == Font.ITALIC) {
+                        spec.fontStyle = IdentValue.ITALIC;
+                    }
+                    PdfBoxFSFont fsFont = (PdfBoxFSFont) getSharedContext().getFontResolver()
+                            .resolveFont(getSharedContext(), spec);
+                    FontDescription fontDescription = fsFont.getFontDescription().get(0);
+						/*
+						 * Detect the default fallback value
+						 */
+                    if (fsFont.getFontDescription().size() == 1) {
+                        if (fontDescription.getFont().getName().equals("Times-Roman")
+                                && !(font.getFamily().equals("Times New Roman"))) {
+								/*
+								 * We did not find the font, this is the generic default fallback font.
+								 * So use the vectorized text shapes.
+								 */
+                            return null;
+                        }
+                    }
+                    return fontDescription.getFont();
+                }
+            };
+        }
+
+        return _fontTextDrawer;
+    }
+
     @Override
     public List<PagePosition<Box>> findPagePositionsByID(CssContext c, Pattern pattern) {
         Map<String, Box> idMap = _sharedContext.getIdMap();
@@ -40,7 +40,9 @@ import com.openhtmltopdf.render.FSFont;
 import com.openhtmltopdf.util.LogMessageId;
 import com.openhtmltopdf.util.XRLog;
 
+import org.apache.fontbox.ttf.TTFParser;
 import org.apache.fontbox.ttf.TrueTypeCollection;
+import org.apache.fontbox.ttf.TrueTypeFont;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.font.PDFont;
 import org.apache.pdfbox.pdmodel.font.PDFontDescriptor;
@@ -48,6 +50,7 @@ import org.apache.pdfbox.pdmodel.font.PDType0Font;
 
 import java.io.Closeable;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
@@ -69,6 +72,7 @@ public class PdfBoxFontResolver implements FontResolver, Closeable {
     private final FallbackFontStore _preBuiltinFallbackFonts;
     private final AbstractFontStore _builtinFonts;
     private final FallbackFontStore _finalFallbackFonts;
+    private FSCacheEx<String, FSCacheValue> _trueTypeFontCache;
 
     public PdfBoxFontResolver(SharedContext sharedContext, PDDocument doc, FSCacheEx<String, FSCacheValue> pdfMetricsCache, PdfAConformance pdfAConformance, boolean pdfUaConform) {
         this._doc = doc;
@@ -86,6 +90,15 @@ public class PdfBoxFontResolver implements FontResolver, Closeable {
         this._finalFallbackFonts = new FallbackFontStore(sharedContext, doc, pdfMetricsCache);
     }
 
+    /**
+     * Sets a cache used to share parsed TrueType fonts, added by file, across documents.
+     * Each document still gets its own (subsetting) font object.
+     * See {@link PdfRendererBuilder.CacheStore#PDF_TRUETYPE_FONTS}.
+     */
+    public void setTrueTypeFontCache(FSCacheEx<String, FSCacheValue> trueTypeFontCache) {
+        this._trueTypeFontCache = trueTypeFontCache;
+    }
+
     @Override
     public FSFont resolveFont(SharedContext renderingContext, FontSpecification spec) {
         return resolveFont(renderingContext, spec.families, spec.size, spec.fontWeight, spec.fontStyle, spec.variant);
@@ -249,9 +262,9 @@ public class PdfBoxFontResolver implements FontResolver, Closeable {
             // Specialcase for TrueTypeCollections
             addFontCollection(fontFile, fontFamilyNameOverride, fontWeightOverride, fontStyleOverride, subset, fontGroup);
         } else if (fontGroup == FontGroup.MAIN) {
-            this._suppliedFonts.addFontLazy(new FilePDFontSupplier(fontFile, _doc), fontFamilyNameOverride, fontWeightOverride, fontStyleOverride, subset);
+            this._suppliedFonts.addFontLazy(new FilePDFontSupplier(fontFile, _doc, _trueTypeFontCache), fontFamilyNameOverride, fontWeightOverride, fontStyleOverride, subset);
         } else {
-            getFallbackFontStore(fontGroup).addFontLazy(new FilePDFontSupplier(fontFile, _doc), fontFamilyNameOverride, fontWeightOverride, fontStyleOverride, subset);
+            getFallbackFontStore(fontGroup).addFontLazy(new FilePDFontSupplier(fontFile, _doc, _trueTypeFontCache), fontFamilyNameOverride, fontWeightOverride, fontStyleOverride, subset);
         }
     }
 
@@ -283,7 +296,7 @@ public class PdfBoxFontResolver implements FontResolver, Closeable {
 		/*
 		 * We load the font using the file.
 		 */
-        this._suppliedFonts.addFontLazy(new FilePDFontSupplier(fontFile, _doc), fontFamilyNameOverride, fontWeightOverride, fontStyleOverride, subset);
+        this._suppliedFonts.addFontLazy(new FilePDFontSupplier(fontFile, _doc, _trueTypeFontCache), fontFamilyNameOverride, fontWeightOverride, fontStyleOverride, subset);
 	}
 
 	/**
@@ -292,21 +305,68 @@ public class PdfBoxFontResolver implements FontResolver, Closeable {
 	private static class FilePDFontSupplier implements FSSupplier<PDFont> {
 		private final File _fontFile;
 		private final PDDocument _doc;
+		private final FSCacheEx<String, FSCacheValue> _trueTypeFontCache;
 
-		FilePDFontSupplier(File fontFile, PDDocument doc) {
+		FilePDFontSupplier(File fontFile, PDDocument doc, FSCacheEx<String, FSCacheValue> trueTypeFontCache) {
 			this._fontFile = fontFile;
 			this._doc = doc;
+			this._trueTypeFontCache = trueTypeFontCache;
 		}
 
 		@Override
 		public PDFont supply() {
 			try {
+				TrueTypeFont pooled = getPooledFont();
+
+				if (pooled != null) {
+				    // The pooled font is shared so must not be closed with this document.
+				    return PDType0Font.load(_doc, pooled, true);
+				}
+
 				return PDType0Font.load(_doc, _fontFile);
 			} catch (IOException e) {
 			    XRLog.log(Level.WARNING, LogMessageId.LogMessageId1Param.EXCEPTION_COULD_NOT_LOAD_FONT, _fontFile.getAbsoluteFile(), e);
 			    return null;
 			}
 		}
+
+		private TrueTypeFont getPooledFont() {
+		    if (_trueTypeFontCache == null) {
+		        return null;
+		    }
+
+		    File file = _fontFile.getAbsoluteFile();
+		    long length = file.length();
+		    String key = "ttf:" + file.getPath() + ':' + length + ':' + file.lastModified();
+
+		    TrueTypeFontCacheValue value = (TrueTypeFontCacheValue) _trueTypeFontCache.get(key, () -> {
+		        try (InputStream is = new FileInputStream(file)) {
+		            // Parsed from memory, with all tables except glyph outlines read up front,
+		            // so that the font can be safely shared between threads.
+		            return new TrueTypeFontCacheValue(new TTFParser().parse(is), length);
+		        }
+		    });
+
+		    return value != null ? value._font : null;
+		}
+	}
+
+	/**
+	 * A parsed TrueType font, weighted by the size of its file.
+	 */
+	private static class TrueTypeFontCacheValue implements FSCacheValue {
+	    private final TrueTypeFont _font;
+	    private final long _weight;
+
+	    TrueTypeFontCacheValue(TrueTypeFont font, long weight) {
+	        this._font = font;
+	        this._weight = weight;
+	    }
+
+	    @Override
+	    public int weight() {
+	        return (int) Math.min(_weight, Integer.MAX_VALUE);
+	    }
 	}
 
     /**
@@ -517,6 +577,8 @@ public class PdfBoxFontResolver implements FontResolver, Closeable {
         private PdfBoxRawPDFontMetrics _metrics;
         private final FSCacheEx<String, FSCacheValue> _metricsCache;
 
+        private PdfBoxGlyphCoverage _coverage;
+
         @Override
         public String toString() {
             return String.format(
@@ -683,6 +745,46 @@ public class PdfBoxFontResolver implements FontResolver, Closeable {
             return _font;
         }
 
+        /**
+         * Whether the font can encode the given code point. Realizes the font if required.
+         * The answer is remembered so the font is only asked once per code point.
+         */
+        public boolean hasGlyph(int codePoint) {
+            PDFont font = getFont();
+
+            if (font == null) {
+                return false;
+            }
+
+            if (_coverage == null) {
+                _coverage = new PdfBoxGlyphCoverage();
+            }
+
+            return _coverage.hasGlyph(codePoint, font);
+        }
+
+        /**
+         * Whether any code point in str has already been found to be missing from this font.
+         * Does not realize the font or probe unknown code points.
+         */
+        public boolean hasKnownMissingGlyph(String str) {
+            if (_coverage == null) {
+                return false;
+            }
+
+            for (int i = 0; i < str.length(); ) {
+                int codePoint = str.codePointAt(i);
+
+                if (_coverage.isKnownMissing(codePoint)) {
+                    return true;
+                }
+
+                i += Character.charCount(codePoint);
+            }
+
+            return false;
+        }
+
         @Override
         public int getWeight() {
             return _weight;
@@ -0,0 +1,100 @@
+package com.openhtmltopdf.pdfboxout;
+
+import org.apache.pdfbox.pdmodel.font.PDFont;
+
+/**
+ * A lazily populated record of which code points a font can encode.
+ * Each code point is probed against the font at most once, after which
+ * lookups are allocation free.
+ * <br><br>
+ * Storage is a sparse two level bitmap, one plane per Unicode plane and
+ * one page per 256 code points, each page holding a known and present bit per
+ * code point. Pages are only allocated when a code point in them is probed.
+ * <br><br>
+ * NOTE: Not thread safe, in keeping with the font description that owns it.
+ */
+class PdfBoxGlyphCoverage {
+    private static final int PLANE_COUNT = 17;
+    private static final int PAGES_PER_PLANE = 256;
+    private static final int WORDS_PER_PAGE = 256 / 64;
+
+    /**
+     * planes[plane][page] is null until a code point in that page is probed.
+     * Words [0, WORDS_PER_PAGE) are the known bits, the rest the present bits.
+     */
+    private final long[][][] planes = new long[PLANE_COUNT][][];
+
+    private long[] getPage(int codePoint, boolean create) {
+        int plane = codePoint >>> 16;
+        int page = (codePoint >>> 8) & 0xFF;
+
+        long[][] pages = planes[plane];
+
+        if (pages == null) {
+            if (!create) {
+                return null;
+            }
+
+            pages = new long[PAGES_PER_PLANE][];
+            planes[plane] = pages;
+        }
+
+        long[] words = pages[page];
+
+        if (words == null && create) {
+            words = new long[WORDS_PER_PAGE * 2];
+            pages[page] = words;
+        }
+
+        return words;
+    }
+
+    /**
+     * @return whether the font can encode the code point, probing the font if this is not yet known.
+     */
+    boolean hasGlyph(int codePoint, PDFont font) {
+        long[] words = getPage(codePoint, true);
+        int word = (codePoint & 0xFF) >>> 6;
+        long bit = 1L << (codePoint & 0x3F);
+
+        if ((words[word] & bit) != 0) {
+            return (words[WORDS_PER_PAGE + word] & bit) != 0;
+        }
+
+        boolean present = probe(codePoint, font);
+
+        words[word] |= bit;
+        if (present) {
+            words[WORDS_PER_PAGE + word] |= bit;
+        }
+
+        return present;
+    }
+
+    /**
+     * @return true only if the code point has previously been probed and found missing.
+     */
+    boolean isKnownMissing(int codePoint) {
+        long[] words = getPage(codePoint, false);
+
+        if (words == null) {
+            return false;
+        }
+
+        int word = (codePoint & 0xFF) >>> 6;
+        long bit = 1L << (codePoint & 0x3F);
+
+        return (words[word] & bit) != 0 &&
+               (words[WORDS_PER_PAGE + word] & bit) == 0;
+    }
+
+    private static boolean probe(int codePoint, PDFont font) {
+        try {
+            // PDFont::getStringWidth throws an IllegalArgumentException if the character doesn't exist in the font.
+            font.getStringWidth(new String(Character.toChars(codePoint)));
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -28,6 +28,14 @@ public class PdfBoxImage implements FSImage {
         _bytes = image;
         _uri = uri;
 
+        int[] size = ImageHeaderProbe.probe(_bytes);
+
+        if (size != null) {
+            _intrinsicWidth = size[0];
+            _intrinsicHeight = size[1];
+            return;
+        }
+
         ImageReader reader = null;
         
         try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(_bytes))){
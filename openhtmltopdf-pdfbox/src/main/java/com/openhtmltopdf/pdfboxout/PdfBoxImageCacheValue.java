@@ -0,0 +1,159 @@
+package com.openhtmltopdf.pdfboxout;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSDocument;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+import com.openhtmltopdf.extend.FSCacheValue;
+
+/**
+ * An image as embedded in a PDF, that is its intrinsic size and its encoded (Flate, DCT, etc)
+ * streams, independent of any one document. It can be added to another document
+ * without decoding and compressing the image again.
+ * <br><br>
+ * The encoded form is a snapshot of the image xobject's COS tree (including any soft mask
+ * or ICC profile streams), with streams held as raw bytes and dictionaries and arrays as
+ * plain collections. Snapshots are never modified, so values are thread safe.
+ */
+class PdfBoxImageCacheValue implements FSCacheValue {
+    private final float _intrinsicWidth;
+    private final float _intrinsicHeight;
+    private final StreamSnapshot _xobject;
+    private final int _weight;
+
+    private PdfBoxImageCacheValue(float width, float height, StreamSnapshot xobject, int weight) {
+        this._intrinsicWidth = width;
+        this._intrinsicHeight = height;
+        this._xobject = xobject;
+        this._weight = weight;
+    }
+
+    /**
+     * Takes a snapshot of an image, after {@link PdfBoxOutputDevice#realizeImage(PdfBoxImage)}
+     * and before it is scaled to output resolution.
+     */
+    static PdfBoxImageCacheValue create(PdfBoxImage image) throws IOException {
+        int[] weight = new int[1];
+        StreamSnapshot xobject = (StreamSnapshot) snapshot(image.getXObject().getCOSObject(), weight);
+
+        return new PdfBoxImageCacheValue(image.getWidth(), image.getHeight(), xobject, weight[0]);
+    }
+
+    /**
+     * @return a new image, at intrinsic size, with its xobject added to doc.
+     */
+    PdfBoxImage createImage(PDDocument doc, String uri) throws IOException {
+        COSStream stream = (COSStream) restore(_xobject, doc.getDocument());
+        PDImageXObject xobject = new PDImageXObject(new PDStream(stream), null);
+
+        return new PdfBoxImage(null, uri, _intrinsicWidth, _intrinsicHeight, xobject);
+    }
+
+    @Override
+    public int weight() {
+        return _weight;
+    }
+
+    private static class StreamSnapshot {
+        private final Map<COSName, Object> _dictionary;
+        private final byte[] _raw;
+
+        private StreamSnapshot(Map<COSName, Object> dictionary, byte[] raw) {
+            this._dictionary = dictionary;
+            this._raw = raw;
+        }
+    }
+
+    private static Map<COSName, Object> snapshotDictionary(COSDictionary dict, int[] weight) throws IOException {
+        Map<COSName, Object> entries = new LinkedHashMap<>();
+
+        for (Map.Entry<COSName, COSBase> entry : dict.entrySet()) {
+            if (!COSName.LENGTH.equals(entry.getKey())) {
+                entries.put(entry.getKey(), snapshot(entry.getValue(), weight));
+            }
+        }
+
+        return entries;
+    }
+
+    private static Object snapshot(COSBase base, int[] weight) throws IOException {
+        if (base instanceof COSObject) {
+            return snapshot(((COSObject) base).getObject(), weight);
+        } else if (base instanceof COSStream) {
+            COSStream stream = (COSStream) base;
+            byte[] raw;
+
+            try (InputStream in = stream.createRawInputStream()) {
+                raw = IOUtils.toByteArray(in);
+            }
+
+            weight[0] += raw.length;
+            return new StreamSnapshot(snapshotDictionary(stream, weight), raw);
+        } else if (base instanceof COSDictionary) {
+            return snapshotDictionary((COSDictionary) base, weight);
+        } else if (base instanceof COSArray) {
+            COSArray array = (COSArray) base;
+            List<Object> items = new ArrayList<>(array.size());
+
+            for (int i = 0; i < array.size(); i++) {
+                items.add(snapshot(array.get(i), weight));
+            }
+
+            return items;
+        } else {
+            // Names, numbers, booleans, strings and null are not modified when written.
+            return base;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static COSBase restore(Object snapshot, COSDocument doc) throws IOException {
+        if (snapshot instanceof StreamSnapshot) {
+            StreamSnapshot stream = (StreamSnapshot) snapshot;
+            COSStream cos = doc.createCOSStream();
+
+            try (OutputStream out = cos.createRawOutputStream()) {
+                out.write(stream._raw);
+            }
+
+            restoreDictionary(stream._dictionary, cos, doc);
+            return cos;
+        } else if (snapshot instanceof Map) {
+            COSDictionary dict = new COSDictionary();
+            restoreDictionary((Map<COSName, Object>) snapshot, dict, doc);
+            return dict;
+        } else if (snapshot instanceof List) {
+            COSArray array = new COSArray();
+
+            for (Object item : (List<Object>) snapshot) {
+                array.add(restore(item, doc));
+            }
+
+            return array;
+        } else {
+            return (COSBase) snapshot;
+        }
+    }
+
+    private static void restoreDictionary(Map<COSName, Object> entries, COSDictionary dict, COSDocument doc) throws IOException {
+        for (Map.Entry<COSName, Object> entry : entries.entrySet()) {
+            dict.setItem(entry.getKey(), restore(entry.getValue(), doc));
+        }
+    }
+}
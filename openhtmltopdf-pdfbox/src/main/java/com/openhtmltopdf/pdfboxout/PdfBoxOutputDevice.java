@@ -177,6 +177,19 @@ public interface PdfBoxOutputDevice extends OutputDevice, Closeable {
 
     void setStartPageNo(int startPageNo);
 
+    /**
+     * Sets whether the document is rendered in streaming segments, each started and
+     * finished in turn. Bookmarks are then loaded and resolved per segment and only
+     * written by {@link #finishSegments()}.
+     */
+    void setStreamingSegments(boolean streamingSegments);
+
+    /**
+     * Writes the document level output, such as the outline, once all streaming
+     * segments are finished.
+     */
+    void finishSegments();
+
     @Override
     void drawSelection(RenderingContext c, InlineText inlineText);
 
@@ -33,6 +33,10 @@ import com.openhtmltopdf.util.XRLog;
 
 /**
  * The per document container for form and form control state.
+ * <br><br>
+ * When a document is rendered in streaming segments, {@link #processControls(SharedContext, PDDocument, Box)}
+ * is called once per segment. The forms and controls seen are then cleared, while the
+ * AcroForm, fonts and appearance streams are kept for the fields of later segments.
  */
 public class PdfBoxPerDocumentFormState {
     // We keep a map of forms for the document so we can add controls to the correct form as they are seen.
@@ -58,6 +62,12 @@ public class PdfBoxPerDocumentFormState {
     
     // The ZapfDingbats font resource needed by checkbox and radio box appearance streams.
     private PDResources checkBoxFontResource;
+
+    // The AcroForm of the document, created with the first form and used by the forms of later segments.
+    private PDAcroForm acroForm;
+
+    // The last ID used for a field, so IDs stay unique across segments.
+    private int lastFieldId;
     
     public PDAppearanceStream getCheckboxStyle(CheckboxStyle style) {
         return checkboxAppearances.get(style);
@@ -166,22 +176,28 @@ public class PdfBoxPerDocumentFormState {
         }
         
         if (forms.size() != 0) {
-            int start = 0;
-            PDAcroForm acro = new PDAcroForm(writer);
+            if (acroForm == null) {
+                acroForm = new PDAcroForm(writer);
+                acroForm.setNeedAppearances(Boolean.TRUE);
 
-            acro.setNeedAppearances(Boolean.TRUE);
-            acro.setDefaultResources(resources);
-        
-            writer.getDocumentCatalog().setAcroForm(acro);
+                writer.getDocumentCatalog().setAcroForm(acroForm);
+            }
+
+            acroForm.setDefaultResources(resources);
         
             for (PdfBoxForm frm : forms.values()) {
                 try {
-                    start = 1 + frm.process(acro, start, root);
+                    lastFieldId = 1 + frm.process(acroForm, lastFieldId, root);
                 } catch (IOException e) {
                     throw new PdfContentStreamAdapter.PdfException("processControls", e);
                 }
             }
         }
+
+        // Processed, so a later segment must not add these again.
+        forms.clear();
+        controls.clear();
+        seenControls.clear();
     }
     
     /**
@@ -24,6 +24,7 @@ import com.openhtmltopdf.bidi.BidiSplitter;
 import com.openhtmltopdf.bidi.BidiSplitterFactory;
 import com.openhtmltopdf.bidi.SimpleBidiReorderer;
 import com.openhtmltopdf.context.StyleReference;
+import com.openhtmltopdf.css.constants.CSSName;
 import com.openhtmltopdf.css.constants.IdentValue;
 import com.openhtmltopdf.css.style.CalculatedStyle;
 import com.openhtmltopdf.extend.*;
@@ -35,6 +36,10 @@ import com.openhtmltopdf.outputdevice.helper.BaseDocument;
 import com.openhtmltopdf.outputdevice.helper.ExternalResourceControlPriority;
 import com.openhtmltopdf.outputdevice.helper.ExternalResourceType;
 import com.openhtmltopdf.extend.FSDOMMutator;
+import com.openhtmltopdf.extend.RenderMetricsListener.Counter;
+import com.openhtmltopdf.extend.RenderMetricsListener.Phase;
+import com.openhtmltopdf.extend.impl.FSCountingCacheStore;
+import com.openhtmltopdf.extend.impl.FSNoOpCacheStore;
 import com.openhtmltopdf.outputdevice.helper.PageDimensions;
 import com.openhtmltopdf.outputdevice.helper.UnicodeImplementation;
 import com.openhtmltopdf.pdfboxout.PdfBoxUtil.Metadata;
@@ -51,20 +56,29 @@ import com.openhtmltopdf.render.displaylist.DisplayListPainter;
 import com.openhtmltopdf.render.displaylist.PagedBoxCollector;
 import com.openhtmltopdf.render.displaylist.DisplayListContainer.DisplayListPageContainer;
 import com.openhtmltopdf.resource.XMLResource;
+import com.openhtmltopdf.resource.XMLSegmentHandler;
 import com.openhtmltopdf.simple.extend.XhtmlNamespaceHandler;
 import com.openhtmltopdf.util.LogMessageId;
 import com.openhtmltopdf.util.OpenUtil;
+import com.openhtmltopdf.util.RenderMetrics;
 import com.openhtmltopdf.util.ThreadCtx;
 import com.openhtmltopdf.util.XRLog;
 
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
 import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.*;
 import org.apache.pdfbox.pdmodel.PDPageContentStream.AppendMode;
 import org.apache.pdfbox.pdmodel.common.PDMetadata;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.documentinterchange.logicalstructure.PDMarkInfo;
 import org.apache.pdfbox.pdmodel.encryption.PDEncryption;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
 import org.apache.pdfbox.pdmodel.graphics.color.PDOutputIntent;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAppearanceStream;
 import org.apache.pdfbox.pdmodel.interactive.viewerpreferences.PDViewerPreferences;
 import org.apache.xmpbox.XMPMetadata;
 import org.apache.xmpbox.schema.*;
@@ -72,6 +86,7 @@ import org.apache.xmpbox.type.BadFieldValueException;
 import org.apache.xmpbox.xml.XmpSerializer;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 import org.xml.sax.InputSource;
 
 import javax.xml.transform.*;
@@ -84,11 +99,20 @@ import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.zip.DeflaterOutputStream;
 
 public class PdfBoxRenderer implements Closeable, PageSupplier {
     // See discussion of units at top of PdfBoxOutputDevice.
@@ -96,6 +120,9 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
     private static final int DEFAULT_DOTS_PER_PIXEL = 20;
     private static final int DEFAULT_PDF_POINTS_PER_INCH = 72;
 
+    // When painting pages in parallel, the most pages painted ahead of the page being added to the document.
+    private static final int MAX_PAGES_IN_FLIGHT = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
     private final SharedContext _sharedContext;
     private final PdfBoxOutputDevice _outputDevice;
     private final List<FSDOMMutator> _domMutators;
@@ -133,10 +160,29 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
 
     private PageSupplier _pageSupplier;
 
+    private ExecutorService _pagePaintingExecutor;
+
     private final Closeable _diagnosticConsumer;
 
     private final int _initialPageNumber;
 
+    private final RenderMetricsListener _metricsListener;
+
+    private final boolean _reuseParsersAcrossRenders;
+
+    // The cache stores used by this render, wrapped to count lookups when metrics are collected.
+    private final Map<CacheStore, FSCountingCacheStore> _countedCaches = new EnumMap<>(CacheStore.class);
+
+    // Time spent collecting display lists during the last call to writePDFFast.
+    private long _displayListNanos;
+
+    // The input to render in segments, until it is rendered or loaded as a whole.
+    private BaseDocument _streamingInput;
+
+    // Whether the document level meta data has been written, as it is only written
+    // for the first segment of a streamed document.
+    private boolean _metadataWritten;
+
     /**
      * This method is constantly changing as options are added to the builder.
      */
@@ -148,10 +194,18 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
             Closeable diagnosticConsumer) {
 
         PdfBoxFontResolver fontResolver = null;
-        _pdfDoc = state.pddocument != null ? state.pddocument : new PDDocument();
+        if (state.pddocument != null) {
+            _pdfDoc = state.pddocument;
+        } else if (state._maxMainMemoryBytes >= 0) {
+            _pdfDoc = new PDDocument(MemoryUsageSetting.setupMixed(state._maxMainMemoryBytes).setTempDir(state._tempFileDirectory));
+        } else {
+            _pdfDoc = new PDDocument();
+        }
 
         try {
             _diagnosticConsumer = diagnosticConsumer;
+            _metricsListener = state._metricsListener;
+            _reuseParsersAcrossRenders = state._reuseParsersAcrossRenders;
 
             _pdfDoc.setVersion(state._pdfVersion);
             _pdfVersion = state._pdfVersion;
@@ -159,6 +213,7 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
             _producer = state._producer;
 
             _pageSupplier = state._pageSupplier != null ? state._pageSupplier : this;
+            _pagePaintingExecutor = state._pagePaintingExecutor;
 
             _svgImpl = state._svgImpl;
             _mathmlImpl = state._mathmlImpl;
@@ -199,10 +254,19 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
 
             _sharedContext.setUserAgentCallback(userAgent);
             _sharedContext.setCss(new StyleReference(userAgent));
+            if (state._caches.get(CacheStore.CSS_STYLESHEETS) != FSNoOpCacheStore.INSTANCE) {
+                _sharedContext.getCss().setStylesheetCache(cacheStore(state, CacheStore.CSS_STYLESHEETS));
+            }
+            if (state._caches.get(CacheStore.PDF_ENCODED_IMAGES) != FSNoOpCacheStore.INSTANCE) {
+                userAgent.setEncodedImageCache(cacheStore(state, CacheStore.PDF_ENCODED_IMAGES));
+            }
             userAgent.setSharedContext(_sharedContext);
             _outputDevice.setSharedContext(_sharedContext);
 
-            fontResolver = new PdfBoxFontResolver(_sharedContext, _pdfDoc, state._caches.get(CacheStore.PDF_FONT_METRICS), state._pdfAConformance, state._pdfUaConform);
+            fontResolver = new PdfBoxFontResolver(_sharedContext, _pdfDoc, cacheStore(state, CacheStore.PDF_FONT_METRICS), state._pdfAConformance, state._pdfUaConform);
+            if (state._caches.get(CacheStore.PDF_TRUETYPE_FONTS) != FSNoOpCacheStore.INSTANCE) {
+                fontResolver.setTrueTypeFontCache(cacheStore(state, CacheStore.PDF_TRUETYPE_FONTS));
+            }
             _sharedContext.setFontResolver(fontResolver);
 
             PdfBoxReplacedElementFactory replacedElementFactory = new PdfBoxReplacedElementFactory(_outputDevice, state._svgImpl, state._objectDrawerFactory, state._mathmlImpl);
@@ -253,22 +317,13 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
 
             this._domMutators = state._domMutators;
 
-            if (doc.html != null) {
-                this.setDocumentFromStringP(doc.html, doc.baseUri);
-            }
-            else if (doc.document != null) {
-                this.setDocumentP(doc.document, doc.baseUri);
-            }
-            else if (doc.uri != null) {
-                this.setDocumentP(doc.uri);
-            }
-            else if (doc.file != null) {
-                try {
-                    this.setDocumentP(doc.file);
-                } catch (IOException e) {
-                    XRLog.log(Level.WARNING, LogMessageId.LogMessageId0Param.EXCEPTION_PROBLEM_TRYING_TO_READ_INPUT_XHTML_FILE, e);
-                    throw new RuntimeException("File IO problem", e);
+            if (state._streamingSegments && doc.document == null && !state._pdfUaConform) {
+                this._streamingInput = doc;
+            } else {
+                if (state._streamingSegments) {
+                    XRLog.log(Level.INFO, LogMessageId.LogMessageId0Param.GENERAL_PDF_STREAMING_SEGMENTS_NOT_SUPPORTED);
                 }
+                this.setDocument(doc);
             }
 
             this._os = state._os;
@@ -287,6 +342,7 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
     }
 
     public Document getDocument() {
+        loadWholeDocument();
         return _doc;
     }
     
@@ -304,8 +360,43 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
         return (PdfBoxFontResolver) _sharedContext.getFontResolver();
     }
 
+    private void setDocument(BaseDocument doc) {
+        if (doc.html != null) {
+            this.setDocumentFromStringP(doc.html, doc.baseUri);
+        }
+        else if (doc.document != null) {
+            this.setDocumentP(doc.document, doc.baseUri);
+        }
+        else if (doc.uri != null) {
+            this.setDocumentP(doc.uri);
+        }
+        else if (doc.file != null) {
+            try {
+                this.setDocumentP(doc.file);
+            } catch (IOException e) {
+                XRLog.log(Level.WARNING, LogMessageId.LogMessageId0Param.EXCEPTION_PROBLEM_TRYING_TO_READ_INPUT_XHTML_FILE, e);
+                throw new RuntimeException("File IO problem", e);
+            }
+        }
+    }
+
+    /**
+     * Loads the whole document if it was to be rendered in segments, for callers that
+     * need the document or its layout before the PDF is created.
+     */
+    private void loadWholeDocument() {
+        if (_streamingInput != null) {
+            BaseDocument doc = _streamingInput;
+            _streamingInput = null;
+            setDocument(doc);
+        }
+    }
+
     private Document loadDocument(String uri) {
-        return _sharedContext.getUserAgentCallback().getXMLResource(uri, ExternalResourceType.XML_XHTML).getDocument();
+        long start = RenderMetrics.startPhase(_metricsListener);
+        Document dom = _sharedContext.getUserAgentCallback().getXMLResource(uri, ExternalResourceType.XML_XHTML).getDocument();
+        RenderMetrics.endPhase(_metricsListener, Phase.PARSE, start);
+        return dom;
     }
 
     private void setDocumentP(String uri) {
@@ -322,12 +413,15 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
     }
     
     private void setDocumentFromStringP(String content, String baseUrl) {
+        long start = RenderMetrics.startPhase(_metricsListener);
         InputSource is = new InputSource(new BufferedReader(new StringReader(content)));
         Document dom = XMLResource.load(is).getDocument();
+        RenderMetrics.endPhase(_metricsListener, Phase.PARSE, start);
         setDocumentP(dom, baseUrl);
     }
     
     private void setDocumentP(Document doc, String url, NamespaceHandler nsh) {
+        long start = RenderMetrics.startPhase(_metricsListener);
         _doc = doc;
 
         /*
@@ -336,6 +430,15 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
         for (FSDOMMutator domMutator : _domMutators)
             domMutator.mutateDocument(doc);
 
+        setStyleContext(doc, url, nsh);
+
+        RenderMetrics.endPhase(_metricsListener, Phase.STYLESHEETS, start);
+    }
+
+    /**
+     * Loads the stylesheets of doc and imports their font faces.
+     */
+    private void setStyleContext(Document doc, String url, NamespaceHandler nsh) {
         _sharedContext.setBaseURL(url);
         _sharedContext.setNamespaceHandler(nsh);
         _sharedContext.getCss().setDocumentContext(_sharedContext, _sharedContext.getNamespaceHandler(), doc, new NullUserInterface());
@@ -355,7 +458,20 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
     }
 
     public void layout() {
+        loadWholeDocument();
+        layout(null, null);
+    }
+
+    /**
+     * Lays out the document, continuing the counters in scope for the children of
+     * countersElement from counters, if not null.
+     */
+    private LayoutContext layout(Element countersElement, List<Map<String, Integer>> counters) {
+        long start = RenderMetrics.startPhase(_metricsListener);
         LayoutContext c = newLayoutContext();
+        if (counters != null) {
+            c.carryCounters(countersElement, counters);
+        }
         BlockBox root = BoxBuilder.createRootBox(c, _doc);
         Box viewport = new ViewportBox(getInitialExtents(c));
 
@@ -365,14 +481,21 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
         // Useful to see the box tree after layout.
         // System.out.println(com.openhtmltopdf.util.LambdaUtil.descendantDump(root));
 
+        RenderMetrics.endPhase(_metricsListener, Phase.LAYOUT, start);
+        start = RenderMetrics.startPhase(_metricsListener);
+
         Dimension dim = root.getLayer().getPaintingDimension(c);
         root.getLayer().trimEmptyPages(c, dim.height);
         root.getLayer().layoutPages(c);
         _root = root;
+
+        RenderMetrics.endPhase(_metricsListener, Phase.PAGINATION, start);
+        RenderMetrics.reportLayout(_metricsListener, _sharedContext.getCss(), root);
+        return c;
     }
 
     private Rectangle getInitialExtents(LayoutContext c) {
-        PageBox first = Layer.createPageBox(c, "first");
+        PageBox first = Layer.createPageBox(c, Layer.getPseudoPage(c.getCss().getPageIndexOffset()));
 
         return new Rectangle(0, 0, first.getContentWidth(c), first.getContentHeight(c));
     }
@@ -463,29 +586,31 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
         try {
             XRLog.log(Level.INFO, LogMessageId.LogMessageId0Param.GENERAL_PDF_USING_FAST_MODE);
 
-            // renders the layout if it wasn't created
-            if (_root == null) {
-                this.layout();
-            }
-
-            List<PageBox> pages = _root.getLayer().getPages();
+            int firstPageNo = initialPageNo != 0 ? initialPageNo : _initialPageNumber;
 
-            RenderingContext c = newRenderingContext();
-            c.setInitialPageNo(initialPageNo != 0 ? initialPageNo : _initialPageNumber);
-            c.setFastRenderer(true);
-
-            PageBox firstPage = pages.get(0);
-            Rectangle2D firstPageSize = new Rectangle2D.Float(0, 0,
-                    firstPage.getWidth(c) / _dotsPerPoint,
-                    firstPage.getHeight(c) / _dotsPerPoint);
+            if (_streamingInput != null) {
+                writeSegments(firstPageNo);
+            } else {
+                // renders the layout if it wasn't created
+                if (_root == null) {
+                    this.layout();
+                }
 
-            if (_pdfEncryption != null) {
-                _pdfDoc.setEncryptionDictionary(_pdfEncryption);
+                startDocument();
+                writeLaidOutPages(firstPageNo);
             }
 
-            firePreOpen();
+            if (_metricsListener != null) {
+                _metricsListener.onCounter(Counter.FONT_RUNS, ((PdfBoxFastOutputDevice) _outputDevice).getFontRunCount());
+                _metricsListener.onCounter(Counter.IMAGE_BYTES, countImageBytes(_pdfDoc));
 
-            writePDFFast(pages, c, firstPageSize, _pdfDoc);
+                RenderMetrics.reportCacheStores(_metricsListener, Counter.FONT_CACHE_HITS, Counter.FONT_CACHE_MISSES,
+                        _countedCaches.get(CacheStore.PDF_FONT_METRICS), _countedCaches.get(CacheStore.PDF_TRUETYPE_FONTS));
+                RenderMetrics.reportCacheStores(_metricsListener, Counter.STYLESHEET_CACHE_HITS, Counter.STYLESHEET_CACHE_MISSES,
+                        _countedCaches.get(CacheStore.CSS_STYLESHEETS));
+                RenderMetrics.reportCacheStores(_metricsListener, Counter.IMAGE_CACHE_HITS, Counter.IMAGE_CACHE_MISSES,
+                        _countedCaches.get(CacheStore.PDF_ENCODED_IMAGES));
+            }
 
             success = true;
         } finally {
@@ -493,7 +618,9 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
                 try {
                     fireOnClose();
                     if (success) {
+                        long start = RenderMetrics.startPhase(_metricsListener);
                         _pdfDoc.save(_os);
+                        RenderMetrics.endPhase(_metricsListener, Phase.SAVE, start);
                     }
                 } finally {
                     OpenUtil.closeQuietly(_pdfDoc);
@@ -503,6 +630,272 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
         }
     }
 
+    private void startDocument() throws IOException {
+        if (_pdfEncryption != null) {
+            _pdfDoc.setEncryptionDictionary(_pdfEncryption);
+        }
+
+        firePreOpen();
+    }
+
+    /**
+     * Paints the pages of the current layout, numbering them from initialPageNo.
+     */
+    private void writeLaidOutPages(int initialPageNo) throws IOException {
+        List<PageBox> pages = _root.getLayer().getPages();
+
+        RenderingContext c = newRenderingContext();
+        c.setInitialPageNo(initialPageNo);
+        c.setFastRenderer(true);
+
+        PageBox firstPage = pages.get(0);
+        Rectangle2D firstPageSize = new Rectangle2D.Float(0, 0,
+                firstPage.getWidth(c) / _dotsPerPoint,
+                firstPage.getHeight(c) / _dotsPerPoint);
+
+        long start = RenderMetrics.startPhase(_metricsListener);
+        writePDFFast(pages, c, firstPageSize, _pdfDoc);
+
+        if (_metricsListener != null) {
+            long nanos = System.nanoTime() - start;
+            _metricsListener.onPhase(Phase.DISPLAY_LIST, _displayListNanos);
+            _metricsListener.onPhase(Phase.PAINT, nanos - _displayListNanos);
+        }
+    }
+
+    /**
+     * Parses the streaming input, laying out and painting each segment as it is complete.
+     */
+    private void writeSegments(int initialPageNo) throws IOException {
+        BaseDocument doc = _streamingInput;
+        _streamingInput = null;
+
+        startDocument();
+        _outputDevice.setStreamingSegments(true);
+
+        if (doc.html != null) {
+            SegmentWriter writer = new SegmentWriter(doc.baseUri, initialPageNo);
+            XMLResource.loadSegments(new InputSource(new StringReader(doc.html)), writer);
+        } else if (doc.uri != null) {
+            writeSegments(doc.uri, new SegmentWriter(doc.uri, initialPageNo));
+        } else if (doc.file != null) {
+            File parent = doc.file.getAbsoluteFile().getParentFile();
+            String baseUri = parent == null ? "" : parent.toURI().toURL().toExternalForm();
+            writeSegments(doc.file.toURI().toURL().toExternalForm(), new SegmentWriter(baseUri, initialPageNo));
+        }
+
+        _outputDevice.finishSegments();
+    }
+
+    private void writeSegments(String uri, SegmentWriter writer) throws IOException {
+        if (!_sharedContext.getUserAgentCallback().getXMLResourceSegments(uri, ExternalResourceType.XML_XHTML, writer)) {
+            throw new IOException("Unable to load document at " + uri);
+        }
+    }
+
+    /**
+     * Decides where to split a streamed document and renders each segment. The document
+     * is split before a top level child of body that starts on a new page. Running
+     * elements that are top level children of body are copied into later segments.
+     */
+    private final class SegmentWriter implements XMLSegmentHandler {
+        private final String baseUri;
+        private final int initialPageNo;
+        private final Map<String, Element> running = new LinkedHashMap<>();
+        private final Map<String, Element> pendingRunning = new LinkedHashMap<>();
+        private Document runningHolder;
+        private boolean flowStarted;
+        private Element previous;
+        private IdentValue breakAfterPrevious;
+        private boolean continued;
+        private int pageCount;
+        private List<Map<String, Integer>> counters;
+
+        SegmentWriter(String baseUri, int initialPageNo) {
+            this.baseUri = baseUri;
+            this.initialPageNo = initialPageNo > 0 ? initialPageNo : 1;
+        }
+
+        private void prepare(Document segment) {
+            if (_doc == segment) {
+                return;
+            }
+
+            if (_doc == null) {
+                long start = RenderMetrics.startPhase(_metricsListener);
+                setStyleContext(segment, baseUri, new XhtmlNamespaceHandler());
+                RenderMetrics.endPhase(_metricsListener, Phase.STYLESHEETS, start);
+            } else {
+                _sharedContext.getCss().setSegmentDocument(segment);
+            }
+
+            _doc = segment;
+        }
+
+        @Override
+        public boolean isSegmentStart(Element child) {
+            prepare(child.getOwnerDocument());
+
+            CalculatedStyle style = _sharedContext.getStyle(child);
+
+            if (style.isDisplayNone()) {
+                return false;
+            } else if (style.isNonFlowContent()) {
+                if (style.isRunning()) {
+                    pendingRunning.put(style.getRunningName(), child);
+                }
+                return false;
+            } else if (style.isLayedOutInInlineContext()) {
+                flowStarted = true;
+                breakAfterPrevious = null;
+                return false;
+            }
+
+            boolean breakBefore = style.isForcePageBreakBefore();
+
+            // The segment ending here is followed by another.
+            continued = flowStarted && (breakBefore || breakAfterPrevious != null);
+            flowStarted = true;
+
+            if (continued && breakAfterPrevious != null) {
+                // The next segment starts on a new page, so the page break after the previous element
+                // would add an empty page. Any left or right page break moves to the next segment.
+                continueStyle(previous, "page-break-after: auto;");
+
+                if (!breakBefore && (breakAfterPrevious == IdentValue.LEFT || breakAfterPrevious == IdentValue.RIGHT)) {
+                    continueStyle(child, "page-break-before: " + breakAfterPrevious + ';');
+                }
+            }
+
+            previous = child;
+            breakAfterPrevious = style.isForcePageBreakAfter() ? style.getIdent(CSSName.PAGE_BREAK_AFTER) : null;
+            return continued;
+        }
+
+        private void continueStyle(Element element, String declarations) {
+            String style = element.getAttribute("style").trim();
+            element.setAttribute("style", style.isEmpty() || style.endsWith(";") ? style + declarations : style + ';' + declarations);
+        }
+
+        @Override
+        public void segment(Document segment) throws IOException {
+            prepare(segment);
+
+            for (FSDOMMutator domMutator : _domMutators) {
+                domMutator.mutateDocument(segment);
+            }
+
+            Element root = segment.getDocumentElement();
+            Element body = DOMUtil.getChild(root, "body");
+            String rootStyle = root.getAttribute("style");
+            String bodyStyle = body != null ? body.getAttribute("style") : null;
+
+            if (body != null) {
+                Node first = body.getFirstChild();
+                for (Element element : running.values()) {
+                    body.insertBefore(segment.importNode(element, true), first);
+                }
+
+                // The body of the whole document continues across segments, with a
+                // forced page break (already satisfied by starting a new page) between them.
+                if (pageCount > 0) {
+                    continueStyle(root, "margin-top: 0; border-top-width: 0; padding-top: 0;");
+                    continueStyle(body, "margin-top: 0; border-top-width: 0; padding-top: 0;");
+                }
+                if (continued) {
+                    continueStyle(root, "margin-bottom: 0; border-bottom-width: 0; padding-bottom: 0;");
+                    continueStyle(body, "margin-bottom: 0; border-bottom-width: 0; padding-bottom: 0;");
+                }
+            }
+            continued = false;
+
+            // Styles found while splitting may be stale after inserting running elements and mutations.
+            _sharedContext.clearDocumentCaches();
+            _sharedContext.getCss().setSegmentDocument(segment);
+            _sharedContext.getCss().setPageIndexOffset(pageCount);
+
+            // Counters continue from the previous segment, starting with those in scope for the children of body.
+            Element countersElement = body != null ? body : root;
+            LayoutContext c = layout(countersElement, counters);
+            counters = c.copyCounters(countersElement);
+
+            _outputDevice.setStartPageNo(_pdfDoc.getNumberOfPages());
+            writeLaidOutPages(initialPageNo + pageCount);
+
+            pageCount += _root.getLayer().getPages().size();
+
+            if (!pendingRunning.isEmpty()) {
+                if (runningHolder == null) {
+                    runningHolder = segment.getImplementation().createDocument(null, null, null);
+                }
+                for (Map.Entry<String, Element> entry : pendingRunning.entrySet()) {
+                    running.put(entry.getKey(), (Element) runningHolder.importNode(entry.getValue(), true));
+                }
+                pendingRunning.clear();
+            }
+
+            // The root and body are copied into the next segment.
+            restoreStyle(root, rootStyle);
+            if (body != null) {
+                restoreStyle(body, bodyStyle);
+            }
+
+            // Release the segment.
+            _root = null;
+            _sharedContext.clearDocumentCaches();
+        }
+
+        private void restoreStyle(Element element, String style) {
+            if (style.isEmpty()) {
+                element.removeAttribute("style");
+            } else {
+                element.setAttribute("style", style);
+            }
+        }
+    }
+
+    /**
+     * Returns the cache store set for which, wrapped to count its lookups if metrics are
+     * collected and a store was set.
+     */
+    private FSCacheEx<String, FSCacheValue> cacheStore(PdfRendererBuilderState state, CacheStore which) {
+        FSCacheEx<String, FSCacheValue> cache = state._caches.get(which);
+
+        if (_metricsListener == null || cache == FSNoOpCacheStore.INSTANCE) {
+            return cache;
+        }
+
+        FSCountingCacheStore counted = new FSCountingCacheStore(cache);
+        _countedCaches.put(which, counted);
+        return counted;
+    }
+
+    /**
+     * @return the total encoded size of the distinct image xobjects used directly by pages.
+     */
+    private static long countImageBytes(PDDocument doc) throws IOException {
+        Set<COSBase> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        long bytes = 0;
+
+        for (PDPage page : doc.getPages()) {
+            PDResources resources = page.getResources();
+            if (resources == null) {
+                continue;
+            }
+
+            for (COSName name : resources.getXObjectNames()) {
+                if (resources.isImageXObject(name)) {
+                    PDXObject image = resources.getXObject(name);
+                    if (seen.add(image.getCOSObject())) {
+                        bytes += image.getCOSObject().getLength();
+                    }
+                }
+            }
+        }
+
+        return bytes;
+    }
+
     private void firePreOpen() {
         if (_listener != null) {
             _listener.preOpen(this);
@@ -549,6 +942,20 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
 
         int pdfPageIndex = 0;
         DisplayListContainer dlPages = null;
+        _displayListNanos = 0;
+
+        if (_pagePaintingExecutor != null && !_pdfUaConformance) {
+            long start = RenderMetrics.startPhase(_metricsListener);
+            DisplayListCollector dlCollector = new DisplayListCollector(_root.getLayer().getPages());
+            dlPages = dlCollector.collectRoot(c, _root.getLayer());
+            _displayListNanos = RenderMetrics.elapsed(_metricsListener, start);
+
+            if (!hasShadowPages(dlPages, pageCount)) {
+                writePagesParallel(pages, c, firstPageSize, doc, dlPages);
+                _outputDevice.finish(c, _root);
+                return;
+            }
+        }
 
         for (int i = 0; i < pageCount; i++) {
             float nextW;
@@ -567,18 +974,26 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
 
             try (PDPageContentStream cs = initPage(doc, nextW, nextH, i, -1)) {
                 if (i == 0) {
-                    firePreWrite(pageCount); // opportunity to adjust meta data
-                    setDidValues(doc);       // set PDF header fields from meta data
+                    if (!_metadataWritten) {
+                        firePreWrite(pageCount); // opportunity to adjust meta data
+                        setDidValues(doc);       // set PDF header fields from meta data
 
-                    if (_pdfUaConformance || _pdfAConformance != PdfAConformance.NONE) {
-                        addPdfASchema(doc, _pdfAConformance, _pdfUaConformance);
+                        if (_pdfUaConformance || _pdfAConformance != PdfAConformance.NONE) {
+                            addPdfASchema(doc, _pdfAConformance, _pdfUaConformance);
+                        }
+
+                        _metadataWritten = true;
                     }
 
-                    DisplayListCollector dlCollector = new DisplayListCollector(_root.getLayer().getPages());
-                    dlPages = dlCollector.collectRoot(c, _root.getLayer());
+                    if (dlPages == null) {
+                        long start = RenderMetrics.startPhase(_metricsListener);
+                        DisplayListCollector dlCollector = new DisplayListCollector(_root.getLayer().getPages());
+                        dlPages = dlCollector.collectRoot(c, _root.getLayer());
+                        _displayListNanos = RenderMetrics.elapsed(_metricsListener, start);
+                    }
                 }
 
-                page.setBasePagePdfPageIndex(pdfPageIndex);
+                page.setBasePagePdfPageIndex(_outputDevice.getStartPageNo() + pdfPageIndex);
 
                 pageOperations = dlPages.getPageInstructions(i);
 
@@ -603,6 +1018,181 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
         _outputDevice.finish(c, _root);
     }
 
+    private static boolean hasShadowPages(DisplayListContainer dlPages, int pageCount) {
+        for (int i = 0; i < pageCount; i++) {
+            if (!dlPages.getPageInstructions(i).shadowPages().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Paints pages on the page painting executor, each into its own content stream
+     * buffer with its own output device, then adds the content streams to pages in order.
+     * Pages are requested from the page supplier in order, at most {@link #MAX_PAGES_IN_FLIGHT}
+     * pages ahead of the page being added, so that painted pages waiting to be added are bounded.
+     */
+    private void writePagesParallel(
+            List<PageBox> pages,
+            RenderingContext c,
+            Rectangle2D firstPageSize,
+            PDDocument doc,
+            DisplayListContainer dlPages) throws IOException {
+
+        int pageCount = c.getPageCount();
+        PdfBoxFastOutputDevice documentDevice = (PdfBoxFastOutputDevice) _outputDevice;
+
+        PDPage[] pdPages = new PDPage[pageCount];
+        List<List<Runnable>> deferredActions = new ArrayList<>(Collections.nCopies(pageCount, null));
+        List<Future<byte[]>> contents = new ArrayList<>(Collections.nCopies(pageCount, null));
+
+        try {
+            for (int i = 0, next = 0; i < pageCount; i++) {
+                for (; next < pageCount && next < i + MAX_PAGES_IN_FLIGHT; next++) {
+                    float nextW;
+                    float nextH;
+                    PageBox page = pages.get(next);
+
+                    if (next == 0) {
+                        nextW = (float) firstPageSize.getWidth();
+                        nextH = (float) firstPageSize.getHeight();
+                    } else {
+                        nextW = page.getWidth(c) / _dotsPerPoint;
+                        nextH = page.getHeight(c) / _dotsPerPoint;
+                    }
+
+                    PDPage pdPage = _pageSupplier.requestPage(doc, nextW, nextH, next, -1);
+                    pdPages[next] = pdPage;
+
+                    if (next == 0 && !_metadataWritten) {
+                        firePreWrite(pageCount); // opportunity to adjust meta data
+                        setDidValues(doc);       // set PDF header fields from meta data
+
+                        if (_pdfAConformance != PdfAConformance.NONE) {
+                            addPdfASchema(doc, _pdfAConformance, _pdfUaConformance);
+                        }
+
+                        _metadataWritten = true;
+                    }
+
+                    page.setBasePagePdfPageIndex(_outputDevice.getStartPageNo() + next);
+
+                    if (!pdPage.getCOSObject().containsKey(COSName.RESOURCES)) {
+                        pdPage.setResources(new PDResources());
+                    }
+                    PDResources resources = pdPage.getResources();
+
+                    List<Runnable> actions = new ArrayList<>();
+                    deferredActions.set(next, actions);
+
+                    PdfBoxFastOutputDevice pageDevice = documentDevice.createPageDevice(actions);
+                    RenderingContext pageContext = (RenderingContext) c.clone();
+                    pageContext.setOutputDevice(pageDevice);
+                    pageContext.setPage(next, page);
+                    pageContext.setShadowPageNumber(-1);
+                    pageDevice.setRenderingContext(pageContext);
+
+                    DisplayListPageContainer pageOperations = dlPages.getPageInstructions(next);
+                    float pageHeight = nextH;
+
+                    contents.set(next, _pagePaintingExecutor.submit(ThreadCtx.propagate(() ->
+                        paintPageToBuffer(pageContext, pageDevice, doc, pdPage, resources, pageHeight, page, pageOperations))));
+                }
+
+                addPageContent(doc, pdPages[i], getPageContent(contents.get(i)));
+                contents.set(i, null);
+
+                for (Runnable action : deferredActions.get(i)) {
+                    action.run();
+                }
+                deferredActions.set(i, null);
+            }
+        } finally {
+            for (Future<byte[]> content : contents) {
+                if (content != null) {
+                    content.cancel(true);
+                }
+            }
+        }
+    }
+
+    private byte[] paintPageToBuffer(
+            RenderingContext c,
+            PdfBoxFastOutputDevice pageDevice,
+            PDDocument doc,
+            PDPage pdPage,
+            PDResources resources,
+            float pageHeight,
+            PageBox page,
+            DisplayListPageContainer pageOperations) throws IOException {
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        OutputStream out = _testMode ? buffer : new DeflaterOutputStream(buffer);
+
+        // Only used to hold the page resources, as creating a stream
+        // in the document is not thread safe.
+        PDAppearanceStream holder = new PDAppearanceStream(new COSStream());
+        holder.setResources(resources);
+
+        try (PDPageContentStream cs = new PDPageContentStream(doc, holder, out)) {
+            pageDevice.initializePage(cs, pdPage, pageHeight);
+            paintPageFast(c, page, pageOperations, 0);
+            pageDevice.finishPage();
+        }
+
+        return buffer.toByteArray();
+    }
+
+    private static byte[] getPageContent(Future<byte[]> content) throws IOException {
+        try {
+            return content.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while painting pages");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Appends a content stream to a page, as {@link AppendMode#APPEND} would.
+     */
+    private void addPageContent(PDDocument doc, PDPage pdPage, byte[] content) throws IOException {
+        COSStream stream = doc.getDocument().createCOSStream();
+
+        try (OutputStream out = stream.createRawOutputStream()) {
+            out.write(content);
+        }
+
+        if (!_testMode) {
+            stream.setItem(COSName.FILTER, COSName.FLATE_DECODE);
+        }
+
+        COSBase existing = pdPage.getCOSObject().getDictionaryObject(COSName.CONTENTS);
+
+        if (existing == null) {
+            pdPage.getCOSObject().setItem(COSName.CONTENTS, stream);
+        } else if (existing instanceof COSArray) {
+            ((COSArray) existing).add(stream);
+        } else {
+            COSArray array = new COSArray();
+            array.add(existing);
+            array.add(stream);
+            pdPage.getCOSObject().setItem(COSName.CONTENTS, array);
+        }
+    }
+
     /**
      * Shadow pages are an opt-in feature that allows cut off content beyond
      * the right edge (or left edge for RTL mode) of the main page to be
@@ -862,7 +1452,7 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
         page.paintBorder(c, 0, Layer.PAGED_MODE_PRINT);
 
         Rectangle content = page.getPrintClippingBounds(c);
-        _outputDevice.pushClip(content);
+        c.getOutputDevice().pushClip(content);
 
         int top = -page.getPaintingTop() + page.getMarginBorderPadding(c, CalculatedStyle.TOP);
 
@@ -870,12 +1460,12 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
 
         int translateX = left + additionalTranslateX;
         
-        _outputDevice.translate(translateX, top);
+        c.getOutputDevice().translate(translateX, top);
         DisplayListPainter painter = new DisplayListPainter();
         painter.paint(c, pageOperations);
-        _outputDevice.translate(-translateX, -top);
+        c.getOutputDevice().translate(-translateX, -top);
 
-        _outputDevice.popClip();
+        c.getOutputDevice().popClip();
     }
 
     public PdfBoxOutputDevice getOutputDevice() {
@@ -927,7 +1517,7 @@ public class PdfBoxRenderer implements Closeable, PageSupplier {
         OpenUtil.closeQuietly(_outputDevice);
         OpenUtil.tryQuietly(_sharedContext::removeFromThread);
         OpenUtil.closeQuietly(_diagnosticConsumer);
-        OpenUtil.tryQuietly(ThreadCtx::cleanup);
+        OpenUtil.tryQuietly(() -> ThreadCtx.cleanup(_reuseParsersAcrossRenders));
 
         // Close all still open font files
         OpenUtil.closeQuietly((PdfBoxFontResolver) getSharedContext().getFontResolver());
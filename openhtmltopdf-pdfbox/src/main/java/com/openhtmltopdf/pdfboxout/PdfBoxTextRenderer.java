@@ -151,7 +151,19 @@ public class PdfBoxTextRenderer implements TextRenderer {
         String replaceStr = ThreadCtx.get().sharedContext().getReplacementText();
         List<FontDescription> descriptions = ((PdfBoxFSFont) font).getFontDescription();
         
+        boolean isSingleCodePoint = replaceStr.codePointCount(0, replaceStr.length()) == 1;
+
         for (FontDescription des : descriptions) {
+            if (isSingleCodePoint) {
+                if (des.hasGlyph(replaceStr.codePointAt(0))) {
+                    ReplacementChar replace = new ReplacementChar();
+                    replace.replacement = replaceStr;
+                    replace.fontDescription = des;
+                    return replace;
+                }
+                continue;
+            }
+
             try {
                 des.getFont().getStringWidth(replaceStr);
 
@@ -167,19 +179,12 @@ public class PdfBoxTextRenderer implements TextRenderer {
         }
 
         // Still haven't found a font supporting our replacement text, try space character.
-        replaceStr = " ";
         for (FontDescription des : descriptions) {
-            try {
-                des.getFont().getStringWidth(replaceStr);
-
-                // Got here without throwing, so the char exists in font.
+            if (des.hasGlyph(' ')) {
                 ReplacementChar replace = new ReplacementChar();
                 replace.replacement = " ";
                 replace.fontDescription = des;
                 return replace;
-            } catch (Exception e)
-            {
-                // Could not use space in this font!
             }
         }
     
@@ -201,7 +206,6 @@ public class PdfBoxTextRenderer implements TextRenderer {
         for (int i = 0; i < str.length(); ) {
             int unicode = str.codePointAt(i);
             i += Character.charCount(unicode);
-            String ch = String.valueOf(Character.toChars(unicode));
 
             if (!OpenUtil.isSafeFontCodePointToPrint(unicode)) {
                 // Filter out characters that should never be visible (such
@@ -209,74 +213,56 @@ public class PdfBoxTextRenderer implements TextRenderer {
                 continue;
             }
 
-            boolean gotChar = false;
-            
-            FONT_LOOP:
+            FontDescription found = null;
+            String deshaped = null;
+
             for (FontDescription des : fonts) {
-                try {
-                    des.getFont().getStringWidth(ch);
-                    // We got here, so this font has this character.
-                    if (current.des == null) {
-                        // First character of run.
-                        current.des = des;
+                if (des.hasGlyph(unicode)) {
+                    // This font has this character.
+                    found = des;
+                    break;
+                } else if (reorderer.isLiveImplementation()) {
+                    // Character is not in font! Next, we try deshaping.
+                    String deshapedCandidate = reorderer.deshapeText(String.valueOf(Character.toChars(unicode)));
+                    try {
+                        des.getFont().getStringWidth(deshapedCandidate);
+                        // We got here, so this font has this deshaped character.
+                        found = des;
+                        deshaped = deshapedCandidate;
+                        break;
                     }
-                    else if (des != current.des) {
-                        // We have changed font, so we'll start a new font run.
-                        current.str = sb.toString();
-                        runs.add(current);
-                        current = new FontRun();
-                        current.des = des;
-                        sb = new StringBuilder();
+                    catch (Exception e2) {
+                        // Keep trying with next font.
                     }
+                }
+            }
 
-                    if (isJustificationSpace(unicode)) {
-                        current.spaceCharacterCount++;
-                    } else {
-                        current.otherCharacterCount++;
-                    }
-                    
-                    sb.append(ch);
-                    gotChar = true;
-                    break;
+            if (found != null) {
+                if (current.des == null) {
+                    // First character of run.
+                    current.des = found;
                 }
-                catch (Exception e1) {
-                    if (reorderer.isLiveImplementation()) {
-                        // Character is not in font! Next, we try deshaping.
-                        String deshaped = reorderer.deshapeText(ch);
-                        try {
-                            des.getFont().getStringWidth(deshaped);
-                            // We got here, so this font has this deshaped character.
-                            if (current.des == null) {
-                                // First character of run.
-                                current.des = des;
-                            }
-                            else if (des != current.des) {
-                                // We have changed font, so we'll start a new font run.
-                                current.str = sb.toString();
-                                runs.add(current);
-                                current = new FontRun();
-                                current.des = des;
-                                sb = new StringBuilder();
-                            }
-                            
-                            if (isJustificationSpace(unicode)) {
-                                current.spaceCharacterCount++;
-                            } else {
-                                current.otherCharacterCount++;
-                            }
-                            
-                            sb.append(deshaped);
-                            gotChar = true;
-                            break FONT_LOOP;
-                        }
-                        catch (Exception e2) {
-                            // Keep trying with next font.
-                        }
-                    }
+                else if (found != current.des) {
+                    // We have changed font, so we'll start a new font run.
+                    current.str = sb.toString();
+                    runs.add(current);
+                    current = new FontRun();
+                    current.des = found;
+                    sb = new StringBuilder();
+                }
+
+                if (isJustificationSpace(unicode)) {
+                    current.spaceCharacterCount++;
+                } else {
+                    current.otherCharacterCount++;
                 }
-            }
 
-            if (!gotChar) {
+                if (deshaped != null) {
+                    sb.append(deshaped);
+                } else {
+                    sb.appendCodePoint(unicode);
+                }
+            } else {
                 if (!OpenUtil.isCodePointPrintable(unicode)) {
                     // Filter out control, etc characters when they
                     // are not present in any font.
@@ -345,7 +331,12 @@ public class PdfBoxTextRenderer implements TextRenderer {
               // Go through the list of font descriptions
               for (FontDescription fd : ((PdfBoxFSFont) font).getFontDescription()) {
                  if (fd.getFont() != null) {
-                   result = fd.getFont().getStringWidth(effectiveString) / 1000f * font.getSize2D();
+                   if (fd.hasKnownMissingGlyph(effectiveString)) {
+                       // Avoid the exception below if we already know the font lacks a character.
+                       result = getStringWidthSlow(font, effectiveString) / 1000f * font.getSize2D();
+                   } else {
+                       result = fd.getFont().getStringWidth(effectiveString) / 1000f * font.getSize2D();
+                   }
                    break;
                  } else {
                      if (!_loggedMissingFont) {
@@ -26,6 +26,8 @@ import java.io.InputStream;
 import java.util.Locale;
 import java.util.logging.Level;
 
+import com.openhtmltopdf.extend.FSCacheEx;
+import com.openhtmltopdf.extend.FSCacheValue;
 import com.openhtmltopdf.layout.SharedContext;
 import com.openhtmltopdf.outputdevice.helper.ExternalResourceControlPriority;
 import com.openhtmltopdf.outputdevice.helper.ExternalResourceType;
@@ -39,6 +41,8 @@ public class PdfBoxUserAgent extends NaiveUserAgent {
 
     private final PdfBoxOutputDevice _outputDevice;
 
+    private FSCacheEx<String, FSCacheValue> _encodedImageCache;
+
     public PdfBoxUserAgent(PdfBoxOutputDevice outputDevice) {
 		super();
 		_outputDevice = outputDevice;
@@ -82,6 +86,22 @@ public class PdfBoxUserAgent extends NaiveUserAgent {
         }
 
 
+        if (_encodedImageCache != null && !uriStr.toLowerCase(Locale.US).endsWith(".pdf")) {
+            FSCacheValue encoded = _encodedImageCache.get(encodedImageKey(uriResolved));
+
+            if (encoded instanceof PdfBoxImageCacheValue) {
+                try {
+                    PdfBoxImage fsImage = ((PdfBoxImageCacheValue) encoded).createImage(_outputDevice.getWriter(), uriStr);
+                    scaleToOutputResolution(fsImage);
+                    resource = new ImageResource(uriResolved, fsImage);
+                    _imageCache.put(uriResolved, resource);
+                    return new ImageResource(resource.getImageUri(), resource.getImage());
+                } catch (IOException e) {
+                    XRLog.log(Level.WARNING, LogMessageId.LogMessageId1Param.EXCEPTION_CANT_READ_IMAGE_FILE_FOR_URI, uriStr, e);
+                }
+            }
+        }
+
         InputStream is = openStream(uriResolved);
 
         if (is != null) {
@@ -99,8 +119,11 @@ public class PdfBoxUserAgent extends NaiveUserAgent {
                 } else {
                     byte[] imgBytes = readStream(is);
                     PdfBoxImage fsImage = new PdfBoxImage(imgBytes, uriStr);
-                    scaleToOutputResolution(fsImage);
                     _outputDevice.realizeImage(fsImage);
+                    if (_encodedImageCache != null) {
+                        _encodedImageCache.put(encodedImageKey(uriResolved), PdfBoxImageCacheValue.create(fsImage));
+                    }
+                    scaleToOutputResolution(fsImage);
                     resource = new ImageResource(uriResolved, fsImage);
                 }
                 _imageCache.put(uriResolved, resource);
@@ -124,6 +147,18 @@ public class PdfBoxUserAgent extends NaiveUserAgent {
         return resource;
     }
 
+    /**
+     * Sets a cache of images as encoded in a PDF, shared between documents. Images found in
+     * this cache are not fetched, decoded or compressed again.
+     */
+    public void setEncodedImageCache(FSCacheEx<String, FSCacheValue> encodedImageCache) {
+        _encodedImageCache = encodedImageCache;
+    }
+
+    private static String encodedImageKey(String uriResolved) {
+        return "img:" + uriResolved;
+    }
+
     private void scaleToOutputResolution(PdfBoxImage image) {
         float factor = _sharedContext.getDotsPerPixel();
         if (factor != 1.0f) {
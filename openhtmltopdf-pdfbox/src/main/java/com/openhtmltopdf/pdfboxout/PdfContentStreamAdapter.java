@@ -5,6 +5,7 @@ import com.openhtmltopdf.util.XRLog;
 
 import org.apache.pdfbox.cos.COSDictionary;
 import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdfwriter.COSWriter;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.documentinterchange.markedcontent.PDPropertyList;
 import org.apache.pdfbox.pdmodel.font.PDFont;
@@ -16,6 +17,7 @@ import org.apache.pdfbox.pdmodel.graphics.state.RenderingMode;
 import org.apache.pdfbox.util.Matrix;
 
 import java.awt.geom.AffineTransform;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.logging.Level;
 
@@ -336,6 +338,51 @@ public class PdfContentStreamAdapter {
         }
     }
 
+    /**
+     * Like {@link #drawString(String)} but with text already encoded with the
+     * current font. Does not add anything to the font subset, the caller must do that.
+     */
+    @SuppressWarnings("deprecation")
+    public void drawEncodedString(byte[] codes) {
+        try {
+            cs.appendRawCommands(encodedString(codes));
+            cs.appendRawCommands(" Tj\n");
+        } catch (IOException e) {
+            logAndThrow("drawEncodedString", e);
+        }
+    }
+
+    /**
+     * Like {@link #drawStringWithPositioning(Object[])} but with text already encoded with the
+     * current font. Does not add anything to the font subset, the caller must do that.
+     *
+     * @param str MUST consist of a array of byte arrays optionally interspersed with
+     * Float values specifying additional spacing.
+     */
+    @SuppressWarnings("deprecation")
+    public void drawEncodedStringWithPositioning(Object[] str) {
+        try {
+            cs.appendRawCommands("[");
+            for (Object item : str) {
+                if (item instanceof byte[]) {
+                    cs.appendRawCommands(encodedString((byte[]) item));
+                } else {
+                    cs.appendRawCommands(((Float) item).floatValue());
+                    cs.appendRawCommands(" ");
+                }
+            }
+            cs.appendRawCommands("] TJ\n");
+        } catch (IOException e) {
+            logAndThrow("drawEncodedStringWithPositioning", e);
+        }
+    }
+
+    private static byte[] encodedString(byte[] codes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(codes.length * 2 + 2);
+        COSWriter.writeString(codes, out);
+        return out.toByteArray();
+    }
+
     public void applyPdfMatrix(AffineTransform transform) {
         try {
            cs.transform(new Matrix(transform));
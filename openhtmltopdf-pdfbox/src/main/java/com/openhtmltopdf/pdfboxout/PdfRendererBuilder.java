@@ -17,9 +17,11 @@ import org.apache.pdfbox.pdmodel.PDDocument;
 
 import java.awt.FontFormatException;
 import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.EnumSet;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Level;
 
 public class PdfRendererBuilder extends BaseRendererBuilder<PdfRendererBuilder, PdfRendererBuilderState> {
@@ -34,6 +36,26 @@ public class PdfRendererBuilder extends BaseRendererBuilder<PdfRendererBuilder,
 		}
 	}
 
+	/**
+	 * Creates a builder with shared settings, see {@link PdfRendererSettings#newBuilder()}.
+	 */
+	PdfRendererBuilder(PdfRendererBuilderState settings) {
+	    this();
+	    state.copySettingsFrom(settings);
+	}
+
+	/**
+	 * Captures the document independent settings of this builder, from which builders
+	 * for many documents can be created, sharing caches of parsed stylesheets and font files.
+	 * Changes to this builder after this call do not affect the settings.
+	 *
+	 * @return new settings with those of this builder.
+	 * @see PdfRendererSettings
+	 */
+	public PdfRendererSettings buildSettings() {
+	    return new PdfRendererSettings(state);
+	}
+
 	/**
 	 * Run the XHTML/XML to PDF conversion and output to an output stream set by
 	 * toStream.
@@ -219,6 +241,35 @@ public class PdfRendererBuilder extends BaseRendererBuilder<PdfRendererBuilder,
 	    return this;
 	}
 
+	/**
+	 * Buffers the document being written, including each page content stream as it is
+	 * finished, in at most <code>maxMainMemoryBytes</code> of heap with the remainder in a
+	 * temporary file. The temporary file is deleted when the renderer is closed. This keeps
+	 * memory use for very long documents bounded by the layout rather than the output.
+	 * <br><br>
+	 * Ignored if a document is provided with {@link #usePDDocument(PDDocument)}.
+	 *
+	 * @param maxMainMemoryBytes the heap to use before buffering to a temporary file.
+	 * @return this for method chaining
+	 */
+	public PdfRendererBuilder useTempFileBuffering(long maxMainMemoryBytes) {
+	    return useTempFileBuffering(maxMainMemoryBytes, null);
+	}
+
+	/**
+	 * Like {@link #useTempFileBuffering(long)} but with the temporary file created in
+	 * <code>tempDirectory</code>, or the default temporary directory if null.
+	 *
+	 * @param maxMainMemoryBytes the heap to use before buffering to a temporary file.
+	 * @param tempDirectory the directory for the temporary file or null.
+	 * @return this for method chaining
+	 */
+	public PdfRendererBuilder useTempFileBuffering(long maxMainMemoryBytes, File tempDirectory) {
+	    state._maxMainMemoryBytes = maxMainMemoryBytes;
+	    state._tempFileDirectory = tempDirectory;
+	    return this;
+	}
+
 	/**
 	 * Like {@link BaseRendererBuilder#useFont(FSSupplier, String, Integer, FontStyle, boolean)} but
 	 * allows to supply a PDFont directly. Subclass {@link PDFontSupplier} if you need
@@ -260,7 +311,34 @@ public class PdfRendererBuilder extends BaseRendererBuilder<PdfRendererBuilder,
 	     * Using this cache avoids loading fallback fonts if the metrics are already in the cache
 	     * and the previous fonts contain the needed characters.
 	     */
-	    PDF_FONT_METRICS;
+	    PDF_FONT_METRICS,
+
+	    /**
+	     * Caches parsed linked and imported stylesheets, based on a combined key of uri and
+	     * a hash of the stylesheet content. Using this cache avoids parsing the same CSS for
+	     * every document. The stylesheet is still fetched to detect changes in content.
+	     * Parsed style attributes and other style declarations are also shared through this cache.
+	     * See {@link com.openhtmltopdf.extend.impl.FSBoundedCacheStore} for a size bounded cache.
+	     */
+	    CSS_STYLESHEETS,
+
+	    /**
+	     * Caches parsed TrueType fonts added by file (not collections), based on a combined key of
+	     * absolute path, length and last modified time. Using this cache avoids parsing the same
+	     * font file for every document. Each document still embeds its own subset of the font.
+	     * See {@link com.openhtmltopdf.extend.impl.FSBoundedCacheStore} for a size bounded cache.
+	     */
+	    PDF_TRUETYPE_FONTS,
+
+	    /**
+	     * Caches images as encoded in a PDF (Flate, DCT, etc) together with their intrinsic size,
+	     * based on the resolved image uri. Using this cache avoids fetching, decoding and compressing
+	     * the same image for every document. NOTE: Changes to an image are not detected, so
+	     * use a cache that expires entries if images may change.
+	     * Cache values are weighted by encoded size, see
+	     * {@link com.openhtmltopdf.extend.impl.FSBoundedCacheStore} for a byte bounded cache.
+	     */
+	    PDF_ENCODED_IMAGES;
 	}
 	
 	/**
@@ -286,6 +364,52 @@ public class PdfRendererBuilder extends BaseRendererBuilder<PdfRendererBuilder,
 		return this;
 	}
 
+	/**
+	 * Paint pages on the provided executor, each into its own buffer, before adding them
+	 * to the document in page order. This can speed up output of documents with many pages
+	 * on machines with many cores. Drawing text, images and Graphics2D content (such as SVG)
+	 * is still serialized as these share document level resources.
+	 * <br><br>
+	 * Not used for PDF/UA documents or documents with overflow (shadow) pages, which are
+	 * painted in order on the calling thread. The executor is not shut down by the renderer.
+	 *
+	 * @param executor the executor to paint pages on, or null to paint on the calling thread.
+	 * @return this for method chaining.
+	 */
+	public PdfRendererBuilder useParallelPagePainting(ExecutorService executor) {
+	    state._pagePaintingExecutor = executor;
+	    return this;
+	}
+
+	/**
+	 * Parse, lay out and paint the document in segments, so that only one segment is in
+	 * memory at a time. This is intended for very large generated documents, such as reports
+	 * with many sections that each start on a new page. The document is split only between
+	 * top level children of body, before a child that starts on a new page because of
+	 * <code>page-break-before</code> (or <code>page-break-after</code> on the previous child).
+	 * A document without such breaks is rendered as one segment.
+	 * <br><br>
+	 * Each segment is a separate document with a copy of the head, so:
+	 * <ul>
+	 * <li>Links, bookmarks, <code>target-counter</code> and <code>counter(pages)</code> only work within a segment.</li>
+	 * <li>Page numbers, left/right page styles and CSS counters of the children of body continue across segments.</li>
+	 * <li>Top and bottom margins, borders and padding of html and body only apply at the start and end of the document.</li>
+	 * <li>Running elements that are top level children of body are carried into later segments.</li>
+	 * <li>DOM mutators are called with each segment.</li>
+	 * <li>Each form must be within one segment. The fields of all forms are added to the one AcroForm of the document.</li>
+	 * <li>Bookmarks in head are loaded once and the outline is written once, after the last segment.</li>
+	 * </ul>
+	 * Not used with a W3C document or PDF/UA output, which are rendered as a whole. Calling
+	 * {@link PdfBoxRenderer#layout()} or {@link PdfBoxRenderer#getDocument()} before creating
+	 * the PDF loads the whole document.
+	 *
+	 * @return this for method chaining.
+	 */
+	public PdfRendererBuilder useStreamingSegments() {
+	    state._streamingSegments = true;
+	    return this;
+	}
+
 	/**
 	 * Various level of PDF/A conformance:
 	 *
@@ -8,9 +8,11 @@ import com.openhtmltopdf.pdfboxout.PdfRendererBuilder.PdfAConformance;
 
 import org.apache.pdfbox.pdmodel.PDDocument;
 
+import java.io.File;
 import java.io.OutputStream;
 import java.util.EnumMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 /**
  * This class is internal. DO NOT USE! Just ignore it!
@@ -29,4 +31,29 @@ public class PdfRendererBuilderState extends BaseRendererBuilder.BaseRendererBui
 	public boolean _pdfUaConform = false;
 	public byte[] _colorProfile;
 	public PageSupplier _pageSupplier;
+	public ExecutorService _pagePaintingExecutor;
+	public long _maxMainMemoryBytes = -1;
+	public File _tempFileDirectory;
+	public boolean _streamingSegments;
+
+	/**
+	 * Copies document independent settings from another state, see
+	 * {@link BaseRendererBuilder.BaseRendererBuilderState#copySettingsFrom(BaseRendererBuilder.BaseRendererBuilderState)}.
+	 * The output stream and PDDocument are not copied.
+	 */
+	void copySettingsFrom(PdfRendererBuilderState other) {
+	    super.copySettingsFrom(other);
+
+	    _pdfVersion = other._pdfVersion;
+	    _producer = other._producer;
+	    _caches.putAll(other._caches);
+	    _pdfAConformance = other._pdfAConformance;
+	    _pdfUaConform = other._pdfUaConform;
+	    _colorProfile = other._colorProfile;
+	    _pageSupplier = other._pageSupplier;
+	    _pagePaintingExecutor = other._pagePaintingExecutor;
+	    _maxMainMemoryBytes = other._maxMainMemoryBytes;
+	    _tempFileDirectory = other._tempFileDirectory;
+	    _streamingSegments = other._streamingSegments;
+	}
 }
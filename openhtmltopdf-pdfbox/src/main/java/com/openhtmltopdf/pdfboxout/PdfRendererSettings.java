@@ -0,0 +1,100 @@
+package com.openhtmltopdf.pdfboxout;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.openhtmltopdf.extend.FSCacheEx;
+import com.openhtmltopdf.extend.FSCacheValue;
+import com.openhtmltopdf.extend.impl.FSBoundedCacheStore;
+import com.openhtmltopdf.extend.impl.FSNoOpCacheStore;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder.CacheStore;
+
+/**
+ * The document independent settings of a {@link PdfRendererBuilder} (fonts, drawers,
+ * PDF settings, etc) together with caches shared by every document rendered with them.
+ * Obtain with {@link PdfRendererBuilder#buildSettings()} and create a builder for each
+ * document with {@link #newBuilder()}.
+ * <br><br>
+ * The caches shared are of parsed stylesheets, parsed TrueType font files and font
+ * metrics, so parsing is only paid for by the first document that needs it (or by
+ * {@link #warmUp(String, String)}) while the result stays cached. Caches already set
+ * on the builder with {@link PdfRendererBuilder#useCacheStore(CacheStore, FSCacheEx)}
+ * are used as is. Nothing else is prepared ahead: each document still gets its own
+ * renderer, shared context and font resolver, as PDF fonts belong to one PDF document,
+ * and builds its selector matcher from its own stylesheets.
+ * <br><br>
+ * Settings are immutable and may be used from multiple threads, provided the objects
+ * configured on the builder they were created from (drawers, stream factories, DOM mutators,
+ * etc) are thread safe.
+ * <pre>
+ * PdfRendererSettings settings = new PdfRendererBuilder()
+ *     .useFastMode()
+ *     .useFont(fontFile, "Sans")
+ *     .buildSettings();
+ *
+ * // For each document, possibly on another thread...
+ * settings.newBuilder()
+ *     .withHtmlContent(html, baseUri)
+ *     .toStream(os)
+ *     .run();
+ * </pre>
+ */
+public class PdfRendererSettings {
+    private static final int MAX_CACHED_STYLESHEETS = 256;
+    private static final long MAX_CACHED_STYLESHEET_BYTES = 64L * 1024 * 1024;
+
+    private static final int MAX_CACHED_FONTS = 64;
+    private static final long MAX_CACHED_FONT_BYTES = 512L * 1024 * 1024;
+
+    private static final int MAX_CACHED_FONT_METRICS = 1024;
+
+    private final PdfRendererBuilderState _settings;
+
+    PdfRendererSettings(PdfRendererBuilderState builderState) {
+        PdfRendererBuilderState settings = new PdfRendererBuilderState();
+        settings.copySettingsFrom(builderState);
+
+        useDefaultCache(settings, CacheStore.CSS_STYLESHEETS,
+                new FSBoundedCacheStore(MAX_CACHED_STYLESHEETS, MAX_CACHED_STYLESHEET_BYTES));
+        useDefaultCache(settings, CacheStore.PDF_TRUETYPE_FONTS,
+                new FSBoundedCacheStore(MAX_CACHED_FONTS, MAX_CACHED_FONT_BYTES));
+        useDefaultCache(settings, CacheStore.PDF_FONT_METRICS,
+                new FSBoundedCacheStore(MAX_CACHED_FONT_METRICS, Long.MAX_VALUE));
+
+        _settings = settings;
+    }
+
+    private static void useDefaultCache(
+            PdfRendererBuilderState settings, CacheStore which, FSCacheEx<String, FSCacheValue> cache) {
+        if (settings._caches.get(which) == FSNoOpCacheStore.INSTANCE) {
+            settings._caches.put(which, cache);
+        }
+    }
+
+    /**
+     * @return a new builder with these settings and shared caches. The builder
+     * is not thread safe and should be used for a single document.
+     */
+    public PdfRendererBuilder newBuilder() {
+        return new PdfRendererBuilder(_settings);
+    }
+
+    /**
+     * Renders a sample document, discarding the output, so that the stylesheets and fonts
+     * it uses are loaded into the caches shared by builders created with {@link #newBuilder()}.
+     */
+    public void warmUp(String html, String baseUri) throws IOException {
+        newBuilder()
+            .withHtmlContent(html, baseUri)
+            .toStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                }
+            })
+            .run();
+    }
+}
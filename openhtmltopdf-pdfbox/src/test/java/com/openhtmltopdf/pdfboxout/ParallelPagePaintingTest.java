@@ -0,0 +1,99 @@
+package com.openhtmltopdf.pdfboxout;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ParallelPagePaintingTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] renderSubsetFontDocument(File font, ExecutorService executor) throws IOException {
+        StringBuilder html = new StringBuilder();
+        html.append("<html><head><style>@page { size: 200px 200px; margin: 10px; } " +
+                    "body { font-family: 'Subset'; } p { text-align: justify; } " +
+                    "p + p { page-break-before: always; }</style></head><body>");
+
+        for (int i = 0; i < 12; i++) {
+            html.append("<p>Page ").append(i).append(" quick brown fox ").append((char) ('a' + i))
+                .append(" jumps over the lazy dog, again and again ").append((char) ('A' + i)).append("</p>");
+        }
+
+        html.append("</body></html>");
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.withHtmlContent(html.toString(), null);
+        builder.useFastMode();
+        builder.useFont(font, "Subset");
+        builder.useParallelPagePainting(executor);
+        builder.toStream(os);
+        builder.run();
+
+        return os.toByteArray();
+    }
+
+    private static PDType0Font subsetFont(PDDocument doc) throws IOException {
+        PDResources res = doc.getPage(0).getResources();
+        COSName name = res.getFontNames().iterator().next();
+        PDFont font = res.getFont(name);
+        return (PDType0Font) font;
+    }
+
+    private static byte[] fontFile(PDType0Font font) throws IOException {
+        try (InputStream in = font.getDescendantFont().getFontDescriptor().getFontFile2().createInputStream()) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+
+    /**
+     * Tests that the code points of text drawn on pages painted in parallel are
+     * all added to the subset of an embedded font, as when painted in order.
+     */
+    @Test
+    public void testParallelPagePaintingSubsetFontMatchesSerial() throws IOException {
+        File font = folder.newFile("subset.ttf");
+        try (InputStream in = PDDocument.class.getResourceAsStream("/org/apache/pdfbox/resources/ttf/LiberationSans-Regular.ttf")) {
+            Files.copy(in, font.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try (PDDocument serial = PDDocument.load(renderSubsetFontDocument(font, null));
+             PDDocument parallel = PDDocument.load(renderSubsetFontDocument(font, executor))) {
+
+            assertEquals(12, parallel.getNumberOfPages());
+            assertEquals(new PDFTextStripper().getText(serial), new PDFTextStripper().getText(parallel));
+            assertTrue(new PDFTextStripper().getText(parallel).contains("Page 11"));
+
+            PDType0Font serialFont = subsetFont(serial);
+            PDType0Font parallelFont = subsetFont(parallel);
+
+            assertTrue(parallelFont.getName().matches("[A-Z]{6}\\+LiberationSans"));
+            assertArrayEquals(fontFile(serialFont), fontFile(parallelFont));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.openhtmltopdf.pdfboxout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.openhtmltopdf.resource.XMLResource;
+import com.openhtmltopdf.util.LogMessageId;
+import com.openhtmltopdf.util.XRLog;
+
+public class PdfBoxRendererTest {
+    private static long renderCountingReaderCreations(boolean reuseParsers) throws IOException {
+        long[] creations = new long[1];
+
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.withHtmlContent("<html><body><p>Parsed</p></body></html>", null);
+        builder.useFastMode();
+        if (reuseParsers) {
+            builder.useParserReuseAcrossRenders();
+        }
+        builder.withDiagnosticConsumer(diagnostic -> {
+            if (diagnostic.getLogMessageId() == LogMessageId.LogMessageId1Param.LOAD_SAX_XMLREADER_IN_USE) {
+                creations[0]++;
+            }
+        });
+        builder.toStream(new ByteArrayOutputStream());
+        builder.run();
+
+        return creations[0];
+    }
+
+    /**
+     * Tests that the XML parsers of a thread are released when a renderer is closed,
+     * unless the renderer was built to reuse them, so that a later render on the
+     * thread creates new ones.
+     */
+    @Test
+    public void testParsersReleasedOnClose() throws IOException {
+        boolean wasEnabled = XRLog.isLoggingEnabled();
+
+        try {
+            XRLog.setLoggingEnabled(true);
+            XMLResource.releaseParsers();
+
+            assertTrue(renderCountingReaderCreations(false) > 0);
+            assertTrue(renderCountingReaderCreations(false) > 0);
+        } finally {
+            XRLog.setLoggingEnabled(wasEnabled);
+            XMLResource.releaseParsers();
+        }
+    }
+
+    /**
+     * Tests that the XML parsers of a thread are kept when a renderer built with
+     * useParserReuseAcrossRenders is closed, so that a later render on the thread reuses them.
+     */
+    @Test
+    public void testParsersReusedAcrossRenders() throws IOException {
+        boolean wasEnabled = XRLog.isLoggingEnabled();
+
+        try {
+            XRLog.setLoggingEnabled(true);
+            XMLResource.releaseParsers();
+
+            assertTrue(renderCountingReaderCreations(true) > 0);
+            assertEquals(0, renderCountingReaderCreations(true));
+        } finally {
+            XRLog.setLoggingEnabled(wasEnabled);
+            XMLResource.releaseParsers();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.openhtmltopdf.pdfboxout;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.openhtmltopdf.extend.impl.FSBoundedCacheStore;
+import com.openhtmltopdf.extend.impl.FSCountingCacheStore;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder.CacheStore;
+
+public class PdfRendererCacheStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static double cssPixelsToPdfPoints(double cssPixels) {
+        return cssPixels * 72d / 96d;
+    }
+
+    /**
+     * Tests that a linked stylesheet is parsed once and reused from a
+     * shared stylesheet cache in subsequent documents.
+     */
+    @Test
+    public void testStylesheetCacheSharedAcrossDocuments() throws IOException {
+        FSBoundedCacheStore cache = new FSBoundedCacheStore(10, 1_000_000);
+        FSCountingCacheStore counter = new FSCountingCacheStore(cache);
+
+        String html = "<html><head><link rel=\"stylesheet\" href=\"data:text/css,@page { size: 200px 300px; }\"/></head>" +
+                      "<body>TEST</body></html>";
+
+        for (int i = 0; i < 2; i++) {
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+            PdfRendererBuilder builder = new PdfRendererBuilder();
+            builder.withHtmlContent(html, null);
+            builder.useFastMode();
+            builder.useCacheStore(CacheStore.CSS_STYLESHEETS, counter);
+            builder.toStream(os);
+            builder.run();
+
+            try (PDDocument doc = PDDocument.load(os.toByteArray())) {
+                assertEquals(cssPixelsToPdfPoints(200), doc.getPage(0).getMediaBox().getWidth(), 1.0d);
+                assertEquals(cssPixelsToPdfPoints(300), doc.getPage(0).getMediaBox().getHeight(), 1.0d);
+            }
+        }
+
+        assertEquals(1, cache.size());
+        assertEquals(1, counter.getHits());
+        assertEquals(1, counter.getMisses());
+    }
+
+    /**
+     * Tests that a font added by file is parsed once and shared between documents
+     * through the PDF_TRUETYPE_FONTS cache, while each document embeds its own copy.
+     */
+    @Test
+    public void testTrueTypeFontPoolSharedAcrossDocuments() throws IOException {
+        File fontFile = folder.newFile("LiberationSans-Regular.ttf");
+        try (InputStream in = PDDocument.class.getResourceAsStream("/org/apache/pdfbox/resources/ttf/LiberationSans-Regular.ttf")) {
+            Files.copy(in, fontFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        FSBoundedCacheStore cache = new FSBoundedCacheStore(10, 10_000_000);
+        FSCountingCacheStore counter = new FSCountingCacheStore(cache);
+
+        String html = "<html><body style=\"font-family: 'Pooled';\">TEST</body></html>";
+
+        for (int i = 0; i < 2; i++) {
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+            PdfRendererBuilder builder = new PdfRendererBuilder();
+            builder.withHtmlContent(html, null);
+            builder.useFastMode();
+            builder.useFont(fontFile, "Pooled");
+            builder.useCacheStore(CacheStore.PDF_TRUETYPE_FONTS, counter);
+            builder.toStream(os);
+            builder.run();
+
+            try (PDDocument doc = PDDocument.load(os.toByteArray())) {
+                PDResources res = doc.getPage(0).getResources();
+
+                assertEquals("TEST", new PDFTextStripper().getText(doc).trim());
+                assertTrue(res.getFont(res.getFontNames().iterator().next()).getName().endsWith("+LiberationSans"));
+            }
+        }
+
+        assertEquals(1, cache.size());
+        assertEquals(1, counter.getHits());
+        assertEquals(1, counter.getMisses());
+    }
+
+    /**
+     * Tests that an image is encoded once and re-embedded unchanged in later documents
+     * through the PDF_ENCODED_IMAGES cache.
+     */
+    @Test
+    public void testEncodedImageCacheSharedAcrossDocuments() throws IOException {
+        BufferedImage image = new BufferedImage(40, 30, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setColor(Color.ORANGE);
+        g2d.fillRect(0, 0, 20, 30);
+        g2d.dispose();
+        ImageIO.write(image, "png", folder.newFile("image.png"));
+
+        FSBoundedCacheStore cache = new FSBoundedCacheStore(10, 10_000_000);
+        FSCountingCacheStore counter = new FSCountingCacheStore(cache);
+
+        String html = "<html><body><img src=\"image.png\" /></body></html>";
+        List<byte[]> encoded = new ArrayList<>();
+
+        for (int i = 0; i < 2; i++) {
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+            PdfRendererBuilder builder = new PdfRendererBuilder();
+            builder.withHtmlContent(html, folder.getRoot().toURI().toString());
+            builder.useFastMode();
+            builder.useCacheStore(CacheStore.PDF_ENCODED_IMAGES, counter);
+            builder.toStream(os);
+            builder.run();
+
+            try (PDDocument doc = PDDocument.load(os.toByteArray())) {
+                PDResources res = doc.getPage(0).getResources();
+                PDImageXObject img = (PDImageXObject) res.getXObject(res.getXObjectNames().iterator().next());
+
+                try (InputStream in = img.getCOSObject().createRawInputStream()) {
+                    encoded.add(IOUtils.toByteArray(in));
+                }
+                assertEquals(40, img.getWidth());
+            }
+        }
+
+        assertEquals(1, cache.size());
+        assertEquals(1, counter.getHits());
+        assertEquals(1, counter.getMisses());
+        assertArrayEquals(encoded.get(0), encoded.get(1));
+    }
+}
@@ -0,0 +1,109 @@
+package com.openhtmltopdf.pdfboxout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.openhtmltopdf.extend.impl.FSBoundedCacheStore;
+import com.openhtmltopdf.extend.impl.FSCountingCacheStore;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder.CacheStore;
+
+public class PdfRendererSettingsTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static String fontNames(PDDocument doc) throws Exception {
+        StringBuilder names = new StringBuilder();
+        for (COSName name : doc.getPage(0).getResources().getFontNames()) {
+            PDFont font = doc.getPage(0).getResources().getFont(name);
+            names.append(font.getName());
+        }
+        return names.toString();
+    }
+
+    /**
+     * Tests that builders from shared settings, used on several threads, each render
+     * their own document while sharing the parsed linked stylesheet and font file.
+     */
+    @Test
+    public void testSettingsSharedAcrossThreads() throws Exception {
+        File font = folder.newFile("shared.ttf");
+        try (InputStream in = PDDocument.class.getResourceAsStream("/org/apache/pdfbox/resources/ttf/LiberationSans-Regular.ttf")) {
+            Files.copy(in, font.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        File css = folder.newFile("style.css");
+        Files.write(css.toPath(), "body { margin: 0; font-family: 'Shared'; }".getBytes(StandardCharsets.UTF_8));
+
+        FSCountingCacheStore stylesheets = new FSCountingCacheStore(new FSBoundedCacheStore(16, Long.MAX_VALUE));
+        FSCountingCacheStore fonts = new FSCountingCacheStore(new FSBoundedCacheStore(16, Long.MAX_VALUE));
+
+        PdfRendererSettings settings = new PdfRendererBuilder()
+                .useFastMode()
+                .useFont(font, "Shared")
+                .useCacheStore(CacheStore.CSS_STYLESHEETS, stylesheets)
+                .useCacheStore(CacheStore.PDF_TRUETYPE_FONTS, fonts)
+                .buildSettings();
+
+        String baseUri = folder.getRoot().toURI().toString();
+        String head = "<head><link rel=\"stylesheet\" href=\"style.css\" /></head>";
+        settings.warmUp("<html>" + head + "<body>WARM</body></html>", baseUri);
+
+        assertEquals(0, stylesheets.getHits());
+        assertEquals(1, stylesheets.getMisses());
+        assertEquals(0, fonts.getHits());
+        assertEquals(1, fonts.getMisses());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            List<Future<String>> texts = new ArrayList<>();
+
+            for (int i = 0; i < 8; i++) {
+                String html = "<html>" + head + "<body>DOCUMENT " + i + "</body></html>";
+
+                texts.add(executor.submit(() -> {
+                    ByteArrayOutputStream os = new ByteArrayOutputStream();
+                    settings.newBuilder()
+                        .withHtmlContent(html, baseUri)
+                        .toStream(os)
+                        .run();
+
+                    try (PDDocument doc = PDDocument.load(os.toByteArray())) {
+                        assertTrue(fontNames(doc).contains("LiberationSans"));
+                        return new PDFTextStripper().getText(doc).trim();
+                    }
+                }));
+            }
+
+            for (int i = 0; i < texts.size(); i++) {
+                assertEquals("DOCUMENT " + i, texts.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(8, stylesheets.getHits());
+        assertEquals(1, stylesheets.getMisses());
+        assertEquals(8, fonts.getHits());
+        assertEquals(1, fonts.getMisses());
+    }
+}
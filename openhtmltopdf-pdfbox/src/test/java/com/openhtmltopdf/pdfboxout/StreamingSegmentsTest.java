@@ -0,0 +1,223 @@
+package com.openhtmltopdf.pdfboxout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.destination.PDPageDestination;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
+import org.apache.pdfbox.pdmodel.interactive.form.PDField;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.Test;
+
+public class StreamingSegmentsTest {
+    private static byte[] renderSectionsDocument(boolean streaming, AtomicInteger segments) throws IOException {
+        StringBuilder html = new StringBuilder();
+        html.append("<html><head><style>@page { size: 200px 200px; margin: 30px 10px; " +
+                    "@top-center { content: element(header); } @bottom-center { content: counter(page); } } " +
+                    "@page :left { @bottom-left { content: 'left'; } } " +
+                    "#header { position: running(header); } " +
+                    "section { page-break-before: always; } section.last { page-break-after: always; }</style></head><body>" +
+                    "<div id=\"header\">Report</div>");
+
+        for (int i = 0; i < 20; i++) {
+            html.append("<section").append(i == 10 ? " class=\"last\"" : "").append(">");
+            for (int j = 0; j < 1 + i % 3; j++) {
+                html.append("<p style=\"height: 100px;\">Section ").append(i).append(" part ").append(j).append("</p>");
+            }
+            html.append("</section>");
+        }
+
+        html.append("<p>End</p></body></html>");
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.withHtmlContent(html.toString(), null);
+        builder.useFastMode();
+        builder.addDOMMutator(doc -> segments.incrementAndGet());
+        if (streaming) {
+            builder.useStreamingSegments();
+        }
+        builder.toStream(os);
+        builder.run();
+
+        return os.toByteArray();
+    }
+
+    /**
+     * Tests that rendering a document in streaming segments produces the same pages,
+     * page numbers and running headers as rendering it as a whole.
+     */
+    @Test
+    public void testStreamingSegmentsMatchWholeDocument() throws IOException {
+        AtomicInteger segments = new AtomicInteger();
+
+        try (PDDocument whole = PDDocument.load(renderSectionsDocument(false, new AtomicInteger()));
+             PDDocument streamed = PDDocument.load(renderSectionsDocument(true, segments))) {
+
+            // Split before each section except the first.
+            assertEquals(20, segments.get());
+
+            assertEquals(whole.getNumberOfPages(), streamed.getNumberOfPages());
+
+            PDFTextStripper stripper = new PDFTextStripper();
+            for (int i = 1; i <= whole.getNumberOfPages(); i++) {
+                stripper.setStartPage(i);
+                stripper.setEndPage(i);
+                assertEquals(stripper.getText(whole), stripper.getText(streamed));
+            }
+
+            stripper.setStartPage(whole.getNumberOfPages() - 1);
+            stripper.setEndPage(whole.getNumberOfPages() - 1);
+            assertTrue(stripper.getText(streamed).contains("Report"));
+            assertTrue(stripper.getText(streamed).contains("Section 19 part 1"));
+        }
+    }
+
+    private static byte[] renderFormSectionsDocument(boolean streaming) throws IOException {
+        StringBuilder html = new StringBuilder();
+        html.append("<html><head><style>@page { size: 300px 300px; } " +
+                    "section { page-break-before: always; }</style></head><body>" +
+                    "<section><p>No form</p></section>");
+
+        for (int i = 1; i <= 3; i++) {
+            html.append("<section><form action=\"/submit").append(i).append("\">")
+                .append("<input type=\"text\" name=\"text").append(i).append("\" value=\"v\"/>")
+                .append("<input type=\"checkbox\" name=\"check").append(i).append("\"/>")
+                .append("<input type=\"radio\" name=\"radio").append(i).append("\" value=\"a\"/>")
+                .append("<input type=\"radio\" name=\"radio").append(i).append("\" value=\"b\"/>")
+                .append("</form></section>");
+        }
+
+        html.append("</body></html>");
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.withHtmlContent(html.toString(), null);
+        builder.useFastMode();
+        if (streaming) {
+            builder.useStreamingSegments();
+        }
+        builder.toStream(os);
+        builder.run();
+
+        return os.toByteArray();
+    }
+
+    private static List<String> fieldNames(PDDocument doc) {
+        List<String> names = new ArrayList<>();
+        for (PDField field : doc.getDocumentCatalog().getAcroForm().getFieldTree()) {
+            names.add(field.getFullyQualifiedName());
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * Tests that forms in several streaming segments each get their widgets once and
+     * their fields in the one AcroForm of the document, as when rendered as a whole.
+     */
+    @Test
+    public void testStreamingSegmentsWithForms() throws IOException {
+        try (PDDocument whole = PDDocument.load(renderFormSectionsDocument(false));
+             PDDocument streamed = PDDocument.load(renderFormSectionsDocument(true))) {
+
+            assertEquals(whole.getNumberOfPages(), streamed.getNumberOfPages());
+
+            int widgets = 0;
+            for (int i = 0; i < whole.getNumberOfPages(); i++) {
+                int count = streamed.getPage(i).getAnnotations().size();
+                assertEquals("Page " + i, whole.getPage(i).getAnnotations().size(), count);
+                widgets += count;
+            }
+            // A text field, checkbox and two radio buttons per form.
+            assertEquals(12, widgets);
+
+            assertEquals(fieldNames(whole), fieldNames(streamed));
+            assertEquals(
+                    whole.getDocumentCatalog().getAcroForm().getFields().size(),
+                    streamed.getDocumentCatalog().getAcroForm().getFields().size());
+        }
+    }
+
+    private static byte[] renderBookmarksDocument(boolean streaming) throws IOException {
+        StringBuilder html = new StringBuilder();
+        html.append("<html><head><style>@page { size: 200px 200px; } " +
+                    "section + section { page-break-before: always; }</style><bookmarks>");
+
+        for (int i = 0; i < 5; i++) {
+            html.append("<bookmark name=\"Section ").append(i).append("\" href=\"#s").append(i).append("\">");
+            if (i == 2) {
+                html.append("<bookmark name=\"Part\" href=\"#p2\"/>");
+            }
+            html.append("</bookmark>");
+        }
+
+        html.append("</bookmarks></head><body>");
+
+        for (int i = 0; i < 5; i++) {
+            html.append("<section id=\"s").append(i).append("\"><p id=\"p").append(i).append("\">Section ")
+                .append(i).append("</p></section>");
+        }
+
+        html.append("</body></html>");
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.withHtmlContent(html.toString(), null);
+        builder.useFastMode();
+        if (streaming) {
+            builder.useStreamingSegments();
+        }
+        builder.toStream(os);
+        builder.run();
+
+        return os.toByteArray();
+    }
+
+    private static List<String> outlineTargets(PDDocument doc, Iterable<PDOutlineItem> items) throws IOException {
+        List<String> targets = new ArrayList<>();
+        for (PDOutlineItem item : items) {
+            PDPageDestination dest = (PDPageDestination) item.getDestination();
+            targets.add(item.getTitle() + '@' + doc.getPages().indexOf(dest.getPage()));
+            targets.addAll(outlineTargets(doc, item.children()));
+        }
+        return targets;
+    }
+
+    /**
+     * Tests that a document rendered in streaming segments gets its outline once,
+     * with each bookmark linking to the page of its target in whichever segment it is.
+     */
+    @Test
+    public void testStreamingSegmentsWithBookmarks() throws IOException {
+        try (PDDocument whole = PDDocument.load(renderBookmarksDocument(false));
+             PDDocument streamed = PDDocument.load(renderBookmarksDocument(true))) {
+
+            assertEquals(5, streamed.getNumberOfPages());
+
+            PDDocumentOutline outline = streamed.getDocumentCatalog().getDocumentOutline();
+            List<PDOutlineItem> top = new ArrayList<>();
+            outline.children().forEach(top::add);
+
+            assertEquals(5, top.size());
+            assertNull(top.get(4).getNextSibling());
+
+            List<String> expected = outlineTargets(whole, whole.getDocumentCatalog().getDocumentOutline().children());
+            List<String> actual = outlineTargets(streamed, outline.children());
+
+            assertEquals(6, actual.size());
+            assertEquals("Section 3@3", actual.get(4));
+            assertEquals(expected, actual);
+        }
+    }
+}
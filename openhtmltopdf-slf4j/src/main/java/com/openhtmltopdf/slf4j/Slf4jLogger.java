@@ -56,18 +56,29 @@ public class Slf4jLogger implements XRLogger {
 
     @Override
     public boolean isLogLevelEnabled(Diagnostic diagnostic) {
-        Level level = diagnostic.getLevel();
-        Logger logger = LoggerFactory.getLogger(getLoggerName(diagnostic.getLogMessageId().getWhere()));
+        return isLogLevelEnabled(diagnostic.getLogMessageId().getWhere(), diagnostic.getLevel());
+    }
+
+    /**
+     * Whether the slf4j logger for where logs messages at level, mapped to slf4j levels as
+     * when logging (FINEST to trace, FINE and FINER to debug). XRLog caches the result, so call
+     * {@link XRLog#refreshLevels()} after changing levels in the slf4j implementation.
+     */
+    @Override
+    public boolean isLogLevelEnabled(String where, Level level) {
+        Logger logger = LoggerFactory.getLogger(getLoggerName(where));
         if (level == Level.SEVERE) {
             return logger.isErrorEnabled();
         } else if (level == Level.WARNING) {
             return logger.isWarnEnabled();
         } else if (level == Level.INFO || level == Level.CONFIG) {
             return logger.isInfoEnabled();
-        } else if (level == Level.FINE || level == Level.FINER || level == Level.FINEST) {
+        } else if (level == Level.FINE || level == Level.FINER) {
             return logger.isDebugEnabled();
+        } else if (level == Level.FINEST) {
+            return logger.isTraceEnabled();
         } else {
-            return true;
+            return logger.isInfoEnabled();
         }
     }
 
@@ -83,8 +94,10 @@ public class Slf4jLogger implements XRLogger {
             logger.warn(msg, args);
         else if (level == Level.INFO || level == Level.CONFIG)
             logger.info(msg, args);
-        else if (level == Level.FINE || level == Level.FINER || level == Level.FINEST)
+        else if (level == Level.FINE || level == Level.FINER)
             logger.debug(msg, args);
+        else if (level == Level.FINEST)
+            logger.trace(msg, args);
         else
             logger.info(msg, args);
     }
@@ -99,8 +112,10 @@ public class Slf4jLogger implements XRLogger {
     		logger.warn(msg);
     	else if (level == Level.INFO || level == Level.CONFIG)
     		logger.info(msg);
-    	else if (level == Level.FINE || level == Level.FINER || level == Level.FINEST)
+    	else if (level == Level.FINE || level == Level.FINER)
     		logger.debug(msg);
+    	else if (level == Level.FINEST)
+    		logger.trace(msg);
     	else
     		logger.info(msg);
     }
@@ -115,8 +130,10 @@ public class Slf4jLogger implements XRLogger {
     		logger.warn(msg, th);
     	else if (level == Level.INFO || level == Level.CONFIG)
     		logger.info(msg, th);
-    	else if (level == Level.FINE || level == Level.FINER || level == Level.FINEST)
+    	else if (level == Level.FINE || level == Level.FINER)
     		logger.debug(msg, th);
+    	else if (level == Level.FINEST)
+    		logger.trace(msg, th);
     	else
     		logger.info(msg, th);
     }
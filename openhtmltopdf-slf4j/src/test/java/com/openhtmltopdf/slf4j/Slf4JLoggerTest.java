@@ -3,6 +3,7 @@ package com.openhtmltopdf.slf4j;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.logging.Level;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -12,6 +13,8 @@ import com.openhtmltopdf.util.XRLog;
 
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class Slf4JLoggerTest {
 
@@ -46,6 +49,15 @@ public class Slf4JLoggerTest {
 
         assertThat(log, containsString("] [INFO]"));
         assertThat(log, containsString("] [WARN]"));
+
+        // Levels disabled in slf4j (the simple logger logs info and above by default)
+        // are reported as disabled, so that XRLog skips building their messages.
+        Slf4jLogger logger = (Slf4jLogger) XRLog.getLoggerImpl();
+        assertTrue(logger.isLogLevelEnabled(XRLog.GENERAL, Level.SEVERE));
+        assertTrue(logger.isLogLevelEnabled(XRLog.GENERAL, Level.INFO));
+        assertFalse(logger.isLogLevelEnabled(XRLog.GENERAL, Level.FINE));
+        assertFalse(logger.isLogLevelEnabled(XRLog.CASCADE, Level.FINEST));
+        assertFalse(XRLog.isLoggable(Level.FINE, XRLog.GENERAL));
     }
 
     /**